@@ -1,4 +1,10 @@
 /*
+ * @version 2016/12/09
+ * - when objects change, repaints only the area they covered before and after the change
+ * - paints only the objects that overlap the clipping rectangle
+ * @version 2016/12/05
+ * - added raw ARGB pixel get/set (getPixelsRaw, setPixels, setPixelsRaw)
+ * - added setPixels from an IntBuffer
  * @version 2016/10/21
  * - added drawPolarLine
  * @version 2016/10/16
@@ -52,6 +58,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
 import java.awt.image.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.*;
 import javax.swing.*;
 import stanford.spl.GBufferedImage;
@@ -76,6 +84,8 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 	private Graphics2D osg = null;
 	private boolean autoRepaint;
 	private boolean nativeArcFlag;
+	private IdentityHashMap<GObject, Boolean> changedRoots = new IdentityHashMap<GObject, Boolean>();
+	private boolean changeRepaintPending;
 	
 	/**
 	 * Creates a new <code>GCanvas</code> that contains no objects.
@@ -207,9 +217,10 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 	}
 
 	/**
-	 * Repaints the canvas if auto-repaint is in effect.  This method is called only
-	 * by the <a href="GObject.html#repaint()"><code>repaint</code></a> method in
-	 * <code>GObject</code> and is not accessible outside the package.
+	 * Repaints the whole canvas if auto-repaint is in effect.  Changes to individual
+	 * objects are instead reported to <code>objectChanged</code> by the
+	 * <a href="GObject.html#repaint()"><code>repaint</code></a> method in
+	 * <code>GObject</code>, so that only the area they affect is repainted.
 	 *
 	 * @usage gc.conditionalRepaint();
 	 * @noshow
@@ -223,6 +234,72 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 		}
 	}
 
+	/**
+	 * Records that the specified object, which is either one of the objects on this
+	 * canvas or a compound painted by a subclass, has changed.  If <code>self</code>
+	 * is <code>false</code>, only something inside the compound changed.  When
+	 * auto-repaint is in effect, the area affected by the change is repainted.
+	 * This method is called only by the <code>repaint</code> method in
+	 * <code>GObject</code>.
+	 *
+	 * @noshow
+	 */
+	void objectChanged(GObject gobj, boolean self) {
+		boolean schedule;
+		synchronized (contents) {
+			if (!contents.markChanged(gobj, self)) {
+				Boolean previous = changedRoots.get(gobj);
+				changedRoots.put(gobj, self || (previous != null && previous));
+			}
+			schedule = autoRepaint && !changeRepaintPending;
+			if (schedule) changeRepaintPending = true;
+		}
+		if (schedule) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					synchronized (contents) {
+						changeRepaintPending = false;
+					}
+					repaintDamage(collectDamage());
+				}
+			});
+		}
+	}
+
+	/**
+	 * Brings the spatial index of every changed object up to date and returns
+	 * the area of the canvas that must be repainted as a result.
+	 */
+	private GObjectList.Damage collectDamage() {
+		GObjectList.Damage damage = new GObjectList.Damage();
+		synchronized (contents) {
+			contents.updateIndex(damage);
+			for (Map.Entry<GObject, Boolean> root : changedRoots.entrySet()) {
+				GObject gobj = root.getKey();
+				if (root.getValue() || !(gobj instanceof GCompound) || gobj.getMatrix() != null
+						|| gobj.getX() != 0 || gobj.getY() != 0) {
+					damage.setFull();
+				}
+				if (gobj instanceof GCompound) {
+					((GCompound) gobj).updateIndex(damage.isFull() ? null : damage);
+				}
+			}
+			changedRoots.clear();
+		}
+		return damage;
+	}
+
+	/**
+	 * Repaints the given damaged area, if any.
+	 */
+	private void repaintDamage(GObjectList.Damage damage) {
+		if (damage.isFull()) {
+			repaint();
+		} else if (damage.getArea() != null) {
+			repaint(damage.getArea());
+		}
+	}
+
 	/**
 	 * Dispatches this mouse event to the uppermost graphical object for which
 	 * the active point is within the object bounds.
@@ -440,6 +517,13 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 	public String getPixelsAsString() {
 		return GBufferedImage.toStringBase64(bufferedImage);
 	}
+	
+	/**
+	 * Returns the given rectangle of this canvas's pixels as 4-byte big-endian ARGB values.
+	 */
+	public byte[] getPixelsRaw(int x, int y, int width, int height) {
+		return GBufferedImage.getPixelsRaw(bufferedImage, x, y, width, height);
+	}
 
 	public int getRGB(int x, int y) {
 		return inBounds(x, y) ? bufferedImage.getRGB(x, y) : 0;
@@ -490,6 +574,14 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 	 * @noshow
 	 */
 	public void paintComponent(Graphics g) {
+		GObjectList.Damage damage = collectDamage();
+		Rectangle clip = g.getClipBounds();
+		if (autoRepaint && clip != null && !clip.contains(new Rectangle(getSize()))) {
+			// changes made since the repaint that led here was requested may lie outside the clip
+			if (damage.isFull() || (damage.getArea() != null && !clip.contains(damage.getArea()))) {
+				repaintDamage(damage);
+			}
+		}
 		super.paintComponent(g);
 		if (bufferedImage != null) {
 			g.drawImage(bufferedImage, 0, 0, this);
@@ -612,6 +704,32 @@ public class GCanvas extends JComponent implements GContainer, Iterable<GObject>
 		GBufferedImage.fromStringBase64(base64, bufferedImage);
 		conditionalRepaint();
 	}
+	
+	/**
+	 * Copies the given row-major rectangle of ARGB pixels into this canvas at (x, y).
+	 */
+	public void setPixels(int x, int y, int width, int height, int[] argb) {
+		GBufferedImage.setPixels(bufferedImage, x, y, width, height, argb, 0);
+		conditionalRepaint();
+	}
+	
+	/**
+	 * Copies the given row-major rectangle of ARGB pixels into this canvas at (x, y).
+	 * The buffer's position is not changed.
+	 */
+	public void setPixels(int x, int y, int width, int height, IntBuffer argb) {
+		GBufferedImage.setPixels(bufferedImage, x, y, width, height, argb);
+		conditionalRepaint();
+	}
+	
+	/**
+	 * Copies the given rectangle of 4-byte big-endian ARGB pixels into this canvas at (x, y).
+	 * Only the changed region needs to be sent, so this can also be used for dirty-rectangle updates.
+	 */
+	public void setPixelsRaw(int x, int y, int width, int height, ByteBuffer argbBytes) {
+		GBufferedImage.setPixelsRaw(bufferedImage, x, y, width, height, argbBytes);
+		conditionalRepaint();
+	}
 
 	public void setRGB(int x, int y, int rgb) {
 		setRGB(x, y, rgb, /* repaint */ false);
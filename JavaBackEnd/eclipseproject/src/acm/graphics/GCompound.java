@@ -1,4 +1,8 @@
 /*
+ * @version 2016/12/10
+ * - added optional render cache for compounds whose contents rarely change (setCached)
+ * @version 2016/12/09
+ * - child changes are recorded in the contents list's spatial index (see GObjectList)
  * @version 2016/05/05
  * - re-synched with eroberts source; sort methods by name
  */
@@ -42,6 +46,8 @@ package acm.graphics;
 import acm.util.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.*;
 
 /**
@@ -57,11 +63,27 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 */
 	static final long serialVersionUID = 1L;
 
+	/**
+	 * The largest number of pixels a compound's render cache may hold.
+	 * Larger compounds are painted directly even if caching is enabled.
+	 */
+	public static final int MAX_CACHE_PIXELS = 4096 * 4096;
+
 	/* Private instance variables */
 	private boolean complete;
 	private GObjectList contents;
 	private GObject lastObject;
 	private GObject dragObject;
+	private boolean cached;
+
+	/* Render cache (see setCached); rebuilt when cacheVersion changes */
+	private transient volatile int cacheVersion;
+	private transient int renderedVersion = -1;
+	private transient BufferedImage cacheImage;
+	private transient int cacheX;
+	private transient int cacheY;
+	private transient Color cacheColor;
+	private transient Font cacheFont;
 
 	/**
 	 * Creates a new <code>GCompound</code> object with no internal components.
@@ -85,6 +107,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 					+ "marked as complete.");
 		}
 		contents.add(gobj);
+		invalidateCache();
 		repaint();
 	}
 
@@ -312,6 +335,17 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 		return getLocalPoint(canvasPoint.getX(), canvasPoint.getY());
 	}
 
+	/**
+	 * Returns <code>true</code> if this compound keeps a render cache.
+	 *
+	 * @usage if (gcomp.isCached()) . . .
+	 * @return <code>true</code> if the render cache is enabled
+	 * @see #setCached(boolean)
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
 	/**
 	 * Returns an <code>Iterator</code> that cycles through the elements within
 	 * this container in the default direction, which is from back to front.
@@ -375,9 +409,126 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 * @noshow
 	 */
 	protected void paint2d(Graphics2D g) {
-		Graphics g2 = g.create();
+		Graphics2D g2 = (Graphics2D) g.create();
 		g2.translate(GMath.round(getX()), GMath.round(getY()));
-		contents.mapPaint(g2);
+		if (!cached || !paintCached(g2)) {
+			contents.mapPaint(g2);
+		}
+	}
+
+	/**
+	 * Draws this compound's contents from its render cache, first re-rendering
+	 * the cache if anything in the compound has changed since it was drawn.
+	 * Returns <code>false</code> if the contents must be painted directly instead.
+	 */
+	private boolean paintCached(Graphics2D g) {
+		if ((g.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+			// a cached bitmap would look blurry if scaled or rotated
+			return false;
+		}
+		int version = cacheVersion;
+		if (version != renderedVersion || !g.getColor().equals(cacheColor)
+				|| !g.getFont().equals(cacheFont)) {
+			renderCache(g);
+			renderedVersion = version;
+		}
+		if (cacheImage == null) {
+			return false;
+		}
+		g.drawImage(cacheImage, cacheX, cacheY, null);
+		return true;
+	}
+
+	/**
+	 * Paints this compound's contents into a new cache image that covers their
+	 * bounds, using the color, font and rendering hints of <code>g</code>.
+	 * Leaves the cache empty if the contents cannot be cached faithfully.
+	 */
+	private void renderCache(Graphics2D g) {
+		cacheImage = null;
+		cacheColor = g.getColor();
+		cacheFont = g.getFont();
+		double lineWidth = getCacheableLineWidth(this);
+		if (lineWidth < 0) {
+			return;
+		}
+		GRectangle bounds = contents.getBounds();
+		double margin = GObjectList.PAINT_MARGIN + Math.ceil(lineWidth / 2);
+		int x0 = (int) Math.floor(bounds.getX() - margin);
+		int y0 = (int) Math.floor(bounds.getY() - margin);
+		int x1 = (int) Math.ceil(bounds.getX() + bounds.getWidth() + margin);
+		int y1 = (int) Math.ceil(bounds.getY() + bounds.getHeight() + margin);
+		if ((long) (x1 - x0) * (y1 - y0) > MAX_CACHE_PIXELS) {
+			return;
+		}
+		BufferedImage image = new BufferedImage(x1 - x0, y1 - y0, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D cg = image.createGraphics();
+		cg.setRenderingHints(g.getRenderingHints());
+		cg.setColor(cacheColor);
+		cg.setFont(cacheFont);
+		cg.setStroke(g.getStroke());
+		cg.translate(-x0, -y0);
+		contents.mapPaint(cg);
+		cg.dispose();
+		cacheImage = image;
+		cacheX = x0;
+		cacheY = y0;
+	}
+
+	/**
+	 * Returns the widest line width used by any object in the compound, or -1
+	 * if some object may be painted outside the compound's bounds: one that is
+	 * rotated or scaled, or a nested compound that is not at the origin.
+	 */
+	private static double getCacheableLineWidth(GCompound gcomp) {
+		double widest = 0;
+		int nElements = gcomp.getElementCount();
+		for (int i = 0; i < nElements; i++) {
+			GObject gobj = gcomp.getElement(i);
+			if (gobj.getMatrix() != null) {
+				return -1;
+			}
+			double lineWidth = gobj.getLineWidth();
+			if (gobj instanceof GCompound) {
+				if (gobj.getX() != 0 || gobj.getY() != 0) {
+					return -1;
+				}
+				lineWidth = getCacheableLineWidth((GCompound) gobj);
+				if (lineWidth < 0) {
+					return -1;
+				}
+			}
+			widest = Math.max(widest, lineWidth);
+		}
+		return widest;
+	}
+
+	/**
+	 * Discards the render cache so that it is redrawn the next time it is painted.
+	 */
+	private void invalidateCache() {
+		cacheVersion++;
+	}
+
+	/**
+	 * Records that the specified child object, or something inside it, has changed.
+	 * Called only by the <code>repaint</code> method in <code>GObject</code>.
+	 *
+	 * @noshow
+	 */
+	void childChanged(GObject gobj, boolean self) {
+		contents.markChanged(gobj, self);
+		invalidateCache();
+	}
+
+	/**
+	 * Brings the spatial index of this compound's contents up to date, adding
+	 * the area that changed to <code>damage</code> if it is not <code>null</code>.
+	 *
+	 * @noshow
+	 */
+	void updateIndex(GObjectList.Damage damage) {
+		contents.updateIndex(damage);
 	}
 
 	/**
@@ -392,6 +543,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 					+ "marked as complete.");
 		}
 		contents.remove(gobj);
+		invalidateCache();
 		repaint();
 	}
 
@@ -406,6 +558,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 					+ "marked as complete.");
 		}
 		contents.removeAll();
+		invalidateCache();
 		repaint();
 	}
 
@@ -447,6 +600,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 */
 	protected void sendBackward(GObject gobj) {
 		contents.sendBackward(gobj);
+		invalidateCache();
 		repaint();
 	}
 
@@ -459,6 +613,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 */
 	protected void sendForward(GObject gobj) {
 		contents.sendForward(gobj);
+		invalidateCache();
 		repaint();
 	}
 
@@ -471,6 +626,7 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 */
 	protected void sendToBack(GObject gobj) {
 		contents.sendToBack(gobj);
+		invalidateCache();
 		repaint();
 	}
 
@@ -483,6 +639,25 @@ public class GCompound extends GObject implements GContainer, GScalable, Iterabl
 	 */
 	protected void sendToFront(GObject gobj) {
 		contents.sendToFront(gobj);
+		invalidateCache();
+		repaint();
+	}
+
+	/**
+	 * Sets whether this compound keeps a render cache: an image of its
+	 * contents that is drawn in one step instead of painting each object.
+	 * The cache is redrawn only when something inside the compound changes,
+	 * so it is useful for a large, mostly static compound such as a game board
+	 * or maze background with a few moving objects painted above it.
+	 * Moving the compound itself does not redraw the cache.
+	 *
+	 * @usage gcomp.setCached(cached);
+	 * @param cached <code>true</code> to enable the render cache
+	 */
+	public void setCached(boolean cached) {
+		this.cached = cached;
+		cacheImage = null;
+		invalidateCache();
 		repaint();
 	}
 }
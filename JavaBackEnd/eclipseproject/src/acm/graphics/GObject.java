@@ -1,4 +1,6 @@
 /*
+ * @version 2016/12/09
+ * - repaint tells each enclosing container which object changed, for dirty-region repaint
  * @version 2016/05/05
  * - re-synched with eroberts source
  * - alphabetized method names
@@ -705,12 +707,19 @@ public abstract class GObject implements Cloneable, Serializable, GScalable {
 	 * @noshow
 	 */
 	protected void repaint() {
+		GObject changed = this;
+		boolean self = true;
 		GContainer parent = getParent();
 		while (parent instanceof GObject) {
-			parent = ((GObject) parent).getParent();
+			if (parent instanceof GCompound) {
+				((GCompound) parent).childChanged(changed, self);
+			}
+			changed = (GObject) parent;
+			self = false;
+			parent = changed.getParent();
 		}
 		if (parent instanceof GCanvas) {
-			((GCanvas) parent).conditionalRepaint();
+			((GCanvas) parent).objectChanged(changed, self);
 		}
 	}
 
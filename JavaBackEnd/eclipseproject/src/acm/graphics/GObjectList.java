@@ -0,0 +1,636 @@
+/*
+ * @version 2016/12/28
+ * - moved out of GContainer.java
+ * @version 2016/12/09
+ * - keeps objects in a spatial index and z-order map; tracks changed objects
+ */
+
+// ************************************************************************
+// * Copyright (c) 2008 by the Association for Computing Machinery        *
+// *                                                                      *
+// * The Java Task Force seeks to impose few restrictions on the use of   *
+// * these packages so that users have as much freedom as possible to     *
+// * use this software in constructive ways and can make the benefits of  *
+// * that work available to others.  In view of the legal complexities    *
+// * of software development, however, it is essential for the ACM to     *
+// * maintain its copyright to guard against attempts by others to        *
+// * claim ownership rights.  The full text of the JTF Software License   *
+// * is available at the following URL:                                   *
+// *                                                                      *
+// *          http://www.acm.org/jtf/jtf-software-license.pdf             *
+// *                                                                      *
+// ************************************************************************
+
+package acm.graphics;
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+
+/* Package class: GObjectList */
+/**
+ * This class implements a synchronized list of <code>GObject</code> values
+ * that is shared by both <code>GCompound</code> and <code>GCanvas</code>.
+ *
+ * <p>Objects are kept in <i>z</i> order by giving each one a numeric key in a
+ * <code>TreeMap</code>, so that moving an object to the front or back takes
+ * logarithmic rather than linear time.  The list also keeps a spatial index:
+ * a uniform grid of cells, each holding the objects whose bounds overlap it.
+ * Hit tests and painting examine only the objects in the cells they touch.
+ *
+ * <p>When an object's location, size or appearance changes, its
+ * <a href="GObject.html#repaint()"><code>repaint</code></a> method marks it as
+ * changed in its parent's list.  Changed objects are always treated as
+ * candidates by hit tests and painting, so the index is never out of date;
+ * their index entries are moved when the owning canvas calls
+ * <code>updateIndex</code>, which also reports the area that needs repainting.
+ */
+class GObjectList implements Serializable {
+
+/* Constant: CELL_SIZE */
+/** The width and height of one cell of the spatial index, in pixels. */
+	public static final int CELL_SIZE = 64;
+
+/* Constant: MAX_CELLS_PER_OBJECT */
+/**
+ * Objects that would cover more cells than this are not put in the grid;
+ * they are kept in a separate list that every query examines.
+ */
+	public static final int MAX_CELLS_PER_OBJECT = 256;
+
+/* Constant: MIN_INDEXED_PAINT */
+/**
+ * Lists with fewer objects than this are painted without consulting the index.
+ */
+	public static final int MIN_INDEXED_PAINT = 64;
+
+/* Constant: PAINT_MARGIN */
+/**
+ * Extra pixels added around each object's bounds to allow for line width
+ * and antialiasing when deciding what to repaint.
+ */
+	public static final int PAINT_MARGIN = 2;
+
+/* Constructor: new GObjectList(container) */
+/**
+ * Creates a new <code>GObjectList</code> with no elements.
+ *
+ * @param container The <code>GCanvas</code> or <code>GCompound</code> that owns this list.
+ */
+	public GObjectList(GContainer container) {
+		parent = container;
+		entries = new IdentityHashMap<GObject, Entry>();
+		zOrder = new TreeMap<Long, Entry>();
+		cells = new HashMap<Long, ArrayList<Entry>>();
+		oversized = new ArrayList<Entry>();
+		changedEntries = new ArrayList<Entry>();
+	}
+
+/* Method: add(gobj) */
+/**
+ * Adds the specified <code>GObject</code> to the end of the contents list
+ * and to the spatial index.
+ */
+	public synchronized void add(GObject gobj) {
+		if (gobj.getParent() != null) gobj.getParent().remove(gobj);
+		gobj.setParent(parent);
+		Entry entry = new Entry(gobj, ++maxZ);
+		entry.enabled = gobj.areMouseListenersEnabled();
+		entries.put(gobj, entry);
+		zOrder.put(entry.z, entry);
+		insertInIndex(entry);
+		contents = null;
+	}
+
+/* Method: remove(gobj) */
+/**
+ * Removes the specified object from the list.
+ */
+	public synchronized void remove(GObject gobj) {
+		Entry entry = entries.remove(gobj);
+		gobj.setParent(null);
+		if (entry != null) {
+			zOrder.remove(entry.z);
+			removeFromIndex(entry);
+			entry.removed = true;
+			contents = null;
+		}
+	}
+
+/* Method: removeAll() */
+/**
+ * Removes all objects from the list.
+ */
+	public synchronized void removeAll() {
+		entries.clear();
+		zOrder.clear();
+		cells.clear();
+		oversized.clear();
+		changedEntries.clear();
+		contents = null;
+	}
+
+/* Method: getElementCount() */
+/**
+ * Returns the number of elements in the list.
+ */
+	public synchronized int getElementCount() {
+		return zOrder.size();
+	}
+
+/* Method: getElement(index) */
+/**
+ * Returns the graphical object at the specified index, numbering from back
+ * to front in the the <i>z</i> dimension.
+ */
+	public synchronized GObject getElement(int index) {
+		return getContents().get(index);
+	}
+
+/* Method: getElementAt(x, y, requireEnabled) */
+/**
+ * Returns the topmost graphical object that contains the point
+ * (<code>x</code>, <code>y</code>), or <code>null</code> if no such
+ * object exists.
+ */
+	public synchronized GObject getElementAt(double x, double y, boolean requireEnabled) {
+		Entry best = null;
+		ArrayList<Entry> cell = cells.get(cellKey(cellIndex(x), cellIndex(y)));
+		if (cell != null) best = findTopmost(cell, x, y, requireEnabled, best);
+		best = findTopmost(oversized, x, y, requireEnabled, best);
+		best = findTopmost(changedEntries, x, y, requireEnabled, best);
+		return (best == null) ? null : best.gobj;
+	}
+
+/* Method: sendToFront(gobj) */
+/**
+ * Implements the <code>sendToFront</code> function from the <code>GContainer</code>
+ * interface.
+ */
+	public synchronized void sendToFront(GObject gobj) {
+		Entry entry = entries.get(gobj);
+		if (entry != null && entry.z != maxZ) {
+			setZ(entry, ++maxZ);
+		}
+	}
+
+/* Method: sendToBack(gobj) */
+/**
+ * Implements the <code>sendToBack</code> function from the <code>GContainer</code>
+ * interface.
+ */
+	public synchronized void sendToBack(GObject gobj) {
+		Entry entry = entries.get(gobj);
+		if (entry != null && entry.z != minZ) {
+			setZ(entry, --minZ);
+		}
+	}
+
+/* Method: sendForward(gobj) */
+/**
+ * Implements the <code>sendForward</code> function from the <code>GContainer</code>
+ * interface.
+ */
+	public synchronized void sendForward(GObject gobj) {
+		Entry entry = entries.get(gobj);
+		if (entry != null) {
+			Map.Entry<Long, Entry> next = zOrder.higherEntry(entry.z);
+			if (next != null) swapZ(entry, next.getValue());
+		}
+	}
+
+/* Method: sendBackward(gobj) */
+/**
+ * Implements the <code>sendBackward</code> function from the <code>GContainer</code>
+ * interface.
+ */
+	public synchronized void sendBackward(GObject gobj) {
+		Entry entry = entries.get(gobj);
+		if (entry != null) {
+			Map.Entry<Long, Entry> previous = zOrder.lowerEntry(entry.z);
+			if (previous != null) swapZ(entry, previous.getValue());
+		}
+	}
+
+/* Method: getBounds() */
+/**
+ * Returns the bounding rectangle for the objects in the list.
+ */
+	public synchronized GRectangle getBounds() {
+		GRectangle bounds = new GRectangle();
+		boolean first = true;
+		for (Entry entry : zOrder.values()) {
+			if (first) {
+				bounds = new GRectangle(entry.gobj.getBounds());
+				first = false;
+			} else {
+				bounds.add(entry.gobj.getBounds());
+			}
+		}
+		return bounds;
+	}
+
+/* Method: contains(x, y) */
+/**
+ * Checks to see whether a point is "inside" one of the objects on the list.
+ */
+	public synchronized boolean contains(double x, double y) {
+		return getElementAt(x, y, false) != null;
+	}
+
+/* Method: mapPaint(g) */
+/**
+ * Paints all the elements of this container using the graphics context <code>g</code>.
+ * Only the objects that can overlap the clipping rectangle of <code>g</code> are painted.
+ */
+	public synchronized void mapPaint(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		ArrayList<Entry> visible = (clip == null) ? null : findOverlapping(clip);
+		if (visible == null) {
+			for (Entry entry : zOrder.values()) {
+				entry.gobj.paint(g);
+			}
+			return;
+		}
+		Collections.sort(visible, Z_ORDER);
+		for (Entry entry : visible) {
+			entry.gobj.paint(g);
+		}
+	}
+
+/* Method: areMouseListenersEnabled() */
+/**
+ * Returns <code>true</code> if mouse listeners have ever been assigned to
+ * this object or to any of the contained objects.
+ */
+	public synchronized boolean areMouseListenersEnabled() {
+		for (Entry entry : zOrder.values()) {
+			if (entry.gobj.areMouseListenersEnabled()) return true;
+		}
+		return false;
+	}
+
+/* Method: updateEnabledList() */
+/**
+ * Recomputes which objects are enabled to receive mouse events.
+ */
+	public synchronized void updateEnabledList() {
+		for (Entry entry : zOrder.values()) {
+			entry.enabled = entry.gobj.areMouseListenersEnabled();
+		}
+	}
+
+/* Method: markChanged(gobj, self) */
+/**
+ * Records that the specified object has changed.  If <code>self</code> is
+ * <code>true</code>, the object itself changed; otherwise the object is a
+ * <code>GCompound</code> and only something inside it changed.  Returns
+ * <code>false</code> if the object is not in this list.
+ */
+	public synchronized boolean markChanged(GObject gobj, boolean self) {
+		Entry entry = entries.get(gobj);
+		if (entry == null) return false;
+		if (self) entry.selfChanged = true;
+		if (!entry.changed) {
+			entry.changed = true;
+			changedEntries.add(entry);
+		}
+		return true;
+	}
+
+/* Method: updateIndex(damage) */
+/**
+ * Moves every changed object to its new place in the spatial index.  If
+ * <code>damage</code> is not <code>null</code>, adds to it the area, in this
+ * list's coordinates, that must be repainted to show the changes.
+ */
+	public synchronized void updateIndex(Damage damage) {
+		if (changedEntries.isEmpty()) return;
+		ArrayList<Entry> list = changedEntries;
+		changedEntries = new ArrayList<Entry>();
+		for (Entry entry : list) {
+			entry.changed = false;
+			if (entry.removed) continue;
+			GObject gobj = entry.gobj;
+			boolean self = entry.selfChanged;
+			entry.selfChanged = false;
+			boolean exact = damage != null && !damage.isFull() && gobj.getMatrix() == null;
+			if (gobj instanceof GCompound) {
+				// a compound's children are painted relative to its location, so the
+				// damage can be narrowed to them only when the compound is at the origin
+				if (exact && !self && gobj.getX() == 0 && gobj.getY() == 0) {
+					((GCompound) gobj).updateIndex(damage);
+				} else {
+					if (damage != null) damage.setFull();
+					((GCompound) gobj).updateIndex(null);
+				}
+				exact = false;
+			} else if (damage != null && !exact) {
+				damage.setFull();
+			}
+			if (exact) damage.add(entry.x, entry.y, entry.width, entry.height, entry.margin);
+			removeFromIndex(entry);
+			insertInIndex(entry);
+			if (exact) damage.add(entry.x, entry.y, entry.width, entry.height, entry.margin);
+		}
+	}
+
+/* Private method: getContents() */
+/**
+ * Returns the objects in <i>z</i> order as an <code>ArrayList</code>, which
+ * is rebuilt only after the order has changed.
+ */
+	private ArrayList<GObject> getContents() {
+		if (contents == null) {
+			contents = new ArrayList<GObject>(zOrder.size());
+			for (Entry entry : zOrder.values()) {
+				contents.add(entry.gobj);
+			}
+		}
+		return contents;
+	}
+
+/* Private method: findTopmost(list, x, y, requireEnabled, best) */
+/**
+ * Returns whichever is frontmost of <code>best</code> and the objects in
+ * <code>list</code> that contain the point (<code>x</code>, <code>y</code>).
+ */
+	private Entry findTopmost(ArrayList<Entry> list, double x, double y,
+	                          boolean requireEnabled, Entry best) {
+		int n = list.size();
+		for (int i = 0; i < n; i++) {
+			Entry entry = list.get(i);
+			if (entry.removed || (best != null && entry.z <= best.z)) continue;
+			if (requireEnabled && !entry.enabled) continue;
+			if (entry.gobj.contains(x, y)) best = entry;
+		}
+		return best;
+	}
+
+/* Private method: findOverlapping(clip) */
+/**
+ * Returns the objects that can overlap the specified rectangle, in no
+ * particular order, or <code>null</code> if most objects can, in which case
+ * it is faster simply to paint all of them.
+ */
+	private ArrayList<Entry> findOverlapping(Rectangle clip) {
+		int col0 = cellIndex(clip.x);
+		int row0 = cellIndex(clip.y);
+		int col1 = cellIndex(clip.x + clip.width);
+		int row1 = cellIndex(clip.y + clip.height);
+		if (zOrder.size() < MIN_INDEXED_PAINT) return null;
+		long nCells = (long) (col1 - col0 + 1) * (row1 - row0 + 1);
+		if (nCells > cells.size()) return null;
+		int nFiled = oversized.size() + changedEntries.size();
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				ArrayList<Entry> cell = cells.get(cellKey(col, row));
+				if (cell != null) nFiled += cell.size();
+			}
+		}
+		if (nFiled > zOrder.size() / 2) return null;
+		int stamp = ++searchStamp;
+		ArrayList<Entry> result = new ArrayList<Entry>();
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				ArrayList<Entry> cell = cells.get(cellKey(col, row));
+				if (cell != null) addOverlapping(cell, clip, stamp, result);
+			}
+		}
+		addOverlapping(oversized, clip, stamp, result);
+		for (Entry entry : changedEntries) {
+			if (!entry.removed && entry.stamp != stamp) {
+				entry.stamp = stamp;
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+/* Private method: addOverlapping(list, clip, stamp, result) */
+/**
+ * Adds to <code>result</code> the entries in <code>list</code> whose indexed
+ * bounds overlap <code>clip</code> and that have not already been added.
+ */
+	private void addOverlapping(ArrayList<Entry> list, Rectangle clip, int stamp,
+	                            ArrayList<Entry> result) {
+		int n = list.size();
+		for (int i = 0; i < n; i++) {
+			Entry entry = list.get(i);
+			if (entry.stamp == stamp) continue;
+			entry.stamp = stamp;
+			double m = entry.margin;
+			if (entry.x - m <= clip.x + clip.width && entry.x + entry.width + m >= clip.x
+					&& entry.y - m <= clip.y + clip.height && entry.y + entry.height + m >= clip.y) {
+				result.add(entry);
+			}
+		}
+	}
+
+/* Private method: setZ(entry, z) */
+/**
+ * Gives the entry a new position in the <i>z</i> order.
+ */
+	private void setZ(Entry entry, long z) {
+		zOrder.remove(entry.z);
+		entry.z = z;
+		zOrder.put(z, entry);
+		contents = null;
+	}
+
+/* Private method: swapZ(e1, e2) */
+/**
+ * Exchanges the positions of two entries in the <i>z</i> order.
+ */
+	private void swapZ(Entry e1, Entry e2) {
+		long z1 = e1.z;
+		e1.z = e2.z;
+		e2.z = z1;
+		zOrder.put(e1.z, e1);
+		zOrder.put(e2.z, e2);
+		contents = null;
+	}
+
+/* Private method: insertInIndex(entry) */
+/**
+ * Records the object's current bounds in the entry and adds the entry to
+ * every grid cell those bounds overlap.
+ */
+	private void insertInIndex(Entry entry) {
+		GRectangle bounds = entry.gobj.getBounds();
+		if (bounds == null) bounds = new GRectangle();
+		entry.x = bounds.getX();
+		entry.y = bounds.getY();
+		entry.width = bounds.getWidth();
+		entry.height = bounds.getHeight();
+		entry.margin = PAINT_MARGIN + Math.ceil(entry.gobj.getLineWidth() / 2);
+		entry.col0 = cellIndex(entry.x - entry.margin);
+		entry.row0 = cellIndex(entry.y - entry.margin);
+		entry.col1 = cellIndex(entry.x + entry.width + entry.margin);
+		entry.row1 = cellIndex(entry.y + entry.height + entry.margin);
+		long nCells = (long) (entry.col1 - entry.col0 + 1) * (entry.row1 - entry.row0 + 1);
+		if (nCells > MAX_CELLS_PER_OBJECT || entry.gobj.getMatrix() != null) {
+			// rotated and scaled objects are painted outside their bounds
+			entry.col0 = Integer.MAX_VALUE;
+			oversized.add(entry);
+			return;
+		}
+		for (int row = entry.row0; row <= entry.row1; row++) {
+			for (int col = entry.col0; col <= entry.col1; col++) {
+				Long key = cellKey(col, row);
+				ArrayList<Entry> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<Entry>(4);
+					cells.put(key, cell);
+				}
+				cell.add(entry);
+			}
+		}
+	}
+
+/* Private method: removeFromIndex(entry) */
+/**
+ * Removes the entry from the grid cells it was added to.
+ */
+	private void removeFromIndex(Entry entry) {
+		if (entry.col0 == Integer.MAX_VALUE) {
+			removeEntry(oversized, entry);
+			return;
+		}
+		for (int row = entry.row0; row <= entry.row1; row++) {
+			for (int col = entry.col0; col <= entry.col1; col++) {
+				Long key = cellKey(col, row);
+				ArrayList<Entry> cell = cells.get(key);
+				if (cell != null) {
+					removeEntry(cell, entry);
+					if (cell.isEmpty()) cells.remove(key);
+				}
+			}
+		}
+	}
+
+/* Private static method: removeEntry(list, entry) */
+/**
+ * Removes the entry from an unordered list by moving the last element into its place.
+ */
+	private static void removeEntry(ArrayList<Entry> list, Entry entry) {
+		int n = list.size();
+		for (int i = 0; i < n; i++) {
+			if (list.get(i) == entry) {
+				list.set(i, list.get(n - 1));
+				list.remove(n - 1);
+				return;
+			}
+		}
+	}
+
+/* Private static method: cellIndex(coord) */
+/**
+ * Returns the index of the grid row or column containing the given coordinate.
+ */
+	private static int cellIndex(double coord) {
+		double index = Math.floor(coord / CELL_SIZE);
+		return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE - 1, index));
+	}
+
+/* Private static method: cellKey(col, row) */
+/**
+ * Combines a column and row index into a single key for the cell map.
+ */
+	private static Long cellKey(int col, int row) {
+		return ((long) col << 32) | (row & 0xffffffffL);
+	}
+
+/* Private constant: Z_ORDER */
+	private static final Comparator<Entry> Z_ORDER = new Comparator<Entry>() {
+		public int compare(Entry e1, Entry e2) {
+			return (e1.z < e2.z) ? -1 : (e1.z == e2.z) ? 0 : 1;
+		}
+	};
+
+/* Package class: Damage */
+/**
+ * Accumulates the area of a canvas that must be repainted after objects change.
+ */
+	static class Damage {
+
+/* Method: add(x, y, width, height, margin) */
+/**
+ * Adds a rectangle, expanded on every side by <code>margin</code>.
+ */
+		public void add(double x, double y, double width, double height, double margin) {
+			if (full) return;
+			int x0 = (int) Math.floor(x - margin);
+			int y0 = (int) Math.floor(y - margin);
+			int x1 = (int) Math.ceil(x + width + margin);
+			int y1 = (int) Math.ceil(y + height + margin);
+			Rectangle r = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+			area = (area == null) ? r : area.union(r);
+		}
+
+/* Method: setFull() */
+/**
+ * Indicates that the whole canvas must be repainted.
+ */
+		public void setFull() {
+			full = true;
+			area = null;
+		}
+
+/* Method: isFull() */
+/**
+ * Returns <code>true</code> if the whole canvas must be repainted.
+ */
+		public boolean isFull() {
+			return full;
+		}
+
+/* Method: getArea() */
+/**
+ * Returns the rectangle to repaint, or <code>null</code> if nothing has changed
+ * or the whole canvas must be repainted.
+ */
+		public Rectangle getArea() {
+			return area;
+		}
+
+		private Rectangle area;
+		private boolean full;
+	}
+
+/* Private class: Entry */
+/**
+ * Holds an object's position in the <i>z</i> order and the bounds under
+ * which it is currently filed in the spatial index.
+ */
+	private static class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		public Entry(GObject gobj, long z) {
+			this.gobj = gobj;
+			this.z = z;
+		}
+
+		private GObject gobj;
+		private long z;
+		private double x, y, width, height, margin;
+		private int col0, row0, col1, row1;
+		private boolean enabled;
+		private boolean changed;
+		private boolean selfChanged;
+		private boolean removed;
+		private transient int stamp;
+	}
+
+/* Private instance variables */
+	private GContainer parent;
+	private IdentityHashMap<GObject, Entry> entries;
+	private TreeMap<Long, Entry> zOrder;
+	private HashMap<Long, ArrayList<Entry>> cells;
+	private ArrayList<Entry> oversized;
+	private ArrayList<Entry> changedEntries;
+	private transient ArrayList<GObject> contents;
+	private long minZ;
+	private long maxZ;
+	private transient int searchStamp;
+}
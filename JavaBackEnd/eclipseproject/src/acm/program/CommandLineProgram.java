@@ -107,6 +107,65 @@ public class CommandLineProgram
 		}
 	}
 
+/* Static method: createHeadlessProgram(className, loader) */
+/**
+ * Loads the named program class through the given class loader, changing its
+ * superclass to <code>CommandLineProgram</code> as <code>checkIfHeadless</code>
+ * does, and returns a new instance of it without running it.  This allows
+ * several programs, each from its own class loader, to be run in one JVM.
+ *
+ * @usage CommandLineProgram program = CommandLineProgram.createHeadlessProgram(className, loader);
+ * @param className The name of the main class
+ * @param loader The class loader from which to load the main class and the classes it uses
+ * @return A new instance of the main class
+ */
+	public static CommandLineProgram createHeadlessProgram(String className, ClassLoader loader) {
+		return createHeadlessProgram(className, loader, null);
+	}
+
+/* Static method: createHeadlessProgram(className, loader, exitClass) */
+/**
+ * Creates the named program as <code>createHeadlessProgram(className, loader)</code>
+ * does, but also changes the main class's calls to <code>System.exit</code>,
+ * <code>Runtime.exit</code> and <code>Runtime.halt</code> as
+ * <code>redirectExitCalls</code> does.
+ *
+ * @usage CommandLineProgram program = CommandLineProgram.createHeadlessProgram(className, loader, exitClass);
+ * @param className The name of the main class
+ * @param loader The class loader from which to load the main class and the classes it uses
+ * @param exitClass The class whose methods are called in place of exiting, or <code>null</code>
+ * @return A new instance of the main class
+ */
+	public static CommandLineProgram createHeadlessProgram(String className, ClassLoader loader, String exitClass) {
+		try {
+			ClassLoader patchLoader = new CommandLineProgramLoader(className, loader, exitClass);
+			Class<?> mainClass = patchLoader.loadClass(className);
+			return (CommandLineProgram) mainClass.getDeclaredConstructor().newInstance();
+		} catch (Exception ex) {
+			throw new ErrorException(ex);
+		}
+	}
+
+/* Static method: redirectExitCalls(classData, exitClass) */
+/**
+ * Returns a copy of the given class file in which each call to
+ * <code>System.exit</code> calls the static method <code>exit(int)</code> in
+ * the named class instead, and each call to <code>Runtime.exit</code> or
+ * <code>Runtime.halt</code> calls its static method <code>exit</code> or
+ * <code>halt</code>, which takes the <code>Runtime</code> as an extra first
+ * argument.  This lets a program loaded by its own class loader be kept from
+ * ending the JVM.  Calls made through reflection or method handles are not
+ * changed.  The class file is returned as it is if it makes no such calls.
+ *
+ * @usage byte[] patched = CommandLineProgram.redirectExitCalls(classData, exitClass);
+ * @param classData The contents of a class file
+ * @param exitClass The fully qualified name of the class whose methods are called instead
+ * @return The class file with its calls changed
+ */
+	public static byte[] redirectExitCalls(byte[] classData, String exitClass) {
+		return CommandLineProgramLoader.redirectExitCalls(classData, exitClass.replace('.', '/'));
+	}
+
 /* Method: run() */
 /**
  * Contains the code to be executed for each specific program subclass.  If
@@ -1261,6 +1320,16 @@ public class CommandLineProgram
 
 class CommandLineProgramLoader extends ClassLoader {
 
+	public CommandLineProgramLoader(String name, ClassLoader loader) {
+		this(name, loader, null);
+	}
+
+	public CommandLineProgramLoader(String name, ClassLoader loader, String exitClass) {
+		targetName = name;
+		realLoader = loader;
+		exitClassName = exitClass == null ? null : exitClass.replace('.', '/');
+	}
+
 	public CommandLineProgramLoader(String name) {
 		targetName = name;
 		try {
@@ -1274,10 +1343,14 @@ class CommandLineProgramLoader extends ClassLoader {
 
 	public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
 		if (name.equals(targetName)) {
-			InputStream in = getResourceAsStream(name + ".class");
+			String resourceName = name.replace('.', '/') + ".class";
+			InputStream in = getResourceAsStream(resourceName);
 			superclassOffset = findSuperclassOffset(in);
-			in = getResourceAsStream(name + ".class");
+			in = getResourceAsStream(resourceName);
 			byte[] code = patchClassData(in);
+			if (exitClassName != null) {
+				code = redirectExitCalls(code, exitClassName);
+			}
 			return defineClass(name, code, 0, code.length);
 		} else {
 			return realLoader.loadClass(name);
@@ -1316,6 +1389,12 @@ class CommandLineProgramLoader extends ClassLoader {
 				  case CONSTANT_Methodref: JTFTools.copyBytes(in, out, 4); break;
 				  case CONSTANT_InterfaceMethodref: JTFTools.copyBytes(in, out, 4); break;
 				  case CONSTANT_NameAndType: JTFTools.copyBytes(in, out, 4); break;
+				  case CONSTANT_MethodHandle: JTFTools.copyBytes(in, out, 3); break;
+				  case CONSTANT_MethodType: JTFTools.copyBytes(in, out, 2); break;
+				  case CONSTANT_Dynamic: JTFTools.copyBytes(in, out, 4); break;
+				  case CONSTANT_InvokeDynamic: JTFTools.copyBytes(in, out, 4); break;
+				  case CONSTANT_Module: JTFTools.copyBytes(in, out, 2); break;
+				  case CONSTANT_Package: JTFTools.copyBytes(in, out, 2); break;
 				  case CONSTANT_Utf8:
 					if (index == superclassOffset) {
 						int nChars = in.read() << 8 | in.read();
@@ -1365,6 +1444,12 @@ class CommandLineProgramLoader extends ClassLoader {
 				  case CONSTANT_Methodref: in.skip(4); break;
 				  case CONSTANT_InterfaceMethodref: in.skip(4); break;
 				  case CONSTANT_NameAndType: in.skip(4); break;
+				  case CONSTANT_MethodHandle: in.skip(3); break;
+				  case CONSTANT_MethodType: in.skip(2); break;
+				  case CONSTANT_Dynamic: in.skip(4); break;
+				  case CONSTANT_InvokeDynamic: in.skip(4); break;
+				  case CONSTANT_Module: in.skip(2); break;
+				  case CONSTANT_Package: in.skip(2); break;
 				  case CONSTANT_Class:
 					int offset = in.read() << 8 | in.read();
 					classTable.put(new Integer(i), new Integer(offset));
@@ -1382,6 +1467,199 @@ class CommandLineProgramLoader extends ClassLoader {
 		}
 	}
 
+	/*
+	 * Changes the calls to System.exit, Runtime.exit and Runtime.halt in the
+	 * given class file into calls to static methods of the class with the
+	 * given internal name (such as "a/b/C").  New Methodref constants for
+	 * those methods are added at the end of the constant pool, and each
+	 * invokestatic or invokevirtual of an exit method is changed into an
+	 * invokestatic of the new constant.  Both instructions are three bytes
+	 * long and the stack is the same afterward, so no offsets or stack maps
+	 * need to change.
+	 */
+	static byte[] redirectExitCalls(byte[] data, String exitClass) {
+		int nConstants = readU2(data, 8);
+		int[] offsets = new int[nConstants];
+		int pos = 10;
+		for (int index = 1; index < nConstants; index++) {
+			offsets[index] = pos;
+			int type = data[pos] & 0xFF;
+			switch (type) {
+			  case CONSTANT_Utf8: pos += 3 + readU2(data, pos + 1); break;
+			  case CONSTANT_Long: case CONSTANT_Double: pos += 9; index++; break;
+			  case CONSTANT_Class: case CONSTANT_String: case CONSTANT_MethodType:
+			  case CONSTANT_Module: case CONSTANT_Package: pos += 3; break;
+			  case CONSTANT_MethodHandle: pos += 4; break;
+			  default: pos += 5; break;
+			}
+		}
+		int constantsEnd = pos;
+
+		// which exit method, if any, each Methodref names
+		int[] exitMethods = new int[nConstants];
+		boolean[] used = new boolean[EXIT_METHOD_NAMES.length];
+		boolean found = false;
+		for (int index = 1; index < nConstants; index++) {
+			int offset = offsets[index];
+			if (offset == 0 || data[offset] != CONSTANT_Methodref) continue;
+			String owner = readUtf8(data, offsets, readU2(data, offsets[readU2(data, offset + 1)] + 1));
+			int nameAndType = offsets[readU2(data, offset + 3)];
+			String name = readUtf8(data, offsets, readU2(data, nameAndType + 1));
+			String descriptor = readUtf8(data, offsets, readU2(data, nameAndType + 3));
+			for (int i = 0; i < EXIT_METHOD_NAMES.length; i++) {
+				if (EXIT_METHOD_OWNERS[i].equals(owner) && EXIT_METHOD_NAMES[i].equals(name)
+						&& "(I)V".equals(descriptor)) {
+					exitMethods[index] = i + 1;
+					used[i] = true;
+					found = true;
+				}
+			}
+		}
+		if (!found) {
+			return data;
+		}
+
+		// new constants: the exit class, then a Methodref for each method used
+		ByteArrayOutputStream added = new ByteArrayOutputStream();
+		int nextIndex = nConstants;
+		writeUtf8(added, exitClass);
+		int classIndex = nextIndex + 1;
+		added.write(CONSTANT_Class);
+		writeU2(added, nextIndex);
+		nextIndex += 2;
+		int[] replacements = new int[EXIT_METHOD_NAMES.length];
+		for (int i = 0; i < EXIT_METHOD_NAMES.length; i++) {
+			if (!used[i]) continue;
+			writeUtf8(added, EXIT_METHOD_NAMES[i]);
+			writeUtf8(added, EXIT_METHOD_DESCRIPTORS[i]);
+			added.write(CONSTANT_NameAndType);
+			writeU2(added, nextIndex);
+			writeU2(added, nextIndex + 1);
+			added.write(CONSTANT_Methodref);
+			writeU2(added, classIndex);
+			writeU2(added, nextIndex + 2);
+			replacements[i] = nextIndex + 3;
+			nextIndex += 4;
+		}
+		if (nextIndex > 0xFFFF) {
+			throw new ErrorException("too many constants to redirect exit calls");
+		}
+
+		byte[] rest = Arrays.copyOfRange(data, constantsEnd, data.length);
+		pos = 6;
+		pos += 2 + 2 * readU2(rest, pos);                   // interfaces
+		for (int member = 0; member < 2; member++) {        // fields, then methods
+			int count = readU2(rest, pos);
+			pos += 2;
+			for (int i = 0; i < count; i++) {
+				int nAttributes = readU2(rest, pos + 6);
+				pos += 8;
+				for (int j = 0; j < nAttributes; j++) {
+					int length = readU4(rest, pos + 2);
+					if (member == 1 && "Code".equals(readUtf8(data, offsets, readU2(rest, pos)))) {
+						int codeStart = pos + 14;
+						redirectExitCalls(rest, codeStart, codeStart + readU4(rest, pos + 10), exitMethods, replacements);
+					}
+					pos += 6 + length;
+				}
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length + added.size());
+		out.write(data, 0, 8);
+		writeU2(out, nextIndex);
+		out.write(data, 10, constantsEnd - 10);
+		out.write(added.toByteArray(), 0, added.size());
+		out.write(rest, 0, rest.length);
+		return out.toByteArray();
+	}
+
+	/*
+	 * Changes the exit calls in the bytecode between start and end.
+	 */
+	private static void redirectExitCalls(byte[] code, int start, int end, int[] exitMethods, int[] replacements) {
+		for (int pc = start; pc < end; pc += getInstructionLength(code, pc, start)) {
+			int op = code[pc] & 0xFF;
+			if (op == INVOKESTATIC || op == INVOKEVIRTUAL) {
+				int method = exitMethods[readU2(code, pc + 1)] - 1;
+				if (method >= 0 && (op == INVOKESTATIC) == (method == 0)) {
+					code[pc] = (byte) INVOKESTATIC;
+					code[pc + 1] = (byte) (replacements[method] >> 8);
+					code[pc + 2] = (byte) replacements[method];
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the length in bytes of the instruction at pc, in the bytecode
+	 * starting at start.
+	 */
+	private static int getInstructionLength(byte[] code, int pc, int start) {
+		int op = code[pc] & 0xFF;
+		switch (op) {
+		  case 0x10: case 0x12: case 0x15: case 0x16: case 0x17: case 0x18: case 0x19:
+		  case 0x36: case 0x37: case 0x38: case 0x39: case 0x3a: case 0xa9: case 0xbc:
+			return 2;
+		  case 0x11: case 0x13: case 0x14: case 0x84: case 0xbb: case 0xbd: case 0xc0:
+		  case 0xc1: case 0xc6: case 0xc7:
+			return 3;
+		  case 0xc5:
+			return 4;
+		  case 0xb9: case 0xba: case 0xc8: case 0xc9:
+			return 5;
+		  case 0xc4:
+			return (code[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+		  case 0xaa: {
+			int pos = pc + 4 - (pc - start) % 4;
+			int low = readU4(code, pos + 4);
+			int high = readU4(code, pos + 8);
+			return pos + 12 + 4 * (high - low + 1) - pc;
+		  }
+		  case 0xab: {
+			int pos = pc + 4 - (pc - start) % 4;
+			return pos + 8 + 8 * readU4(code, pos + 4) - pc;
+		  }
+		  default:
+			// if<cond>, goto, jsr and the field and method instructions
+			return (op >= 0x99 && op <= 0xa8) || (op >= 0xb2 && op <= 0xb8) ? 3 : 1;
+		}
+	}
+
+	private static int readU2(byte[] data, int pos) {
+		return (data[pos] & 0xFF) << 8 | (data[pos + 1] & 0xFF);
+	}
+
+	private static int readU4(byte[] data, int pos) {
+		return readU2(data, pos) << 16 | readU2(data, pos + 2);
+	}
+
+	/*
+	 * Returns the Utf8 constant with the given index.  Only ASCII names are
+	 * compared against, so other characters need not be decoded exactly.
+	 */
+	private static String readUtf8(byte[] data, int[] offsets, int index) {
+		int offset = offsets[index];
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0, n = readU2(data, offset + 1); i < n; i++) {
+			sb.append((char) (data[offset + 3 + i] & 0xFF));
+		}
+		return sb.toString();
+	}
+
+	private static void writeU2(ByteArrayOutputStream out, int value) {
+		out.write(value >> 8);
+		out.write(value & 0xFF);
+	}
+
+	private static void writeUtf8(ByteArrayOutputStream out, String s) {
+		out.write(CONSTANT_Utf8);
+		writeU2(out, s.length());
+		for (int i = 0; i < s.length(); i++) {
+			out.write((byte) s.charAt(i));
+		}
+	}
+
 	private static String getConstantTypeName(int id) {
 		switch (id) {
 		  case CONSTANT_Utf8: return "Utf8";
@@ -1395,6 +1673,12 @@ class CommandLineProgramLoader extends ClassLoader {
 		  case CONSTANT_Methodref: return "Methodref";
 		  case CONSTANT_InterfaceMethodref: return "InterfaceMethodref";
 		  case CONSTANT_NameAndType: return "NameAndType";
+		  case CONSTANT_MethodHandle: return "MethodHandle";
+		  case CONSTANT_MethodType: return "MethodType";
+		  case CONSTANT_Dynamic: return "Dynamic";
+		  case CONSTANT_InvokeDynamic: return "InvokeDynamic";
+		  case CONSTANT_Module: return "Module";
+		  case CONSTANT_Package: return "Package";
 		  default: return "Type[" + id + "]";
 		}
 	}
@@ -1410,10 +1694,26 @@ class CommandLineProgramLoader extends ClassLoader {
 	private static final int CONSTANT_Methodref =          10;
 	private static final int CONSTANT_InterfaceMethodref = 11;
 	private static final int CONSTANT_NameAndType =        12;
+	private static final int CONSTANT_MethodHandle =       15;
+	private static final int CONSTANT_MethodType =         16;
+	private static final int CONSTANT_Dynamic =            17;
+	private static final int CONSTANT_InvokeDynamic =      18;
+	private static final int CONSTANT_Module =             19;
+	private static final int CONSTANT_Package =            20;
+
+	private static final int INVOKEVIRTUAL = 0xb6;
+	private static final int INVOKESTATIC = 0xb8;
+
+	// the exit methods whose calls redirectExitCalls changes, and the
+	// descriptors of the static methods called instead
+	private static final String[] EXIT_METHOD_OWNERS = {"java/lang/System", "java/lang/Runtime", "java/lang/Runtime"};
+	private static final String[] EXIT_METHOD_NAMES = {"exit", "exit", "halt"};
+	private static final String[] EXIT_METHOD_DESCRIPTORS = {"(I)V", "(Ljava/lang/Runtime;I)V", "(Ljava/lang/Runtime;I)V"};
 
 	private HashMap<Integer,Integer> classTable;
 	private ClassLoader realLoader;
 	private String targetName;
+	private String exitClassName;
 	private int superclassOffset;
 
 }
@@ -0,0 +1,722 @@
+/*
+ * @version 2016/12/28
+ * - calls to System.exit are redirected as each submission class is loaded,
+ *   in place of the security manager
+ * @version 2016/12/26
+ * - initial version
+ */
+
+package stanford.cs106.autograder;
+
+import java.io.*;
+import java.lang.management.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import acm.io.*;
+import acm.program.*;
+import acm.util.*;
+import stanford.cs106.io.*;
+
+/**
+ * Runs many students' console programs in one JVM without any GUI, so that
+ * a grading machine does not have to start a new JVM for every submission.
+ *
+ * Each submission's classes are loaded by a class loader of their own, so
+ * submissions with the same class names do not interfere, while the library
+ * classes they use are loaded only once.  A submission reads its input from
+ * a script, through its console's input script if it is an ACM program
+ * (which is run as a CommandLineProgram, as in a headless environment) or
+ * through System.in if it just has a main method.  Its output is captured
+ * with OutputRouter.  Several submissions are run at once, and each is
+ * stopped if it uses too much CPU time, allocates too much memory, or runs
+ * too long.  A call to System.exit, Runtime.exit or Runtime.halt ends only
+ * the submission that made it: as the submission's classes are loaded, each
+ * such call is changed into a call to ExitCalls, which throws an exception.
+ * Exit calls made by library classes, or through reflection, are not
+ * changed.
+ *
+ * The limits are measured on the thread that runs the submission's main
+ * code, not on any threads that it starts, although those are stopped
+ * along with it.  Threads that cannot be stopped (on Java 20 and later,
+ * any that ignore being interrupted) are left running at the lowest
+ * priority with their output dropped, and the submission is reported as
+ * STATUS_UNKILLABLE.
+ *
+ * From the command line, takes a manifest file with one submission per
+ * line, as tab-separated id, class path, main class name and (optionally)
+ * input file, and writes the results as JSON to a results file.
+ */
+public class BatchGrader {
+	/** The submission's program ran to completion. */
+	public static final String STATUS_COMPLETED = "completed";
+
+	/** The submission's program called System.exit. */
+	public static final String STATUS_EXITED = "exited";
+
+	/** The submission's program threw an exception. */
+	public static final String STATUS_EXCEPTION = "exception";
+
+	/** The submission used more CPU time than allowed. */
+	public static final String STATUS_CPU_LIMIT = "cpu-limit";
+
+	/** The submission allocated more memory than allowed. */
+	public static final String STATUS_MEMORY_LIMIT = "memory-limit";
+
+	/** The submission ran for longer than allowed, for instance while blocked. */
+	public static final String STATUS_TIME_LIMIT = "time-limit";
+
+	/** The submission could not be loaded or started. */
+	public static final String STATUS_ERROR = "error";
+
+	/** The submission left threads running that could not be stopped. */
+	public static final String STATUS_UNKILLABLE = "unkillable";
+
+	// how often a running submission is checked against the limits (ms)
+	private static final int POLL_INTERVAL = 20;
+
+	// how long a submission has to stop after being interrupted (ms)
+	private static final int STOP_GRACE_PERIOD = 200;
+
+	private static final ThreadMXBean THREAD_MX = ManagementFactory.getThreadMXBean();
+	static {
+		if (THREAD_MX.isThreadCpuTimeSupported() && !THREAD_MX.isThreadCpuTimeEnabled()) {
+			THREAD_MX.setThreadCpuTimeEnabled(true);
+		}
+	}
+
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private long cpuTimeLimit = 10000;              // ms
+	private long memoryLimit = 512L << 20;          // bytes allocated
+	private long timeLimit = 30000;                 // ms
+	private long maxOutputBytes = 1 << 20;
+
+	/**
+	 * One student's program to be graded.
+	 */
+	public static class Submission {
+		private final String id;
+		private final File classPath;
+		private final String mainClassName;
+		private final String input;
+
+		/**
+		 * Constructs a submission whose classes are found in the given
+		 * directory or JAR file, to be run by running the given class with the
+		 * given text as its input.
+		 */
+		public Submission(String id, File classPath, String mainClassName, String input) {
+			this.id = id;
+			this.classPath = classPath;
+			this.mainClassName = mainClassName;
+			this.input = input == null ? "" : input;
+		}
+
+		public File getClassPath() {
+			return classPath;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getInput() {
+			return input;
+		}
+
+		public String getMainClassName() {
+			return mainClassName;
+		}
+	}
+
+	/**
+	 * What happened when a submission was run.
+	 */
+	public static class Result {
+		private final String id;
+		private String status;
+		private String output = "";
+		private boolean outputTruncated;
+		private String exception;
+		private int exitCode;
+		private long cpuTime;
+		private long memoryAllocated = -1;
+		private long runtime;
+
+		private Result(String id) {
+			this.id = id;
+		}
+
+		/** Returns the System.exit status, if the status is STATUS_EXITED. */
+		public int getExitCode() {
+			return exitCode;
+		}
+
+		/** Returns a description of the exception thrown, or null if none. */
+		public String getException() {
+			return exception;
+		}
+
+		/** Returns the CPU time used by the submission's main thread, in ms, or -1 if not known. */
+		public long getCpuTime() {
+			return cpuTime;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		/** Returns the bytes allocated by the submission's main thread, or -1 if not known. */
+		public long getMemoryAllocated() {
+			return memoryAllocated;
+		}
+
+		/** Returns what the submission printed, including its echoed input. */
+		public String getOutput() {
+			return output;
+		}
+
+		/** Returns the time the submission ran, in ms. */
+		public long getRuntime() {
+			return runtime;
+		}
+
+		/** Returns one of the STATUS_* constants. */
+		public String getStatus() {
+			return status;
+		}
+
+		/** Returns whether the output was cut off at the maximum output size. */
+		public boolean isOutputTruncated() {
+			return outputTruncated;
+		}
+
+		/**
+		 * Returns this result as a JSON object on one line.
+		 */
+		public String toJson() {
+			StringBuilder sb = new StringBuilder("{");
+			sb.append("\"id\": ").append(jsonString(id));
+			sb.append(", \"status\": ").append(jsonString(status));
+			if (STATUS_EXITED.equals(status)) {
+				sb.append(", \"exitCode\": ").append(exitCode);
+			}
+			sb.append(", \"cpuTime\": ").append(cpuTime);
+			sb.append(", \"memoryAllocated\": ").append(memoryAllocated);
+			sb.append(", \"runtime\": ").append(runtime);
+			sb.append(", \"exception\": ").append(exception == null ? "null" : jsonString(exception));
+			sb.append(", \"outputTruncated\": ").append(outputTruncated);
+			sb.append(", \"output\": ").append(jsonString(output));
+			sb.append("}");
+			return sb.toString();
+		}
+
+		public String toString() {
+			return id + ": " + status + (exception == null ? "" : " (" + exception + ")")
+					+ ", " + cpuTime + "ms CPU, " + output.length() + " chars of output";
+		}
+	}
+
+	/**
+	 * Usage: BatchGrader manifestFile resultsFile [threadCount]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: java " + BatchGrader.class.getName() + " MANIFEST RESULTS [THREADS]");
+			System.exit(1);
+		}
+		BatchGrader grader = new BatchGrader();
+		if (args.length >= 3) {
+			grader.setThreadCount(Integer.parseInt(args[2]));
+		}
+		List<Submission> submissions = readManifest(new File(args[0]));
+		long startTime = System.currentTimeMillis();
+		List<Result> results = grader.grade(submissions);
+		Writer out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8);
+		try {
+			writeResults(results, out);
+		} finally {
+			out.close();
+		}
+		System.out.println("Graded " + results.size() + " submissions in "
+				+ (System.currentTimeMillis() - startTime) + "ms.");
+	}
+
+	/**
+	 * Reads a list of submissions, one per line, from the given file: an id,
+	 * a class path, a main class name and optionally an input file, separated
+	 * by tabs.  Relative paths are relative to the file's directory.  Blank
+	 * lines and lines starting with # are skipped.
+	 */
+	public static List<Submission> readManifest(File manifest) throws IOException {
+		File dir = manifest.getAbsoluteFile().getParentFile();
+		List<Submission> submissions = new ArrayList<Submission>();
+		for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+			if (line.trim().isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\t");
+			if (fields.length < 3) {
+				throw new IOException("manifest line needs an id, class path and main class: " + line);
+			}
+			String input = "";
+			if (fields.length >= 4 && !fields[3].isEmpty()) {
+				byte[] bytes = Files.readAllBytes(resolve(dir, fields[3]).toPath());
+				input = new String(bytes, StandardCharsets.UTF_8);
+			}
+			submissions.add(new Submission(fields[0], resolve(dir, fields[1]), fields[2], input));
+		}
+		return submissions;
+	}
+
+	/**
+	 * Writes the given results to the given writer as a JSON array, with one
+	 * result per line.
+	 */
+	public static void writeResults(List<Result> results, Writer out) throws IOException {
+		out.write("[\n");
+		for (int i = 0; i < results.size(); i++) {
+			out.write(results.get(i).toJson());
+			out.write(i < results.size() - 1 ? ",\n" : "\n");
+		}
+		out.write("]\n");
+		out.flush();
+	}
+
+	/**
+	 * Runs the given submissions, several at a time, and returns their
+	 * results in the same order.
+	 */
+	public List<Result> grade(List<Submission> submissions) {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BatchGrader-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		try {
+			for (final Submission submission : submissions) {
+				futures.add(executor.submit(new Callable<Result>() {
+					public Result call() {
+						return grade(submission);
+					}
+				}));
+			}
+			List<Result> results = new ArrayList<Result>();
+			for (Future<Result> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException ee) {
+					throw new RuntimeException(ee.getCause());
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs the given submission in a new thread, waits for it to finish or
+	 * go past a limit, and returns what happened.
+	 */
+	public Result grade(final Submission submission) {
+		final Result result = new Result(submission.getId());
+		final URLClassLoader loader;
+		try {
+			loader = new SubmissionClassLoader(submission.getClassPath().toURI().toURL());
+		} catch (MalformedURLException mue) {
+			result.status = STATUS_ERROR;
+			result.exception = mue.toString();
+			return result;
+		}
+
+		final CaptureBuffer capture = new CaptureBuffer(maxOutputBytes);
+		final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+		final long[] finalUsage = {-1, -1};   // CPU ms and bytes, measured by the thread as it ends
+		ThreadGroup group = new SubmissionThreadGroup(submission.getId());
+		Thread thread = new Thread(group, new Runnable() {
+			public void run() {
+				Thread.currentThread().setContextClassLoader(loader);
+				try {
+					runProgram(submission, loader);
+				} catch (Throwable t) {
+					thrown.set(t);
+				} finally {
+					long id = Thread.currentThread().getId();
+					finalUsage[0] = getCpuTime(id);
+					finalUsage[1] = getAllocatedBytes(id);
+				}
+			}
+		}, "submission-" + submission.getId());
+		thread.setDaemon(true);
+
+		// the group's input and output are also those of any threads the submission starts
+		OutputRouter.startGroupCapture(group, capture);
+		InputRouter.startGroupRedirect(group, IOUtils.toInputStream(submission.getInput()));
+		long startTime = System.currentTimeMillis();
+		thread.start();
+		String limitStatus = waitForThread(thread, startTime, result);
+		result.runtime = System.currentTimeMillis() - startTime;
+		result.cpuTime = Math.max(result.cpuTime, finalUsage[0]);
+		result.memoryAllocated = Math.max(result.memoryAllocated, finalUsage[1]);
+		List<String> running = stopThreads(group);
+		InputRouter.stopGroupRedirect(group);
+		if (running.isEmpty()) {
+			OutputRouter.stopGroupCapture(group);
+		} else {
+			// the threads may run for as long as the JVM does, so they must not
+			// print into anyone's output
+			OutputRouter.startGroupCapture(group, new CaptureBuffer(0));
+		}
+
+		if (limitStatus != null) {
+			result.status = limitStatus;
+		} else if (thrown.get() == null) {
+			result.status = STATUS_COMPLETED;
+		} else {
+			Throwable cause = getCause(thrown.get());
+			if (cause instanceof ExitException) {
+				result.status = STATUS_EXITED;
+				result.exitCode = ((ExitException) cause).status;
+			} else {
+				result.status = cause instanceof ClassNotFoundException || cause instanceof NoSuchMethodException
+						? STATUS_ERROR : STATUS_EXCEPTION;
+				result.exception = cause.toString();
+			}
+		}
+		if (!running.isEmpty()) {
+			result.exception = "threads still running after status " + result.status + ": " + running
+					+ (result.exception == null ? "" : "; " + result.exception);
+			result.status = STATUS_UNKILLABLE;
+		}
+		result.output = capture.toString();
+		result.outputTruncated = capture.isTruncated();
+		capture.release();
+		try {
+			loader.close();
+		} catch (IOException ioe) {
+			// nothing more can be done about it
+		}
+		return result;
+	}
+
+	public void setCpuTimeLimit(long ms) {
+		cpuTimeLimit = ms;
+	}
+
+	public void setMaxOutputBytes(long bytes) {
+		maxOutputBytes = bytes;
+	}
+
+	/**
+	 * Sets the number of bytes a submission may allocate in total (not the
+	 * number it may hold at once, which Java cannot measure per thread).
+	 */
+	public void setMemoryLimit(long bytes) {
+		memoryLimit = bytes;
+	}
+
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("thread count must be at least 1: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Sets how long a submission may run in real time, including time spent
+	 * waiting or sleeping.
+	 */
+	public void setTimeLimit(long ms) {
+		timeLimit = ms;
+	}
+
+	/*
+	 * Waits for the submission thread to end, checking it against the limits
+	 * and filling in its CPU and memory use.  Returns the status for the
+	 * limit it went past, or null if it ended on its own.
+	 */
+	private String waitForThread(Thread thread, long startTime, Result result) {
+		long id = thread.getId();
+		result.cpuTime = -1;
+		String status = null;
+		while (thread.isAlive() && status == null) {
+			try {
+				thread.join(POLL_INTERVAL);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				status = STATUS_ERROR;
+				break;
+			}
+			result.cpuTime = Math.max(result.cpuTime, getCpuTime(id));
+			result.memoryAllocated = Math.max(result.memoryAllocated, getAllocatedBytes(id));
+			if (!thread.isAlive()) {
+				break;
+			} else if (result.cpuTime > cpuTimeLimit) {
+				status = STATUS_CPU_LIMIT;
+			} else if (result.memoryAllocated > memoryLimit) {
+				status = STATUS_MEMORY_LIMIT;
+			} else if (System.currentTimeMillis() - startTime > timeLimit) {
+				status = STATUS_TIME_LIMIT;
+			}
+		}
+		return status;
+	}
+
+	/*
+	 * Loads and runs the submission's main class in the current thread.
+	 */
+	private static void runProgram(Submission submission, ClassLoader loader) throws Throwable {
+		String className = submission.getMainClassName();
+		Class<?> mainClass = Class.forName(className, /* initialize */ false, loader);
+		if (Program.class.isAssignableFrom(mainClass)) {
+			CommandLineProgram program = CommandLineProgram.createHeadlessProgram(className, loader,
+					ExitCalls.class.getName());
+			IOConsole console = new ScriptConsole();
+			console.setInputScript(new BufferedReader(new StringReader(submission.getInput())));
+			program.setConsole(console);
+			program.init();
+			program.run();
+			program.exit();
+		} else {
+			Method main = mainClass.getMethod("main", String[].class);
+			main.invoke(null, (Object) new String[0]);
+		}
+	}
+
+	/*
+	 * Stops any threads still running in the given group: politely at first,
+	 * and then with Thread.stop, since the submission is being thrown away
+	 * and must not keep using the grader's CPU.  Returns the names of the
+	 * threads that are still running after that, which are left at the
+	 * lowest priority.
+	 */
+	@SuppressWarnings("deprecation")
+	private static List<String> stopThreads(ThreadGroup group) {
+		if (group.activeCount() == 0) {
+			return Collections.emptyList();
+		}
+		group.interrupt();
+		waitForThreads(group);
+		Thread[] threads = new Thread[group.activeCount() + 1];
+		int count = group.enumerate(threads);
+		boolean stopped = false;
+		for (int i = 0; i < count; i++) {
+			try {
+				threads[i].stop();
+				stopped = true;
+			} catch (UnsupportedOperationException uoe) {
+				// Java 20 and later cannot stop threads
+			}
+		}
+		if (stopped) {
+			waitForThreads(group);
+		}
+
+		List<String> running = new ArrayList<String>();
+		group.setMaxPriority(Thread.MIN_PRIORITY);
+		threads = new Thread[group.activeCount() + 1];
+		count = group.enumerate(threads);
+		for (int i = 0; i < count; i++) {
+			if (threads[i].isAlive()) {
+				threads[i].setPriority(Thread.MIN_PRIORITY);
+				running.add(threads[i].getName());
+			}
+		}
+		return running;
+	}
+
+	/*
+	 * Waits up to STOP_GRACE_PERIOD ms for the threads in the group to end.
+	 */
+	private static void waitForThreads(ThreadGroup group) {
+		long deadline = System.currentTimeMillis() + STOP_GRACE_PERIOD;
+		while (group.activeCount() > 0 && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(POLL_INTERVAL);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	/*
+	 * Returns the number of bytes the given live thread has allocated, or -1
+	 * if this JVM cannot tell.
+	 */
+	private static long getAllocatedBytes(long threadId) {
+		if (THREAD_MX instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean memoryMX = (com.sun.management.ThreadMXBean) THREAD_MX;
+			if (memoryMX.isThreadAllocatedMemorySupported() && memoryMX.isThreadAllocatedMemoryEnabled()) {
+				return memoryMX.getThreadAllocatedBytes(threadId);
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Returns the CPU time the given live thread has used in ms, or -1 if
+	 * this JVM cannot tell.
+	 */
+	private static long getCpuTime(long threadId) {
+		if (THREAD_MX.isThreadCpuTimeSupported() && THREAD_MX.isThreadCpuTimeEnabled()) {
+			long nanos = THREAD_MX.getThreadCpuTime(threadId);
+			return nanos < 0 ? -1 : nanos / 1000000;
+		}
+		return -1;
+	}
+
+	private static Throwable getCause(Throwable t) {
+		while ((t instanceof InvocationTargetException || t instanceof ErrorException) && t.getCause() != null) {
+			t = t.getCause();
+		}
+		return t;
+	}
+
+	private static String jsonString(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2);
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c == '\n') {
+				sb.append("\\n");
+			} else if (c == '\t') {
+				sb.append("\\t");
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+		return sb.toString();
+	}
+
+	private static File resolve(File dir, String path) {
+		File file = new File(path);
+		return file.isAbsolute() ? file : new File(dir, path);
+	}
+
+	/**
+	 * What a submission's calls to System.exit, Runtime.exit and Runtime.halt
+	 * call instead, as changed by CommandLineProgram.redirectExitCalls.  Public
+	 * only so that submission classes can call it.
+	 */
+	public static class ExitCalls {
+		private ExitCalls() {
+			// empty
+		}
+
+		public static void exit(int status) {
+			throw new ExitException("System.exit", status);
+		}
+
+		public static void exit(Runtime runtime, int status) {
+			throw new ExitException("Runtime.exit", status);
+		}
+
+		public static void halt(Runtime runtime, int status) {
+			throw new ExitException("Runtime.halt", status);
+		}
+	}
+
+	private static class ExitException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		private final int status;
+
+		public ExitException(String method, int status) {
+			super(method + "(" + status + ")");
+			this.status = status;
+		}
+	}
+
+	/*
+	 * Loads a submission's classes from its class path, redirecting their
+	 * exit calls to ExitCalls.
+	 */
+	private static class SubmissionClassLoader extends URLClassLoader {
+		public SubmissionClassLoader(URL classPath) {
+			super(new URL[] {classPath}, BatchGrader.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			URL url = findResource(name.replace('.', '/') + ".class");
+			if (url == null) {
+				throw new ClassNotFoundException(name);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				InputStream in = url.openStream();
+				try {
+					byte[] buffer = new byte[8192];
+					for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+						bytes.write(buffer, 0, n);
+					}
+				} finally {
+					in.close();
+				}
+			} catch (IOException ioe) {
+				throw new ClassNotFoundException(name, ioe);
+			}
+			byte[] code = CommandLineProgram.redirectExitCalls(bytes.toByteArray(), ExitCalls.class.getName());
+			return defineClass(name, code, 0, code.length);
+		}
+	}
+
+	/*
+	 * A console that prints to System.out (and so to the submission's
+	 * capture buffer) and reads only from its input script.
+	 */
+	private static class ScriptConsole extends IOConsole {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected ConsoleModel createConsoleModel() {
+			return new SystemConsoleModel() {
+				@Override
+				public void print(String s, int style) {
+					// unlike SystemConsoleModel, does not keep a copy of all output
+					System.out.print(s);
+				}
+
+				@Override
+				public String readLine() {
+					BufferedReader script = getInputScript();
+					String line = null;
+					try {
+						line = script == null ? null : script.readLine();
+					} catch (IOException ioe) {
+						// cannot happen; reading a string
+					}
+					if (line == null) {
+						throw new ErrorException("program read more input than was provided");
+					}
+					print(line + "\n", 1);
+					return line;
+				}
+			};
+		}
+	}
+
+	private static class SubmissionThreadGroup extends ThreadGroup {
+		public SubmissionThreadGroup(String id) {
+			super("submission " + id);
+		}
+	}
+}
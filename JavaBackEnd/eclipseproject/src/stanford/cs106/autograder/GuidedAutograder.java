@@ -1,5 +1,7 @@
 /*
  * @author Marty Stepp
+ * @version 2016/12/24
+ * - JUnit tests run concurrently through JUnitRunner
  * @version 2016/04/28
  * - made static fields/methods show "static" in drop-down menu
  * @version 2016/04/08
@@ -660,10 +662,8 @@ public abstract class GuidedAutograder implements ActionListener, ChangeListener
 		
 		Runnable junitRunnable = new Runnable() {
 			public void run() {
-				// look for JUnit test methods and run them
-				for (Method method : testMethods) {
-					JUnitUtils.runJUnitMethod(clazz, method, testGUI);
-				}
+				// run the JUnit test methods, several at a time
+				new JUnitRunner().run(clazz, testMethods, testGUI);
 				testGUI.setTestingCompleted(true);
 				printlnLog("Passed " + testGUI.getPassedCount() + " of "
 						+ testGUI.getTestCount() + " tests.");
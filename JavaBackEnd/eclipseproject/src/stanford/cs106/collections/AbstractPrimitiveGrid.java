@@ -0,0 +1,191 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/18
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.concurrent.*;
+
+/**
+ * Common code for the grids of primitive values (IntGrid, DoubleGrid,
+ * BooleanGrid, ByteGrid).  These have the same methods as Grid, but store
+ * their values in one flat row-major array or buffer instead of an array of
+ * boxed objects per row, and add bulk operations such as region fills and
+ * copies and a parallel forEach.
+ */
+public abstract class AbstractPrimitiveGrid {
+	// rows are handed to other threads in bands of at least this many cells
+	private static final int MIN_PARALLEL_CELLS = 16384;
+
+	private static ForkJoinPool pool;
+
+	protected int rows;
+	protected int cols;
+
+	/**
+	 * Code that processes the rows from startRow up to but not including endRow.
+	 */
+	protected interface RowTask {
+		public void run(int startRow, int endRow);
+	}
+
+	public int height() {
+		return rows;
+	}
+
+	public boolean inBounds(int row, int col) {
+		return row >= 0 && row < rows && col >= 0 && col < cols;
+	}
+
+	public boolean isEmpty() {
+		return rows == 0 || cols == 0;
+	}
+
+	public int numCols() {
+		return cols;
+	}
+
+	public int numRows() {
+		return rows;
+	}
+
+	/**
+	 * Changes the grid's size; all of its values are reset to 0 / false.
+	 */
+	public abstract void resize(int rows, int cols);
+
+	public int size() {
+		return rows * cols;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int row = 0; row < rows; row++) {
+			if (row > 0) {
+				sb.append(", ");
+			}
+			sb.append('[');
+			for (int col = 0; col < cols; col++) {
+				if (col > 0) {
+					sb.append(", ");
+				}
+				appendValue(sb, row, col);
+			}
+			sb.append(']');
+		}
+		return sb.append(']').toString();
+	}
+
+	public String toString2D() {
+		return "{" + toString2D(
+				/* rowStart */     "{",
+				/* rowEnd */       "}",
+				/* colSeparator */ ", ",
+				/* rowSeparator */ ",\n ")
+				+ "}";
+	}
+
+	public String toString2D(String rowStart, String rowEnd, String colSeparator, String rowSeparator) {
+		StringBuilder sb = new StringBuilder();
+		for (int row = 0; row < numRows(); row++) {
+			sb.append(rowStart);
+			for (int col = 0; col < numCols(); col++) {
+				if (col > 0) {
+					sb.append(colSeparator);
+				}
+				appendValue(sb, row, col);
+			}
+			sb.append(rowEnd);
+			sb.append(rowSeparator);
+		}
+		return sb.toString();
+	}
+
+	public int width() {
+		return cols;
+	}
+
+	/**
+	 * Appends the value at the given location to the given string builder.
+	 */
+	protected abstract void appendValue(StringBuilder sb, int row, int col);
+
+	protected void checkIndex(int row, int col) {
+		if (!inBounds(row, col)) {
+			throw new IndexOutOfBoundsException(row + "," + col);
+		}
+	}
+
+	/**
+	 * Throws an exception unless the given rectangle of cells lies within the grid.
+	 */
+	protected void checkRegion(int row, int col, int numRows, int numCols) {
+		if (numRows < 0 || numCols < 0 || row < 0 || col < 0
+				|| row + numRows > rows || col + numCols > cols) {
+			throw new IndexOutOfBoundsException("region " + row + "," + col + " size "
+					+ numRows + "x" + numCols + " not within " + rows + "x" + cols + " grid");
+		}
+	}
+
+	protected static void checkSize(int rows, int cols) {
+		if (rows < 0 || cols < 0 || (long) rows * cols > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(rows + "," + cols);
+		}
+	}
+
+	/**
+	 * Runs the given task over all rows, split into bands that are processed
+	 * in parallel on a shared fork/join pool.  Small grids are processed on
+	 * the calling thread.
+	 */
+	protected void forEachRowParallel(RowTask task) {
+		int minRows = Math.max(1, MIN_PARALLEL_CELLS / Math.max(1, cols));
+		if (rows <= minRows) {
+			task.run(0, rows);
+		} else {
+			getPool().invoke(new RowBand(task, 0, rows, minRows));
+		}
+	}
+
+	/**
+	 * Returns the fork/join pool shared by all grids' parallel operations.
+	 */
+	protected static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/*
+	 * Splits a range of rows in half until it is small enough, then runs the task.
+	 */
+	private static class RowBand extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final RowTask task;
+		private final int startRow;
+		private final int endRow;
+		private final int minRows;
+
+		public RowBand(RowTask task, int startRow, int endRow, int minRows) {
+			this.task = task;
+			this.startRow = startRow;
+			this.endRow = endRow;
+			this.minRows = minRows;
+		}
+
+		@Override
+		protected void compute() {
+			if (endRow - startRow <= minRows) {
+				task.run(startRow, endRow);
+			} else {
+				int middle = (startRow + endRow) >>> 1;
+				invokeAll(new RowBand(task, startRow, middle, minRows),
+						new RowBand(task, middle, endRow, minRows));
+			}
+		}
+	}
+}
@@ -1,5 +1,11 @@
 /*
  * @author Marty Stepp
+ * @version 2016/12/16
+ * - added indexed(), a cached compressed-sparse-row snapshot for bulk algorithms
+ * - incoming edges are kept in a second table, so inverseNeighbors and
+ *   inDegree no longer scan every edge (inDegree used to always return 0)
+ * - removeVertex now removes the vertex's edges from its neighbors too
+ * - added setNotificationsEnabled to silence vertex observers during bulk work
  * @version 2015/11/30
  * - fixed bugs related to in/outDegree and neighbors of vertexes that have none
  *   (should have returned 0 or empty set; instead crashed with NPE)
@@ -20,7 +26,12 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	private boolean directed;
 	private boolean weighted;
 	private Table<Vertex<V>, Vertex<V>, Edge<V, E>> adjacencyMap;   // [source, destination --> edge info]
+	private Table<Vertex<V>, Vertex<V>, Edge<V, E>> reverseMap;     // [destination, source --> edge info]
 	private Map<String, Vertex<V>> vertexes;               // [vertex] -> [vertex info]
+	private boolean notificationsEnabled = true;
+	private int modCount = 0;                 // number of structural changes so far
+	private IndexedGraph<V, E> indexed;       // most recent snapshot, or null
+	private int indexedModCount;              // modCount when snapshot was made
 	
 	/**
 	 * Constructs a new empty undirected, unweighted graph.
@@ -37,6 +48,7 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 		this.directed = directed;
 		this.weighted = weighted;
 		adjacencyMap = TreeBasedTable.create();
+		reverseMap = TreeBasedTable.create();
 		vertexes = new TreeMap<String, Vertex<V>>();
 		// edges = HashMultimap.create();
 	}
@@ -73,15 +85,16 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 		if (containsEdge(v1, v2)) {
 			edge = edge(v1, v2);
 			edge.setWeight(weight);
+			modCount++;
 		} else {
 			if (weighted) {
 				edge = new Edge<V, E>(v1, v2, weight);
 			} else {
 				edge = new Edge<V, E>(v1, v2);
 			}
-			adjacencyMap.put(v1, v2, edge);
+			putArc(v1, v2, edge);
 			if (!directed) {
-				adjacencyMap.put(v2, v1, edge);
+				putArc(v2, v1, edge);
 			}
 			// edges.put(e, edge);
 		}
@@ -91,7 +104,10 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	public final void addVertex(String v) {
 		checkForNull(v);
 		if (!containsVertex(v)) {
-			vertexes.put(v, new Vertex<V>(v));
+			Vertex<V> vertex = new Vertex<V>(v);
+			vertex.setNotificationsEnabled(notificationsEnabled);
+			vertexes.put(v, vertex);
+			modCount++;
 		}
 	}
 
@@ -99,11 +115,14 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	public final void clear() {
 		vertexes.clear();
 		clearEdges();
+		modCount++;
 	}
 
 	/** {@inheritDoc} */
 	public final void clearEdges() {
 		adjacencyMap.clear();
+		reverseMap.clear();
+		modCount++;
 	}
 	
 	public final void clearEdges(String v) {
@@ -276,31 +295,43 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	/** {@inheritDoc} */
 	public final int inDegree(Vertex<V> v) {
 		checkVertex(v);
-		if (adjacencyMap.containsColumn(v)) {
-			return adjacencyMap.column(v).size();
+		if (reverseMap.containsRow(v)) {
+			return reverseMap.row(v).size();
 		} else {
 			return 0;
 		}
 	}
 	
+	/**
+	 * Returns a compressed-sparse-row snapshot of this graph's current
+	 * structure, for algorithms that visit many edges.  The same snapshot is
+	 * returned until vertexes or edges are added, removed, or reweighted
+	 * through this graph; see IndexedGraph.  Safe to call from several threads
+	 * at once, as long as none of them is modifying the graph.
+	 */
+	public final synchronized IndexedGraph<V, E> indexed() {
+		if (indexed == null || indexedModCount != modCount) {
+			indexed = new IndexedGraph<V, E>(this);
+			indexedModCount = modCount;
+		}
+		return indexed;
+	}
+	
 	public Set<Vertex<V>> inverseNeighbors(String v) {
 		return inverseNeighbors(vertex(v));
 	}
 	
+	/**
+	 * Returns a read-only view of the vertexes that have an edge leading to v,
+	 * in sorted order.
+	 */
 	public Set<Vertex<V>> inverseNeighbors(Vertex<V> v) {
 		checkVertex(v);
-		Set<Vertex<V>> result = new TreeSet<Vertex<V>>();
-		for (Edge<V, E> edge : edges()) {
-			if (edge.finish().equals(v)) {
-				result.add(edge.start());
-			}
+		if (reverseMap.containsRow(v)) {
+			return Collections.unmodifiableSet(reverseMap.row(v).keySet());
+		} else {
+			return Collections.emptySet();
 		}
-		return result;
-//		if (adjacencyMap.containsColumn(v)) {
-//			return adjacencyMap.column(v).keySet();
-//		} else {
-//			return Collections.emptySet();
-//		}
 	}
 
 	/** {@inheritDoc} */
@@ -313,6 +344,14 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 		return vertexes.isEmpty();
 	}
 	
+	/**
+	 * Returns whether the graph's vertexes notify their observers of changes;
+	 * see setNotificationsEnabled.
+	 */
+	public final boolean isNotificationsEnabled() {
+		return notificationsEnabled;
+	}
+	
 	/** {@inheritDoc} */
 	public final boolean isWeighted() {
 		return weighted;
@@ -356,9 +395,9 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	/** {@inheritDoc} */
 	public final void removeEdge(Vertex<V> v1, Vertex<V> v2) {
 		if (containsEdge(v1, v2)) {
-			adjacencyMap.remove(v1, v2);
+			removeArc(v1, v2);
 			if (!directed) {
-				adjacencyMap.remove(v2, v1);
+				removeArc(v2, v1);
 			}
 		}
 	}
@@ -388,6 +427,20 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 		clearVertexInfo();
 	}
 	
+	/**
+	 * Turns on or off the notifications that this graph's vertexes send to
+	 * their observers (such as a graph display) when they change.  Turning
+	 * them off saves time while an algorithm updates many vertexes; when they
+	 * are turned back on, each vertex that changed in the meantime sends one
+	 * notification of its latest change.
+	 */
+	public final void setNotificationsEnabled(boolean enabled) {
+		notificationsEnabled = enabled;
+		for (Vertex<V> vertex : vertexes.values()) {
+			vertex.setNotificationsEnabled(enabled);
+		}
+	}
+	
 	/** {@inheritDoc} */
 	public final String toString() {
 		StringBuilder sb = new StringBuilder(65536);
@@ -580,43 +633,49 @@ public class BasicGraph<V, E> implements Graph<V, E> {
 	
 	// helper to remove a vertex; used by removeVertex and vertices() iterator remove()
 	private void removeVertexHelper(String v) {
-		Vertex<V> vertex = vertex(v);
-		Map<Vertex<V>, Edge<V, E>> row = adjacencyMap.row(vertex);
-//		for (Edge edge : row.values()) {
-//			// edges.remove(edge.edge(), edge);
-//		}
-		row.clear();
-		
-		Map<Vertex<V>, Edge<V, E>> column = adjacencyMap.column(vertex);
-		if (!directed) {
-//			for (Edge edge : column.values()) {
-//				// edges.remove(edge.edge(), edge);
-//			}
-		}
-		column.clear();
-		vertexes.remove(v);
-		
-		// TODO: doesn't remove edges connected to that vertex properly; fix
+		removeVertexHelper(vertex(v));
 	}
 	
 	// helper to remove a vertex; used by removeVertex and vertices() iterator remove()
 	private void removeVertexHelper(Vertex<V> v) {
-		Map<Vertex<V>, Edge<V, E>> row = adjacencyMap.row(v);
-//		for (Edge edge : row.values()) {
-//			// edges.remove(edge.edge(), edge);
-//		}
-		row.clear();
-		
-		Map<Vertex<V>, Edge<V, E>> column = adjacencyMap.column(v);
-		if (!directed) {
-//			for (Edge edge : column.values()) {
-//				// edges.remove(edge.edge(), edge);
-//			}
+		// remove any outgoing and incoming edges from both tables
+		if (adjacencyMap.containsRow(v)) {
+			for (Vertex<V> neighbor : new ArrayList<Vertex<V>>(adjacencyMap.row(v).keySet())) {
+				removeArc(v, neighbor);
+			}
+		}
+		if (reverseMap.containsRow(v)) {
+			for (Vertex<V> neighbor : new ArrayList<Vertex<V>>(reverseMap.row(v).keySet())) {
+				removeArc(neighbor, v);
+			}
 		}
-		column.clear();
 		vertexes.remove(v.name());
-		
-		// TODO: doesn't remove edges connected to that vertex properly; fix
+		modCount++;
+	}
+	
+	// adds the edge from v1 to v2 to both tables
+	private void putArc(Vertex<V> v1, Vertex<V> v2, Edge<V, E> edge) {
+		adjacencyMap.put(v1, v2, edge);
+		reverseMap.put(v2, v1, edge);
+		modCount++;
+	}
+	
+	// removes the edge from v1 to v2 from both tables
+	private void removeArc(Vertex<V> v1, Vertex<V> v2) {
+		adjacencyMap.remove(v1, v2);
+		reverseMap.remove(v2, v1);
+		modCount++;
+	}
+	
+	/*
+	 * Returns the edges leaving v, keyed by their other vertex; used to build an IndexedGraph.
+	 */
+	Map<Vertex<V>, Edge<V, E>> outEdges(Vertex<V> v) {
+		if (adjacencyMap.containsRow(v)) {
+			return adjacencyMap.row(v);
+		} else {
+			return Collections.emptyMap();
+		}
 	}
 	
 	
@@ -0,0 +1,184 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/18
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.Arrays;
+
+/**
+ * A grid of booleans, like a Grid&lt;Boolean&gt; but packed 64 cells to a
+ * long.  Each row starts at a new long, so bands of rows can be updated by
+ * different threads at once (see forEachParallel).
+ */
+public class BooleanGrid extends AbstractPrimitiveGrid {
+	private long[] bits;
+	private int wordsPerRow;
+
+	/**
+	 * Computes the new value of one cell for forEachParallel.
+	 */
+	public interface CellFunction {
+		public boolean apply(int row, int col, boolean value);
+	}
+
+	public BooleanGrid(int rows, int cols) {
+		resize(rows, cols);
+	}
+
+	/**
+	 * Copies the given rectangle of cells from the source grid (which may be
+	 * this grid) to this grid, with its upper-left corner at (dstRow, dstCol).
+	 */
+	public void copyRegion(BooleanGrid src, int srcRow, int srcCol, int dstRow, int dstCol, int numRows, int numCols) {
+		src.checkRegion(srcRow, srcCol, numRows, numCols);
+		checkRegion(dstRow, dstCol, numRows, numCols);
+		if (src == this && numRows > 0 && numCols > 0) {
+			// the regions may overlap; copy from a snapshot of the source region
+			BooleanGrid copy = new BooleanGrid(numRows, numCols);
+			copy.copyRegion(this, srcRow, srcCol, 0, 0, numRows, numCols);
+			src = copy;
+			srcRow = 0;
+			srcCol = 0;
+		}
+		for (int r = 0; r < numRows; r++) {
+			long srcBit = (long) (srcRow + r) * src.wordsPerRow * 64 + srcCol;
+			long dstBit = (long) (dstRow + r) * wordsPerRow * 64 + dstCol;
+			for (int done = 0; done < numCols; done += 64) {
+				int n = Math.min(64, numCols - done);
+				writeBits(bits, dstBit + done, n, readBits(src.bits, srcBit + done, n));
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cells that are true.
+	 */
+	public int count() {
+		int count = 0;
+		int words = rows * wordsPerRow;
+		for (int i = 0; i < words; i++) {
+			count += Long.bitCount(bits[i]);
+		}
+		return count;
+	}
+
+	public boolean equals(Object o) {
+		if (!(o instanceof BooleanGrid)) {
+			return false;
+		}
+		BooleanGrid grid = (BooleanGrid) o;
+		// unused bits at the end of each row are always 0
+		return grid.rows == rows && grid.cols == cols && Arrays.equals(bits, grid.bits);
+	}
+
+	public void fill(boolean value) {
+		if (value) {
+			fill(0, 0, rows, cols, true);
+		} else {
+			Arrays.fill(bits, 0L);
+		}
+	}
+
+	/**
+	 * Sets every cell in the given rectangle to the given value.
+	 */
+	public void fill(int row, int col, int numRows, int numCols, boolean value) {
+		checkRegion(row, col, numRows, numCols);
+		long pattern = value ? -1L : 0L;
+		for (int r = row; r < row + numRows; r++) {
+			long rowBit = (long) r * wordsPerRow * 64 + col;
+			for (int done = 0; done < numCols; done += 64) {
+				writeBits(bits, rowBit + done, Math.min(64, numCols - done), pattern);
+			}
+		}
+	}
+
+	/**
+	 * Replaces each cell's value with the result of the given function,
+	 * processing bands of rows in parallel.  The function may be called from
+	 * several threads at once, for different cells, in no particular order.
+	 */
+	public void forEachParallel(final CellFunction function) {
+		forEachRowParallel(new RowTask() {
+			public void run(int startRow, int endRow) {
+				for (int row = startRow; row < endRow; row++) {
+					int rowStart = row * wordsPerRow;
+					for (int w = 0; w < wordsPerRow; w++) {
+						long word = bits[rowStart + w];
+						long result = 0;
+						int colEnd = Math.min(64, cols - w * 64);
+						for (int b = 0; b < colEnd; b++) {
+							if (function.apply(row, w * 64 + b, ((word >>> b) & 1L) != 0)) {
+								result |= 1L << b;
+							}
+						}
+						bits[rowStart + w] = result;
+					}
+				}
+			}
+		});
+	}
+
+	public boolean get(int row, int col) {
+		checkIndex(row, col);
+		return ((bits[row * wordsPerRow + (col >>> 6)] >>> col) & 1L) != 0;
+	}
+
+	public int hashCode() {
+		return 31 * (31 * rows + cols) + Arrays.hashCode(bits);
+	}
+
+	public void resize(int rows, int cols) {
+		checkSize(rows, cols);
+		this.rows = rows;
+		this.cols = cols;
+		this.wordsPerRow = (cols + 63) >>> 6;
+		this.bits = new long[rows * wordsPerRow];
+	}
+
+	public void set(int row, int col, boolean value) {
+		checkIndex(row, col);
+		int i = row * wordsPerRow + (col >>> 6);
+		if (value) {
+			bits[i] |= 1L << col;
+		} else {
+			bits[i] &= ~(1L << col);
+		}
+	}
+
+	@Override
+	protected void appendValue(StringBuilder sb, int row, int col) {
+		sb.append(((bits[row * wordsPerRow + (col >>> 6)] >>> col) & 1L) != 0);
+	}
+
+	/*
+	 * Returns the n (1-64) bits starting at the given bit position, in the low bits.
+	 */
+	private static long readBits(long[] bits, long position, int n) {
+		int word = (int) (position >>> 6);
+		int offset = (int) (position & 63);
+		long value = bits[word] >>> offset;
+		if (offset != 0 && offset + n > 64) {
+			value |= bits[word + 1] << (64 - offset);
+		}
+		return n == 64 ? value : value & ((1L << n) - 1);
+	}
+
+	/*
+	 * Stores the low n (1-64) bits of value starting at the given bit position.
+	 */
+	private static void writeBits(long[] bits, long position, int n, long value) {
+		int word = (int) (position >>> 6);
+		int offset = (int) (position & 63);
+		long mask = n == 64 ? -1L : (1L << n) - 1;
+		value &= mask;
+		bits[word] = (bits[word] & ~(mask << offset)) | (value << offset);
+		if (offset != 0 && offset + n > 64) {
+			int shift = 64 - offset;
+			bits[word + 1] = (bits[word + 1] & ~(mask >>> shift)) | (value >>> shift);
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/18
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A grid of bytes, like a Grid&lt;Byte&gt; but stored row-major in a
+ * ByteBuffer.  The buffer can be an ordinary heap buffer, a direct
+ * (off-heap) buffer from allocateDirect, or any buffer passed to the
+ * constructor, such as a memory-mapped file or a shared-memory segment,
+ * in which case the grid reads and writes the buffer's contents in place.
+ */
+public class ByteGrid extends AbstractPrimitiveGrid {
+	private ByteBuffer buffer;
+
+	/**
+	 * Computes the new value of one cell for forEachParallel.
+	 */
+	public interface CellFunction {
+		public byte apply(int row, int col, byte value);
+	}
+
+	public ByteGrid(int rows, int cols) {
+		resize(rows, cols);
+	}
+
+	/**
+	 * Constructs a grid that stores its values in the given buffer, starting
+	 * at its current position, without copying it; changes to either are
+	 * seen by the other.
+	 */
+	public ByteGrid(int rows, int cols, ByteBuffer buffer) {
+		checkSize(rows, cols);
+		if (buffer.remaining() < rows * cols) {
+			throw new IllegalArgumentException("buffer of " + buffer.remaining()
+					+ " bytes too short for " + rows + "x" + cols + " grid");
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * Returns a grid whose values are stored outside the Java heap.
+	 */
+	public static ByteGrid allocateDirect(int rows, int cols) {
+		checkSize(rows, cols);
+		return new ByteGrid(rows, cols, ByteBuffer.allocateDirect(rows * cols));
+	}
+
+	/**
+	 * Copies the given rectangle of cells from the source grid (which may be
+	 * this grid) to this grid, with its upper-left corner at (dstRow, dstCol).
+	 */
+	public void copyRegion(ByteGrid src, int srcRow, int srcCol, int dstRow, int dstCol, int numRows, int numCols) {
+		src.checkRegion(srcRow, srcCol, numRows, numCols);
+		checkRegion(dstRow, dstCol, numRows, numCols);
+		if (src == this && buffer.hasArray()) {
+			byte[] array = buffer.array();
+			int base = buffer.arrayOffset();
+			int start = srcRow < dstRow ? numRows - 1 : 0;
+			int step = srcRow < dstRow ? -1 : 1;
+			for (int r = start; r >= 0 && r < numRows; r += step) {
+				System.arraycopy(array, base + (srcRow + r) * cols + srcCol,
+						array, base + (dstRow + r) * cols + dstCol, numCols);
+			}
+			return;
+		} else if (src == this) {
+			// the regions may overlap; copy from a snapshot of the source region
+			ByteGrid copy = new ByteGrid(numRows, numCols);
+			copy.copyRegion(this, srcRow, srcCol, 0, 0, numRows, numCols);
+			src = copy;
+			srcRow = 0;
+			srcCol = 0;
+		}
+		ByteBuffer from = src.buffer.duplicate();
+		ByteBuffer to = buffer.duplicate();
+		for (int r = 0; r < numRows; r++) {
+			int fromIndex = (srcRow + r) * src.cols + srcCol;
+			from.limit(fromIndex + numCols);
+			from.position(fromIndex);
+			to.position((dstRow + r) * cols + dstCol);
+			to.put(from);
+		}
+	}
+
+	public boolean equals(Object o) {
+		if (!(o instanceof ByteGrid)) {
+			return false;
+		}
+		ByteGrid grid = (ByteGrid) o;
+		if (grid.rows != rows || grid.cols != cols) {
+			return false;
+		}
+		int size = rows * cols;
+		ByteBuffer mine = buffer.duplicate();
+		ByteBuffer his = grid.buffer.duplicate();
+		mine.position(0);
+		mine.limit(size);
+		his.position(0);
+		his.limit(size);
+		return mine.equals(his);
+	}
+
+	public void fill(byte value) {
+		fill(0, 0, rows, cols, value);
+	}
+
+	/**
+	 * Sets every cell in the given rectangle to the given value.
+	 */
+	public void fill(int row, int col, int numRows, int numCols, byte value) {
+		checkRegion(row, col, numRows, numCols);
+		if (buffer.hasArray()) {
+			byte[] array = buffer.array();
+			int base = buffer.arrayOffset();
+			for (int r = row; r < row + numRows; r++) {
+				Arrays.fill(array, base + r * cols + col, base + r * cols + col + numCols, value);
+			}
+		} else {
+			for (int r = row; r < row + numRows; r++) {
+				int i = r * cols + col;
+				for (int c = 0; c < numCols; c++) {
+					buffer.put(i + c, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces each cell's value with the result of the given function,
+	 * processing bands of rows in parallel.  The function may be called from
+	 * several threads at once, for different cells, in no particular order.
+	 */
+	public void forEachParallel(final CellFunction function) {
+		forEachRowParallel(new RowTask() {
+			public void run(int startRow, int endRow) {
+				// each band uses its own view, since buffers are not thread-safe
+				ByteBuffer view = buffer.duplicate();
+				for (int row = startRow; row < endRow; row++) {
+					int i = row * cols;
+					for (int col = 0; col < cols; col++, i++) {
+						view.put(i, function.apply(row, col, view.get(i)));
+					}
+				}
+			}
+		});
+	}
+
+	public byte get(int row, int col) {
+		checkIndex(row, col);
+		return buffer.get(row * cols + col);
+	}
+
+	/**
+	 * Returns the buffer holding this grid's values (not a copy), starting at
+	 * index 0.  It may be longer than size().
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the value at the given location as a number from 0 to 255.
+	 */
+	public int getUnsigned(int row, int col) {
+		return get(row, col) & 0xff;
+	}
+
+	public int hashCode() {
+		int hash = 31;
+		int size = rows * cols;
+		for (int i = 0; i < size; i++) {
+			hash = hash * 7 + buffer.get(i);
+		}
+		return hash;
+	}
+
+	/**
+	 * Changes the grid's size and clears it.  A grid in a direct buffer gets
+	 * a new direct buffer; any other grid gets a new heap buffer.
+	 */
+	public void resize(int rows, int cols) {
+		checkSize(rows, cols);
+		this.rows = rows;
+		this.cols = cols;
+		boolean direct = buffer != null && buffer.isDirect();
+		this.buffer = direct ? ByteBuffer.allocateDirect(rows * cols) : ByteBuffer.allocate(rows * cols);
+	}
+
+	public void set(int row, int col, byte value) {
+		checkIndex(row, col);
+		buffer.put(row * cols + col, value);
+	}
+
+	@Override
+	protected void appendValue(StringBuilder sb, int row, int col) {
+		sb.append(buffer.get(row * cols + col));
+	}
+}
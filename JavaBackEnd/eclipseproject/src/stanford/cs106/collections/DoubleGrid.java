@@ -0,0 +1,153 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/18
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.Arrays;
+
+/**
+ * A grid of doubles, like a Grid&lt;Double&gt; but stored in a single
+ * row-major double array with no boxing.  The value at (row, col) is at
+ * index row * numCols() + col of the array returned by getData().
+ */
+public class DoubleGrid extends AbstractPrimitiveGrid {
+	private double[] data;
+
+	/**
+	 * Computes the new value of one cell for forEachParallel.
+	 */
+	public interface CellFunction {
+		public double apply(int row, int col, double value);
+	}
+
+	public DoubleGrid(int rows, int cols) {
+		resize(rows, cols);
+	}
+
+	/**
+	 * Constructs a grid that uses the given row-major array to store its
+	 * values, without copying it; changes to either are seen by the other.
+	 */
+	public DoubleGrid(int rows, int cols, double[] data) {
+		checkSize(rows, cols);
+		if (data.length < rows * cols) {
+			throw new IllegalArgumentException("array of length " + data.length
+					+ " too short for " + rows + "x" + cols + " grid");
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.data = data;
+	}
+
+	/**
+	 * Copies the given rectangle of cells from the source grid (which may be
+	 * this grid) to this grid, with its upper-left corner at (dstRow, dstCol).
+	 */
+	public void copyRegion(DoubleGrid src, int srcRow, int srcCol, int dstRow, int dstCol, int numRows, int numCols) {
+		src.checkRegion(srcRow, srcCol, numRows, numCols);
+		checkRegion(dstRow, dstCol, numRows, numCols);
+		if (src == this && srcRow < dstRow) {
+			// copy bottom-up so an overlapping region isn't overwritten before it is read
+			for (int r = numRows - 1; r >= 0; r--) {
+				System.arraycopy(data, (srcRow + r) * cols + srcCol, data, (dstRow + r) * cols + dstCol, numCols);
+			}
+		} else {
+			for (int r = 0; r < numRows; r++) {
+				System.arraycopy(src.data, (srcRow + r) * src.cols + srcCol, data, (dstRow + r) * cols + dstCol, numCols);
+			}
+		}
+	}
+
+	public boolean equals(Object o) {
+		if (!(o instanceof DoubleGrid)) {
+			return false;
+		}
+		DoubleGrid grid = (DoubleGrid) o;
+		if (grid.rows != rows || grid.cols != cols) {
+			return false;
+		}
+		int size = rows * cols;
+		for (int i = 0; i < size; i++) {
+			// same comparison as Double.equals
+			if (Double.doubleToLongBits(data[i]) != Double.doubleToLongBits(grid.data[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void fill(double value) {
+		Arrays.fill(data, 0, rows * cols, value);
+	}
+
+	/**
+	 * Sets every cell in the given rectangle to the given value.
+	 */
+	public void fill(int row, int col, int numRows, int numCols, double value) {
+		checkRegion(row, col, numRows, numCols);
+		for (int r = row; r < row + numRows; r++) {
+			Arrays.fill(data, r * cols + col, r * cols + col + numCols, value);
+		}
+	}
+
+	/**
+	 * Replaces each cell's value with the result of the given function,
+	 * processing bands of rows in parallel.  The function may be called from
+	 * several threads at once, for different cells, in no particular order.
+	 */
+	public void forEachParallel(final CellFunction function) {
+		forEachRowParallel(new RowTask() {
+			public void run(int startRow, int endRow) {
+				for (int row = startRow; row < endRow; row++) {
+					int i = row * cols;
+					for (int col = 0; col < cols; col++, i++) {
+						data[i] = function.apply(row, col, data[i]);
+					}
+				}
+			}
+		});
+	}
+
+	public double get(int row, int col) {
+		checkIndex(row, col);
+		return data[row * cols + col];
+	}
+
+	/**
+	 * Returns the row-major array holding this grid's values (not a copy).
+	 * It may be longer than size().
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+	public int hashCode() {
+		int hash = 31;
+		int size = rows * cols;
+		for (int i = 0; i < size; i++) {
+			long bits = Double.doubleToLongBits(data[i]);
+			hash = hash * 7 + (int) (bits ^ (bits >>> 32));
+		}
+		return hash;
+	}
+
+	public void resize(int rows, int cols) {
+		checkSize(rows, cols);
+		this.rows = rows;
+		this.cols = cols;
+		this.data = new double[rows * cols];
+	}
+
+	public void set(int row, int col, double value) {
+		checkIndex(row, col);
+		data[row * cols + col] = value;
+	}
+
+	@Override
+	protected void appendValue(StringBuilder sb, int row, int col) {
+		sb.append(data[row * cols + col]);
+	}
+}
@@ -0,0 +1,685 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/17
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.*;
+
+/**
+ * GraphAlgorithms contains standard searches and other algorithms that work
+ * on any Graph: breadth-first and depth-first search, Dijkstra's algorithm,
+ * A*, bidirectional search, Kruskal's and Prim's minimum spanning tree
+ * algorithms, topological sort, and strongly connected components.
+ *
+ * Each method works on the graph's IndexedGraph snapshot and keeps all of
+ * its working state (distances, previous vertexes, visited marks, and so on)
+ * in arrays of its own.  The cost, previous and visited fields of the graph's
+ * Vertex objects are neither used nor changed, so several searches can run on
+ * the same graph at once, from different threads, as long as nobody modifies
+ * the graph meanwhile.
+ *
+ * The path-finding methods return the vertexes of the path from start to end
+ * inclusive, or an empty list if there is no path.
+ */
+public final class GraphAlgorithms {
+	private GraphAlgorithms() {}
+
+	/**
+	 * Estimates the cost of the cheapest path between two vertexes, for A*.
+	 * To guarantee that A* finds a cheapest path, the estimate must never be
+	 * greater than the true cost.
+	 */
+	public interface Heuristic<V> {
+		public double estimate(Vertex<V> from, Vertex<V> to);
+	}
+
+	/**
+	 * Returns a cheapest path from start to end, found by the A* algorithm
+	 * using the given heuristic to choose which vertexes to explore first.
+	 */
+	public static <V, E> List<Vertex<V>> aStar(Graph<V, E> graph, String start, String end,
+			Heuristic<V> heuristic) {
+		return aStar(graph, graph.vertex(start), graph.vertex(end), heuristic);
+	}
+
+	/**
+	 * Returns a cheapest path from start to end, found by the A* algorithm
+	 * using the given heuristic to choose which vertexes to explore first.
+	 */
+	public static <V, E> List<Vertex<V>> aStar(Graph<V, E> graph, Vertex<V> start, Vertex<V> end,
+			Heuristic<V> heuristic) {
+		checkForNull(heuristic);
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int s = index(g, start);
+		int t = index(g, end);
+		int n = g.vertexCount();
+		double[] cost = new double[n];
+		double[] estimate = new double[n];
+		int[] previous = new int[n];
+		Arrays.fill(cost, Vertex.MAX_COST);
+		Arrays.fill(estimate, -1);
+		Arrays.fill(previous, -1);
+		IndexedHeap open = new IndexedHeap(n);
+		cost[s] = 0;
+		open.insert(s, estimate(g, heuristic, estimate, s, t));
+		while (!open.isEmpty()) {
+			int v = open.removeMin();
+			if (v == t) {
+				return path(g, previous, s, t);
+			}
+			for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+				int w = g.arcTarget(a);
+				double newCost = cost[v] + g.arcWeight(a);
+				if (newCost < cost[w]) {
+					// with an inconsistent heuristic this may reopen a finished vertex
+					cost[w] = newCost;
+					previous[w] = v;
+					open.insertOrUpdate(w, newCost + estimate(g, heuristic, estimate, w, t));
+				}
+			}
+		}
+		return new ArrayList<Vertex<V>>();
+	}
+
+	/**
+	 * Returns a path from start to end with the fewest edges, found by
+	 * breadth-first search.
+	 */
+	public static <V, E> List<Vertex<V>> breadthFirstSearch(Graph<V, E> graph, String start, String end) {
+		return breadthFirstSearch(graph, graph.vertex(start), graph.vertex(end));
+	}
+
+	/**
+	 * Returns a path from start to end with the fewest edges, found by
+	 * breadth-first search.
+	 */
+	public static <V, E> List<Vertex<V>> breadthFirstSearch(Graph<V, E> graph, Vertex<V> start, Vertex<V> end) {
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int s = index(g, start);
+		int t = index(g, end);
+		int n = g.vertexCount();
+		int[] previous = new int[n];
+		Arrays.fill(previous, -1);
+		boolean[] visited = new boolean[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = s;
+		visited[s] = true;
+		while (head < tail) {
+			int v = queue[head++];
+			if (v == t) {
+				return path(g, previous, s, t);
+			}
+			for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+				int w = g.arcTarget(a);
+				if (!visited[w]) {
+					visited[w] = true;
+					previous[w] = v;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return new ArrayList<Vertex<V>>();
+	}
+
+	/**
+	 * Returns a path from start to end with the fewest edges, found by
+	 * searching breadth-first from both ends at once, which usually explores
+	 * far fewer vertexes than breadthFirstSearch on large graphs.
+	 * In a directed graph the search from end follows edges backward.
+	 */
+	public static <V, E> List<Vertex<V>> bidirectionalSearch(Graph<V, E> graph, String start, String end) {
+		return bidirectionalSearch(graph, graph.vertex(start), graph.vertex(end));
+	}
+
+	/**
+	 * Returns a path from start to end with the fewest edges, found by
+	 * searching breadth-first from both ends at once, which usually explores
+	 * far fewer vertexes than breadthFirstSearch on large graphs.
+	 * In a directed graph the search from end follows edges backward.
+	 */
+	public static <V, E> List<Vertex<V>> bidirectionalSearch(Graph<V, E> graph, Vertex<V> start, Vertex<V> end) {
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int s = index(g, start);
+		int t = index(g, end);
+		if (s == t) {
+			return path(g, new int[0], s, t);
+		}
+		int n = g.vertexCount();
+
+		// distance from start (forward) and to end (backward); -1 if not yet reached
+		int[] forwardDistance = new int[n];
+		int[] backwardDistance = new int[n];
+		int[] forwardPrevious = new int[n];
+		int[] backwardNext = new int[n];
+		Arrays.fill(forwardDistance, -1);
+		Arrays.fill(backwardDistance, -1);
+		int[] forwardQueue = new int[n];
+		int[] backwardQueue = new int[n];
+		int forwardHead = 0;
+		int forwardTail = 0;
+		int backwardHead = 0;
+		int backwardTail = 0;
+		forwardQueue[forwardTail++] = s;
+		forwardDistance[s] = 0;
+		forwardPrevious[s] = -1;
+		backwardQueue[backwardTail++] = t;
+		backwardDistance[t] = 0;
+		backwardNext[t] = -1;
+
+		// expand one whole level at a time, from whichever side has the smaller frontier;
+		// the best meeting point found during a level gives a shortest path
+		int meet = -1;
+		int best = Integer.MAX_VALUE;
+		while (meet < 0 && forwardHead < forwardTail && backwardHead < backwardTail) {
+			if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+				int levelEnd = forwardTail;
+				while (forwardHead < levelEnd) {
+					int v = forwardQueue[forwardHead++];
+					for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+						int w = g.arcTarget(a);
+						if (forwardDistance[w] < 0) {
+							forwardDistance[w] = forwardDistance[v] + 1;
+							forwardPrevious[w] = v;
+							forwardQueue[forwardTail++] = w;
+						}
+						if (backwardDistance[w] >= 0 && forwardDistance[w] + backwardDistance[w] < best) {
+							best = forwardDistance[w] + backwardDistance[w];
+							meet = w;
+						}
+					}
+				}
+			} else {
+				int levelEnd = backwardTail;
+				while (backwardHead < levelEnd) {
+					int v = backwardQueue[backwardHead++];
+					for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+						int w = g.arcSource(g.inArc(i));
+						if (backwardDistance[w] < 0) {
+							backwardDistance[w] = backwardDistance[v] + 1;
+							backwardNext[w] = v;
+							backwardQueue[backwardTail++] = w;
+						}
+						if (forwardDistance[w] >= 0 && forwardDistance[w] + backwardDistance[w] < best) {
+							best = forwardDistance[w] + backwardDistance[w];
+							meet = w;
+						}
+					}
+				}
+			}
+		}
+		if (meet < 0) {
+			return new ArrayList<Vertex<V>>();
+		}
+		List<Vertex<V>> result = path(g, forwardPrevious, s, meet);
+		for (int v = backwardNext[meet]; v >= 0; v = backwardNext[v]) {
+			result.add(g.vertex(v));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a path from start to end found by depth-first search.
+	 * The path is not necessarily the shortest one.
+	 */
+	public static <V, E> List<Vertex<V>> depthFirstSearch(Graph<V, E> graph, String start, String end) {
+		return depthFirstSearch(graph, graph.vertex(start), graph.vertex(end));
+	}
+
+	/**
+	 * Returns a path from start to end found by depth-first search.
+	 * The path is not necessarily the shortest one.
+	 */
+	public static <V, E> List<Vertex<V>> depthFirstSearch(Graph<V, E> graph, Vertex<V> start, Vertex<V> end) {
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int s = index(g, start);
+		int t = index(g, end);
+		int n = g.vertexCount();
+		boolean[] visited = new boolean[n];
+
+		// the vertexes on the current path, and the next arc to try from each
+		int[] stack = new int[n];
+		int[] nextArc = new int[n];
+		int depth = 0;
+		stack[depth] = s;
+		nextArc[depth] = g.outStart(s);
+		depth++;
+		visited[s] = true;
+		while (depth > 0) {
+			int v = stack[depth - 1];
+			if (v == t) {
+				List<Vertex<V>> result = new ArrayList<Vertex<V>>(depth);
+				for (int i = 0; i < depth; i++) {
+					result.add(g.vertex(stack[i]));
+				}
+				return result;
+			}
+			if (nextArc[depth - 1] < g.outEnd(v)) {
+				int w = g.arcTarget(nextArc[depth - 1]++);
+				if (!visited[w]) {
+					visited[w] = true;
+					stack[depth] = w;
+					nextArc[depth] = g.outStart(w);
+					depth++;
+				}
+			} else {
+				depth--;
+			}
+		}
+		return new ArrayList<Vertex<V>>();
+	}
+
+	/**
+	 * Returns a cheapest path from start to end, found by Dijkstra's algorithm.
+	 */
+	public static <V, E> List<Vertex<V>> dijkstrasAlgorithm(Graph<V, E> graph, String start, String end) {
+		return dijkstrasAlgorithm(graph, graph.vertex(start), graph.vertex(end));
+	}
+
+	/**
+	 * Returns a cheapest path from start to end, found by Dijkstra's algorithm.
+	 */
+	public static <V, E> List<Vertex<V>> dijkstrasAlgorithm(Graph<V, E> graph, Vertex<V> start, Vertex<V> end) {
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int s = index(g, start);
+		int t = index(g, end);
+		int n = g.vertexCount();
+		double[] cost = new double[n];
+		int[] previous = new int[n];
+		boolean[] done = new boolean[n];
+		Arrays.fill(cost, Vertex.MAX_COST);
+		Arrays.fill(previous, -1);
+		IndexedHeap heap = new IndexedHeap(n);
+		cost[s] = 0;
+		heap.insert(s, 0);
+		while (!heap.isEmpty()) {
+			int v = heap.removeMin();
+			if (v == t) {
+				return path(g, previous, s, t);
+			}
+			done[v] = true;
+			for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+				int w = g.arcTarget(a);
+				double newCost = cost[v] + g.arcWeight(a);
+				if (!done[w] && newCost < cost[w]) {
+					cost[w] = newCost;
+					previous[w] = v;
+					heap.insertOrUpdate(w, newCost);
+				}
+			}
+		}
+		return new ArrayList<Vertex<V>>();
+	}
+
+	/**
+	 * Returns the edges of a minimum spanning tree of the given undirected
+	 * graph, found by Kruskal's algorithm, in the order they were chosen.
+	 * If the graph is not connected, returns a minimum spanning forest.
+	 * @throws IllegalArgumentException if the graph is directed
+	 */
+	public static <V, E> List<Edge<V, E>> kruskal(Graph<V, E> graph) {
+		IndexedGraph<V, E> g = undirected(graph);
+		int n = g.vertexCount();
+		List<Edge<V, E>> result = new ArrayList<Edge<V, E>>();
+
+		// each undirected edge is two arcs; consider only the one going "up"
+		IndexedHeap heap = new IndexedHeap(g.arcCount());
+		for (int a = 0; a < g.arcCount(); a++) {
+			if (g.arcSource(a) < g.arcTarget(a)) {
+				heap.insert(a, g.arcWeight(a));
+			}
+		}
+		UnionFind sets = new UnionFind(n);
+		while (!heap.isEmpty() && result.size() < n - 1) {
+			int a = heap.removeMin();
+			if (sets.union(g.arcSource(a), g.arcTarget(a))) {
+				result.add(g.arcEdge(a));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the edges of a minimum spanning tree of the given undirected
+	 * graph, found by Prim's algorithm, in the order they were chosen.
+	 * If the graph is not connected, returns a minimum spanning forest.
+	 * @throws IllegalArgumentException if the graph is directed
+	 */
+	public static <V, E> List<Edge<V, E>> prim(Graph<V, E> graph) {
+		IndexedGraph<V, E> g = undirected(graph);
+		int n = g.vertexCount();
+		List<Edge<V, E>> result = new ArrayList<Edge<V, E>>();
+		double[] bestWeight = new double[n];
+		int[] bestArc = new int[n];
+		boolean[] inTree = new boolean[n];
+		Arrays.fill(bestWeight, Vertex.MAX_COST);
+		Arrays.fill(bestArc, -1);
+		IndexedHeap heap = new IndexedHeap(n);
+		for (int root = 0; root < n; root++) {
+			if (inTree[root]) {
+				continue;
+			}
+			heap.insert(root, 0);
+			while (!heap.isEmpty()) {
+				int v = heap.removeMin();
+				inTree[v] = true;
+				if (bestArc[v] >= 0) {
+					result.add(g.arcEdge(bestArc[v]));
+				}
+				for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+					int w = g.arcTarget(a);
+					if (!inTree[w] && g.arcWeight(a) < bestWeight[w]) {
+						bestWeight[w] = g.arcWeight(a);
+						bestArc[w] = a;
+						heap.insertOrUpdate(w, bestWeight[w]);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the strongly connected components of the given graph, found by
+	 * Tarjan's algorithm.  Components come out in reverse topological order:
+	 * any edge between two components leads from a later one to an earlier one.
+	 */
+	public static <V, E> List<List<Vertex<V>>> stronglyConnectedComponents(Graph<V, E> graph) {
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int n = g.vertexCount();
+		List<List<Vertex<V>>> result = new ArrayList<List<Vertex<V>>>();
+		int[] order = new int[n];   // discovery order + 1, 0 if not yet discovered
+		int[] low = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] componentStack = new int[n];
+		int componentDepth = 0;
+		int[] callStack = new int[n];
+		int[] nextArc = new int[n];
+		int counter = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] != 0) {
+				continue;
+			}
+			int depth = 0;
+			callStack[depth] = root;
+			nextArc[depth] = g.outStart(root);
+			depth++;
+			order[root] = low[root] = ++counter;
+			componentStack[componentDepth++] = root;
+			onStack[root] = true;
+			while (depth > 0) {
+				int v = callStack[depth - 1];
+				if (nextArc[depth - 1] < g.outEnd(v)) {
+					int w = g.arcTarget(nextArc[depth - 1]++);
+					if (order[w] == 0) {
+						order[w] = low[w] = ++counter;
+						componentStack[componentDepth++] = w;
+						onStack[w] = true;
+						callStack[depth] = w;
+						nextArc[depth] = g.outStart(w);
+						depth++;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], order[w]);
+					}
+				} else {
+					depth--;
+					if (depth > 0) {
+						int parent = callStack[depth - 1];
+						low[parent] = Math.min(low[parent], low[v]);
+					}
+					if (low[v] == order[v]) {
+						List<Vertex<V>> component = new ArrayList<Vertex<V>>();
+						int w;
+						do {
+							w = componentStack[--componentDepth];
+							onStack[w] = false;
+							component.add(g.vertex(w));
+						} while (w != v);
+						result.add(component);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the vertexes of the given directed acyclic graph in an order in
+	 * which every edge leads from an earlier vertex to a later one.
+	 * Vertexes that could go in either order are kept in the graph's order.
+	 * @throws IllegalArgumentException if the graph is undirected or has a cycle
+	 */
+	public static <V, E> List<Vertex<V>> topologicalSort(Graph<V, E> graph) {
+		if (!graph.isDirected()) {
+			throw new IllegalArgumentException("cannot topologically sort an undirected graph");
+		}
+		IndexedGraph<V, E> g = IndexedGraph.of(graph);
+		int n = g.vertexCount();
+		int[] inDegree = new int[n];
+		IndexedHeap ready = new IndexedHeap(n);   // keyed by index, to keep the graph's order
+		for (int v = 0; v < n; v++) {
+			inDegree[v] = g.inDegree(v);
+			if (inDegree[v] == 0) {
+				ready.insert(v, v);
+			}
+		}
+		List<Vertex<V>> result = new ArrayList<Vertex<V>>(n);
+		while (!ready.isEmpty()) {
+			int v = ready.removeMin();
+			result.add(g.vertex(v));
+			for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+				int w = g.arcTarget(a);
+				if (--inDegree[w] == 0) {
+					ready.insert(w, w);
+				}
+			}
+		}
+		if (result.size() < n) {
+			throw new IllegalArgumentException("graph contains a cycle");
+		}
+		return result;
+	}
+
+	/*
+	 * Returns the index of the given vertex in the snapshot.
+	 */
+	private static <V, E> int index(IndexedGraph<V, E> g, Vertex<V> v) {
+		checkForNull(v);
+		int index = g.indexOf(v);
+		if (index < 0) {
+			throw new IllegalArgumentException("Vertex not found in graph: " + v);
+		}
+		return index;
+	}
+
+	private static void checkForNull(Object o) {
+		if (o == null) {
+			throw new NullPointerException("argument must not be null");
+		}
+	}
+
+	/*
+	 * Returns the heuristic's estimate from v to t, computing it only once per vertex.
+	 */
+	private static <V, E> double estimate(IndexedGraph<V, E> g, Heuristic<V> heuristic,
+			double[] estimates, int v, int t) {
+		if (estimates[v] < 0) {
+			estimates[v] = Math.max(0, heuristic.estimate(g.vertex(v), g.vertex(t)));
+		}
+		return estimates[v];
+	}
+
+	/*
+	 * Returns the path ending at t by following previous links back to s.
+	 */
+	private static <V, E> List<Vertex<V>> path(IndexedGraph<V, E> g, int[] previous, int s, int t) {
+		int length = 1;
+		for (int v = t; v != s; v = previous[v]) {
+			length++;
+		}
+		Vertex<V>[] vertexes = newVertexArray(length);
+		int i = length;
+		for (int v = t; v != s; v = previous[v]) {
+			vertexes[--i] = g.vertex(v);
+		}
+		vertexes[0] = g.vertex(s);
+		return new ArrayList<Vertex<V>>(Arrays.asList(vertexes));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> Vertex<V>[] newVertexArray(int length) {
+		return (Vertex<V>[]) new Vertex<?>[length];
+	}
+
+	private static <V, E> IndexedGraph<V, E> undirected(Graph<V, E> graph) {
+		if (graph.isDirected()) {
+			throw new IllegalArgumentException("minimum spanning trees require an undirected graph");
+		}
+		return IndexedGraph.of(graph);
+	}
+
+	/*
+	 * A binary min-heap of the ints 0 .. capacity-1, each with a double key,
+	 * that can find and move any element in constant time, so that a key
+	 * can be decreased without inserting a duplicate.
+	 */
+	private static final class IndexedHeap {
+		private final int[] heap;         // heap[i] is the element at position i
+		private final int[] position;     // position[e] is e's position, or -1 if absent
+		private final double[] key;
+		private int size;
+
+		public IndexedHeap(int capacity) {
+			heap = new int[capacity];
+			position = new int[capacity];
+			key = new double[capacity];
+			Arrays.fill(position, -1);
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public void insert(int element, double elementKey) {
+			key[element] = elementKey;
+			heap[size] = element;
+			position[element] = size;
+			size++;
+			siftUp(size - 1);
+		}
+
+		/*
+		 * Inserts the element, or changes its key if it is already present.
+		 */
+		public void insertOrUpdate(int element, double elementKey) {
+			int i = position[element];
+			if (i < 0) {
+				insert(element, elementKey);
+			} else if (elementKey < key[element]) {
+				key[element] = elementKey;
+				siftUp(i);
+			} else {
+				key[element] = elementKey;
+				siftDown(i);
+			}
+		}
+
+		public int removeMin() {
+			int min = heap[0];
+			size--;
+			position[min] = -1;
+			if (size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return min;
+		}
+
+		private void siftUp(int i) {
+			int element = heap[i];
+			double elementKey = key[element];
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (key[heap[parent]] <= elementKey) {
+					break;
+				}
+				heap[i] = heap[parent];
+				position[heap[i]] = i;
+				i = parent;
+			}
+			heap[i] = element;
+			position[element] = i;
+		}
+
+		private void siftDown(int i) {
+			int element = heap[i];
+			double elementKey = key[element];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+					child++;
+				}
+				if (elementKey <= key[heap[child]]) {
+					break;
+				}
+				heap[i] = heap[child];
+				position[heap[i]] = i;
+				i = child;
+			}
+			heap[i] = element;
+			position[element] = i;
+		}
+	}
+
+	/*
+	 * Disjoint sets of the ints 0 .. n-1, with union by rank and path halving.
+	 */
+	private static final class UnionFind {
+		private final int[] parent;
+		private final byte[] rank;
+
+		public UnionFind(int n) {
+			parent = new int[n];
+			rank = new byte[n];
+			for (int i = 0; i < n; i++) {
+				parent[i] = i;
+			}
+		}
+
+		public int find(int x) {
+			while (parent[x] != x) {
+				parent[x] = parent[parent[x]];
+				x = parent[x];
+			}
+			return x;
+		}
+
+		/*
+		 * Merges the sets holding x and y; returns false if they were already the same set.
+		 */
+		public boolean union(int x, int y) {
+			int rootX = find(x);
+			int rootY = find(y);
+			if (rootX == rootY) {
+				return false;
+			}
+			if (rank[rootX] < rank[rootY]) {
+				parent[rootX] = rootY;
+			} else if (rank[rootX] > rank[rootY]) {
+				parent[rootY] = rootX;
+			} else {
+				parent[rootY] = rootX;
+				rank[rootX]++;
+			}
+			return true;
+		}
+	}
+}
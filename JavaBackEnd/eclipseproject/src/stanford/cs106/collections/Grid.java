@@ -4,6 +4,9 @@
  * programs over to Java with minimal code changes.
  * 
  * @author Marty Stepp
+ * @version 2016/12/19
+ * - added neighborhood (stencil) operations mapNeighbors, convolve and step,
+ *   run in tiles on a fork/join pool without per-cell bounds checks
  * @version 2016/11/03
  * - added equals, hashCode
  * @version 2015/05/28
@@ -13,15 +16,187 @@
 package stanford.cs106.collections;
 
 import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
 
 public class Grid<E> {
+	// neighborhood operations work on tiles of this many rows and columns
+	private static final int TILE_ROWS = 64;
+	private static final int TILE_COLS = 512;
+	
+	// grids smaller than this are processed on the calling thread
+	private static final int MIN_PARALLEL_CELLS = 16384;
+	
 	private int rows, cols;
 	private E[][] array;
+	private E[][] backArray;   // next generation for step(); null until needed
+	
+	/**
+	 * Computes a value from the cells around one location of a grid;
+	 * see mapNeighbors and step.
+	 */
+	public interface NeighborFunction<E, R> {
+		public R apply(Neighborhood<E> cells);
+	}
+	
+	/**
+	 * The cells around one location of a grid, as passed to a NeighborFunction.
+	 * Cells are found by their offset from the center, and offsets must be
+	 * within the radius passed to mapNeighbors or step.  Cells off the edge of
+	 * the grid have the "outside" value passed to mapNeighbors or step.
+	 * 
+	 * A Neighborhood is reused for many locations, so a function should not
+	 * keep it after returning.
+	 */
+	public static final class Neighborhood<E> {
+		private final E[][] array;
+		private final int rows;
+		private final int cols;
+		private final int radius;
+		private final E outside;
+		private int row;
+		private int col;
+		private boolean nearEdge;
+		
+		private Neighborhood(E[][] array, int rows, int cols, int radius, E outside) {
+			this.array = array;
+			this.rows = rows;
+			this.cols = cols;
+			this.radius = radius;
+			this.outside = outside;
+		}
+		
+		/**
+		 * Returns the value at the center location.
+		 */
+		public E get() {
+			return array[row][col];
+		}
+		
+		/**
+		 * Returns the value dRow rows down and dCol columns right of the center
+		 * location (negative offsets are up or left).
+		 */
+		public E get(int dRow, int dCol) {
+			int r = row + dRow;
+			int c = col + dCol;
+			if (nearEdge && (r < 0 || r >= rows || c < 0 || c >= cols)) {
+				return outside;
+			}
+			return array[r][c];
+		}
+		
+		/**
+		 * Returns the center location's column.
+		 */
+		public int col() {
+			return col;
+		}
+		
+		/**
+		 * Returns how many cells within the radius, not counting the center,
+		 * are equal to the given value; for example, the number of live
+		 * neighbors in the Game of Life.
+		 */
+		public int count(E value) {
+			int count = 0;
+			for (int dr = -radius; dr <= radius; dr++) {
+				for (int dc = -radius; dc <= radius; dc++) {
+					if (dr == 0 && dc == 0) {
+						continue;
+					}
+					E e = get(dr, dc);
+					if (e == value || (e != null && e.equals(value))) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+		
+		/**
+		 * Returns the center location's row.
+		 */
+		public int row() {
+			return row;
+		}
+		
+		private void moveTo(int row, int col) {
+			this.row = row;
+			this.col = col;
+		}
+	}
+	
+	/*
+	 * Code that processes one rectangle of cells; see forEachTile.
+	 */
+	private interface TileTask {
+		public void run(int startRow, int endRow, int startCol, int endCol, boolean interior);
+	}
 	
 	public Grid(int rows, int cols) {
 		resize(rows, cols);
 	}
 	
+	/**
+	 * Returns a new grid where each cell is the weighted sum of the cells
+	 * around the same location of this grid, with the weights taken from the
+	 * given kernel, as in a blur or edge-detection filter.  The kernel must
+	 * have an odd number of rows and columns; its center lines up with each
+	 * cell.  This grid's values must be Numbers (null counts as 0).  Cells
+	 * off the edge of the grid take the value of the nearest edge cell.
+	 * 
+	 * The work is split into tiles that are processed in parallel.
+	 * 
+	 * @throws IllegalArgumentException if the kernel is empty, ragged or even-sized
+	 * @throws ClassCastException if a value is not a Number
+	 */
+	public Grid<Double> convolve(final double[][] kernel) {
+		final int kRows = kernel.length;
+		final int kCols = kRows == 0 ? 0 : kernel[0].length;
+		if (kRows % 2 == 0 || kCols % 2 == 0) {
+			throw new IllegalArgumentException("kernel must have an odd number of rows and columns");
+		}
+		for (double[] kernelRow : kernel) {
+			if (kernelRow.length != kCols) {
+				throw new IllegalArgumentException("kernel rows must all be the same length");
+			}
+		}
+		final int rowRadius = kRows / 2;
+		final int colRadius = kCols / 2;
+		Grid<Double> result = new Grid<Double>(rows, cols);
+		final Object[][] resultArray = result.rawArray();
+		forEachTile(Math.max(rowRadius, colRadius), new TileTask() {
+			public void run(int startRow, int endRow, int startCol, int endCol, boolean interior) {
+				for (int row = startRow; row < endRow; row++) {
+					Object[] resultRow = resultArray[row];
+					for (int col = startCol; col < endCol; col++) {
+						double sum = 0.0;
+						for (int kr = 0; kr < kRows; kr++) {
+							int r = row + kr - rowRadius;
+							if (!interior) {
+								r = Math.max(0, Math.min(rows - 1, r));
+							}
+							E[] arrayRow = array[r];
+							double[] kernelRow = kernel[kr];
+							for (int kc = 0; kc < kCols; kc++) {
+								int c = col + kc - colRadius;
+								if (!interior) {
+									c = Math.max(0, Math.min(cols - 1, c));
+								}
+								Number value = (Number) arrayRow[c];
+								if (value != null) {
+									sum += kernelRow[kc] * value.doubleValue();
+								}
+							}
+						}
+						resultRow[col] = sum;
+					}
+				}
+			}
+		});
+		return result;
+	}
+	
 	public boolean equals(Object o) {
 		if (!(o instanceof Grid)) {
 			return false;
@@ -85,6 +260,30 @@ public class Grid<E> {
 		return rows == 0 || cols == 0;
 	}
 	
+	/**
+	 * Returns a new grid where each cell is the result of calling the given
+	 * function on the cells within one step (including diagonals) of the same
+	 * location of this grid.  Cells off the edge of the grid are null.
+	 */
+	public <R> Grid<R> mapNeighbors(NeighborFunction<E, R> function) {
+		return mapNeighbors(1, null, function);
+	}
+	
+	/**
+	 * Returns a new grid where each cell is the result of calling the given
+	 * function on the cells within the given radius of the same location of
+	 * this grid.  Cells off the edge of the grid have the given outside value.
+	 * 
+	 * The grid is split into tiles that are processed in parallel, so the
+	 * function may be called from several threads at once, for different
+	 * locations, in no particular order.  It must not modify this grid.
+	 */
+	public <R> Grid<R> mapNeighbors(int radius, E outside, NeighborFunction<E, R> function) {
+		Grid<R> result = new Grid<R>(rows, cols);
+		mapNeighborsInto(radius, outside, function, result.rawArray());
+		return result;
+	}
+	
 	public int numCols() {
 		return cols;
 	}
@@ -101,6 +300,7 @@ public class Grid<E> {
 		this.rows = rows;
 		this.cols = cols;
 		this.array = (E[][]) new Object[rows][cols];
+		this.backArray = null;
 	}
 	
 	public void set(int row, int col, E value) {
@@ -112,6 +312,36 @@ public class Grid<E> {
 		return rows * cols;
 	}
 	
+	/**
+	 * Replaces every cell with the result of calling the given rule on the
+	 * cells within one step (including diagonals) of it, as in one generation
+	 * of a cellular automaton such as the Game of Life.  Cells off the edge of
+	 * the grid are null.
+	 */
+	public void step(NeighborFunction<E, E> rule) {
+		step(1, null, rule);
+	}
+	
+	/**
+	 * Replaces every cell with the result of calling the given rule on the
+	 * cells within the given radius of it.  Every call sees the grid as it was
+	 * before the step: the new values are written to a second array, which
+	 * then becomes the grid's array, and the old array is kept for the next
+	 * step.  Cells off the edge of the grid have the given outside value.
+	 * 
+	 * As in mapNeighbors, the rule may be called from several threads at once.
+	 */
+	@SuppressWarnings("unchecked")
+	public void step(int radius, E outside, NeighborFunction<E, E> rule) {
+		if (backArray == null) {
+			backArray = (E[][]) new Object[rows][cols];
+		}
+		mapNeighborsInto(radius, outside, rule, backArray);
+		E[][] temp = array;
+		array = backArray;
+		backArray = temp;
+	}
+	
 	public String toString() {
 		return Arrays.deepToString(array);
 	}
@@ -150,4 +380,99 @@ public class Grid<E> {
 			throw new IndexOutOfBoundsException(row + "," + col);
 		}
 	}
+	
+	/*
+	 * Runs the given task over the whole grid, one tile at a time, in parallel
+	 * if the grid is big enough.  Tasks for tiles whose cells are all at least
+	 * radius away from every edge are told so, so they can skip bounds checks.
+	 */
+	private void forEachTile(int radius, TileTask task) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("negative radius: " + radius);
+		}
+		int tileCount = ((rows + TILE_ROWS - 1) / TILE_ROWS) * ((cols + TILE_COLS - 1) / TILE_COLS);
+		if (rows * cols < MIN_PARALLEL_CELLS) {
+			for (int tile = 0; tile < tileCount; tile++) {
+				runTile(task, radius, tile);
+			}
+		} else {
+			AbstractPrimitiveGrid.getPool().invoke(new Tiles(task, radius, 0, tileCount));
+		}
+	}
+	
+	/*
+	 * Stores the results of the given function for each cell into the given
+	 * array, which must be rows x cols and must not be this grid's array.
+	 */
+	private <R> void mapNeighborsInto(final int radius, final E outside,
+			final NeighborFunction<E, R> function, final Object[][] result) {
+		forEachTile(radius, new TileTask() {
+			public void run(int startRow, int endRow, int startCol, int endCol, boolean interior) {
+				Neighborhood<E> cells = new Neighborhood<E>(array, rows, cols, radius, outside);
+				for (int row = startRow; row < endRow; row++) {
+					Object[] resultRow = result[row];
+					boolean rowInterior = row >= radius && row < rows - radius;
+					for (int col = startCol; col < endCol; col++) {
+						cells.moveTo(row, col);
+						cells.nearEdge = !interior && !(rowInterior && col >= radius && col < cols - radius);
+						resultRow[col] = function.apply(cells);
+					}
+				}
+			}
+		});
+	}
+	
+	/*
+	 * Returns this grid's array with its element type erased, so that a
+	 * Grid<Double> or other concrete grid can be filled in generic code.
+	 */
+	private Object[][] rawArray() {
+		return array;
+	}
+	
+	/*
+	 * Runs the given task on the given tile.  Tiles are numbered left to right
+	 * across each band of rows, top to bottom.
+	 */
+	private void runTile(TileTask task, int radius, int tile) {
+		int tilesPerBand = (cols + TILE_COLS - 1) / TILE_COLS;
+		int startRow = tile / tilesPerBand * TILE_ROWS;
+		int startCol = tile % tilesPerBand * TILE_COLS;
+		int endRow = Math.min(rows, startRow + TILE_ROWS);
+		int endCol = Math.min(cols, startCol + TILE_COLS);
+		boolean interior = startRow >= radius && endRow <= rows - radius
+				&& startCol >= radius && endCol <= cols - radius;
+		task.run(startRow, endRow, startCol, endCol, interior);
+	}
+	
+	/*
+	 * Splits a range of tile numbers in half until one tile is left, then runs
+	 * the task on that tile.
+	 */
+	private class Tiles extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final TileTask task;
+		private final int radius;
+		private final int first;
+		private final int last;
+		
+		public Tiles(TileTask task, int radius, int first, int last) {
+			this.task = task;
+			this.radius = radius;
+			this.first = first;
+			this.last = last;
+		}
+		
+		@Override
+		protected void compute() {
+			if (last - first > 1) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new Tiles(task, radius, first, middle),
+						new Tiles(task, radius, middle, last));
+			} else if (last > first) {
+				runTile(task, radius, first);
+			}
+		}
+	}
 }
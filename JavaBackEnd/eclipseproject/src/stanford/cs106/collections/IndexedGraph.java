@@ -0,0 +1,291 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/16
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.*;
+
+/**
+ * An IndexedGraph is a read-only snapshot of a graph's structure in
+ * compressed sparse row (CSR) form, for algorithms that visit many edges.
+ * Vertexes are numbered 0 .. vertexCount()-1 and each directed arc
+ * 0 .. arcCount()-1; an undirected edge appears as two arcs, one in each
+ * direction.  The arcs leaving vertex v are numbered outStart(v) up to but
+ * not including outEnd(v), sorted by target, and their targets and weights
+ * are kept in primitive arrays.  The arcs entering each vertex are listed
+ * the same way, by inStart/inEnd and inArc.
+ *
+ * A snapshot does not change when its graph does; BasicGraph.indexed()
+ * returns an up-to-date one, building a new snapshot only when the graph
+ * has changed since the last.  Weights are copied when the snapshot is built,
+ * so later calls to Edge.setWeight are not seen.
+ *
+ * <pre>
+ * {@code
+ * IndexedGraph<V, E> g = graph.indexed();
+ * for (int a = g.outStart(v); a < g.outEnd(v); a++) {
+ *     int w = g.arcTarget(a);
+ *     double weight = g.arcWeight(a);
+ *     ...
+ * }
+ * }
+ * </pre>
+ */
+public final class IndexedGraph<V, E> {
+	private final boolean directed;
+	private final boolean weighted;
+	private final Vertex<V>[] vertexes;
+	private final Map<String, Integer> indexes;
+
+	// out arcs of vertex v are outStart[v] .. outStart[v + 1] - 1
+	private final int[] outStart;
+	private final int[] arcSource;
+	private final int[] arcTarget;
+	private final double[] arcWeight;
+	private final Edge<V, E>[] arcEdge;
+
+	// in arcs of vertex v are inArc[inStart[v]] .. inArc[inStart[v + 1] - 1]
+	private final int[] inStart;
+	private final int[] inArc;
+
+	/**
+	 * Returns a snapshot of the given graph's current vertexes and edges.
+	 * For a BasicGraph, graph.indexed() is cheaper, since it reuses the
+	 * previous snapshot if nothing has changed.
+	 */
+	public static <V, E> IndexedGraph<V, E> of(Graph<V, E> graph) {
+		if (graph instanceof BasicGraph) {
+			return ((BasicGraph<V, E>) graph).indexed();
+		}
+		return new IndexedGraph<V, E>(graph);
+	}
+
+	/*
+	 * Builds a snapshot; BasicGraph calls this directly.
+	 */
+	@SuppressWarnings("unchecked")
+	IndexedGraph(Graph<V, E> graph) {
+		directed = graph.isDirected();
+		weighted = graph.isWeighted();
+		int n = graph.vertexCount();
+		vertexes = (Vertex<V>[]) new Vertex<?>[n];
+		indexes = new HashMap<String, Integer>(n * 2);
+		int i = 0;
+		for (Vertex<V> v : graph.vertexes()) {
+			vertexes[i] = v;
+			indexes.put(v.name(), i);
+			i++;
+		}
+
+		// count, then fill, the out arcs of each vertex
+		BasicGraph<V, E> basic = (graph instanceof BasicGraph) ? (BasicGraph<V, E>) graph : null;
+		outStart = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			int degree = (basic != null) ? basic.outEdges(vertexes[v]).size() : graph.outDegree(vertexes[v]);
+			outStart[v + 1] = outStart[v] + degree;
+		}
+		int m = outStart[n];
+		arcSource = new int[m];
+		arcTarget = new int[m];
+		arcWeight = new double[m];
+		arcEdge = (Edge<V, E>[]) new Edge<?, ?>[m];
+		long[] order = new long[0];
+		for (int v = 0; v < n; v++) {
+			int start = outStart[v];
+			int a = start;
+			if (basic != null) {
+				for (Map.Entry<Vertex<V>, Edge<V, E>> entry : basic.outEdges(vertexes[v]).entrySet()) {
+					arcTarget[a] = indexes.get(entry.getKey().name());
+					arcEdge[a] = entry.getValue();
+					a++;
+				}
+			} else {
+				for (Vertex<V> w : graph.neighbors(vertexes[v])) {
+					arcTarget[a] = indexes.get(w.name());
+					arcEdge[a] = graph.edge(vertexes[v], w);
+					a++;
+				}
+			}
+
+			// sort this vertex's arcs by target, if they aren't already
+			int degree = a - start;
+			if (!isSorted(arcTarget, start, a)) {
+				if (order.length < degree) {
+					order = new long[degree];
+				}
+				for (int k = 0; k < degree; k++) {
+					order[k] = ((long) arcTarget[start + k] << 32) | k;
+				}
+				Arrays.sort(order, 0, degree);
+				Edge<V, E>[] edges = Arrays.copyOfRange(arcEdge, start, a);
+				for (int k = 0; k < degree; k++) {
+					arcTarget[start + k] = (int) (order[k] >>> 32);
+					arcEdge[start + k] = edges[(int) order[k]];
+				}
+			}
+			for (int k = start; k < a; k++) {
+				arcSource[k] = v;
+				arcWeight[k] = arcEdge[k].weight();
+			}
+		}
+
+		// reverse adjacency, by counting sort of the arcs on their targets;
+		// arcs are visited in source order, so each vertex's in arcs end up sorted by source
+		inStart = new int[n + 1];
+		for (int a = 0; a < m; a++) {
+			inStart[arcTarget[a] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			inStart[v + 1] += inStart[v];
+		}
+		inArc = new int[m];
+		int[] next = Arrays.copyOf(inStart, n);
+		for (int a = 0; a < m; a++) {
+			inArc[next[arcTarget[a]]++] = a;
+		}
+	}
+
+	/**
+	 * Returns the number of directed arcs; an undirected edge counts twice.
+	 */
+	public int arcCount() {
+		return arcTarget.length;
+	}
+
+	/**
+	 * Returns the Edge object that arc a was built from.
+	 */
+	public Edge<V, E> arcEdge(int a) {
+		return arcEdge[a];
+	}
+
+	/**
+	 * Returns the index of the vertex that arc a leaves.
+	 */
+	public int arcSource(int a) {
+		return arcSource[a];
+	}
+
+	/**
+	 * Returns the index of the vertex that arc a enters.
+	 */
+	public int arcTarget(int a) {
+		return arcTarget[a];
+	}
+
+	/**
+	 * Returns the weight of arc a.
+	 */
+	public double arcWeight(int a) {
+		return arcWeight[a];
+	}
+
+	/**
+	 * Returns the arc from vertex v1 to vertex v2, or -1 if there is none.
+	 */
+	public int findArc(int v1, int v2) {
+		int a = Arrays.binarySearch(arcTarget, outStart[v1], outStart[v1 + 1], v2);
+		return a >= 0 ? a : -1;
+	}
+
+	/**
+	 * Returns the i'th arc entering its vertex; see inStart and inEnd.
+	 */
+	public int inArc(int i) {
+		return inArc[i];
+	}
+
+	/**
+	 * Returns the number of arcs entering vertex v.
+	 */
+	public int inDegree(int v) {
+		return inStart[v + 1] - inStart[v];
+	}
+
+	/**
+	 * Returns the position one past the last of vertex v's entering arcs in inArc.
+	 */
+	public int inEnd(int v) {
+		return inStart[v + 1];
+	}
+
+	/**
+	 * Returns the position of the first of vertex v's entering arcs in inArc.
+	 */
+	public int inStart(int v) {
+		return inStart[v];
+	}
+
+	/**
+	 * Returns the index of the vertex with the given name, or -1 if there is none.
+	 */
+	public int indexOf(String name) {
+		Integer index = indexes.get(name);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Returns the index of the given vertex, or -1 if it is not in the snapshot.
+	 */
+	public int indexOf(Vertex<V> v) {
+		int index = indexOf(v.name());
+		return (index >= 0 && vertexes[index] == v) ? index : -1;
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	/**
+	 * Returns the number of arcs leaving vertex v.
+	 */
+	public int outDegree(int v) {
+		return outStart[v + 1] - outStart[v];
+	}
+
+	/**
+	 * Returns one past the last arc leaving vertex v.
+	 */
+	public int outEnd(int v) {
+		return outStart[v + 1];
+	}
+
+	/**
+	 * Returns the first arc leaving vertex v.
+	 */
+	public int outStart(int v) {
+		return outStart[v];
+	}
+
+	/**
+	 * Returns the vertex with the given index.
+	 */
+	public Vertex<V> vertex(int v) {
+		return vertexes[v];
+	}
+
+	public int vertexCount() {
+		return vertexes.length;
+	}
+
+	public String toString() {
+		return "IndexedGraph{" + vertexCount() + " vertexes, " + arcCount() + " arcs"
+				+ (directed ? ", directed" : "") + (weighted ? ", weighted" : "") + "}";
+	}
+
+	private static boolean isSorted(int[] a, int start, int end) {
+		for (int i = start + 1; i < end; i++) {
+			if (a[i - 1] > a[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
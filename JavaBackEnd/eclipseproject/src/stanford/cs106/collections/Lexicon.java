@@ -1,15 +1,34 @@
 /*
  * @author Marty Stepp
+ * @version 2016/12/28
+ * - queries no longer merge pending words into the DAWG, so several threads
+ *   may query a lexicon at once
+ * @version 2016/12/15
+ * - added cursor, for walking the lexicon one character at a time
+ * - added wordsMatching, anagramsOf, subwordsOf
+ * @version 2016/12/14
+ * - words are now stored in a minimized DAWG (see PackedDawg) rather than
+ *   sets of words and prefixes; containsPrefix is now exact for all prefixes
+ * - contains and containsPrefix accept any CharSequence and don't allocate
+ * - added saveCompiled/loadCompiled for a binary image that is memory-mapped
+ *   on load; addWordsFromFile and the filename constructor detect such files
+ * - iteration is now in sorted order
+ * - fixed the filename constructor, which left the lexicon uninitialized
  * @version 2016/11/03
  * - added isEmpty, toString, equals, hashCode
  * @version 2016/07/13
  * - added iterator, implementing Iterable<String> for for-each looping
  * - added constructors that take an input source
  * - added addWordsFrom(...) methods
- * 
- * Implementation notes: doesn't totally work. Has all of A-Z as prefixes,
- * regardless of contents, and doesn't support removal.
- * Implemented naively using just a set of strings.
+ *
+ * Implementation notes: doesn't support removal.
+ * Words added one at a time are kept in a sorted set and merged into the
+ * DAWG in batches, by add once they outnumber the DAWG's words; the
+ * addWordsFrom methods merge once at the end.  Queries never change the
+ * lexicon, so any number of threads may query it while none is adding words.
+ * Queries that walk the DAWG itself, such as cursor, use a merged copy that
+ * is kept until the next word is added.
+ * Words are case-insensitive and stored in upper case.
  */
 
 package stanford.cs106.collections;
@@ -19,50 +38,93 @@ import java.util.*;
 import stanford.cs106.io.IORuntimeException;
 
 public class Lexicon implements Iterable<String> {
-	private Set<String> words;
-	private Set<String> knownPrefixes;
-	
+	// add merges pending words into the DAWG once there are this many of them
+	// and as many as the DAWG holds, so each word is merged only a few times
+	private static final int MIN_PENDING_WORDS = 1024;
+
+	private PackedDawg dawg = PackedDawg.empty();
+	private TreeSet<String> pending = new TreeSet<String>();
+
+	// the words of dawg and pending in one DAWG, once a query has needed it;
+	// null after a word is added
+	private volatile PackedDawg allWords;
+
 	public Lexicon() {
-		words = new HashSet<String>();
-		knownPrefixes = new HashSet<String>();
-		knownPrefixes.add("");
-		for (char c = 'A'; c <= 'Z'; c++) {
-			knownPrefixes.add(String.valueOf(c));
-		}
+		// empty
 	}
-	
+
 	public Lexicon(String filename) {
 		addWordsFromFile(filename);
 	}
-	
+
+	/**
+	 * Returns a lexicon holding the words of the given file, which must have
+	 * been written by saveCompiled.  The file is memory-mapped rather than
+	 * read, so this takes about the same short time for any size of lexicon.
+	 */
+	public static Lexicon loadCompiled(File file) {
+		Lexicon lex = new Lexicon();
+		try {
+			lex.dawg = PackedDawg.map(file);
+		} catch (IOException ioe) {
+			throw new IORuntimeException(ioe);
+		}
+		return lex;
+	}
+
 	public void add(String word) {
-		word = word.toUpperCase();
-		words.add(word);
-		for (int i = 2; i <= word.length(); i++) {
-			knownPrefixes.add(word.substring(0, i));
+		if (allWords != null) {
+			// a query has already merged the pending words
+			compact();
+		}
+		addPending(normalize(word));
+		if (pending.size() >= Math.max(MIN_PENDING_WORDS, dawg.getWordCount())) {
+			compact();
 		}
 	}
-	
+
 	public void addWordsFrom(InputStream input) {
 		Scanner scan = new Scanner(input);
 		addWordsFrom(scan);
 	}
-	
+
 	public void addWordsFrom(Reader reader) {
 		Scanner scan = new Scanner(reader);
 		addWordsFrom(scan);
 	}
-	
+
 	public void addWordsFrom(Scanner input) {
 		while (input.hasNextLine()) {
 			String line = input.nextLine().trim();
 			if (!line.isEmpty()) {
-				add(line);
+				addPending(normalize(line));
 			}
 		}
+		compact();
 	}
-	
+
+	/**
+	 * Adds the words of the given file, which may be either a text file with
+	 * one word per line or a compiled lexicon written by saveCompiled.
+	 */
 	public void addWordsFromFile(File file) {
+		if (PackedDawg.isCompiledFile(file)) {
+			PackedDawg compiled;
+			try {
+				compiled = PackedDawg.map(file);
+			} catch (IOException ioe) {
+				throw new IORuntimeException(ioe);
+			}
+			if (isEmpty()) {
+				dawg = compiled;
+			} else {
+				for (Iterator<String> itr = compiled.iterator(); itr.hasNext(); ) {
+					addPending(itr.next());
+				}
+				compact();
+			}
+			return;
+		}
 		try {
 			Scanner input = new Scanner(file);
 			addWordsFrom(input);
@@ -70,49 +132,362 @@ public class Lexicon implements Iterable<String> {
 			throw new IORuntimeException(fnfe);
 		}
 	}
-	
+
 	public void addWordsFromFile(String filename) {
 		addWordsFromFile(new File(filename));
 	}
-	
-	public boolean contains(String word) {
-		return words.contains(word.toUpperCase());
+
+	public boolean contains(CharSequence word) {
+		if (!pending.isEmpty() && pending.contains(normalize(word))) {
+			return true;
+		}
+		return dawg.contains(word);
+	}
+
+	/**
+	 * Returns true if any word in the lexicon begins with the given prefix.
+	 * The empty string is always considered a prefix.
+	 */
+	public boolean containsPrefix(CharSequence prefix) {
+		if (!pending.isEmpty()) {
+			String s = normalize(prefix);
+			String next = pending.ceiling(s);
+			if (next != null && next.startsWith(s)) {
+				return true;
+			}
+		}
+		return dawg.containsPrefix(prefix);
+	}
+
+	/**
+	 * Returns a new cursor positioned at the start of the lexicon (the empty
+	 * prefix).  Words added to the lexicon later are not seen by the cursor.
+	 */
+	public Cursor cursor() {
+		return new Cursor(allWords());
 	}
-	
-	public boolean containsPrefix(String prefix) {
-		return knownPrefixes.contains(prefix.toUpperCase());
+
+	/**
+	 * Returns, in ascending order, the words that use all of the given letters,
+	 * each as many times as it appears.
+	 */
+	public List<String> anagramsOf(String letters) {
+		return findWords(letters, true);
 	}
-	
+
 	public boolean equals(Object o) {
 		if (o instanceof Lexicon) {
 			Lexicon lex = (Lexicon) o;
-			return lex.words.equals(this.words);
+			if (lex.size() != size()) {
+				return false;
+			}
+			// both iterate in sorted order
+			Iterator<String> itr1 = iterator();
+			Iterator<String> itr2 = lex.iterator();
+			while (itr1.hasNext()) {
+				if (!itr1.next().equals(itr2.next())) {
+					return false;
+				}
+			}
+			return true;
 		} else {
 			return false;
 		}
 	}
-	
+
 	public int hashCode() {
-		return words.hashCode();
+		// same as a Set<String> of the words
+		int hash = 0;
+		for (String word : this) {
+			hash += word.hashCode();
+		}
+		return hash;
 	}
 
 	public boolean isEmpty() {
 		return size() == 0;
 	}
-	
+
+	/**
+	 * Returns an iterator over the words of the lexicon in ascending order.
+	 * The lexicon must not be modified while the iterator is in use.
+	 */
 	public Iterator<String> iterator() {
-		return Collections.unmodifiableSet(words).iterator();
+		if (pending.isEmpty()) {
+			return dawg.iterator();
+		}
+		return merge(dawg.iterator(), pending.iterator());
 	}
-	
+
+	/**
+	 * Returns the number of distinct prefixes of words in the lexicon,
+	 * counting the empty string.
+	 */
 	public int prefixCount() {
-		return knownPrefixes.size();
+		return allWords().getPrefixCount();
+	}
+
+	/**
+	 * Writes the lexicon to the given file in a compact binary form that
+	 * loadCompiled (or addWordsFromFile) can map straight into memory.
+	 */
+	public void saveCompiled(File file) {
+		try {
+			allWords().write(file);
+		} catch (IOException ioe) {
+			throw new IORuntimeException(ioe);
+		}
+	}
+
+	public void saveCompiled(String filename) {
+		saveCompiled(new File(filename));
 	}
-	
+
 	public int size() {
-		return words.size();
+		return dawg.getWordCount() + pending.size();
 	}
-	
+
+	/**
+	 * Returns, in ascending order, the words that can be spelled using some of
+	 * the given letters, each at most as many times as it appears.
+	 */
+	public List<String> subwordsOf(String letters) {
+		return findWords(letters, false);
+	}
+
 	public String toString() {
-		return words.toString();
+		StringBuilder sb = new StringBuilder("[");
+		boolean first = true;
+		for (String word : this) {
+			if (!first) {
+				sb.append(", ");
+			}
+			sb.append(word);
+			first = false;
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Returns, in ascending order, the words that match the given pattern,
+	 * in which '?' matches any one character and '*' matches any sequence of
+	 * characters (including none).  Other characters match themselves,
+	 * ignoring case.  Large lexicons are searched on several threads.
+	 */
+	public List<String> wordsMatching(String pattern) {
+		return allWords().wordsMatching(normalize(pattern));
+	}
+
+	/*
+	 * The case-folding used for all stored words and lookups, one char at a time,
+	 * so that lookups can fold as they go without building a new string.
+	 */
+	static char normalize(char ch) {
+		return Character.toUpperCase(ch);
+	}
+
+	private static String normalize(CharSequence s) {
+		int length = s.length();
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = normalize(s.charAt(i));
+		}
+		return new String(chars);
+	}
+
+	/*
+	 * Finds the words spelled by some or all of the given letters.
+	 */
+	private List<String> findWords(String letters, boolean useAll) {
+		char[] sorted = normalize(letters).toCharArray();
+		Arrays.sort(sorted);
+		char[] distinct = new char[sorted.length];
+		int[] counts = new int[sorted.length];
+		int distinctCount = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (distinctCount == 0 || distinct[distinctCount - 1] != sorted[i]) {
+				distinct[distinctCount++] = sorted[i];
+			}
+			counts[distinctCount - 1]++;
+		}
+		List<String> result = new ArrayList<String>();
+		findWords(cursor(), Arrays.copyOf(distinct, distinctCount), counts, sorted.length, useAll, result);
+		return result;
+	}
+
+	private static void findWords(Cursor cursor, char[] letters, int[] counts, int remaining,
+			boolean useAll, List<String> result) {
+		if (cursor.isWord() && cursor.length() > 0 && (!useAll || remaining == 0)) {
+			result.add(cursor.toString());
+		}
+		if (remaining == 0 || !cursor.hasChildren()) {
+			return;
+		}
+		for (int i = 0; i < letters.length; i++) {
+			if (counts[i] > 0 && cursor.advance(letters[i])) {
+				counts[i]--;
+				findWords(cursor, letters, counts, remaining - 1, useAll, result);
+				counts[i]++;
+				cursor.retreat();
+			}
+		}
+	}
+
+	/*
+	 * Adds a normalized word to the pending words, unless it is already in
+	 * the lexicon.
+	 */
+	private void addPending(String word) {
+		if (!dawg.contains(word) && pending.add(word)) {
+			allWords = null;
+		}
+	}
+
+	/*
+	 * Returns a DAWG of every word in the lexicon, without changing the
+	 * lexicon's own DAWG or pending words.
+	 */
+	private PackedDawg allWords() {
+		if (pending.isEmpty()) {
+			return dawg;
+		}
+		PackedDawg merged = allWords;
+		if (merged == null) {
+			merged = PackedDawg.build(merge(dawg.iterator(), pending.iterator()));
+			allWords = merged;
+		}
+		return merged;
+	}
+
+	/*
+	 * Merges any pending words into a new DAWG.
+	 */
+	private void compact() {
+		dawg = allWords();
+		pending = new TreeSet<String>();
+		allWords = null;
+	}
+
+	/*
+	 * Returns the words of two sorted iterators, which share no words, in
+	 * sorted order.
+	 */
+	private static Iterator<String> merge(final Iterator<String> itr1, final Iterator<String> itr2) {
+		return new Iterator<String>() {
+			private String next1 = itr1.hasNext() ? itr1.next() : null;
+			private String next2 = itr2.hasNext() ? itr2.next() : null;
+
+			public boolean hasNext() {
+				return next1 != null || next2 != null;
+			}
+
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				String result;
+				if (next2 == null || (next1 != null && next1.compareTo(next2) <= 0)) {
+					result = next1;
+					next1 = itr1.hasNext() ? itr1.next() : null;
+				} else {
+					result = next2;
+					next2 = itr2.hasNext() ? itr2.next() : null;
+				}
+				return result;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * A position within the lexicon, reached by spelling out a prefix one
+	 * character at a time.  Solvers that build words letter by letter can
+	 * advance and retreat a cursor instead of calling containsPrefix on each
+	 * new prefix string; no step allocates memory once the cursor has grown
+	 * to the longest prefix used.  A cursor is not safe for use by several
+	 * threads at once, but any number of cursors can be used independently.
+	 */
+	public static class Cursor {
+		private final PackedDawg dawg;
+		private int[] nodes = new int[17];   // nodes[i] is the node after i characters
+		private int[] edges = new int[16];   // edges[i] is the edge taken for character i
+		private char[] chars = new char[16];
+		private int depth = 0;
+
+		private Cursor(PackedDawg dawg) {
+			this.dawg = dawg;
+			nodes[0] = dawg.getRoot();
+		}
+
+		/**
+		 * Extends the current prefix by the given character and returns true,
+		 * if some word begins with the result; otherwise returns false and
+		 * leaves the cursor where it was.
+		 */
+		public boolean advance(char ch) {
+			int edge = dawg.findEdge(nodes[depth], normalize(ch));
+			if (edge < 0) {
+				return false;
+			}
+			if (depth == edges.length) {
+				edges = Arrays.copyOf(edges, depth * 2);
+				chars = Arrays.copyOf(chars, depth * 2);
+				nodes = Arrays.copyOf(nodes, depth * 2 + 1);
+			}
+			edges[depth] = edge;
+			chars[depth] = dawg.getLabel(edge);
+			depth++;
+			nodes[depth] = dawg.getTarget(edge);
+			return true;
+		}
+
+		/**
+		 * Removes the last character of the current prefix.
+		 * @throws IllegalStateException if the prefix is empty
+		 */
+		public void retreat() {
+			if (depth == 0) {
+				throw new IllegalStateException("cursor is already at the start of the lexicon");
+			}
+			depth--;
+		}
+
+		/**
+		 * Returns true if some word is longer than the current prefix and begins with it.
+		 */
+		public boolean hasChildren() {
+			return nodes[depth] != PackedDawg.NO_NODE;
+		}
+
+		/**
+		 * Returns true if the current prefix is itself a word.
+		 */
+		public boolean isWord() {
+			return depth == 0 ? dawg.containsEmpty() : dawg.isWordEnd(edges[depth - 1]);
+		}
+
+		/**
+		 * Returns the number of characters in the current prefix.
+		 */
+		public int length() {
+			return depth;
+		}
+
+		/**
+		 * Moves the cursor back to the start of the lexicon.
+		 */
+		public void reset() {
+			depth = 0;
+		}
+
+		/**
+		 * Returns the current prefix, in upper case.
+		 */
+		public String toString() {
+			return new String(chars, 0, depth);
+		}
 	}
 }
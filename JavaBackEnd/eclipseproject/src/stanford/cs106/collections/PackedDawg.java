@@ -0,0 +1,713 @@
+/*
+ * @author Marty Stepp
+ * @version 2016/12/15
+ * - added wordsMatching, which searches the subtrees of the first letters in parallel
+ * @version 2016/12/14
+ * - initial version
+ *
+ * Implementation notes: a minimized DAWG (directed acyclic word graph) stored
+ * as two parallel arrays of edges.  Each node is a run of consecutive edges
+ * sorted by character.  edges[i] holds the index of the target node's first
+ * edge plus one (0 if the target has no edges) along with two flags: whether
+ * the path through the edge spells a complete word, and whether the edge is
+ * the last one of its node.  Building uses the incremental algorithm of
+ * Daciuk et al. for sorted input, which keeps the graph minimal as it goes.
+ */
+
+package stanford.cs106.collections;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+
+final class PackedDawg {
+	/** Node handle meaning "no node"; also the handle of a node with no edges. */
+	static final int NO_NODE = 0;
+
+	private static final int MAGIC = 0x4C455831;   // "LEX1"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_INTS = 7;
+	private static final int FLAG_CONTAINS_EMPTY = 1;
+
+	private static final int END_OF_WORD = 0x80000000;
+	private static final int LAST_EDGE = 0x40000000;
+	private static final int TARGET_MASK = 0x3fffffff;
+
+	// patterns are matched with one bit per position, plus one for the end
+	static final int MAX_PATTERN_LENGTH = 63;
+	private static final char WILDCARD_ONE = '?';
+	private static final char WILDCARD_ANY = '*';
+
+	// below this many words, wordsMatching doesn't bother with other threads
+	private static final int MIN_PARALLEL_WORDS = 20000;
+
+	// wordsMatching splits the search into one task per prefix of this length
+	private static final int PARALLEL_SPLIT_DEPTH = 2;
+
+	private static ForkJoinPool matchPool;
+
+	private static final PackedDawg EMPTY = new PackedDawg(CharBuffer.allocate(0), IntBuffer.allocate(0),
+			NO_NODE, 0, 1, false);
+
+	private final CharBuffer labels;
+	private final IntBuffer edges;
+	private final int root;
+	private final int wordCount;
+	private final int prefixCount;
+	private final boolean containsEmpty;
+
+	private PackedDawg(CharBuffer labels, IntBuffer edges, int root, int wordCount,
+			int prefixCount, boolean containsEmpty) {
+		this.labels = labels;
+		this.edges = edges;
+		this.root = root;
+		this.wordCount = wordCount;
+		this.prefixCount = prefixCount;
+		this.containsEmpty = containsEmpty;
+	}
+
+	/**
+	 * Returns a DAWG that contains no words.
+	 */
+	static PackedDawg empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Builds a minimized DAWG holding the given words, which must be sorted in
+	 * ascending String order.  Duplicates are ignored.
+	 */
+	static PackedDawg build(Iterator<String> sortedWords) {
+		BuildNode rootNode = new BuildNode();
+		Map<BuildNode, BuildNode> register = new HashMap<BuildNode, BuildNode>();
+		ArrayList<BuildNode> path = new ArrayList<BuildNode>();
+		path.add(rootNode);
+		String previous = null;
+		int wordCount = 0;
+		int prefixCount = 1;   // the empty prefix
+		boolean containsEmpty = false;
+		while (sortedWords.hasNext()) {
+			String word = sortedWords.next();
+			if (previous != null) {
+				int order = word.compareTo(previous);
+				if (order == 0) {
+					continue;
+				} else if (order < 0) {
+					throw new IllegalArgumentException("words out of order: \"" + previous + "\", \"" + word + "\"");
+				}
+			}
+			wordCount++;
+			if (word.isEmpty()) {
+				containsEmpty = true;
+				previous = word;
+				continue;
+			}
+			int common = (previous == null) ? 0 : commonPrefixLength(previous, word);
+			minimize(path, common, register);
+			BuildNode node = path.get(common);
+			for (int i = common; i < word.length(); i++) {
+				BuildNode next = new BuildNode();
+				node.addChild(word.charAt(i), next);
+				path.add(next);
+				node = next;
+			}
+			node.isFinal = true;
+			prefixCount += word.length() - common;
+			previous = word;
+		}
+		minimize(path, 0, register);
+		return pack(rootNode, wordCount, prefixCount, containsEmpty);
+	}
+
+	/**
+	 * Maps a compiled DAWG file (see write) into memory.  The file's contents
+	 * are used in place, so loading takes time independent of the word count.
+	 */
+	static PackedDawg map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// the mapping stays valid after the file is closed
+			MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			return fromBuffer(buffer, file.toString());
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns true if the given file begins like a compiled DAWG file.
+	 */
+	static boolean isCompiledFile(File file) {
+		try {
+			DataInputStream input = new DataInputStream(new FileInputStream(file));
+			try {
+				return input.readInt() == MAGIC;
+			} finally {
+				input.close();
+			}
+		} catch (IOException ioe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes this DAWG to the given file in a binary format that map can load.
+	 */
+	void write(File file) throws IOException {
+		int edgeCount = labels.limit();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(containsEmpty ? FLAG_CONTAINS_EMPTY : 0);
+			out.writeInt(wordCount);
+			out.writeInt(prefixCount);
+			out.writeInt(root);
+			out.writeInt(edgeCount);
+			for (int i = 0; i < edgeCount; i++) {
+				out.writeChar(labels.get(i));
+			}
+			if (edgeCount % 2 != 0) {
+				out.writeChar(0);   // keep the edge ints 4-byte aligned
+			}
+			for (int i = 0; i < edgeCount; i++) {
+				out.writeInt(edges.get(i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	int getWordCount() {
+		return wordCount;
+	}
+
+	int getPrefixCount() {
+		return prefixCount;
+	}
+
+	boolean containsEmpty() {
+		return containsEmpty;
+	}
+
+	int getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the index of the edge leaving the given node with the given
+	 * character, or -1 if there is none.
+	 */
+	int findEdge(int node, char ch) {
+		if (node == NO_NODE) {
+			return -1;
+		}
+		for (int edge = node - 1; ; edge++) {
+			char label = labels.get(edge);
+			if (label == ch) {
+				return edge;
+			} else if (label > ch || (edges.get(edge) & LAST_EDGE) != 0) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the node that the given edge leads to.
+	 */
+	int getTarget(int edge) {
+		return edges.get(edge) & TARGET_MASK;
+	}
+
+	/**
+	 * Returns true if the path through the given edge spells a complete word.
+	 */
+	boolean isWordEnd(int edge) {
+		return (edges.get(edge) & END_OF_WORD) != 0;
+	}
+
+	/**
+	 * Returns the index of the given node's first edge; its other edges follow
+	 * in order until isLastEdge returns true.  The node must not be NO_NODE.
+	 */
+	int getFirstEdge(int node) {
+		return node - 1;
+	}
+
+	boolean isLastEdge(int edge) {
+		return (edges.get(edge) & LAST_EDGE) != 0;
+	}
+
+	char getLabel(int edge) {
+		return labels.get(edge);
+	}
+
+	/**
+	 * Returns true if the given upper-cased character sequence is a word.
+	 */
+	boolean contains(CharSequence s) {
+		int length = s.length();
+		if (length == 0) {
+			return containsEmpty;
+		}
+		int node = root;
+		int edge = -1;
+		for (int i = 0; i < length; i++) {
+			edge = findEdge(node, Lexicon.normalize(s.charAt(i)));
+			if (edge < 0) {
+				return false;
+			}
+			node = getTarget(edge);
+		}
+		return isWordEnd(edge);
+	}
+
+	/**
+	 * Returns true if some word begins with the given upper-cased character sequence.
+	 */
+	boolean containsPrefix(CharSequence s) {
+		int node = root;
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			int edge = findEdge(node, Lexicon.normalize(s.charAt(i)));
+			if (edge < 0) {
+				return false;
+			}
+			node = getTarget(edge);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns an iterator over all words in ascending order.
+	 */
+	Iterator<String> iterator() {
+		return new WordIterator();
+	}
+
+	/**
+	 * Returns all words that match the given upper-cased pattern in ascending
+	 * order, where '?' matches any one character and '*' any run of characters.
+	 */
+	List<String> wordsMatching(String pattern) {
+		if (pattern.length() > MAX_PATTERN_LENGTH) {
+			throw new IllegalArgumentException("pattern longer than " + MAX_PATTERN_LENGTH + " characters: " + pattern);
+		}
+		final char[] chars = pattern.toCharArray();
+		long start = closure(1L, chars);
+		List<String> result = new ArrayList<String>();
+		if (containsEmpty && (start & acceptState(chars)) != 0) {
+			result.add("");
+		}
+		if (root == NO_NODE) {
+			return result;
+		}
+		MatchTask task = new MatchTask(chars, root, start, new char[0]);
+		if (wordCount < MIN_PARALLEL_WORDS) {
+			task.matchAll(root, start, 0);
+		} else {
+			getMatchPool().invoke(task);
+		}
+		task.collect(result);
+		return result;
+	}
+
+	//=--------------- Private -------------=//
+
+	private static synchronized ForkJoinPool getMatchPool() {
+		if (matchPool == null) {
+			matchPool = new ForkJoinPool();
+		}
+		return matchPool;
+	}
+
+	private static long acceptState(char[] pattern) {
+		return 1L << pattern.length;
+	}
+
+	/*
+	 * Adds to the given set of pattern positions every position reachable
+	 * from them by letting a '*' match nothing.
+	 */
+	private static long closure(long states, char[] pattern) {
+		for (int i = 0; i < pattern.length; i++) {
+			if ((states & (1L << i)) != 0 && pattern[i] == WILDCARD_ANY) {
+				states |= 1L << (i + 1);
+			}
+		}
+		return states;
+	}
+
+	/*
+	 * Returns the set of pattern positions reached from the given set by the given character.
+	 */
+	private static long step(long states, char ch, char[] pattern) {
+		long next = 0;
+		for (int i = 0; i < pattern.length; i++) {
+			if ((states & (1L << i)) != 0) {
+				char p = pattern[i];
+				if (p == WILDCARD_ANY) {
+					next |= 1L << i;
+				} else if (p == WILDCARD_ONE || p == ch) {
+					next |= 1L << (i + 1);
+				}
+			}
+		}
+		return closure(next, pattern);
+	}
+
+	private static PackedDawg fromBuffer(ByteBuffer buffer, String source) throws IOException {
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		if (buffer.remaining() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+			throw new IOException("not a compiled lexicon: " + source);
+		}
+		if (buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("unsupported compiled lexicon version " + buffer.getInt(4) + ": " + source);
+		}
+		int flags = buffer.getInt(8);
+		int wordCount = buffer.getInt(12);
+		int prefixCount = buffer.getInt(16);
+		int root = buffer.getInt(20);
+		int edgeCount = buffer.getInt(24);
+		int labelBytes = 2 * (edgeCount + edgeCount % 2);
+		long expected = HEADER_INTS * 4L + labelBytes + 4L * edgeCount;
+		if (edgeCount < 0 || buffer.limit() < expected || root < 0 || root > edgeCount) {
+			throw new IOException("truncated or corrupt compiled lexicon: " + source);
+		}
+		buffer.position(HEADER_INTS * 4);
+		CharBuffer labels = buffer.slice().asCharBuffer();
+		labels.limit(edgeCount);
+		buffer.position(HEADER_INTS * 4 + labelBytes);
+		IntBuffer edges = buffer.slice().asIntBuffer();
+		edges.limit(edgeCount);
+		return new PackedDawg(labels, edges, root, wordCount, prefixCount, (flags & FLAG_CONTAINS_EMPTY) != 0);
+	}
+
+	private static int commonPrefixLength(String s1, String s2) {
+		int n = Math.min(s1.length(), s2.length());
+		int i = 0;
+		while (i < n && s1.charAt(i) == s2.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/*
+	 * Replaces each node on the path below the given depth with an equivalent
+	 * node already in the register, or registers it, then pops it off the path.
+	 */
+	private static void minimize(ArrayList<BuildNode> path, int depth, Map<BuildNode, BuildNode> register) {
+		for (int i = path.size() - 1; i > depth; i--) {
+			BuildNode child = path.remove(i);
+			child.freeze();
+			BuildNode existing = register.get(child);
+			if (existing != null) {
+				path.get(i - 1).replaceLastChild(existing);
+			} else {
+				register.put(child, child);
+			}
+		}
+	}
+
+	/*
+	 * Lays out the unique nodes reachable from the root as runs of edges.
+	 */
+	private static PackedDawg pack(BuildNode rootNode, int wordCount, int prefixCount, boolean containsEmpty) {
+		IdentityHashMap<BuildNode, Integer> offsets = new IdentityHashMap<BuildNode, Integer>();
+		ArrayList<BuildNode> order = new ArrayList<BuildNode>();
+		int edgeCount = 0;
+		if (rootNode.count > 0) {
+			offsets.put(rootNode, 0);
+			order.add(rootNode);
+			edgeCount = rootNode.count;
+		}
+		for (int n = 0; n < order.size(); n++) {
+			BuildNode node = order.get(n);
+			for (int k = 0; k < node.count; k++) {
+				BuildNode child = node.children[k];
+				if (child.count > 0 && !offsets.containsKey(child)) {
+					offsets.put(child, edgeCount);
+					order.add(child);
+					edgeCount += child.count;
+				}
+			}
+		}
+		if (edgeCount > TARGET_MASK) {
+			throw new IllegalStateException("too many words for a compiled lexicon");
+		}
+		char[] labels = new char[edgeCount];
+		int[] edges = new int[edgeCount];
+		for (BuildNode node : order) {
+			int offset = offsets.get(node);
+			for (int k = 0; k < node.count; k++) {
+				BuildNode child = node.children[k];
+				int value = (child.count > 0) ? offsets.get(child) + 1 : NO_NODE;
+				if (child.isFinal) {
+					value |= END_OF_WORD;
+				}
+				if (k == node.count - 1) {
+					value |= LAST_EDGE;
+				}
+				labels[offset + k] = node.labels[k];
+				edges[offset + k] = value;
+			}
+		}
+		int root = (rootNode.count > 0) ? 1 : NO_NODE;
+		return new PackedDawg(CharBuffer.wrap(labels), IntBuffer.wrap(edges), root,
+				wordCount, prefixCount, containsEmpty);
+	}
+
+	/*
+	 * A node of the graph while it is being built.  Once frozen, a node is
+	 * equal to another if both are final or not and have the same edges
+	 * leading to the same (already unique) children.
+	 */
+	private static class BuildNode {
+		private char[] labels = new char[2];
+		private BuildNode[] children = new BuildNode[2];
+		private int count;
+		private boolean isFinal;
+		private int hash;
+
+		public void addChild(char label, BuildNode child) {
+			if (count == labels.length) {
+				labels = Arrays.copyOf(labels, count * 2);
+				children = Arrays.copyOf(children, count * 2);
+			}
+			labels[count] = label;
+			children[count] = child;
+			count++;
+		}
+
+		public void replaceLastChild(BuildNode child) {
+			children[count - 1] = child;
+		}
+
+		public void freeze() {
+			int h = isFinal ? 1 : 0;
+			for (int i = 0; i < count; i++) {
+				h = 31 * h + labels[i];
+				h = 31 * h + System.identityHashCode(children[i]);
+			}
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof BuildNode)) {
+				return false;
+			}
+			BuildNode other = (BuildNode) o;
+			if (isFinal != other.isFinal || count != other.count || hash != other.hash) {
+				return false;
+			}
+			for (int i = 0; i < count; i++) {
+				if (labels[i] != other.labels[i] || children[i] != other.children[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * Finds the pattern's matches among the words that begin with a given
+	 * prefix.  Near the root the task forks one subtask per edge; deeper
+	 * down it searches sequentially.  Results are kept per subtask and
+	 * concatenated in edge order, so they come out sorted.
+	 */
+	private class MatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final char[] pattern;
+		private final int node;
+		private final long states;
+		private final int depth;
+		private char[] word;
+		private List<String> matches = new ArrayList<String>();
+		private List<MatchTask> subtasks = Collections.emptyList();
+
+		public MatchTask(char[] pattern, int node, long states, char[] prefix) {
+			this.pattern = pattern;
+			this.node = node;
+			this.states = states;
+			this.depth = prefix.length;
+			this.word = Arrays.copyOf(prefix, Math.max(16, prefix.length * 2));
+		}
+
+		@Override
+		protected void compute() {
+			if (depth >= PARALLEL_SPLIT_DEPTH) {
+				matchAll(node, states, depth);
+				return;
+			}
+			subtasks = new ArrayList<MatchTask>();
+			for (int edge = getFirstEdge(node); ; edge++) {
+				char label = getLabel(edge);
+				long next = step(states, label, pattern);
+				if (next != 0) {
+					word[depth] = label;
+					if ((next & acceptState(pattern)) != 0 && isWordEnd(edge)) {
+						matches.add(new String(word, 0, depth + 1));
+					}
+					int target = getTarget(edge);
+					if (target != NO_NODE) {
+						subtasks.add(new MatchTask(pattern, target, next, Arrays.copyOf(word, depth + 1)));
+					}
+				}
+				if (isLastEdge(edge)) {
+					break;
+				}
+			}
+			invokeAll(subtasks);
+		}
+
+		/*
+		 * Adds this task's matches, and then its subtasks', to the given list.
+		 * A word found at this task's level sorts before its subtask's words,
+		 * and all of them sort before the next edge's.
+		 */
+		public void collect(List<String> result) {
+			if (subtasks.isEmpty()) {
+				result.addAll(matches);
+				return;
+			}
+			int next = 0;
+			for (MatchTask subtask : subtasks) {
+				String first = new String(subtask.word, 0, subtask.depth);
+				while (next < matches.size() && matches.get(next).compareTo(first) <= 0) {
+					result.add(matches.get(next++));
+				}
+				subtask.collect(result);
+			}
+			while (next < matches.size()) {
+				result.add(matches.get(next++));
+			}
+		}
+
+		/*
+		 * Searches the subtree below the given node sequentially.
+		 */
+		public void matchAll(int node, long states, int depth) {
+			if (depth >= word.length) {
+				word = Arrays.copyOf(word, depth * 2);
+			}
+			for (int edge = getFirstEdge(node); ; edge++) {
+				char label = getLabel(edge);
+				long next = step(states, label, pattern);
+				if (next != 0) {
+					word[depth] = label;
+					if ((next & acceptState(pattern)) != 0 && isWordEnd(edge)) {
+						matches.add(new String(word, 0, depth + 1));
+					}
+					int target = getTarget(edge);
+					if (target != NO_NODE) {
+						matchAll(target, next, depth + 1);
+					}
+				}
+				if (isLastEdge(edge)) {
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Walks the graph depth-first, yielding words in ascending order.
+	 */
+	private class WordIterator implements Iterator<String> {
+		private int[] edgeStack = new int[16];
+		private int depth = 0;
+		private StringBuilder word = new StringBuilder();
+		private String next;
+		private boolean emptyReturned;
+		private boolean rootPushed;
+
+		public boolean hasNext() {
+			if (next == null) {
+				next = advance();
+			}
+			return next != null;
+		}
+
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String result = next;
+			next = null;
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/*
+		 * Moves to the next edge that ends a word and returns that word, or null.
+		 */
+		private String advance() {
+			if (!rootPushed) {
+				if (containsEmpty && !emptyReturned) {
+					emptyReturned = true;
+					return "";
+				}
+				rootPushed = true;
+				if (root == NO_NODE) {
+					return null;
+				}
+				push(getFirstEdge(root));
+			} else if (depth == 0 || !descendOrNext()) {
+				return null;
+			}
+			while (!isWordEnd(edgeStack[depth - 1])) {
+				if (!descendOrNext()) {
+					return null;
+				}
+			}
+			return word.toString();
+		}
+
+		/*
+		 * Moves from the current edge to its target's first edge if it has one,
+		 * or otherwise to the next sibling edge, backing up as needed.
+		 * Returns false when every edge has been visited.
+		 */
+		private boolean descendOrNext() {
+			int target = getTarget(edgeStack[depth - 1]);
+			if (target != NO_NODE) {
+				push(getFirstEdge(target));
+				return true;
+			}
+			while (depth > 0) {
+				int edge = edgeStack[depth - 1];
+				pop();
+				if (!isLastEdge(edge)) {
+					push(edge + 1);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void push(int edge) {
+			if (depth == edgeStack.length) {
+				edgeStack = Arrays.copyOf(edgeStack, depth * 2);
+			}
+			edgeStack[depth++] = edge;
+			word.append(getLabel(edge));
+		}
+
+		private void pop() {
+			depth--;
+			word.setLength(depth);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 /*
  * @author Marty Stepp
+ * @version 2016/12/16
+ * - added setNotificationsEnabled, for turning off observer notifications
+ *   while an algorithm updates many vertexes
  * @version 2016/11/29
  * - added template parameter <V>
  * @version 2015/06/08
@@ -32,6 +35,9 @@ public class Vertex<V> extends Observable implements Comparable<Vertex<V>>, Clon
 	private boolean visited;    // a mark for whether this vertex has been visited
 	private double cost;        // a mark for the minimum cost to reach this vertex
 	public V extraData;    // anything else you want to store in here
+	private boolean notificationsEnabled = true;
+	private boolean notificationPending;   // true if a notification was held back
+	private Object pendingArg;             // argument of the latest held-back notification
 	
 	/**
 	 * Constructs information for the given vertex.
@@ -129,12 +135,23 @@ public class Vertex<V> extends Observable implements Comparable<Vertex<V>>, Clon
 		return name;
 	}
 	
+	/**
+	 * Returns whether this vertex currently notifies its observers of changes.
+	 */
+	public boolean isNotificationsEnabled() {
+		return notificationsEnabled;
+	}
+	
 	public void notifyObservers() {
-		setChanged();
-		super.notifyObservers();
+		notifyObservers(null);
 	}
 	
 	public void notifyObservers(Object arg) {
+		if (!notificationsEnabled) {
+			notificationPending = true;
+			pendingArg = arg;
+			return;
+		}
 		setChanged();
 		super.notifyObservers(arg);
 	}
@@ -165,6 +182,21 @@ public class Vertex<V> extends Observable implements Comparable<Vertex<V>>, Clon
 		notifyObservers(Event.COLOR_CHANGED);
 	}
 	
+	/**
+	 * Turns on or off notifications to this vertex's observers.  While they
+	 * are off, changes are not reported; when they are turned back on, the
+	 * latest change made in the meantime, if any, is reported once.
+	 */
+	public void setNotificationsEnabled(boolean enabled) {
+		notificationsEnabled = enabled;
+		if (enabled && notificationPending) {
+			Object arg = pendingArg;
+			notificationPending = false;
+			pendingArg = null;
+			notifyObservers(arg);
+		}
+	}
+	
 	/**
 	 * Sets the value of the internal 'cost' to reach this vertex.
 	 * Used internally in various path-finding algorithms.
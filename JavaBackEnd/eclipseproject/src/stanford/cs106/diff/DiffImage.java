@@ -18,6 +18,8 @@ import stanford.cs106.io.*;
  * with a slider to switch between the two.
  *
  * @author Marty Stepp
+ * @version 2016/12/22
+ * - compare pixels with PixelDiff and cache the result between repaints
  * @version 2016/10/30
  * - made Escape close the window
  * @version 2016/08/02
@@ -36,6 +38,8 @@ public class DiffImage extends JPanel {
 	private BufferedImage image2;
 	private String image1name;
 	private int numDiffPixels;
+	private PixelDiff.Result diffResult;      // null if images have changed since last compared
+	private BufferedImage highlightImage;     // diff pixels in highlightColor; null if not yet made
 	private int opacity = 50;
 	private String label1Text = "Expected";
 	private String label2Text = "Actual";
@@ -104,25 +108,7 @@ public class DiffImage extends JPanel {
 		if (image1 == null || image2 == null) {
 			return;
 		}
-
-		int w1 = image1.getWidth();
-		int h1 = image1.getHeight();
-		int w2 = image2.getWidth();
-		int h2 = image2.getHeight();
-		int wmax = Math.max(w1, w2);
-		int hmax = Math.max(h1, h2);
-
-		// check each pair of pixels
-		numDiffPixels = 0;
-		for (int y = 0; y < hmax; y++) {
-			for (int x = 0; x < wmax; x++) {
-				int pixel1 = (x < w1 && y < h1) ? image1.getRGB(x, y) : 0;
-				int pixel2 = (x < w2 && y < h2) ? image2.getRGB(x, y) : 0;
-				if (pixel1 != pixel2) {
-					numDiffPixels++;
-				}
-			}
-		}
+		numDiffPixels = getDiffResult().getDiffPixelCount();
 	}
 
 	// initializes diffimage panel
@@ -161,6 +147,14 @@ public class DiffImage extends JPanel {
 		g2.drawImage(image, 0, 0, this);
 	}
 	
+	// returns the comparison of the two images, comparing them if they have changed
+	private PixelDiff.Result getDiffResult() {
+		if (diffResult == null) {
+			diffResult = new PixelDiff().compare(image1, image2);
+		}
+		return diffResult;
+	}
+
 	private String getPixelString(BufferedImage image, int x, int y) {
 		if (x >= 0 && x < image.getWidth()
 				&& y >= 0 && y < image.getHeight()) {
@@ -192,25 +186,10 @@ public class DiffImage extends JPanel {
 
 		// draw the highlighted diffs (if so desired)
 		if (highlightDiffs && image1 != null && image2 != null) {
-			int w1 = image1.getWidth();
-			int h1 = image1.getHeight();
-			int w2 = image2.getWidth();
-			int h2 = image2.getHeight();
-
-			int wmax = Math.max(w1, w2);
-			int hmax = Math.max(h1, h2);
-
-			// check each pair of pixels
-			g2.setColor(highlightColor);
-			for (int y = 0; y < hmax; y++) {
-				for (int x = 0; x < wmax; x++) {
-					int pixel1 = (x < w1 && y < h1) ? image1.getRGB(x, y) : 0;
-					int pixel2 = (x < w2 && y < h2) ? image2.getRGB(x, y) : 0;
-					if (pixel1 != pixel2) {
-						g2.fillRect(x, y, 1, 1);
-					}
-				}
+			if (highlightImage == null) {
+				highlightImage = getDiffResult().getMask(highlightColor);
 			}
+			g2.drawImage(highlightImage, 0, 0, this);
 		}
 	}
 
@@ -282,6 +261,8 @@ public class DiffImage extends JPanel {
 		}
 
 		image1 = image;
+		diffResult = null;
+		highlightImage = null;
 		setPreferredSize(new Dimension(
 				Math.max(getPreferredSize().width, image.getWidth()),
 				Math.max(getPreferredSize().height, image.getHeight()))
@@ -335,6 +316,8 @@ public class DiffImage extends JPanel {
 		}
 
 		image2 = image;
+		diffResult = null;
+		highlightImage = null;
 		setPreferredSize(new Dimension(
 				Math.max(getPreferredSize().width, image.getWidth()),
 				Math.max(getPreferredSize().height, image.getHeight()))
@@ -457,6 +440,7 @@ public class DiffImage extends JPanel {
 						"Choose highlight color", highlightColor);
 				if (color != null) {
 					highlightColor = color;
+					highlightImage = null;
 					colorButton.setBackground(color);
 					colorButton.setForeground(color);
 					repaint();
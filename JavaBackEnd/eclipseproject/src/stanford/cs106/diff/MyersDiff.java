@@ -0,0 +1,368 @@
+/*
+ * @version 2016/12/20
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import java.util.*;
+
+/**
+ * Finds a shortest edit script between two sequences of line numbers (ids
+ * that are equal exactly when the lines are), using the O(ND) algorithm of
+ * E. Myers, "An O(ND) Difference Algorithm and Its Variations" (1986).
+ * The result is given by marking which elements of each sequence are not
+ * part of the longest common subsequence found.
+ *
+ * Lines that occur in only one of the sequences can never match, so they are
+ * marked first and left out of the search, which is what makes completely
+ * different outputs cheap to compare.  The remaining lines are compared with
+ * the basic greedy algorithm, which remembers every step of its search in
+ * order to trace the edit script back; if that history would grow too large,
+ * the search is redone with the linear-space divide-and-conquer variant.  For
+ * very different inputs, that variant gives up on finding the shortest
+ * script past a certain cost and splits the problem at the furthest point
+ * reached, as GNU diff does.
+ */
+final class MyersDiff {
+	// ints of search history the greedy algorithm may keep before the
+	// linear-space algorithm is used instead
+	private static final int MAX_TRACE_SIZE = 1 << 22;
+
+	// edit cost past which the linear-space algorithm stops insisting on a
+	// shortest script
+	private static final int MIN_TOO_EXPENSIVE = 4096;
+
+	private final int[] a;
+	private final int[] b;
+	private final boolean[] changedA;
+	private final boolean[] changedB;
+
+	// maps from indexes in a and b to indexes in the original sequences
+	private final int[] indexA;
+	private final int[] indexB;
+
+	// forward and backward furthest-reaching x for each diagonal, used by
+	// the linear-space algorithm
+	private int[] forward;
+	private int[] backward;
+	private int diagonalOffset;
+	private int tooExpensive;
+
+	/**
+	 * Compares the two sequences, whose elements must be from 0 to
+	 * symbolCount - 1, and sets changed1[i] to true for each element of seq1
+	 * that is deleted and changed2[j] for each element of seq2 that is added.
+	 */
+	public static void compare(int[] seq1, int[] seq2, int symbolCount, boolean[] changed1, boolean[] changed2) {
+		// lines found in only one sequence are always changed
+		int[] count1 = new int[symbolCount];
+		int[] count2 = new int[symbolCount];
+		for (int id : seq1) {
+			count1[id]++;
+		}
+		for (int id : seq2) {
+			count2[id]++;
+		}
+		int[] index1 = keptIndexes(seq1, count2, changed1);
+		int[] index2 = keptIndexes(seq2, count1, changed2);
+
+		MyersDiff diff = new MyersDiff(select(seq1, index1), select(seq2, index2),
+				changed1, changed2, index1, index2);
+		diff.run();
+	}
+
+	private MyersDiff(int[] a, int[] b, boolean[] changedA, boolean[] changedB, int[] indexA, int[] indexB) {
+		this.a = a;
+		this.b = b;
+		this.changedA = changedA;
+		this.changedB = changedB;
+		this.indexA = indexA;
+		this.indexB = indexB;
+	}
+
+	private void run() {
+		int xoff = 0;
+		int yoff = 0;
+		int xlim = a.length;
+		int ylim = b.length;
+		while (xoff < xlim && yoff < ylim && a[xoff] == b[yoff]) {
+			xoff++;
+			yoff++;
+		}
+		while (xlim > xoff && ylim > yoff && a[xlim - 1] == b[ylim - 1]) {
+			xlim--;
+			ylim--;
+		}
+		if (!greedy(xoff, xlim, yoff, ylim)) {
+			int diagonals = (xlim - xoff) + (ylim - yoff) + 3;
+			forward = new int[diagonals];
+			backward = new int[diagonals];
+			diagonalOffset = ylim - xoff + 1;
+			tooExpensive = 1;
+			for (int d = diagonals; d != 0; d >>= 2) {
+				tooExpensive <<= 1;
+			}
+			tooExpensive = Math.max(MIN_TOO_EXPENSIVE, tooExpensive);
+			compareSequences(xoff, xlim, yoff, ylim);
+		}
+	}
+
+	/*
+	 * Runs the basic greedy algorithm on a[xoff..xlim) and b[yoff..ylim),
+	 * keeping the furthest-reaching x of every diagonal at every cost d so
+	 * that the path can be traced back.  Returns false, having marked
+	 * nothing, if that history would hold more than MAX_TRACE_SIZE ints.
+	 */
+	private boolean greedy(int xoff, int xlim, int yoff, int ylim) {
+		int n = xlim - xoff;
+		int m = ylim - yoff;
+		int max = n + m;
+		int[] v = new int[2 * max + 3];
+		int offset = max + 1;
+		List<int[]> trace = new ArrayList<int[]>();
+		long traceSize = 0;
+
+		for (int d = 0; d <= max; d++) {
+			traceSize += 2 * d + 1;
+			if (traceSize > MAX_TRACE_SIZE) {
+				return false;
+			}
+			for (int k = -d; k <= d; k += 2) {
+				int x;
+				if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+					x = v[offset + k + 1];       // down: add b[y - 1]
+				} else {
+					x = v[offset + k - 1] + 1;   // right: delete a[x - 1]
+				}
+				int y = x - k;
+				while (x < n && y < m && a[xoff + x] == b[yoff + y]) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					traceBack(trace, d, k, xoff, yoff);
+					return true;
+				}
+			}
+			trace.add(copyDiagonals(v, offset, d));
+		}
+		return true;   // not reached
+	}
+
+	/*
+	 * Walks back through the greedy algorithm's history from diagonal k at
+	 * cost d, marking the deleted and added elements.
+	 */
+	private void traceBack(List<int[]> trace, int d, int k, int xoff, int yoff) {
+		for (; d > 0; d--) {
+			int[] previous = trace.get(d - 1);   // diagonals -(d - 1) to d - 1
+			int prevK;
+			if (k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1])) {
+				prevK = k + 1;
+			} else {
+				prevK = k - 1;
+			}
+			int prevX = previous[prevK + d - 1];
+			int prevY = prevX - prevK;
+			if (prevK == k + 1) {
+				changedB[indexB[yoff + prevY]] = true;
+			} else {
+				changedA[indexA[xoff + prevX]] = true;
+			}
+			k = prevK;
+		}
+	}
+
+	/*
+	 * Compares a[xoff..xlim) with b[yoff..ylim) by splitting both at the
+	 * middle of an edit script and comparing the halves.
+	 */
+	private void compareSequences(int xoff, int xlim, int yoff, int ylim) {
+		while (xoff < xlim && yoff < ylim && a[xoff] == b[yoff]) {
+			xoff++;
+			yoff++;
+		}
+		while (xlim > xoff && ylim > yoff && a[xlim - 1] == b[ylim - 1]) {
+			xlim--;
+			ylim--;
+		}
+
+		if (xoff == xlim) {
+			for (int y = yoff; y < ylim; y++) {
+				changedB[indexB[y]] = true;
+			}
+		} else if (yoff == ylim) {
+			for (int x = xoff; x < xlim; x++) {
+				changedA[indexA[x]] = true;
+			}
+		} else {
+			long split = findSplit(xoff, xlim, yoff, ylim);
+			int xmid = (int) (split >>> 32);
+			int ymid = (int) split;
+			compareSequences(xoff, xmid, yoff, ymid);
+			compareSequences(xmid, xlim, ymid, ylim);
+		}
+	}
+
+	/*
+	 * Returns the point (x, y) in the middle of a shortest edit script from
+	 * (xoff, yoff) to (xlim, ylim), packed as x << 32 | y, found by running
+	 * the greedy algorithm forward and backward at once until the two
+	 * searches meet.  If the cost reaches tooExpensive first, returns the
+	 * point furthest along either search instead.  Diagonal k holds the
+	 * points where x - y = k.
+	 */
+	private long findSplit(int xoff, int xlim, int yoff, int ylim) {
+		int[] fd = forward;
+		int[] bd = backward;
+		int off = diagonalOffset;
+		int dmin = xoff - ylim;
+		int dmax = xlim - yoff;
+		int fmid = xoff - yoff;
+		int bmid = xlim - ylim;
+		int fmin = fmid;
+		int fmax = fmid;
+		int bmin = bmid;
+		int bmax = bmid;
+		boolean odd = ((fmid - bmid) & 1) != 0;
+
+		fd[off + fmid] = xoff;
+		bd[off + bmid] = xlim;
+		for (int c = 1; ; c++) {
+			// extend the forward search by one more edit
+			if (fmin > dmin) {
+				fd[off + --fmin - 1] = -1;
+			} else {
+				fmin++;
+			}
+			if (fmax < dmax) {
+				fd[off + ++fmax + 1] = -1;
+			} else {
+				fmax--;
+			}
+			for (int d = fmax; d >= fmin; d -= 2) {
+				int tlo = fd[off + d - 1];
+				int thi = fd[off + d + 1];
+				int x = tlo >= thi ? tlo + 1 : thi;
+				int y = x - d;
+				while (x < xlim && y < ylim && a[x] == b[y]) {
+					x++;
+					y++;
+				}
+				fd[off + d] = x;
+				if (odd && bmin <= d && d <= bmax && bd[off + d] <= x) {
+					return pack(x, y);
+				}
+			}
+
+			// extend the backward search by one more edit
+			if (bmin > dmin) {
+				bd[off + --bmin - 1] = Integer.MAX_VALUE;
+			} else {
+				bmin++;
+			}
+			if (bmax < dmax) {
+				bd[off + ++bmax + 1] = Integer.MAX_VALUE;
+			} else {
+				bmax--;
+			}
+			for (int d = bmax; d >= bmin; d -= 2) {
+				int tlo = bd[off + d - 1];
+				int thi = bd[off + d + 1];
+				int x = tlo < thi ? tlo : thi - 1;
+				int y = x - d;
+				while (x > xoff && y > yoff && a[x - 1] == b[y - 1]) {
+					x--;
+					y--;
+				}
+				bd[off + d] = x;
+				if (!odd && fmin <= d && d <= fmax && x <= fd[off + d]) {
+					return pack(x, y);
+				}
+			}
+
+			if (c >= tooExpensive) {
+				// settle for the point that got furthest, forward or backward
+				int fxybest = -1;
+				int fxbest = 0;
+				for (int d = fmax; d >= fmin; d -= 2) {
+					int x = Math.min(fd[off + d], xlim);
+					int y = x - d;
+					if (ylim < y) {
+						x = ylim + d;
+						y = ylim;
+					}
+					if (fxybest < x + y) {
+						fxybest = x + y;
+						fxbest = x;
+					}
+				}
+				int bxybest = Integer.MAX_VALUE;
+				int bxbest = 0;
+				for (int d = bmax; d >= bmin; d -= 2) {
+					int x = Math.max(xoff, bd[off + d]);
+					int y = x - d;
+					if (y < yoff) {
+						x = yoff + d;
+						y = yoff;
+					}
+					if (x + y < bxybest) {
+						bxybest = x + y;
+						bxbest = x;
+					}
+				}
+				if ((xlim + ylim) - bxybest < fxybest - (xoff + yoff)) {
+					return pack(fxbest, fxybest - fxbest);
+				} else {
+					return pack(bxbest, bxybest - bxbest);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns v's entries for diagonals -d to d.
+	 */
+	private static int[] copyDiagonals(int[] v, int offset, int d) {
+		int[] copy = new int[2 * d + 1];
+		System.arraycopy(v, offset - d, copy, 0, copy.length);
+		return copy;
+	}
+
+	/*
+	 * Returns the indexes of the elements of seq that occur in the other
+	 * sequence, marking the rest as changed.
+	 */
+	private static int[] keptIndexes(int[] seq, int[] otherCounts, boolean[] changed) {
+		int kept = 0;
+		for (int i = 0; i < seq.length; i++) {
+			if (otherCounts[seq[i]] == 0) {
+				changed[i] = true;
+			} else {
+				kept++;
+			}
+		}
+		int[] indexes = new int[kept];
+		kept = 0;
+		for (int i = 0; i < seq.length; i++) {
+			if (!changed[i]) {
+				indexes[kept++] = i;
+			}
+		}
+		return indexes;
+	}
+
+	private static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	private static int[] select(int[] seq, int[] indexes) {
+		int[] result = new int[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			result[i] = seq[indexes[i]];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * @version 2016/12/20
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import java.util.*;
+
+/**
+ * The lines of one text to be compared by Diff, after applying Diff's
+ * IGNORE_* flags.  Each normalized line is stored as an id from a table
+ * shared by both texts being compared, so lines are compared by int.
+ *
+ * Lines are split at "\n" or "\r\n" and normalized in a single pass over the
+ * text, with no regular expressions and no intermediate copies of the text.
+ * Trailing empty lines are dropped, as String.split does.
+ */
+final class NormalizedLines {
+	private final CharSequence text;
+	private int[] lineStarts = new int[16];
+	private int[] lineEnds = new int[16];
+	private int lineCount;       // original lines, before normalization
+
+	private int[] ids;           // normalized lines
+	private int size;
+	private int[] order;         // original line number of each normalized line if sorted; else null
+	private int contentSize;     // lines up to the last one with non-whitespace
+	private String lastLine;     // that last line, without trailing whitespace
+
+	/**
+	 * Splits and normalizes the given text, adding its distinct normalized
+	 * lines to the given table of line ids.
+	 */
+	public NormalizedLines(CharSequence text, int flags, Map<String, Integer> table) {
+		this.text = text;
+		int length = text.length();
+		int start = 0;
+		boolean newline = false;
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) == '\n') {
+				newline = true;
+				int end = (i > start && text.charAt(i - 1) == '\r') ? i - 1 : i;
+				addLine(start, end);
+				start = i + 1;
+			}
+		}
+		addLine(start, length);
+
+		// as in String.split, trailing empty lines are not lines
+		while (lineCount > 0 && lineStarts[lineCount - 1] == lineEnds[lineCount - 1]) {
+			lineCount--;
+		}
+		if (lineCount == 0 && !newline) {
+			lineCount = 1;   // "" is one empty line
+		}
+
+		String[] lines = new String[lineCount];
+		StringBuilder sb = new StringBuilder();
+		size = 0;
+		for (int i = 0; i < lineCount; i++) {
+			// lines emptied by the flags that used to rewrite the whole text
+			// with regexes are dropped from the end too, since that text was split again
+			boolean nonEmpty = normalize(text, lineStarts[i], lineEnds[i], flags, sb);
+			lines[i] = sb.toString();
+			if (nonEmpty) {
+				size = i + 1;
+			}
+		}
+		if (size == 0 && !newline) {
+			size = lineCount;
+		}
+
+		if ((flags & Diff.IGNORE_CHARORDER) != 0) {
+			for (int i = 0; i < size; i++) {
+				char[] chars = lines[i].toCharArray();
+				Arrays.sort(chars);
+				lines[i] = new String(chars);
+			}
+		}
+		if ((flags & Diff.IGNORE_LINEORDER) != 0) {
+			Integer[] sorted = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				sorted[i] = i;
+			}
+			final String[] keys = lines;
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					return keys[i1].compareTo(keys[i2]);
+				}
+			});
+			order = new int[size];
+			String[] sortedLines = new String[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = sorted[i];
+				sortedLines[i] = lines[sorted[i]];
+			}
+			lines = sortedLines;
+		}
+
+		ids = new int[size];
+		for (int i = 0; i < size; i++) {
+			Integer id = table.get(lines[i]);
+			if (id == null) {
+				id = table.size();
+				table.put(lines[i], id);
+			}
+			ids[i] = id;
+			String trimmed = trimRight(lines[i]);
+			if (!trimmed.isEmpty()) {
+				contentSize = i + 1;
+				lastLine = trimmed;
+			}
+		}
+	}
+
+	/**
+	 * Returns the ids of the normalized lines; the array may be longer than size().
+	 */
+	public int[] getIds() {
+		return ids;
+	}
+
+	/**
+	 * Returns the original text of the line that became the given normalized
+	 * line, without its line break.
+	 */
+	public String getOriginalLine(int index) {
+		int line = order == null ? index : order[index];
+		return text.subSequence(lineStarts[line], lineEnds[line]).toString();
+	}
+
+	/**
+	 * Returns true if this text's normalized lines are the same as the
+	 * other's, ignoring any whitespace at the end of either text.
+	 */
+	public boolean sameIgnoringTrailingSpace(NormalizedLines other) {
+		if (contentSize != other.contentSize) {
+			return false;
+		}
+		for (int i = 0; i < contentSize - 1; i++) {
+			if (ids[i] != other.ids[i]) {
+				return false;
+			}
+		}
+		return contentSize == 0 || lastLine.equals(other.lastLine);
+	}
+
+	/**
+	 * Returns the number of normalized lines.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void addLine(int start, int end) {
+		if (lineCount == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, 2 * lineCount);
+			lineEnds = Arrays.copyOf(lineEnds, 2 * lineCount);
+		}
+		lineStarts[lineCount] = start;
+		lineEnds[lineCount] = end;
+		lineCount++;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isPunctuation(char c) {
+		return ".,?!'\"()/#$%@^&*_[]{}|<>:;-".indexOf(c) >= 0;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\r' || c == '\n' || c == '\t' || c == '\f';
+	}
+
+	/*
+	 * Stores into sb the characters from start to end of the given text with
+	 * the given flags applied, giving the same result as Diff's old series of
+	 * replaceAll calls: IGNORE_NUMBERS turns each run of digits into "###",
+	 * IGNORE_NONNUMBERS each run of other characters into " ",
+	 * IGNORE_PUNCTUATION removes punctuation (including the "###"),
+	 * IGNORE_AFTERDECIMAL turns a "." and the digits after it into ".#",
+	 * IGNORE_CASE lowercases, and IGNORE_WHITESPACE removes whitespace last.
+	 * Returns whether any characters were left before whitespace was removed.
+	 */
+	static boolean normalize(CharSequence text, int start, int end, int flags, StringBuilder sb) {
+		sb.setLength(0);
+		boolean nonEmpty = false;
+		boolean whitespace = (flags & Diff.IGNORE_WHITESPACE) != 0;
+		boolean numbers = (flags & Diff.IGNORE_NUMBERS) != 0;
+		if ((flags & Diff.IGNORE_NONNUMBERS) != 0) {
+			// only digits and single spaces are left (and no digits if numbers
+			// are ignored too, since "###" is not a number)
+			boolean inRun = false;
+			for (int i = start; i < end; i++) {
+				char c = text.charAt(i);
+				nonEmpty = true;
+				if (!numbers && isDigit(c)) {
+					sb.append(c);
+					inRun = false;
+				} else if (!inRun) {
+					inRun = true;
+					if (!whitespace) {
+						sb.append(' ');
+					}
+				}
+			}
+			return nonEmpty;
+		}
+
+		boolean punctuation = (flags & Diff.IGNORE_PUNCTUATION) != 0;
+		boolean afterDecimal = (flags & Diff.IGNORE_AFTERDECIMAL) != 0 && !numbers && !punctuation;
+		boolean lowerCase = (flags & Diff.IGNORE_CASE) != 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (numbers && isDigit(c)) {
+				while (i + 1 < end && isDigit(text.charAt(i + 1))) {
+					i++;
+				}
+				if (!punctuation) {
+					sb.append("###");
+					nonEmpty = true;
+				}
+			} else if (punctuation && isPunctuation(c)) {
+				// removed
+			} else if (afterDecimal && c == '.' && i + 1 < end && isDigit(text.charAt(i + 1))) {
+				while (i + 1 < end && isDigit(text.charAt(i + 1))) {
+					i++;
+				}
+				sb.append(".#");
+				nonEmpty = true;
+			} else {
+				nonEmpty = true;
+				if (!whitespace || !isWhitespace(c)) {
+					sb.append(lowerCase ? Character.toLowerCase(c) : c);
+				}
+			}
+		}
+		return nonEmpty;
+	}
+
+	private static String trimRight(String s) {
+		int end = s.length();
+		while (end > 0 && Character.isWhitespace(s.charAt(end - 1))) {
+			end--;
+		}
+		return s.substring(0, end);
+	}
+}
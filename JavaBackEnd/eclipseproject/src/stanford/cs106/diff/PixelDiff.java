@@ -0,0 +1,491 @@
+/*
+ * @version 2016/12/22
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Compares two images pixel by pixel without any GUI, for DiffImage and
+ * for batch grading.  Pixels are read straight from the images' int arrays
+ * when they have them (as TYPE_INT_RGB and TYPE_INT_ARGB images usually do),
+ * or a row at a time with getRGB otherwise, and bands of rows are compared
+ * in parallel.
+ *
+ * By default two pixels differ if their ARGB values are not identical, as in
+ * DiffImage.  A tolerance can be set for each channel, so that pixels only
+ * differ if some channel differs by more than its tolerance, and a
+ * perceptual threshold from 0 to 1 can be set, so that pixels only differ if
+ * their colors are also that far apart in the YIQ color space, which is
+ * closer to how different colors look than the RGB values are.
+ *
+ * If the images are different sizes, they are compared over the larger
+ * width and height, and pixels outside an image count as 0 (transparent).
+ */
+public class PixelDiff {
+	// rows are compared in bands of at least this many pixels
+	private static final int MIN_BAND_PIXELS = 1 << 16;
+
+	// differing pixels are grouped into regions by tiles of this size
+	private static final int TILE_SIZE = 16;
+
+	// the largest possible YIQ distance (squared) between two colors
+	private static final double MAX_YIQ_DELTA = 35215.0;
+
+	private static ForkJoinPool pool;
+
+	private int redTolerance;
+	private int greenTolerance;
+	private int blueTolerance;
+	private int alphaTolerance;
+	private double perceptualThreshold;
+
+	/**
+	 * The result of comparing two images.
+	 */
+	public static class Result {
+		private final int width;
+		private final int height;
+		private final byte[] magnitudes;   // per pixel; 0 if the same, else 1-255
+		private int diffPixelCount;
+		private Rectangle bounds;
+		private List<Rectangle> regions;
+
+		private Result(int width, int height) {
+			this.width = width;
+			this.height = height;
+			this.magnitudes = new byte[width * height];
+		}
+
+		/**
+		 * Returns the smallest rectangle containing every differing pixel,
+		 * or null if there are none.
+		 */
+		public Rectangle getBounds() {
+			return bounds == null ? null : new Rectangle(bounds);
+		}
+
+		public int getDiffPixelCount() {
+			return diffPixelCount;
+		}
+
+		/**
+		 * Returns an image the size of the comparison that shows how much each
+		 * pixel differs: transparent where the images are the same, and from
+		 * translucent yellow to opaque red as the difference grows.
+		 */
+		public BufferedImage getHeatmap() {
+			int[] pixels = new int[width * height];
+			for (int i = 0; i < pixels.length; i++) {
+				int magnitude = magnitudes[i] & 0xff;
+				if (magnitude != 0) {
+					int alpha = 96 + magnitude * 159 / 255;
+					int green = 255 - magnitude;
+					pixels[i] = (alpha << 24) | 0xff0000 | (green << 8);
+				}
+			}
+			return toImage(pixels);
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * Returns how much the pixel at (x, y) differs, from 0 if it doesn't
+		 * to 255 for the largest possible difference in some channel.
+		 */
+		public int getMagnitude(int x, int y) {
+			if (x < 0 || x >= width || y < 0 || y >= height) {
+				throw new IndexOutOfBoundsException(x + "," + y);
+			}
+			return magnitudes[y * width + x] & 0xff;
+		}
+
+		/**
+		 * Returns an image the size of the comparison that is the given color
+		 * where pixels differ and transparent elsewhere.
+		 */
+		public BufferedImage getMask(Color color) {
+			int rgb = color.getRGB();
+			int[] pixels = new int[width * height];
+			for (int i = 0; i < pixels.length; i++) {
+				if (magnitudes[i] != 0) {
+					pixels[i] = rgb;
+				}
+			}
+			return toImage(pixels);
+		}
+
+		/**
+		 * Returns the bounding boxes of the groups of differing pixels, where
+		 * pixels within about 16 pixels of each other are grouped together,
+		 * from top to bottom.
+		 */
+		public List<Rectangle> getRegions() {
+			List<Rectangle> copy = new ArrayList<Rectangle>();
+			for (Rectangle region : regions) {
+				copy.add(new Rectangle(region));
+			}
+			return copy;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public boolean hasDifferences() {
+			return diffPixelCount > 0;
+		}
+
+		public boolean isDifferent(int x, int y) {
+			return getMagnitude(x, y) != 0;
+		}
+
+		public String toString() {
+			return "PixelDiff.Result{" + width + "x" + height + ", " + diffPixelCount
+					+ " pixels differ, " + regions.size() + " regions}";
+		}
+
+		private BufferedImage toImage(int[] pixels) {
+			BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+			if (width > 0 && height > 0) {
+				image.setRGB(0, 0, width, height, pixels, 0, width);
+			}
+			return image;
+		}
+	}
+
+	/**
+	 * Returns how many pixels differ between the two images, using exact
+	 * comparison.
+	 */
+	public static int countDiffPixels(BufferedImage image1, BufferedImage image2) {
+		return new PixelDiff().compare(image1, image2).getDiffPixelCount();
+	}
+
+	/**
+	 * Returns the actual image drawn over the expected image with the given
+	 * opacity (0-100), as DiffImage shows them, with white outside the images.
+	 */
+	public static BufferedImage overlay(BufferedImage expected, BufferedImage actual, int opacity) {
+		int width = Math.max(expected.getWidth(), actual.getWidth());
+		int height = Math.max(expected.getHeight(), actual.getHeight());
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = image.createGraphics();
+		g2.setColor(Color.WHITE);
+		g2.fillRect(0, 0, width, height);
+		g2.drawImage(expected, 0, 0, null);
+		g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, opacity / 100f));
+		g2.fillRect(actual.getWidth(), 0, width - actual.getWidth(), height);
+		g2.fillRect(0, actual.getHeight(), actual.getWidth(), height - actual.getHeight());
+		g2.drawImage(actual, 0, 0, null);
+		g2.dispose();
+		return image;
+	}
+
+	/**
+	 * Compares the two images using this object's tolerances.
+	 */
+	public Result compare(BufferedImage expected, BufferedImage actual) {
+		final int width = Math.max(expected.getWidth(), actual.getWidth());
+		final int height = Math.max(expected.getHeight(), actual.getHeight());
+		final Result result = new Result(width, height);
+		final PixelSource source1 = new PixelSource(expected);
+		final PixelSource source2 = new PixelSource(actual);
+
+		// the extent of the differences within each tile, for finding regions
+		final int tileCols = (width + TILE_SIZE - 1) / TILE_SIZE;
+		final int tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+		final int[][] tileExtents = new int[tileRows * tileCols][];
+		final int[] bandCounts = new int[tileRows];
+
+		// bands are whole rows of tiles, so no two threads touch the same tile
+		int bandTileRows = Math.max(1, MIN_BAND_PIXELS / Math.max(1, width) / TILE_SIZE);
+		Band band = new Band(0, tileRows, bandTileRows) {
+			private static final long serialVersionUID = 1L;
+			protected void compareRows(int startTileRow, int endTileRow) {
+				int[] row1 = new int[width];
+				int[] row2 = new int[width];
+				int endRow = Math.min(height, endTileRow * TILE_SIZE);
+				for (int y = startTileRow * TILE_SIZE; y < endRow; y++) {
+					source1.getRow(y, row1, width);
+					source2.getRow(y, row2, width);
+					int tileRow = y / TILE_SIZE;
+					int count = 0;
+					for (int x = 0; x < width; x++) {
+						int magnitude = compare(row1[x], row2[x]);
+						if (magnitude != 0) {
+							result.magnitudes[y * width + x] = (byte) magnitude;
+							count++;
+							int tile = tileRow * tileCols + x / TILE_SIZE;
+							int[] extent = tileExtents[tile];
+							if (extent == null) {
+								tileExtents[tile] = new int[] {x, y, x, y};
+							} else {
+								extent[0] = Math.min(extent[0], x);
+								extent[2] = Math.max(extent[2], x);
+								extent[3] = y;
+							}
+						}
+					}
+					bandCounts[tileRow] += count;
+				}
+			}
+		};
+		if ((long) width * height < MIN_BAND_PIXELS) {
+			band.compute();
+		} else {
+			getPool().invoke(band);
+		}
+
+		for (int count : bandCounts) {
+			result.diffPixelCount += count;
+		}
+		result.regions = findRegions(tileExtents, tileRows, tileCols);
+		for (Rectangle region : result.regions) {
+			if (result.bounds == null) {
+				result.bounds = new Rectangle(region);
+			} else {
+				result.bounds.add(region);
+			}
+		}
+		return result;
+	}
+
+	public double getPerceptualThreshold() {
+		return perceptualThreshold;
+	}
+
+	/**
+	 * Sets how far apart two colors must be in YIQ space, from 0 to 1, for
+	 * their pixels to differ; 0 (the default) means any difference counts.
+	 * Colors are blended with white by their alpha first.
+	 */
+	public void setPerceptualThreshold(double threshold) {
+		if (threshold < 0 || threshold > 1 || Double.isNaN(threshold)) {
+			throw new IllegalArgumentException("threshold must be between 0 and 1: " + threshold);
+		}
+		perceptualThreshold = threshold;
+	}
+
+	/**
+	 * Sets the same tolerance for the red, green, blue and alpha channels.
+	 */
+	public void setTolerance(int tolerance) {
+		setTolerance(tolerance, tolerance, tolerance, tolerance);
+	}
+
+	/**
+	 * Sets how much (0-255) each channel of two pixels may differ without the
+	 * pixels counting as different.  All are 0 by default.
+	 */
+	public void setTolerance(int red, int green, int blue, int alpha) {
+		for (int tolerance : new int[] {red, green, blue, alpha}) {
+			if (tolerance < 0 || tolerance > 255) {
+				throw new IllegalArgumentException("tolerance must be between 0 and 255: " + tolerance);
+			}
+		}
+		redTolerance = red;
+		greenTolerance = green;
+		blueTolerance = blue;
+		alphaTolerance = alpha;
+	}
+
+	/*
+	 * Returns how much the two ARGB pixels differ (the largest difference in
+	 * any channel), or 0 if they are within the tolerances.
+	 */
+	private int compare(int pixel1, int pixel2) {
+		if (pixel1 == pixel2) {
+			return 0;
+		}
+		int da = Math.abs((pixel1 >>> 24) - (pixel2 >>> 24));
+		int dr = Math.abs(((pixel1 >> 16) & 0xff) - ((pixel2 >> 16) & 0xff));
+		int dg = Math.abs(((pixel1 >> 8) & 0xff) - ((pixel2 >> 8) & 0xff));
+		int db = Math.abs((pixel1 & 0xff) - (pixel2 & 0xff));
+		if (dr <= redTolerance && dg <= greenTolerance && db <= blueTolerance && da <= alphaTolerance) {
+			return 0;
+		}
+		if (perceptualThreshold > 0
+				&& yiqDelta(pixel1, pixel2) <= perceptualThreshold * perceptualThreshold * MAX_YIQ_DELTA) {
+			return 0;
+		}
+		return Math.max(1, Math.max(Math.max(dr, dg), Math.max(db, da)));
+	}
+
+	/*
+	 * Groups the tiles that have differences into 8-connected regions and
+	 * returns each region's pixel bounding box.
+	 */
+	private static List<Rectangle> findRegions(int[][] tileExtents, int tileRows, int tileCols) {
+		List<Rectangle> regions = new ArrayList<Rectangle>();
+		boolean[] visited = new boolean[tileExtents.length];
+		int[] stack = new int[tileExtents.length];
+		for (int start = 0; start < tileExtents.length; start++) {
+			if (tileExtents[start] == null || visited[start]) {
+				continue;
+			}
+			int minX = Integer.MAX_VALUE;
+			int minY = Integer.MAX_VALUE;
+			int maxX = -1;
+			int maxY = -1;
+			int top = 0;
+			stack[top++] = start;
+			visited[start] = true;
+			while (top > 0) {
+				int tile = stack[--top];
+				int[] extent = tileExtents[tile];
+				minX = Math.min(minX, extent[0]);
+				minY = Math.min(minY, extent[1]);
+				maxX = Math.max(maxX, extent[2]);
+				maxY = Math.max(maxY, extent[3]);
+				int row = tile / tileCols;
+				int col = tile % tileCols;
+				for (int r = Math.max(0, row - 1); r <= Math.min(tileRows - 1, row + 1); r++) {
+					for (int c = Math.max(0, col - 1); c <= Math.min(tileCols - 1, col + 1); c++) {
+						int neighbor = r * tileCols + c;
+						if (tileExtents[neighbor] != null && !visited[neighbor]) {
+							visited[neighbor] = true;
+							stack[top++] = neighbor;
+						}
+					}
+				}
+			}
+			regions.add(new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1));
+		}
+		return regions;
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/*
+	 * Returns the squared YIQ distance between two ARGB colors, after
+	 * blending each with white by its alpha, as in Kotsarenko and Ramos,
+	 * "Measuring perceived color difference using YIQ NTSC transmission
+	 * color space in mobile applications" (2010).
+	 */
+	private static double yiqDelta(int pixel1, int pixel2) {
+		double a1 = (pixel1 >>> 24) / 255.0;
+		double a2 = (pixel2 >>> 24) / 255.0;
+		double r1 = blend((pixel1 >> 16) & 0xff, a1);
+		double g1 = blend((pixel1 >> 8) & 0xff, a1);
+		double b1 = blend(pixel1 & 0xff, a1);
+		double r2 = blend((pixel2 >> 16) & 0xff, a2);
+		double g2 = blend((pixel2 >> 8) & 0xff, a2);
+		double b2 = blend(pixel2 & 0xff, a2);
+		double y = (r1 - r2) * 0.29889531 + (g1 - g2) * 0.58662247 + (b1 - b2) * 0.11448223;
+		double i = (r1 - r2) * 0.59597799 - (g1 - g2) * 0.27417610 - (b1 - b2) * 0.32180189;
+		double q = (r1 - r2) * 0.21147017 - (g1 - g2) * 0.52261711 + (b1 - b2) * 0.31114694;
+		return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+	}
+
+	private static double blend(int channel, double alpha) {
+		return 255 + (channel - 255) * alpha;
+	}
+
+	/*
+	 * Splits a range of tile rows in half until it is small enough, then
+	 * compares the pixel rows in it.
+	 */
+	private abstract static class Band extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int startTileRow;
+		private final int endTileRow;
+		private final int minTileRows;
+
+		public Band(int startTileRow, int endTileRow, int minTileRows) {
+			this.startTileRow = startTileRow;
+			this.endTileRow = endTileRow;
+			this.minTileRows = minTileRows;
+		}
+
+		@Override
+		protected void compute() {
+			if (endTileRow - startTileRow <= minTileRows) {
+				compareRows(startTileRow, endTileRow);
+			} else {
+				int middle = (startTileRow + endTileRow) >>> 1;
+				invokeAll(split(startTileRow, middle), split(middle, endTileRow));
+			}
+		}
+
+		protected abstract void compareRows(int startTileRow, int endTileRow);
+
+		private Band split(int start, int end) {
+			final Band outer = this;
+			return new Band(start, end, minTileRows) {
+				private static final long serialVersionUID = 1L;
+				protected void compareRows(int startTileRow, int endTileRow) {
+					outer.compareRows(startTileRow, endTileRow);
+				}
+			};
+		}
+	}
+
+	/*
+	 * Reads rows of ARGB pixels from an image.
+	 */
+	private static class PixelSource {
+		private final BufferedImage image;
+		private final int width;
+		private final int height;
+		private final int[] data;      // the image's pixels, if it is a plain int image
+		private final int alphaBits;   // alpha to add to each pixel from data
+
+		public PixelSource(BufferedImage image) {
+			this.image = image;
+			this.width = image.getWidth();
+			this.height = image.getHeight();
+			int type = image.getType();
+			int[] data = null;
+			if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+				WritableRaster raster = image.getRaster();
+				DataBuffer buffer = raster.getDataBuffer();
+				if (buffer instanceof DataBufferInt && buffer.getNumBanks() == 1 && buffer.getOffset() == 0
+						&& raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+						&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+						&& ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() == width) {
+					data = ((DataBufferInt) buffer).getData();
+				}
+			}
+			this.data = data;
+			this.alphaBits = type == BufferedImage.TYPE_INT_RGB ? 0xff000000 : 0;
+		}
+
+		/*
+		 * Stores the first length pixels of row y into the given array, as
+		 * getRGB would return them, with 0 for pixels outside the image.
+		 */
+		public void getRow(int y, int[] row, int length) {
+			int count = Math.min(length, width);
+			if (y >= height) {
+				count = 0;
+			} else if (data != null) {
+				int offset = y * width;
+				if (alphaBits == 0) {
+					System.arraycopy(data, offset, row, 0, count);
+				} else {
+					for (int x = 0; x < count; x++) {
+						row[x] = data[offset + x] | alphaBits;
+					}
+				}
+			} else if (count > 0) {
+				image.getRGB(0, y, count, 1, row, 0, count);
+			}
+			Arrays.fill(row, count, length, 0);
+		}
+	}
+}
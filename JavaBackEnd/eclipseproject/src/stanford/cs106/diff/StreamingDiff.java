@@ -0,0 +1,536 @@
+/*
+ * @version 2016/12/21
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.Path;
+import java.util.*;
+import stanford.cs106.io.MappedFileReader;
+
+/**
+ * Compares two texts line by line, like Diff.diffAsList, but reads them a
+ * line at a time from Readers or files instead of needing them as Strings,
+ * so that even gigabytes of output from a runaway program can be compared
+ * in bounded memory.  Files are read through memory-mapped NIO buffers.
+ *
+ * Matching lines are compared by a 64-bit hash of their normalized text
+ * and then forgotten.  When the texts differ, lines are read into a window
+ * of up to windowSize lines from each text, and the windows are compared
+ * with Myers' algorithm (see MyersDiff).  Differences before the last
+ * matching line in the windows are reported, and the rest stay in the
+ * windows to be compared with the lines that follow.  If two full windows
+ * have no lines in common, they are reported as one changed region; so
+ * regions of more than windowSize lines may be split up or reported less
+ * precisely than Diff.diffAsList would.
+ *
+ * The comparison stops after maxDifferences differences are found.  Each
+ * region that differs is one Difference of type ADD, DELETE or MODIFY.
+ * When the texts' differing regions and whitespace at their ends fit in
+ * the windows, these have the same inclusive start and end lines as the
+ * first Difference that Diff.diffAsList reports for each region, unless
+ * the lines can be matched up in more than one equally short way; then
+ * the two may pick different ones.
+ *
+ * All of Diff's IGNORE_* flags are supported except IGNORE_LINEORDER, which
+ * needs all of both texts before anything can be compared.  As in Diff,
+ * lines left empty at the end of a text are not lines, blank lines only
+ * match blank lines at the same place in the other text, and nothing is
+ * reported if the texts differ only in whitespace at their ends.  As in
+ * Diff.diff, a region made only of blank lines is not reported if
+ * IGNORE_BLANK_LINES is set.  Lines longer than a million characters are
+ * compared a million characters at a time, each piece counting as a line.
+ */
+public class StreamingDiff {
+	public static final int DEFAULT_MAX_DIFFERENCES = 100;
+	public static final int DEFAULT_WINDOW_SIZE = 10000;
+
+	private static final int MAX_LINE_LENGTH = 1000000;
+	private static final int BUFFER_SIZE = 8192;
+
+	// lines are hashed with 64-bit FNV-1a, so HASH_BASIS is the hash of an empty line
+	private static final long HASH_BASIS = 0xcbf29ce484222325L;
+	private static final long HASH_PRIME = 0x100000001b3L;
+
+	private final int flags;
+	private final int maxDifferences;
+	private final int windowSize;
+
+	public StreamingDiff() {
+		this(Diff.FLAGS_DEFAULT);
+	}
+
+	public StreamingDiff(int flags) {
+		this(flags, DEFAULT_MAX_DIFFERENCES, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Constructs a comparator with the given Diff flags that stops after
+	 * maxDifferences differences and holds at most windowSize lines of each
+	 * text in memory at once.
+	 *
+	 * @throws IllegalArgumentException if flags include IGNORE_LINEORDER or
+	 *         maxDifferences or windowSize is less than 1
+	 */
+	public StreamingDiff(int flags, int maxDifferences, int windowSize) {
+		if ((flags & Diff.IGNORE_LINEORDER) != 0) {
+			throw new IllegalArgumentException("IGNORE_LINEORDER can't be used when streaming");
+		}
+		if (maxDifferences < 1 || windowSize < 1) {
+			throw new IllegalArgumentException("maxDifferences=" + maxDifferences + ", windowSize=" + windowSize);
+		}
+		this.flags = flags;
+		this.maxDifferences = maxDifferences;
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * Compares the two UTF-8 text files.
+	 */
+	public List<Diff.Difference> diff(Path expected, Path actual) throws IOException {
+		return diff(expected, actual, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compares the two text files, which use the given character set.
+	 */
+	public List<Diff.Difference> diff(Path expected, Path actual, Charset charset) throws IOException {
+		Reader expectedReader = new MappedFileReader(expected, charset);
+		try {
+			Reader actualReader = new MappedFileReader(actual, charset);
+			try {
+				return diff(expectedReader, actualReader);
+			} finally {
+				actualReader.close();
+			}
+		} finally {
+			expectedReader.close();
+		}
+	}
+
+	/**
+	 * Compares the text from the two readers, reading no more of either than
+	 * needed to find maxDifferences differences.  The readers are not closed.
+	 */
+	public List<Diff.Difference> diff(Reader expected, Reader actual) throws IOException {
+		return new Comparison(new LineSource(expected), new LineSource(actual)).run();
+	}
+
+	/*
+	 * The state of one comparison between two texts.
+	 */
+	private class Comparison {
+		private final LineSource source1;
+		private final LineSource source2;
+		private final Window window1 = new Window();
+		private final Window window2 = new Window();
+		private final List<Diff.Difference> out = new ArrayList<Diff.Difference>();
+		private boolean differed;   // whether any lines have been compared in the windows
+
+		public Comparison(LineSource source1, LineSource source2) {
+			this.source1 = source1;
+			this.source2 = source2;
+		}
+
+		public List<Diff.Difference> run() throws IOException {
+			while (out.size() < maxDifferences) {
+				if (window1.size == 0 && window2.size == 0) {
+					// skip lines that match without keeping them
+					boolean has1 = source1.next();
+					boolean has2 = source2.next();
+					if (has1 && has2 && source1.hash == source2.hash) {
+						continue;
+					} else if (!has1 && !has2) {
+						break;
+					}
+					if (has1) {
+						window1.add(source1);
+					}
+					if (has2) {
+						window2.add(source2);
+					}
+				}
+				while (window1.size < windowSize && source1.next()) {
+					window1.add(source1);
+				}
+				while (window2.size < windowSize && source2.next()) {
+					window2.add(source2);
+				}
+				compareWindows(source1.finished && source2.finished);
+			}
+			return out;
+		}
+
+		/*
+		 * Compares the lines in the two windows and reports the differences
+		 * up to the last lines that match, or all of them if the ends of
+		 * both texts are in the windows or nothing matches.  Removes the
+		 * lines whose differences were reported from the windows.
+		 */
+		private void compareWindows(boolean atEnd) {
+			int n = window1.size;
+			int m = window2.size;
+			if (atEnd && !differed && sameIgnoringTrailingSpace()) {
+				window1.removeFirst(n);
+				window2.removeFirst(m);
+				return;
+			}
+			differed = true;
+
+			// as in Diff, empty lines get ids of their own so that they
+			// only match empty lines at the same place in the other window
+			Map<Long, Integer> table = new HashMap<Long, Integer>();
+			int[] ids1 = window1.ids(table);
+			int[] ids2 = window2.ids(table);
+			int symbolCount = table.size();
+			for (int i = 0; i < n; i++) {
+				if (ids1[i] < 0) {
+					ids1[i] = symbolCount++;
+				}
+			}
+			for (int i = 0; i < m; i++) {
+				if (ids2[i] < 0) {
+					ids2[i] = symbolCount++;
+				}
+			}
+			boolean[] changed1 = new boolean[n];
+			boolean[] changed2 = new boolean[m];
+			MyersDiff.compare(ids1, ids2, symbolCount, changed1, changed2);
+
+			List<int[]> hunks = new ArrayList<int[]>();
+			int lastMatch1 = -1;
+			int lastMatch2 = -1;
+			int index1 = 0;
+			int index2 = 0;
+			while (index1 < n || index2 < m) {
+				if (index1 < n && index2 < m && ((!changed1[index1] && !changed2[index2])
+						|| (window1.isEmpty(index1) && window2.isEmpty(index2)))) {
+					lastMatch1 = index1++;
+					lastMatch2 = index2++;
+					continue;
+				}
+				int start1 = index1;
+				int start2 = index2;
+				while (index1 < n && changed1[index1]) {
+					index1++;
+				}
+				while (index2 < m && changed2[index2]) {
+					index2++;
+				}
+				hunks.add(new int[] {start1, index1, start2, index2});
+			}
+
+			int limit1 = n;
+			int limit2 = m;
+			if (!atEnd && lastMatch1 >= 0) {
+				limit1 = lastMatch1 + 1;
+				limit2 = lastMatch2 + 1;
+			}
+			for (int[] hunk : hunks) {
+				if (hunk[1] > limit1 || hunk[3] > limit2 || out.size() >= maxDifferences) {
+					break;
+				}
+				report(hunk[0], hunk[1], hunk[2], hunk[3]);
+			}
+			window1.removeFirst(limit1);
+			window2.removeFirst(limit2);
+		}
+
+		/*
+		 * Returns true if the windows, which start at the first lines that
+		 * differ and hold the rest of both texts, are the same but for
+		 * whitespace at their ends, as in NormalizedLines.sameIgnoringTrailingSpace.
+		 */
+		private boolean sameIgnoringTrailingSpace() {
+			int size = window1.contentSize();
+			if (size != window2.contentSize()) {
+				return false;
+			}
+			for (int i = 0; i < size - 1; i++) {
+				if (window1.hashes[i] != window2.hashes[i]) {
+					return false;
+				}
+			}
+			return size == 0 || window1.trimmedHashes[size - 1] == window2.trimmedHashes[size - 1];
+		}
+
+		/*
+		 * Reports the region of the windows from start1 to end1 and start2 to
+		 * end2 as a difference, unless the flags say to ignore it.
+		 */
+		private void report(int start1, int end1, int start2, int end2) {
+			int line1 = source1.lineCount - window1.size;   // line number of window1[0]
+			int line2 = source2.lineCount - window2.size;
+			if (start1 == end1) {
+				if ((line1 + start1 == 0 && (flags & Diff.IGNORE_LEADING) != 0)
+						|| (source1.finished && start1 == window1.size && (flags & Diff.IGNORE_TRAILING) == 0)) {
+					return;
+				}
+			}
+			if ((flags & Diff.IGNORE_BLANK_LINES) != 0 && window1.allBlank(start1, end1) && window2.allBlank(start2, end2)) {
+				return;
+			}
+			Diff.Difference.Type type = start1 == end1 ? Diff.Difference.Type.ADD
+					: start2 == end2 ? Diff.Difference.Type.DELETE : Diff.Difference.Type.MODIFY;
+			out.add(new Diff.Difference(type, line1 + start1, line1 + end1 - 1, line2 + start2, line2 + end2 - 1));
+		}
+	}
+
+	/*
+	 * Reads lines from a reader one at a time, normalizing and hashing each.
+	 * Lines that the flags leave with no characters are held back until a
+	 * line with some follows them, since at the end of a text they are
+	 * dropped, as NormalizedLines does.
+	 */
+	private class LineSource {
+		private final Reader reader;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private int position;
+		private int limit;
+		private boolean endOfInput;
+		private boolean sawNewline;
+		private int linesRead;
+		private final StringBuilder line = new StringBuilder();
+		private final StringBuilder normalized = new StringBuilder();
+
+		// the held-back empty lines, as the lengths of runs of them that are
+		// blank (positive) or not (negative), in order
+		private int[] emptyRuns = new int[4];
+		private int emptyRunStart;
+		private int emptyRunEnd;
+
+		// a line with characters that was read after the held-back empty lines
+		private boolean held;
+		private long heldHash;
+		private long heldTrimmedHash;
+		private boolean heldBlank;
+
+		public boolean finished;     // true once next has returned false
+		public int lineCount;        // lines returned by next
+
+		// about the line just returned by next
+		public long hash;
+		public long trimmedHash;     // hash without whitespace at the end of the normalized line
+		public boolean blank;        // original line is all whitespace
+
+		public LineSource(Reader reader) {
+			this.reader = reader;
+		}
+
+		/*
+		 * Reads the next line, returning false if there are no more.
+		 */
+		public boolean next() throws IOException {
+			if (emptyRunStart == emptyRunEnd && !held) {
+				while (true) {
+					if (!readLine()) {
+						// trailing empty lines are not lines, unless there is
+						// no line break at all; then the text is one line
+						if (emptyRunStart == emptyRunEnd || sawNewline) {
+							emptyRunStart = emptyRunEnd = 0;
+							finished = true;
+							return false;
+						}
+						break;
+					}
+					boolean empty = hashLine();
+					if (!empty && emptyRunStart == emptyRunEnd) {
+						lineCount++;
+						return true;
+					} else if (!empty) {
+						held = true;
+						heldHash = hash;
+						heldTrimmedHash = trimmedHash;
+						heldBlank = blank;
+						break;
+					}
+					holdEmptyLine(blank);
+				}
+			}
+
+			if (emptyRunStart < emptyRunEnd) {
+				int run = emptyRuns[emptyRunStart];
+				hash = HASH_BASIS;
+				trimmedHash = HASH_BASIS;
+				blank = run > 0;
+				emptyRuns[emptyRunStart] = blank ? run - 1 : run + 1;
+				if (emptyRuns[emptyRunStart] == 0) {
+					emptyRunStart++;
+				}
+			} else {
+				held = false;
+				hash = heldHash;
+				trimmedHash = heldTrimmedHash;
+				blank = heldBlank;
+			}
+			lineCount++;
+			return true;
+		}
+
+		private void holdEmptyLine(boolean blank) {
+			if (emptyRunStart == emptyRunEnd) {
+				emptyRunStart = emptyRunEnd = 0;
+			}
+			if (emptyRunStart < emptyRunEnd && (emptyRuns[emptyRunEnd - 1] > 0) == blank) {
+				emptyRuns[emptyRunEnd - 1] += blank ? 1 : -1;
+				return;
+			}
+			if (emptyRunEnd == emptyRuns.length) {
+				emptyRuns = Arrays.copyOf(emptyRuns, 2 * emptyRuns.length);
+			}
+			emptyRuns[emptyRunEnd++] = blank ? 1 : -1;
+		}
+
+		/*
+		 * Reads the next line from the reader into line, returning false if
+		 * there are no more.
+		 */
+		private boolean readLine() throws IOException {
+			line.setLength(0);
+			boolean any = false;
+			while (line.length() < MAX_LINE_LENGTH) {
+				if (position == limit) {
+					limit = endOfInput ? -1 : reader.read(buffer, 0, buffer.length);
+					position = 0;
+					if (limit < 0) {
+						limit = 0;
+						endOfInput = true;
+						if (!any && linesRead > 0) {
+							return false;
+						}
+						break;   // as in String.split, "" is one empty line
+					}
+				}
+				any = true;
+				int end = Math.min(limit, position + MAX_LINE_LENGTH - line.length());
+				int newline = position;
+				while (newline < end && buffer[newline] != '\n') {
+					newline++;
+				}
+				line.append(buffer, position, newline - position);
+				position = newline;
+				if (newline < end) {
+					position++;   // skip the '\n'
+					sawNewline = true;
+					int length = line.length();
+					if (length > 0 && line.charAt(length - 1) == '\r') {
+						line.setLength(length - 1);
+					}
+					break;
+				}
+			}
+			linesRead++;
+			return true;
+		}
+
+		/*
+		 * Normalizes and hashes the line just read, returning true if the
+		 * flags leave it with no characters.
+		 */
+		private boolean hashLine() {
+			boolean empty = !NormalizedLines.normalize(line, 0, line.length(), flags, normalized);
+			if ((flags & Diff.IGNORE_CHARORDER) != 0) {
+				char[] chars = new char[normalized.length()];
+				normalized.getChars(0, chars.length, chars, 0);
+				Arrays.sort(chars);
+				normalized.setLength(0);
+				normalized.append(chars);
+			}
+			hash = HASH_BASIS;
+			trimmedHash = HASH_BASIS;
+			for (int i = 0; i < normalized.length(); i++) {
+				char c = normalized.charAt(i);
+				hash = (hash ^ c) * HASH_PRIME;
+				if (!Character.isWhitespace(c)) {
+					trimmedHash = hash;
+				}
+			}
+			blank = true;
+			for (int i = 0; i < line.length() && blank; i++) {
+				blank = line.charAt(i) <= ' ';
+			}
+			return empty;
+		}
+	}
+
+	/*
+	 * The lines of one text that are waiting to be compared.
+	 */
+	private static class Window {
+		private long[] hashes = new long[16];
+		private long[] trimmedHashes = new long[16];
+		private boolean[] blank = new boolean[16];
+		private int size;
+
+		public void add(LineSource source) {
+			if (size == hashes.length) {
+				hashes = Arrays.copyOf(hashes, 2 * size);
+				trimmedHashes = Arrays.copyOf(trimmedHashes, 2 * size);
+				blank = Arrays.copyOf(blank, 2 * size);
+			}
+			hashes[size] = source.hash;
+			trimmedHashes[size] = source.trimmedHash;
+			blank[size] = source.blank;
+			size++;
+		}
+
+		public boolean allBlank(int start, int end) {
+			for (int i = start; i < end; i++) {
+				if (!blank[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/*
+		 * Returns the number of lines up to the last one that is not all
+		 * whitespace after normalizing.
+		 */
+		public int contentSize() {
+			int count = size;
+			while (count > 0 && trimmedHashes[count - 1] == HASH_BASIS) {
+				count--;
+			}
+			return count;
+		}
+
+		/*
+		 * Returns true if the given line is empty after normalizing.
+		 */
+		public boolean isEmpty(int index) {
+			return hashes[index] == HASH_BASIS;
+		}
+
+		/*
+		 * Returns the ids of the lines' hashes in the given table, adding new
+		 * ones; empty lines are given -1 rather than an id.
+		 */
+		public int[] ids(Map<Long, Integer> table) {
+			int[] ids = new int[size];
+			for (int i = 0; i < size; i++) {
+				if (isEmpty(i)) {
+					ids[i] = -1;
+					continue;
+				}
+				Integer id = table.get(hashes[i]);
+				if (id == null) {
+					id = table.size();
+					table.put(hashes[i], id);
+				}
+				ids[i] = id;
+			}
+			return ids;
+		}
+
+		public void removeFirst(int count) {
+			System.arraycopy(hashes, count, hashes, 0, size - count);
+			System.arraycopy(trimmedHashes, count, trimmedHashes, 0, size - count);
+			System.arraycopy(blank, count, blank, 0, size - count);
+			size -= count;
+		}
+	}
+}
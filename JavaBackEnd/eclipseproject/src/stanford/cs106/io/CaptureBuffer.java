@@ -0,0 +1,234 @@
+/*
+ * @version 2016/12/24
+ * - initial version
+ */
+
+package stanford.cs106.io;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * An output stream that stores what is written to it in fixed-size chunks
+ * drawn from a shared pool, up to a hard limit on the number of bytes.
+ * Bytes written past the limit are dropped, or cause an
+ * ExcessiveOutputException if the buffer was made to throw one.
+ *
+ * The captured text can be read back with getReader without first copying
+ * it all into one string.  Once a buffer is no longer needed, release
+ * returns its chunks to the pool so that the next capture can reuse them.
+ *
+ * @author Marty Stepp
+ */
+public class CaptureBuffer extends OutputStream {
+	private static final int CHUNK_SIZE = 8192;
+
+	// most free chunks kept in the pool (2 MB)
+	private static final int MAX_POOLED_CHUNKS = 256;
+
+	private static final ArrayDeque<byte[]> CHUNK_POOL = new ArrayDeque<byte[]>();
+
+	private final long maxBytes;
+	private final boolean throwOnOverflow;
+	private final List<byte[]> chunks = new ArrayList<byte[]>();
+	private long size;
+	private boolean truncated;
+	private boolean released;
+	private PrintStream printStream;
+
+	/**
+	 * Constructs a buffer that keeps at most the given number of bytes and
+	 * silently drops the rest.
+	 */
+	public CaptureBuffer(long maxBytes) {
+		this(maxBytes, /* throwOnOverflow */ false);
+	}
+
+	/**
+	 * Constructs a buffer that keeps at most the given number of bytes; if
+	 * throwOnOverflow is true, writing more throws an ExcessiveOutputException.
+	 */
+	public CaptureBuffer(long maxBytes, boolean throwOnOverflow) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("negative maximum: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+		this.throwOnOverflow = throwOnOverflow;
+	}
+
+	/**
+	 * Returns a PrintStream that prints into this buffer.
+	 */
+	public synchronized PrintStream getPrintStream() {
+		if (printStream == null) {
+			printStream = new PrintStream(this, /* autoFlush */ true);
+		}
+		return printStream;
+	}
+
+	/**
+	 * Returns a reader over the text captured so far, decoded with the
+	 * platform's default charset (as System.out encodes it) and with any
+	 * '\r' characters removed.  Later writes are not seen by the reader, and
+	 * the buffer must not be released while the reader is in use.
+	 */
+	public synchronized Reader getReader() {
+		checkNotReleased();
+		final List<byte[]> snapshot = new ArrayList<byte[]>(chunks);
+		final long length = size;
+		InputStream in = new InputStream() {
+			private long position;
+
+			@Override
+			public int read() {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xff);
+			}
+
+			@Override
+			public int read(byte[] b, int offset, int count) {
+				if (position >= length) {
+					return -1;
+				}
+				int chunkOffset = (int) (position % CHUNK_SIZE);
+				count = (int) Math.min(count, Math.min(CHUNK_SIZE - chunkOffset, length - position));
+				System.arraycopy(snapshot.get((int) (position / CHUNK_SIZE)), chunkOffset, b, offset, count);
+				position += count;
+				return count;
+			}
+		};
+		return new FilterReader(new InputStreamReader(in, Charset.defaultCharset())) {
+			@Override
+			public int read() throws IOException {
+				int ch;
+				do {
+					ch = in.read();
+				} while (ch == '\r');
+				return ch;
+			}
+
+			@Override
+			public int read(char[] cbuf, int offset, int length) throws IOException {
+				int count;
+				do {
+					count = in.read(cbuf, offset, length);
+					if (count <= 0) {
+						return count;
+					}
+					int kept = offset;
+					for (int i = offset; i < offset + count; i++) {
+						if (cbuf[i] != '\r') {
+							cbuf[kept++] = cbuf[i];
+						}
+					}
+					count = kept - offset;
+				} while (count == 0);
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Returns whether any bytes have been dropped because of the limit.
+	 */
+	public synchronized boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Returns whether release has been called.
+	 */
+	public synchronized boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Returns this buffer's chunks to the shared pool.  The buffer cannot be
+	 * read afterward, and anything written to it is dropped.
+	 */
+	public synchronized void release() {
+		if (released) {
+			return;
+		}
+		released = true;
+		synchronized (CHUNK_POOL) {
+			for (byte[] chunk : chunks) {
+				if (CHUNK_POOL.size() < MAX_POOLED_CHUNKS) {
+					CHUNK_POOL.push(chunk);
+				}
+			}
+		}
+		chunks.clear();
+	}
+
+	/**
+	 * Returns the number of bytes captured.
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the text captured so far, with any '\r' characters removed.
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		Reader reader = getReader();
+		char[] buffer = new char[CHUNK_SIZE];
+		try {
+			for (int count = reader.read(buffer); count >= 0; count = reader.read(buffer)) {
+				sb.append(buffer, 0, count);
+			}
+		} catch (IOException ioe) {
+			throw new IORuntimeException(ioe);   // cannot happen; all in memory
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public void write(int b) {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(byte[] bytes, int offset, int length) {
+		if (released) {
+			return;   // a thread left running after its capture ended
+		}
+		if (size + length > maxBytes) {
+			truncated = true;
+			if (throwOnOverflow) {
+				throw new LimitedPrintStream.ExcessiveOutputException("more than " + maxBytes + " bytes of output");
+			}
+			length = (int) (maxBytes - size);
+		}
+		while (length > 0) {
+			int chunkOffset = (int) (size % CHUNK_SIZE);
+			if (chunkOffset == 0) {
+				chunks.add(newChunk());
+			}
+			int count = Math.min(length, CHUNK_SIZE - chunkOffset);
+			System.arraycopy(bytes, offset, chunks.get(chunks.size() - 1), chunkOffset, count);
+			size += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void checkNotReleased() {
+		if (released) {
+			throw new IllegalStateException("capture buffer has been released");
+		}
+	}
+
+	private static byte[] newChunk() {
+		synchronized (CHUNK_POOL) {
+			if (!CHUNK_POOL.isEmpty()) {
+				return CHUNK_POOL.pop();
+			}
+		}
+		return new byte[CHUNK_SIZE];
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * @version 2016/12/26
+ * - initial version
+ */
+
+package stanford.cs106.io;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each thread its own System.in, the input counterpart of
+ * OutputRouter, so that programs run at the same time in one JVM can each
+ * read their own scripted input.
+ *
+ * The first redirect replaces System.in with a stream that reads from the
+ * current thread's input, or from the original System.in if the thread has
+ * none.  As with OutputRouter, a thread's input is not passed on to threads
+ * it starts; a whole ThreadGroup can be given one input with
+ * startGroupRedirect.
+ *
+ * @author Marty Stepp
+ */
+public final class InputRouter {
+	private static final ThreadLocal<InputStream> INPUT = new ThreadLocal<InputStream>();
+
+	// inputs for the threads of each group (and its subgroups) that have none of their own
+	private static final Map<ThreadGroup, InputStream> GROUP_INPUTS = new ConcurrentHashMap<ThreadGroup, InputStream>();
+
+	private static InputStream routedIn;
+
+	private InputRouter() {
+		// empty
+	}
+
+	/**
+	 * Makes System.in read from the given stream in the current thread.
+	 */
+	public static void startRedirect(InputStream in) {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		install();
+		INPUT.set(in);
+	}
+
+	/**
+	 * Makes System.in read from the given text in the current thread.
+	 */
+	public static void startRedirect(String text) {
+		startRedirect(IOUtils.toInputStream(text));
+	}
+
+	/**
+	 * Makes System.in in the current thread read from the original System.in again.
+	 */
+	public static void stopRedirect() {
+		INPUT.remove();
+	}
+
+	/**
+	 * Makes System.in read from the given stream in every thread in the
+	 * given group or its subgroups, including threads started later, that
+	 * has not been redirected on its own.
+	 */
+	public static void startGroupRedirect(ThreadGroup group, InputStream in) {
+		if (group == null || in == null) {
+			throw new NullPointerException();
+		}
+		install();
+		GROUP_INPUTS.put(group, in);
+	}
+
+	/**
+	 * Makes System.in in the given group's threads read from the original System.in again.
+	 */
+	public static void stopGroupRedirect(ThreadGroup group) {
+		GROUP_INPUTS.remove(group);
+	}
+
+	private static synchronized void install() {
+		if (System.in != routedIn) {
+			routedIn = new MultiplexInputStream(System.in);
+			System.setIn(routedIn);
+		}
+	}
+
+	/*
+	 * Reads from the current thread's input if it has one, and from the
+	 * original System.in otherwise.
+	 */
+	private static class MultiplexInputStream extends InputStream {
+		private final InputStream original;
+
+		public MultiplexInputStream(InputStream original) {
+			this.original = original;
+		}
+
+		private InputStream source() {
+			InputStream in = INPUT.get();
+			if (in == null && !GROUP_INPUTS.isEmpty()) {
+				for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null && in == null; group = group.getParent()) {
+					in = GROUP_INPUTS.get(group);
+				}
+			}
+			return in == null ? original : in;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return source().available();
+		}
+
+		@Override
+		public void close() {
+			// System.in should not be closed
+		}
+
+		@Override
+		public int read() throws IOException {
+			return source().read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			return source().read(bytes, offset, length);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return source().skip(n);
+		}
+	}
+}
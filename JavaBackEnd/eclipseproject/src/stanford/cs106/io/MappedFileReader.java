@@ -0,0 +1,115 @@
+/*
+ * @version 2016/12/21
+ * - initial version
+ */
+
+package stanford.cs106.io;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+/**
+ * A Reader that decodes a file through memory-mapped NIO buffers rather
+ * than read() calls, mapping at most 64 MB of the file at a time so that
+ * files of any size can be read.  Malformed input is replaced with U+FFFD
+ * rather than causing an exception.
+ *
+ * @author Marty Stepp
+ */
+public class MappedFileReader extends Reader {
+	private static final long CHUNK_SIZE = 64L << 20;
+	private static final int CHAR_BUFFER_SIZE = 8192;
+
+	private final FileChannel channel;
+	private final long fileSize;
+	private final CharsetDecoder decoder;
+	private final CharBuffer chars;
+	private MappedByteBuffer chunk;
+	private long chunkStart;     // file position of chunk's index 0
+	private boolean endOfInput;  // true once the decoder has been flushed
+
+	public MappedFileReader(File file) throws IOException {
+		this(file.toPath(), StandardCharsets.UTF_8);
+	}
+
+	public MappedFileReader(Path path) throws IOException {
+		this(path, StandardCharsets.UTF_8);
+	}
+
+	public MappedFileReader(Path path, Charset charset) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		boolean mapped = false;
+		try {
+			fileSize = channel.size();
+			decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+			chars.flip();   // empty
+			mapChunk(0);
+			mapped = true;
+		} finally {
+			if (!mapped) {
+				// no one else can close the file if the constructor fails
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Closes the file.  The mapped memory itself is released when the
+	 * buffers are garbage-collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (!chars.hasRemaining()) {
+			if (endOfInput) {
+				return -1;
+			}
+			fill();
+		}
+		int count = Math.min(len, chars.remaining());
+		chars.get(cbuf, off, count);
+		return count;
+	}
+
+	/*
+	 * Decodes more of the file into chars, which must be empty.
+	 */
+	private void fill() throws IOException {
+		chars.clear();
+		while (chars.position() == 0 && !endOfInput) {
+			boolean lastChunk = chunkStart + chunk.limit() >= fileSize;
+			CoderResult result = decoder.decode(chunk, chars, lastChunk);
+			if (result.isError()) {
+				result.throwException();
+			} else if (result.isUnderflow()) {
+				if (lastChunk) {
+					decoder.flush(chars);
+					endOfInput = true;
+				} else {
+					// map the next part of the file, starting with any bytes
+					// of a character split across the end of this part
+					mapChunk(chunkStart + chunk.position());
+				}
+			}
+		}
+		chars.flip();
+	}
+
+	private void mapChunk(long start) throws IOException {
+		chunkStart = start;
+		chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, fileSize - start));
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * @version 2016/12/24
+ * - initial version
+ */
+
+package stanford.cs106.io;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Captures System.out and System.err separately for each thread, so that
+ * several pieces of code (such as student programs being graded at the same
+ * time) can have their output captured at once in one JVM.
+ *
+ * The first capture replaces System.out and System.err with streams that
+ * send each print to the CaptureBuffer of the thread doing the printing, or
+ * to the original stream if that thread is not capturing.  The streams are
+ * left in place afterward, since they cost little for threads that are not
+ * capturing.  A thread's capture is not passed on to threads it starts,
+ * which may outlive it; to capture the output of threads that a program
+ * starts, run the program in a ThreadGroup of its own and capture the whole
+ * group with startGroupCapture.  Output to a buffer that has been released
+ * goes to the original stream.
+ *
+ * @author Marty Stepp
+ */
+public final class OutputRouter {
+	private static final ThreadLocal<CaptureBuffer> CAPTURE = new ThreadLocal<CaptureBuffer>();
+
+	// buffers for the threads of each group (and its subgroups) that are not capturing on their own
+	private static final Map<ThreadGroup, CaptureBuffer> GROUP_CAPTURES = new ConcurrentHashMap<ThreadGroup, CaptureBuffer>();
+
+	private static PrintStream routedOut;
+	private static PrintStream routedErr;
+
+	private OutputRouter() {
+		// empty
+	}
+
+	/**
+	 * Returns the buffer into which the current thread's output is being
+	 * captured, by it or by its thread group, or null if it is not being
+	 * captured.
+	 */
+	public static CaptureBuffer getCapture() {
+		CaptureBuffer buffer = CAPTURE.get();
+		if (buffer != null && buffer.isReleased()) {
+			CAPTURE.remove();
+			buffer = null;
+		}
+		if (buffer == null && !GROUP_CAPTURES.isEmpty()) {
+			for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null; group = group.getParent()) {
+				buffer = GROUP_CAPTURES.get(group);
+				if (buffer != null) {
+					return buffer.isReleased() ? null : buffer;
+				}
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns whether the current thread's output is being captured.
+	 */
+	public static boolean isCapturing() {
+		return getCapture() != null;
+	}
+
+	/**
+	 * Begins capturing the current thread's output into a new buffer holding
+	 * at most the given number of bytes, and returns the buffer.
+	 */
+	public static CaptureBuffer startCapture(long maxBytes, boolean throwOnOverflow) {
+		CaptureBuffer buffer = new CaptureBuffer(maxBytes, throwOnOverflow);
+		startCapture(buffer);
+		return buffer;
+	}
+
+	/**
+	 * Begins capturing the current thread's output into the given buffer,
+	 * replacing any buffer it was capturing into before.
+	 */
+	public static void startCapture(CaptureBuffer buffer) {
+		if (buffer == null) {
+			throw new NullPointerException();
+		}
+		install();
+		flush();
+		CAPTURE.set(buffer);
+	}
+
+	/**
+	 * Stops capturing the current thread's output and returns the buffer it
+	 * was captured into, or null if it was not being captured by startCapture.
+	 */
+	public static CaptureBuffer stopCapture() {
+		flush();
+		CaptureBuffer buffer = CAPTURE.get();
+		CAPTURE.remove();
+		return buffer;
+	}
+
+	/**
+	 * Begins capturing the output of every thread in the given group or its
+	 * subgroups, including threads started later, into the given buffer;
+	 * threads that are capturing on their own with startCapture are not
+	 * affected.
+	 */
+	public static void startGroupCapture(ThreadGroup group, CaptureBuffer buffer) {
+		if (group == null || buffer == null) {
+			throw new NullPointerException();
+		}
+		install();
+		flush();
+		GROUP_CAPTURES.put(group, buffer);
+	}
+
+	/**
+	 * Stops capturing the output of the given group's threads and returns
+	 * the buffer it was captured into, or null if it was not being captured.
+	 */
+	public static CaptureBuffer stopGroupCapture(ThreadGroup group) {
+		flush();
+		return GROUP_CAPTURES.remove(group);
+	}
+
+	private static void flush() {
+		System.out.flush();
+		System.err.flush();
+	}
+
+	/*
+	 * Puts the routing streams in place, unless they already are; if someone
+	 * has replaced them, the replacement becomes the stream that threads that
+	 * are not capturing write to.
+	 */
+	private static synchronized void install() {
+		if (System.out != routedOut) {
+			routedOut = new MultiplexPrintStream(System.out);
+			System.setOut(routedOut);
+		}
+		if (System.err != routedErr) {
+			routedErr = new MultiplexPrintStream(System.err);
+			System.setErr(routedErr);
+		}
+	}
+
+	/*
+	 * A PrintStream that sends everything printed to the current thread's
+	 * capture buffer's PrintStream, if it has one, and to the original stream
+	 * otherwise.  Each buffer has a PrintStream of its own, so characters
+	 * that one thread's print leaves partly encoded can never end up in
+	 * another thread's output.
+	 */
+	private static class MultiplexPrintStream extends PrintStream {
+		private final PrintStream original;
+
+		public MultiplexPrintStream(PrintStream original) {
+			super(original, /* autoFlush */ true);
+			this.original = original;
+		}
+
+		private PrintStream target() {
+			CaptureBuffer buffer = getCapture();
+			return buffer == null ? original : buffer.getPrintStream();
+		}
+
+		@Override
+		public PrintStream append(char c) {
+			target().append(c);
+			return this;
+		}
+
+		@Override
+		public PrintStream append(CharSequence csq) {
+			target().append(csq);
+			return this;
+		}
+
+		@Override
+		public PrintStream append(CharSequence csq, int start, int end) {
+			target().append(csq, start, end);
+			return this;
+		}
+
+		@Override
+		public boolean checkError() {
+			return target().checkError();
+		}
+
+		@Override
+		public void close() {
+			// System.out should not be closed
+		}
+
+		@Override
+		public void flush() {
+			target().flush();
+		}
+
+		@Override
+		public PrintStream format(String format, Object... args) {
+			target().format(format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream format(Locale l, String format, Object... args) {
+			target().format(l, format, args);
+			return this;
+		}
+
+		@Override
+		public void print(boolean b) {
+			target().print(b);
+		}
+
+		@Override
+		public void print(char c) {
+			target().print(c);
+		}
+
+		@Override
+		public void print(char[] s) {
+			target().print(s);
+		}
+
+		@Override
+		public void print(double d) {
+			target().print(d);
+		}
+
+		@Override
+		public void print(float f) {
+			target().print(f);
+		}
+
+		@Override
+		public void print(int i) {
+			target().print(i);
+		}
+
+		@Override
+		public void print(long l) {
+			target().print(l);
+		}
+
+		@Override
+		public void print(Object obj) {
+			target().print(obj);
+		}
+
+		@Override
+		public void print(String s) {
+			target().print(s);
+		}
+
+		@Override
+		public PrintStream printf(String format, Object... args) {
+			target().printf(format, args);
+			return this;
+		}
+
+		@Override
+		public PrintStream printf(Locale l, String format, Object... args) {
+			target().printf(l, format, args);
+			return this;
+		}
+
+		@Override
+		public void println() {
+			target().println();
+		}
+
+		@Override
+		public void println(boolean x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(char x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(char[] x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(double x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(float x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(int x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(long x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(Object x) {
+			target().println(x);
+		}
+
+		@Override
+		public void println(String x) {
+			target().println(x);
+		}
+
+		@Override
+		public void write(byte[] buf, int off, int len) {
+			target().write(buf, off, len);
+		}
+
+		@Override
+		public void write(int b) {
+			target().write(b);
+		}
+	}
+}
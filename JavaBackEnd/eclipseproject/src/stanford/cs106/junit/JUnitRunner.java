@@ -0,0 +1,267 @@
+/*
+ * @version 2016/12/24
+ * - initial version
+ */
+
+package stanford.cs106.junit;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import stanford.cs106.io.*;
+import stanford.cs106.util.ExceptionUtils;
+
+/**
+ * Runs JUnit test methods concurrently on a bounded pool of threads,
+ * reporting each test's result to a JUnitListener as soon as it finishes.
+ *
+ * Each test gets its own instance of its class.  Whatever a test prints to
+ * System.out or System.err from the thread it runs in is captured separately
+ * for each test and printed in one piece when its result is reported, so the
+ * output of tests running at the same time is not interleaved.  A test that runs past its timeout is
+ * reported as failed and interrupted; since Java has no safe way to kill a
+ * thread, it is then left to stop on its own, and another thread is added
+ * to the pool in its place.  Tests annotated with @Sequential, or in a class
+ * annotated with it, are run one at a time after all of the others.
+ *
+ * All calls to the listener are made from the thread that called run.
+ */
+public class JUnitRunner {
+	// most bytes of output kept for any one test
+	private static final int MAX_OUTPUT_BYTES = 1 << 20;
+
+	private final int threadCount;
+
+	/**
+	 * Constructs a runner that runs as many tests at once as there are processors.
+	 */
+	public JUnitRunner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a runner that runs up to the given number of tests at once.
+	 */
+	public JUnitRunner(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("thread count must be at least 1: " + threadCount);
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Runs the given test methods of the given JUnit class, reporting their
+	 * results to the given listener (which may be null), and returns once all
+	 * of them have finished or timed out.  Does not call setTestingCompleted.
+	 */
+	public void run(Class<?> junitClass, List<Method> methods, JUnitListener listener) {
+		boolean classSequential = junitClass.isAnnotationPresent(Sequential.class);
+		List<TestTask> parallelTests = new ArrayList<TestTask>();
+		List<TestTask> sequentialTests = new ArrayList<TestTask>();
+		final BlockingQueue<TestTask> finished = new LinkedBlockingQueue<TestTask>();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+				0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new TestThreadFactory());
+		ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, new TestThreadFactory());
+		for (Method method : methods) {
+			TestTask task = new TestTask(junitClass, method, executor, watchdog, finished);
+			if (classSequential || method.isAnnotationPresent(Sequential.class)) {
+				sequentialTests.add(task);
+			} else {
+				parallelTests.add(task);
+			}
+		}
+
+		try {
+			for (TestTask task : parallelTests) {
+				executor.execute(task);
+			}
+			reportResults(finished, parallelTests.size(), listener);
+			for (TestTask task : sequentialTests) {
+				executor.execute(task);
+				reportResults(finished, 1, listener);
+			}
+		} catch (InterruptedException ie) {
+			// stop testing; tests still running are interrupted below
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			watchdog.shutdownNow();
+		}
+	}
+
+	/*
+	 * Waits for the given number of tests to finish, reporting each one.
+	 */
+	private static void reportResults(BlockingQueue<TestTask> finished, int count, JUnitListener listener)
+			throws InterruptedException {
+		for (int i = 0; i < count; i++) {
+			finished.take().report(listener);
+		}
+	}
+
+	/*
+	 * One test method to be run, and its result once run.
+	 */
+	private static class TestTask implements Runnable {
+		private final Class<?> junitClass;
+		private final Method method;
+		private final long timeout;                 // ms; 0 for none
+		private final Class<? extends Throwable> expected;
+		private final ThreadPoolExecutor executor;
+		private final ScheduledExecutorService watchdog;
+		private final BlockingQueue<TestTask> finished;
+		private final AtomicBoolean done = new AtomicBoolean();
+		private Thread thread;                      // while running; guarded by this
+		private volatile CaptureBuffer capture;     // the test's output
+
+		// set once done is true
+		private Throwable thrown;
+		private boolean constructorFailed;
+		private boolean timedOut;
+		private long runtimeMS;
+		private String output;
+
+		public TestTask(Class<?> junitClass, Method method, ThreadPoolExecutor executor,
+				ScheduledExecutorService watchdog, BlockingQueue<TestTask> finished) {
+			this.junitClass = junitClass;
+			this.method = method;
+			org.junit.Test test = method.getAnnotation(org.junit.Test.class);
+			this.timeout = test == null ? 0 : test.timeout();
+			this.expected = (test == null || test.expected() == org.junit.Test.None.class) ? null : test.expected();
+			this.executor = executor;
+			this.watchdog = watchdog;
+			this.finished = finished;
+		}
+
+		public void run() {
+			synchronized (this) {
+				thread = Thread.currentThread();
+			}
+			capture = new CaptureBuffer(MAX_OUTPUT_BYTES);
+			OutputRouter.startCapture(capture);
+			final long startTime = System.currentTimeMillis();
+			ScheduledFuture<?> timer = null;
+			if (timeout > 0) {
+				timer = watchdog.schedule(new Runnable() {
+					public void run() {
+						timeOut(startTime);
+					}
+				}, timeout, TimeUnit.MILLISECONDS);
+			}
+
+			Throwable result = null;
+			Object junitObj = null;
+			try {
+				junitObj = junitClass.getDeclaredConstructor().newInstance();
+			} catch (Throwable t) {
+				// includes InvocationTargetException from the class's constructor
+				result = ExceptionUtils.getUnderlyingCause(t);
+			}
+			boolean constructorFailed = junitObj == null;
+			if (!constructorFailed) {
+				try {
+					method.invoke(junitObj);
+				} catch (Throwable t) {
+					result = ExceptionUtils.getUnderlyingCause(t);
+				}
+			}
+			OutputRouter.stopCapture();
+			String captured = capture.toString();
+			if (timer != null) {
+				timer.cancel(false);
+			}
+			synchronized (this) {
+				thread = null;
+			}
+			if (finish(result, constructorFailed, false, System.currentTimeMillis() - startTime, captured)) {
+				capture.release();
+			}
+		}
+
+		/*
+		 * Called by the watchdog when the test has run too long.
+		 */
+		private void timeOut(long startTime) {
+			if (finish(null, false, true, System.currentTimeMillis() - startTime, capture.toString())) {
+				synchronized (this) {
+					if (thread != null) {
+						thread.interrupt();
+
+						// the thread may never come back, so give the pool another
+						// (maximum first, which must never be less than the core size)
+						synchronized (executor) {
+							executor.setMaximumPoolSize(executor.getMaximumPoolSize() + 1);
+							executor.setCorePoolSize(executor.getCorePoolSize() + 1);
+						}
+					}
+				}
+			}
+		}
+
+		/*
+		 * Records the test's result, unless it already has one, and queues it
+		 * to be reported.  Returns whether the result was recorded.
+		 */
+		private boolean finish(Throwable thrown, boolean constructorFailed, boolean timedOut,
+				long runtimeMS, String output) {
+			if (!done.compareAndSet(false, true)) {
+				return false;
+			}
+			this.thrown = thrown;
+			this.constructorFailed = constructorFailed;
+			this.timedOut = timedOut;
+			this.runtimeMS = runtimeMS;
+			this.output = output;
+			finished.add(this);
+			return true;
+		}
+
+		/*
+		 * Prints the test's output and tells the listener its result.
+		 */
+		public void report(JUnitListener listener) {
+			if (!output.isEmpty()) {
+				System.out.print(output);
+				System.out.flush();
+			}
+			if (listener == null) {
+				return;
+			}
+
+			String testName = method.getName();
+			if (timedOut) {
+				listener.setTestResult(testName, "fail");
+				listener.setTestDetailsMessage(testName, "test timed out after " + timeout + "ms");
+			} else if (constructorFailed) {
+				// the test never ran, whatever it was expected to throw
+				JUnitUtils.reportFailure(testName, thrown, listener);
+			} else if (expected != null && expected.isInstance(thrown)) {
+				listener.setTestResult(testName, "pass");
+			} else if (expected != null && thrown == null) {
+				listener.setTestResult(testName, "fail");
+				listener.setTestDetailsMessage(testName, "test should have thrown " + expected.getName());
+			} else if (thrown != null) {
+				JUnitUtils.reportFailure(testName, thrown, listener);
+			} else {
+				listener.setTestResult(testName, "pass");
+			}
+			listener.setTestRuntime(testName, (int) runtimeMS);
+		}
+	}
+
+	/*
+	 * Makes daemon threads, so that a test that never ends cannot keep the
+	 * JVM from exiting.
+	 */
+	private static class TestThreadFactory implements ThreadFactory {
+		private static final AtomicInteger threadNumber = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "JUnitRunner-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
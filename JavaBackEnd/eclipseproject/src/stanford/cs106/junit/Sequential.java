@@ -0,0 +1,15 @@
+package stanford.cs106.junit;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a JUnit test method, or every test in a class, as unsafe to run at
+ * the same time as other tests (for example because it uses static state
+ * or reads System.in).  JUnitRunner runs such tests one at a time, after
+ * the other tests have finished.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sequential {
+	// empty
+}
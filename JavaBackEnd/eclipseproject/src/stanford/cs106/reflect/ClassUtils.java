@@ -297,9 +297,16 @@ public final class ClassUtils {
 		return classFileName;
 	}
 
+	// Compiles the given source text and loads the class it defines.
+	// Compiles in memory (and reuses earlier compilations of the same text)
+	// when a JDK compiler is available; otherwise writes and compiles files.
 	public static Class<?> writeAndLoadClass(String fileText, String className, boolean useTempFolder)
 			throws IOException, ClassNotFoundException, IllegalAccessException,
 			InvocationTargetException, NoSuchMethodException {
+		if (InMemoryCompiler.isAvailable()) {
+			return InMemoryCompiler.compileAndLoad(className, fileText);
+		}
+
 		// write the modified text to a new file (possibly in temp dir)
 		String classFileName = writeAndCompile(fileText, className, useTempFolder);
 
@@ -309,6 +316,13 @@ public final class ClassUtils {
 		return loadClass(classFileName);
 	}
 
+	// Compiles all of the given sources (class name to source text) in one
+	// run of the compiler, in memory, and loads the classes named by the keys.
+	public static Map<String, Class<?>> compileAndLoadClasses(Map<String, String> sources)
+			throws ClassNotFoundException {
+		return InMemoryCompiler.compileAndLoad(sources);
+	}
+
 	/**
 	 * Compiles the .java source file with the given file name,
 	 * and returns the file name of the newly compiled .class file.
@@ -0,0 +1,368 @@
+/*
+ * @version 2016/12/27
+ * - initial version
+ */
+
+package stanford.cs106.reflect;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.*;
+import javax.tools.*;
+
+/**
+ * Compiles Java source text to bytecode without touching the disk, and
+ * loads the resulting classes from memory.
+ *
+ * Compiled code is cached by a hash of each compilation unit's class name
+ * and source text together with those of the other units compiled in the
+ * same call, so compiling the same sources again (as when the same student
+ * variation is checked again) costs only a hash.  Since a unit's bytecode
+ * depends on the classes it uses, a unit is recompiled when its own text or
+ * that of any unit compiled with it changes; classes on the class path are
+ * assumed not to change.  Several units can be compiled in one call to the
+ * compiler, which is much faster than compiling them one at a time; units
+ * that are still cached are not recompiled but are visible to the ones that
+ * are.
+ *
+ * @author Marty Stepp
+ */
+public final class InMemoryCompiler {
+	// most compilation units kept in the cache
+	private static final int MAX_CACHED_UNITS = 256;
+
+	// compiled classes of each unit (binary class name to bytecode), by hash;
+	// least recently used first
+	private static final Map<String, Map<String, byte[]>> CACHE =
+			new LinkedHashMap<String, Map<String, byte[]>>(16, 0.75f, /* accessOrder */ true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Map<String, byte[]>> eldest) {
+					return size() > MAX_CACHED_UNITS;
+				}
+			};
+
+	private InMemoryCompiler() {
+		// empty
+	}
+
+	/**
+	 * Removes all compiled code from the cache.
+	 */
+	public static void clearCache() {
+		synchronized (CACHE) {
+			CACHE.clear();
+		}
+	}
+
+	/**
+	 * Compiles the given source text of the class with the given name (which
+	 * includes its package, if any), and returns the bytecode of every class
+	 * it defines, by binary class name.  The arrays returned are shared with
+	 * the cache and must not be modified.
+	 * Throws a CompilerErrorException if the compilation fails.
+	 */
+	public static Map<String, byte[]> compile(String className, String sourceText) {
+		return compile(Collections.singletonMap(className, sourceText));
+	}
+
+	/**
+	 * Compiles the given sources, a map from each top-level class name to its
+	 * source text, in a single run of the compiler, so they may refer to each
+	 * other.  Returns the bytecode of every class they define, by binary
+	 * class name.  The arrays returned are shared with the cache and must not
+	 * be modified.
+	 * Throws a CompilerErrorException if the compilation fails.
+	 */
+	public static Map<String, byte[]> compile(Map<String, String> sources) {
+		// each unit's key includes the hashes of all of the units, so a unit
+		// compiled against another version of a class it uses is never reused
+		Map<String, String> unitHashes = new TreeMap<String, String>();
+		for (Map.Entry<String, String> entry : sources.entrySet()) {
+			unitHashes.put(entry.getKey(), hash(entry.getKey(), entry.getValue()));
+		}
+		String callHash = hash("", unitHashes.values().toString());
+
+		Map<String, byte[]> classes = new HashMap<String, byte[]>();
+		List<SourceFile> toCompile = new ArrayList<SourceFile>();
+		synchronized (CACHE) {
+			for (Map.Entry<String, String> entry : sources.entrySet()) {
+				String hash = unitHashes.get(entry.getKey()) + callHash;
+				Map<String, byte[]> cached = CACHE.get(hash);
+				if (cached == null) {
+					toCompile.add(new SourceFile(entry.getKey(), entry.getValue(), hash));
+				} else {
+					classes.putAll(cached);
+				}
+			}
+		}
+		if (toCompile.isEmpty()) {
+			return classes;
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new CompilerErrorException(
+					"ERROR: Cannot dynamically compile code on this version of Java. \n"
+					+ "This feature requires a JDK, not just a JRE. \n"
+					+ "Please update your Java and/or Eclipse installation or settings.");
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		MemoryFileManager fileManager = new MemoryFileManager(
+				compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8), classes);
+		List<String> options = Arrays.asList("-classpath",
+				System.getProperty("java.class.path") + File.pathSeparator + ".");
+		StringWriter out = new StringWriter();
+		boolean success = compiler.getTask(out, fileManager, diagnostics, options, null, toCompile).call();
+		try {
+			fileManager.close();
+		} catch (IOException ioe) {
+			// nothing was written to disk, so nothing can be lost
+		}
+		if (!success) {
+			StringBuilder message = new StringBuilder("Compilation failed:\n");
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				message.append(diagnostic).append('\n');
+			}
+			message.append(out);
+			throw new CompilerErrorException(message.toString());
+		}
+
+		synchronized (CACHE) {
+			for (SourceFile source : toCompile) {
+				Map<String, byte[]> unit = fileManager.getOutput(source);
+				CACHE.put(source.hash, unit);
+				classes.putAll(unit);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Compiles the given source text of the class with the given name and
+	 * returns the class, loaded by a new class loader of its own.
+	 * Throws a CompilerErrorException if the compilation fails.
+	 */
+	public static Class<?> compileAndLoad(String className, String sourceText) throws ClassNotFoundException {
+		return compileAndLoad(Collections.singletonMap(className, sourceText)).get(className);
+	}
+
+	/**
+	 * Compiles the given sources, as compile(Map) does, and returns the class
+	 * named by each key of the map.  All of the classes are loaded by one new
+	 * class loader, so each call gets fresh copies of them.
+	 * Throws a CompilerErrorException if the compilation fails.
+	 */
+	public static Map<String, Class<?>> compileAndLoad(Map<String, String> sources) throws ClassNotFoundException {
+		ClassLoader loader = new MemoryClassLoader(compile(sources), InMemoryCompiler.class.getClassLoader());
+		Map<String, Class<?>> loaded = new LinkedHashMap<String, Class<?>>();
+		for (String className : sources.keySet()) {
+			loaded.put(className, loader.loadClass(className));
+		}
+		return loaded;
+	}
+
+	/**
+	 * Returns whether this JVM has a compiler that can be used.
+	 */
+	public static boolean isAvailable() {
+		return ToolProvider.getSystemJavaCompiler() != null;
+	}
+
+	private static String hash(String className, String sourceText) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(className.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			byte[] hash = digest.digest(sourceText.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+				sb.append(Character.forDigit(b & 0xf, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new RuntimeException(nsae);   // every JVM must have SHA-256
+		}
+	}
+
+	/*
+	 * A class file held in memory: either compiled in this run, in which case
+	 * the compiler writes its bytes, or compiled earlier and only read.
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+		private final String className;
+		private byte[] bytes;
+
+		public ClassFile(String className, byte[] bytes) {
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			this.className = className;
+			this.bytes = bytes;
+		}
+
+		@Override
+		public InputStream openInputStream() {
+			return new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return new ByteArrayOutputStream() {
+				@Override
+				public void close() {
+					bytes = toByteArray();
+				}
+			};
+		}
+	}
+
+	/*
+	 * Loads classes from bytecode in memory, before asking its parent.
+	 */
+	private static class MemoryClassLoader extends ClassLoader {
+		private final Map<String, byte[]> classes;
+
+		public MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] bytes = classes.get(name);
+			if (bytes == null) {
+				throw new ClassNotFoundException(name);
+			}
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+		@Override
+		public InputStream getResourceAsStream(String name) {
+			// lets CommandLineProgramLoader and others read the bytecode
+			if (name.endsWith(JavaFileObject.Kind.CLASS.extension)) {
+				String className = name.substring(0, name.length() - JavaFileObject.Kind.CLASS.extension.length()).replace('/', '.');
+				byte[] bytes = classes.get(className);
+				if (bytes != null) {
+					return new ByteArrayInputStream(bytes);
+				}
+			}
+			return super.getResourceAsStream(name);
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null && classes.containsKey(name)) {
+				clazz = findClass(name);
+			}
+			if (clazz == null) {
+				return super.loadClass(name, resolve);
+			}
+			if (resolve) {
+				resolveClass(clazz);
+			}
+			return clazz;
+		}
+	}
+
+	/*
+	 * Gives the compiler its output files in memory, grouped by the source
+	 * file each came from, and lets it see classes compiled earlier as if
+	 * they were on the class path.
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+		private final List<ClassFile> compiledClasses = new ArrayList<ClassFile>();
+		private final Map<FileObject, List<ClassFile>> outputs = new HashMap<FileObject, List<ClassFile>>();
+
+		public MemoryFileManager(StandardJavaFileManager fileManager, Map<String, byte[]> compiled) {
+			super(fileManager);
+			for (Map.Entry<String, byte[]> entry : compiled.entrySet()) {
+				compiledClasses.add(new ClassFile(entry.getKey(), entry.getValue()));
+			}
+		}
+
+		/*
+		 * Returns the classes compiled from the given source file.
+		 */
+		public Map<String, byte[]> getOutput(FileObject source) {
+			Map<String, byte[]> unit = new HashMap<String, byte[]>();
+			List<ClassFile> classFiles = outputs.get(source);
+			if (classFiles != null) {
+				for (ClassFile classFile : classFiles) {
+					unit.put(classFile.className, classFile.bytes);
+				}
+			}
+			return unit;
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className,
+				JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+			if (kind != JavaFileObject.Kind.CLASS) {
+				return super.getJavaFileForOutput(location, className, kind, sibling);
+			}
+			ClassFile classFile = new ClassFile(className, null);
+			List<ClassFile> classFiles = outputs.get(sibling);
+			if (classFiles == null) {
+				classFiles = new ArrayList<ClassFile>();
+				outputs.put(sibling, classFiles);
+			}
+			classFiles.add(classFile);
+			return classFile;
+		}
+
+		@Override
+		public String inferBinaryName(Location location, JavaFileObject file) {
+			if (file instanceof ClassFile) {
+				return ((ClassFile) file).className;
+			}
+			return super.inferBinaryName(location, file);
+		}
+
+		@Override
+		public Iterable<JavaFileObject> list(Location location, String packageName,
+				Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+			Iterable<JavaFileObject> files = super.list(location, packageName, kinds, recurse);
+			if (location != StandardLocation.CLASS_PATH || !kinds.contains(JavaFileObject.Kind.CLASS)
+					|| compiledClasses.isEmpty()) {
+				return files;
+			}
+			List<JavaFileObject> all = new ArrayList<JavaFileObject>();
+			for (ClassFile classFile : compiledClasses) {
+				int dot = classFile.className.lastIndexOf('.');
+				String classPackage = dot < 0 ? "" : classFile.className.substring(0, dot);
+				if (classPackage.equals(packageName)
+						|| (recurse && classPackage.startsWith(packageName + "."))) {
+					all.add(classFile);
+				}
+			}
+			for (JavaFileObject file : files) {
+				all.add(file);
+			}
+			return all;
+		}
+	}
+
+	/*
+	 * Source text held in memory, under the file name javac expects for the
+	 * top-level class it defines.
+	 */
+	private static class SourceFile extends SimpleJavaFileObject {
+		private final String text;
+		private final String hash;
+
+		public SourceFile(String className, String text, String hash) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.text = text;
+			this.hash = hash;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return text;
+		}
+	}
+}
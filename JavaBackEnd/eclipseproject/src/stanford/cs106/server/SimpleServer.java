@@ -1,14 +1,26 @@
+/*
+ * @version 2016/12/12
+ * - responses are UTF-8 with a byte-accurate content length and the given content type
+ * - files are sent through StaticFileHandler (caching, ETag/304, gzip); added serveStaticFiles
+ * - compiled templates are cached (TemplateCache)
+ * @version 2016/12/11
+ * - requests are handled on a thread pool and kept in a concurrent table
+ * - abandoned requests time out (504); too many pending requests are refused (503)
+ * - a response to a request that was already answered or timed out is ignored instead of throwing
+ * - requests can be passed to a RequestListener instead of the Java back end
+ * - enables TCP_NODELAY for the JDK HTTP server
+ */
+
 package stanford.cs106.server;
 
 import java.io.*;
 import java.net.*;
-import java.nio.file.Files;
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
-import stanford.cs106.io.IORuntimeException;
 import stanford.spl.JavaBackEnd;
 import stanford.spl.SplPipeDecoder;
 
@@ -21,6 +33,25 @@ import stanford.spl.SplPipeDecoder;
 public class SimpleServer {
 	private static final int DEFAULT_PORT = 8080;
 	
+	/** Default number of threads that accept requests and write responses. */
+	public static final int DEFAULT_THREAD_COUNT = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+	
+	/** Default number of requests that may wait for a response before new ones get a 503. */
+	public static final int DEFAULT_MAX_PENDING_REQUESTS = 256;
+	
+	/** Default number of milliseconds a request may wait for a response before it gets a 504. */
+	public static final long DEFAULT_REQUEST_TIMEOUT_MS = 30000;
+	
+	// system properties that override the defaults above
+	private static final String THREADS_PROPERTY = "stanfordspl.server.threads";
+	private static final String MAX_PENDING_PROPERTY = "stanfordspl.server.maxpending";
+	private static final String TIMEOUT_PROPERTY = "stanfordspl.server.timeout";
+	private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+	
+	private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+	private static final int HTTP_GATEWAY_TIMEOUT = 504;
+	private static final long TIMEOUT_CHECK_INTERVAL_MS = 1000;
+	
 	private static SimpleServer INSTANCE;
 	
 	
@@ -36,12 +67,30 @@ public class SimpleServer {
 	}
 	
 	
+	/**
+	 * Interface: RequestListener
+	 * --------------------------
+	 * Receives each request that the server accepts.  The listener must
+	 * eventually answer it by calling sendResponse or sendResponseFile with the
+	 * given request ID.  Called on one of the server's threads.
+	 */
+	public interface RequestListener {
+		public void requestReceived(int requestID, String requestUrl);
+	}
+	
 	// This is the student application that can respond to calls
-	private JavaBackEnd javaBackEnd;
+	private RequestListener listener;
 	private HttpServer server;
+	private ExecutorService executor;
+	private ScheduledExecutorService timeoutChecker;
 	private int port;
-	private Map<Integer, HttpExchange> requestMap = new HashMap<Integer, HttpExchange>();
-	private int currentRequestID = 0;
+	private int threadCount = getIntProperty(THREADS_PROPERTY, DEFAULT_THREAD_COUNT);
+	private int maxPendingRequests = getIntProperty(MAX_PENDING_PROPERTY, DEFAULT_MAX_PENDING_REQUESTS);
+	private long requestTimeout = getIntProperty(TIMEOUT_PROPERTY, (int) DEFAULT_REQUEST_TIMEOUT_MS);
+	private ConcurrentMap<Integer, PendingRequest> requestMap = new ConcurrentHashMap<Integer, PendingRequest>();
+	private AtomicInteger currentRequestID = new AtomicInteger();
+	private AtomicInteger pendingCount = new AtomicInteger();
+	private Map<String, File> staticDirectories = new LinkedHashMap<String, File>();
 	
 	/**
 	 * Method: Constructor
@@ -71,45 +120,102 @@ public class SimpleServer {
 		return server != null;
 	}
 	
-	public void sendResponse(int requestID, int httpErrorCode, String contentType, String responseText) {
-//		javax.swing.JOptionPane.showMessageDialog(null, "SimpleServer.sendResponse(requestID=" + requestID
-//				+ ", httpErrorCode=" + httpErrorCode + ", contentType=" + contentType + ")");
-		
-		if (!requestMap.containsKey(requestID)) {
-			throw new IllegalArgumentException("Unknown request ID: " + requestID);
-		}
-		HttpExchange exchange = requestMap.get(requestID);
-		try {
-			exchange.sendResponseHeaders(httpErrorCode, responseText.length());
-			OutputStream os = exchange.getResponseBody();
-			os.write(responseText.getBytes());
-			os.close();
-		} catch (IOException ioe) {
-			throw new IORuntimeException(ioe);
+	/**
+	 * Returns the number of requests that have been received but not yet answered.
+	 */
+	public int getPendingRequestCount() {
+		return pendingCount.get();
+	}
+	
+	/**
+	 * Method: Send Response
+	 * ---------------------
+	 * Answers the given request.  The response is written on one of the server's
+	 * threads, so the caller (normally the Java back end's command loop) never
+	 * waits on a slow client.
+	 * Returns false, and does nothing, if the request was already answered or
+	 * has timed out; the C++ program cannot know that a request timed out, so
+	 * this is not an error.
+	 */
+	public boolean sendResponse(int requestID, final int httpErrorCode, final String contentType, final String responseText) {
+		final PendingRequest request = takeRequest(requestID);
+		if (request == null) {
+			return false;
 		}
+		respondLater(request, new ResponseWriter() {
+			public void write(HttpExchange exchange) throws IOException {
+				StaticFileHandler.sendBytes(exchange, httpErrorCode, contentType, responseText.getBytes("UTF-8"));
+			}
+		});
+		return true;
 	}
 
-	public void sendResponseFile(int requestID, int httpErrorCode, String contentType, String responseFilePath) {
-//		javax.swing.JOptionPane.showMessageDialog(null, "SimpleServer.sendResponseFile(requestID=" + requestID
-//				+ ", httpErrorCode=" + httpErrorCode + ", contentType=" + contentType + ")");
-		
-		if (!requestMap.containsKey(requestID)) {
-			throw new IllegalArgumentException("Unknown request ID: " + requestID);
+	/**
+	 * Answers the given request with the contents of a file, as sendResponse does.
+	 * Returns false, and does nothing, if the request was already answered or
+	 * has timed out.
+	 */
+	public boolean sendResponseFile(int requestID, final int httpErrorCode, final String contentType, final String responseFilePath) {
+		final PendingRequest request = takeRequest(requestID);
+		if (request == null) {
+			return false;
 		}
-		HttpExchange exchange = requestMap.get(requestID);
-		try {
-			OutputStream os = exchange.getResponseBody();
-			File file = new File(responseFilePath);
-			exchange.sendResponseHeaders(httpErrorCode, file.length());
-			Files.copy(file.toPath(), os);
-			os.close();
-		} catch (IOException ioe) {
-			throw new IORuntimeException(ioe);
+		respondLater(request, new ResponseWriter() {
+			public void write(HttpExchange exchange) throws IOException {
+				StaticFileHandler.sendFile(exchange, httpErrorCode, contentType, new File(responseFilePath));
+			}
+		});
+		return true;
+	}
+	
+	public void setJavaBackEnd(final JavaBackEnd javaBackEnd) {
+		setRequestListener(new RequestListener() {
+			public void requestReceived(int requestID, String requestUrl) {
+				// we will wait for the C++ code to send back a response
+				javaBackEnd.acknowledgeEvent("event:serverRequest(%d, %d, \"%s\")",
+						(long) javaBackEnd.getEventTime(),
+						requestID,
+						SplPipeDecoder.encode(requestUrl));
+			}
+		});
+	}
+	
+	public void setRequestListener(RequestListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Sets the largest number of requests that may be waiting for a response
+	 * at once.  Requests beyond this get an immediate 503 (Service Unavailable)
+	 * response, so clients back off when the C++ program falls behind.
+	 */
+	public void setMaxPendingRequests(int maxPendingRequests) {
+		if (maxPendingRequests <= 0) {
+			throw new IllegalArgumentException("max pending requests must be positive: " + maxPendingRequests);
+		}
+		this.maxPendingRequests = maxPendingRequests;
+	}
+	
+	/**
+	 * Sets how many milliseconds a request may wait for a response before the
+	 * server gives up on it and answers 504 (Gateway Timeout).
+	 */
+	public void setRequestTimeout(long timeoutMs) {
+		if (timeoutMs <= 0) {
+			throw new IllegalArgumentException("request timeout must be positive: " + timeoutMs);
 		}
+		this.requestTimeout = timeoutMs;
 	}
 	
-	public void setJavaBackEnd(JavaBackEnd javaBackEnd) {
-		this.javaBackEnd = javaBackEnd;
+	/**
+	 * Sets the number of threads used to accept requests and write responses.
+	 * Takes effect the next time the server is started.
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("thread count must be positive: " + threadCount);
+		}
+		this.threadCount = threadCount;
 	}
 
 	/**
@@ -125,24 +231,52 @@ public class SimpleServer {
 		}
 		
 		try {
+			// without this, small responses wait on delayed TCP acknowledgements
+			if (System.getProperty(NODELAY_PROPERTY) == null) {
+				System.setProperty(NODELAY_PROPERTY, "true");
+			}
 			server = HttpServer.create(new InetSocketAddress(port), 0);
 			// server.createContext("/img", new BottleFileHandler());
 			// server.createContext("/resources", new BottleFileHandler());
 			server.createContext("/", new BottleHandler());
-			server.setExecutor(null); // creates a default executor
+			for (Map.Entry<String, File> entry : staticDirectories.entrySet()) {
+				server.createContext(entry.getKey(), new StaticFileHandler(entry.getKey(), entry.getValue()));
+			}
+			executor = Executors.newFixedThreadPool(threadCount, new ServerThreadFactory("SimpleServer"));
+			server.setExecutor(executor);
 			server.start();
+			timeoutChecker = Executors.newSingleThreadScheduledExecutor(new ServerThreadFactory("SimpleServer timeouts"));
+			timeoutChecker.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					expireRequests();
+				}
+			}, TIMEOUT_CHECK_INTERVAL_MS, TIMEOUT_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
 	/**
-	 * ...
+	 * Method: Stop
+	 * ------------
+	 * Stops the server, closing the connections of any requests still waiting
+	 * for a response.
 	 */
 	public void stop() {
 		if (isRunning()) {
 			server.stop(0);
 			server = null;
+			timeoutChecker.shutdownNow();
+			timeoutChecker = null;
+			executor.shutdown();
+			executor = null;
+			for (Integer requestID : requestMap.keySet()) {
+				PendingRequest request = requestMap.remove(requestID);
+				if (request != null) {
+					pendingCount.decrementAndGet();
+					request.exchange.close();
+				}
+			}
 		}
 	}
 	
@@ -152,38 +286,112 @@ public class SimpleServer {
 	 * OPTIONAL: This method takes in a template (currently it takes the path to a template)
 	 * and provides functionality for (a) importing other slivers of HTML and (b) inserting
 	 * values from a map into all places in the template with the sequence {{key}}. See
-	 * resources/index.html for an example.
+	 * resources/index.html for an example.  Compiled templates are cached (see TemplateCache),
+	 * so each file is read again only after it changes.
 	 */
 	public static String renderTemplate(String templatePath, Map<String, String> args) {
-		try {
-			// This handles part (b)
-			Scanner htmlScanner = new Scanner(new File(templatePath));
-			String html = htmlScanner.useDelimiter("\\Z").next();
-			htmlScanner.close();
-			if(args != null) {
-				for(String key : args.keySet()) {
-					String value = args.get(key);
-					html = html.replace("{{" + key + "}}" , value);
+		return TemplateCache.render(templatePath, args);
+	}
+	
+	/**
+	 * Method: Serve Static Files
+	 * --------------------------
+	 * Makes the server answer requests whose path starts with urlPrefix directly
+	 * from the files in the given directory, without passing them on to the
+	 * C++ program (see StaticFileHandler).  Takes effect the next time the server
+	 * is started.
+	 */
+	public void serveStaticFiles(String urlPrefix, String directory) {
+		staticDirectories.put(urlPrefix, new File(directory));
+	}
+	
+	//=--------------- Private -------------=//
+	
+	/**
+	 * Removes the given request from the table of requests awaiting a response.
+	 * Returns null, after logging a warning, if there is no such request.
+	 */
+	private PendingRequest takeRequest(int requestID) {
+		PendingRequest request = requestMap.remove(requestID);
+		if (request == null) {
+			System.err.println("SimpleServer: ignoring response to unknown request ID (already answered or timed out): " + requestID);
+			return null;
+		}
+		pendingCount.decrementAndGet();
+		return request;
+	}
+	
+	/**
+	 * Writes a response to the given request on one of the server's threads,
+	 * or on the current thread if the server has been stopped.
+	 */
+	private void respondLater(final PendingRequest request, final ResponseWriter writer) {
+		Runnable task = new Runnable() {
+			public void run() {
+				try {
+					writer.write(request.exchange);
+				} catch (IOException ioe) {
+					// client went away; nothing more to do
+					request.exchange.close();
 				}
 			}
-			
-			// This handles inclues, part (a). Recursively applies render to included string
-			String regex="\\%include\\[(.*)]";
-			Pattern includePattern = Pattern.compile(regex);
-			Matcher m = includePattern.matcher(html);
-			String injectedHtml = html;
-			while (m.find()) {
-			    String includePath = m.group(1);
-			    String injectHtml = renderTemplate(includePath, args);
-			    injectedHtml = injectedHtml.replace("%include[" + includePath + "]", injectHtml);    
+		};
+		ExecutorService executor = this.executor;
+		try {
+			if (executor != null) {
+				executor.execute(task);
+				return;
 			}
-			return injectedHtml;
-		} catch(FileNotFoundException e) {
-			throw new RuntimeException(e);
+		} catch (RejectedExecutionException ree) {
+			// server is shutting down; fall through
 		}
+		task.run();
 	}
 	
-	//=--------------- Private -------------=//
+	/**
+	 * Answers 504 to every request that has waited longer than the request timeout.
+	 */
+	private void expireRequests() {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<Integer, PendingRequest> entry : requestMap.entrySet()) {
+			PendingRequest request = entry.getValue();
+			if (now - request.startTime >= requestTimeout
+					&& requestMap.remove(entry.getKey(), request)) {
+				pendingCount.decrementAndGet();
+				sendError(request.exchange, HTTP_GATEWAY_TIMEOUT, "Timed out waiting for a response");
+			}
+		}
+	}
+	
+	/**
+	 * Sends a short plain-text error response and closes the exchange.
+	 */
+	private static void sendError(HttpExchange exchange, int httpErrorCode, String message) {
+		try {
+			byte[] bytes = message.getBytes("UTF-8");
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			if (httpErrorCode == HTTP_SERVICE_UNAVAILABLE) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+			}
+			exchange.sendResponseHeaders(httpErrorCode, bytes.length);
+			OutputStream os = exchange.getResponseBody();
+			os.write(bytes);
+			os.close();
+		} catch (IOException ioe) {
+			exchange.close();
+		}
+	}
+	
+	private static int getIntProperty(String name, int defaultValue) {
+		try {
+			String value = System.getProperty(name);
+			return value == null ? defaultValue : Integer.parseInt(value.trim());
+		} catch (NumberFormatException nfe) {
+			return defaultValue;
+		} catch (SecurityException se) {
+			return defaultValue;
+		}
+	}
 	
 	
 	/**
@@ -226,18 +434,68 @@ public class SimpleServer {
 	 */
 	private class BottleHandler implements HttpHandler {
 		public void handle(HttpExchange exchange) throws IOException {
-			String requestUrl = getUriString(exchange);
-			int requestID = 0;
-			synchronized (SimpleServer.this) {
-				requestID = currentRequestID++;
-				requestMap.put(requestID, exchange);
+			RequestListener listener = SimpleServer.this.listener;
+			if (listener == null) {
+				sendError(exchange, HTTP_SERVICE_UNAVAILABLE, "Server is not ready");
+				return;
+			}
+			if (pendingCount.incrementAndGet() > maxPendingRequests) {
+				pendingCount.decrementAndGet();
+				sendError(exchange, HTTP_SERVICE_UNAVAILABLE, "Server is busy");
+				return;
 			}
+			String requestUrl = getUriString(exchange);
+			int requestID = currentRequestID.getAndIncrement();
+			requestMap.put(requestID, new PendingRequest(exchange));
 			
-	    	// we will wait for the C++ code to send back a response
-			javaBackEnd.acknowledgeEvent("event:serverRequest(%d, %d, \"%s\")",
-					(long) javaBackEnd.getEventTime(),
-	    			requestID,
-	    			SplPipeDecoder.encode(requestUrl));
+			// the exchange stays open until sendResponse is called or it times out;
+			// this thread is free to accept other requests in the meantime
+			listener.requestReceived(requestID, requestUrl);
+		}
+	}
+	
+	/**
+	 * Class: PendingRequest
+	 * ---------------------
+	 * A request that is waiting for a response, with the time it arrived.
+	 */
+	private static class PendingRequest {
+		private final HttpExchange exchange;
+		private final long startTime;
+		
+		public PendingRequest(HttpExchange exchange) {
+			this.exchange = exchange;
+			this.startTime = System.currentTimeMillis();
+		}
+	}
+	
+	/**
+	 * Interface: ResponseWriter
+	 * -------------------------
+	 * Writes a response to an exchange.
+	 */
+	private interface ResponseWriter {
+		public void write(HttpExchange exchange) throws IOException;
+	}
+	
+	/**
+	 * Class: ServerThreadFactory
+	 * --------------------------
+	 * Creates named daemon threads, so that a running server never keeps the
+	 * Java back end alive after the C++ program exits.
+	 */
+	private static class ServerThreadFactory implements ThreadFactory {
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+		
+		public ServerThreadFactory(String name) {
+			this.name = name;
+		}
+		
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
 		}
 	}
 }
@@ -0,0 +1,350 @@
+/*
+ * @version 2016/12/12
+ * - initial version
+ */
+
+package stanford.cs106.server;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.*;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Class: StaticFileHandler
+ * ------------------------
+ * Serves files from a directory directly, without involving the C++ program,
+ * and also implements SimpleServer.sendResponseFile.
+ *
+ * Small files are kept in an in-memory LRU cache, along with a gzipped copy of
+ * text files, and are revalidated against the file's size and modification
+ * time on each request.  Larger files are sent with FileChannel.transferTo.
+ * Responses carry ETag and Last-Modified headers, and conditional requests
+ * (If-None-Match, If-Modified-Since) for unchanged files get a 304.
+ */
+public class StaticFileHandler implements HttpHandler {
+	/** Files larger than this many bytes are streamed from disk rather than cached. */
+	public static final int MAX_CACHED_FILE_SIZE = 512 * 1024;
+	
+	/** Total number of bytes of file data the cache may hold. */
+	public static final long MAX_CACHE_BYTES = 32L * 1024 * 1024;
+	
+	private static final int MIN_GZIP_SIZE = 256;
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_NOT_MODIFIED = 304;
+	private static final int HTTP_NOT_FOUND = 404;
+	private static final int HTTP_BAD_METHOD = 405;
+	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+	
+	private static final FileCache CACHE = new FileCache();
+	
+	private final String urlPrefix;
+	private final File directory;
+	
+	/**
+	 * Constructs a handler that serves requests for urlPrefix/some/path from
+	 * the file directory/some/path.
+	 */
+	public StaticFileHandler(String urlPrefix, File directory) {
+		this.urlPrefix = urlPrefix.endsWith("/") ? urlPrefix : urlPrefix + "/";
+		this.directory = directory.getAbsoluteFile();
+	}
+	
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!method.equalsIgnoreCase("GET") && !method.equalsIgnoreCase("HEAD")) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				sendBytes(exchange, HTTP_BAD_METHOD, "text/plain; charset=utf-8", "Method not allowed".getBytes("UTF-8"));
+				return;
+			}
+			File file = resolve(exchange.getRequestURI());
+			if (file == null || !file.isFile()) {
+				sendBytes(exchange, HTTP_NOT_FOUND, "text/plain; charset=utf-8", "Not found".getBytes("UTF-8"));
+				return;
+			}
+			sendFile(exchange, HTTP_OK, null, file);
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Sends the given file as the response to the exchange, with the given
+	 * status code and content type.  If contentType is null or empty, it is
+	 * guessed from the file's name.
+	 */
+	public static void sendFile(HttpExchange exchange, int httpCode, String contentType, File file) throws IOException {
+		if (contentType == null || contentType.isEmpty()) {
+			contentType = guessContentType(file);
+		}
+		Path path = file.toPath();
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		long length = attrs.size();
+		long lastModified = attrs.lastModifiedTime().toMillis();
+		String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+		
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("ETag", etag);
+		headers.set("Last-Modified", formatHttpDate(lastModified));
+		if (httpCode == HTTP_OK && isNotModified(exchange.getRequestHeaders(), etag, lastModified)) {
+			exchange.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+			exchange.close();
+			return;
+		}
+		
+		if (length <= MAX_CACHED_FILE_SIZE) {
+			CachedFile cached = CACHE.get(path, length, lastModified);
+			boolean gzip = isCompressible(contentType) && length >= MIN_GZIP_SIZE
+					&& acceptsGzip(exchange.getRequestHeaders());
+			byte[] bytes = gzip ? cached.getGzipped() : cached.data;
+			headers.set("Content-Type", contentType);
+			if (isCompressible(contentType)) {
+				headers.set("Vary", "Accept-Encoding");
+			}
+			if (gzip) {
+				headers.set("Content-Encoding", "gzip");
+			}
+			writeBody(exchange, httpCode, bytes);
+			return;
+		}
+		
+		headers.set("Content-Type", contentType);
+		if (isHead(exchange)) {
+			exchange.sendResponseHeaders(httpCode, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(httpCode, length);
+		OutputStream os = exchange.getResponseBody();
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			WritableByteChannel out = Channels.newChannel(os);
+			long position = 0;
+			while (position < length) {
+				long count = channel.transferTo(position, length - position, out);
+				if (count <= 0) {
+					break;   // file shrank while being sent
+				}
+				position += count;
+			}
+		} finally {
+			channel.close();
+			os.close();
+		}
+	}
+	
+	/**
+	 * Sends the given bytes as the response to the exchange, gzipping them if
+	 * they are text and the client accepts gzip.
+	 */
+	public static void sendBytes(HttpExchange exchange, int httpCode, String contentType, byte[] bytes) throws IOException {
+		Headers headers = exchange.getResponseHeaders();
+		if (contentType != null && !contentType.isEmpty()) {
+			headers.set("Content-Type", contentType);
+		}
+		if (isCompressible(contentType)) {
+			headers.add("Vary", "Accept-Encoding");
+			if (bytes.length >= MIN_GZIP_SIZE && acceptsGzip(exchange.getRequestHeaders())) {
+				bytes = gzip(bytes);
+				headers.set("Content-Encoding", "gzip");
+			}
+		}
+		writeBody(exchange, httpCode, bytes);
+	}
+	
+	//=--------------- Private -------------=//
+	
+	/*
+	 * Maps a request URI onto a file inside this handler's directory, or
+	 * returns null if the URI is outside the prefix or escapes the directory.
+	 */
+	private File resolve(URI uri) throws IOException {
+		String path = uri.getPath();
+		if (path == null || !path.startsWith(urlPrefix)) {
+			return null;
+		}
+		File file = new File(directory, path.substring(urlPrefix.length())).getCanonicalFile();
+		String root = directory.getCanonicalPath() + File.separator;
+		return file.getPath().startsWith(root) ? file : null;
+	}
+	
+	private static void writeBody(HttpExchange exchange, int httpCode, byte[] bytes) throws IOException {
+		if (isHead(exchange)) {
+			exchange.sendResponseHeaders(httpCode, -1);
+			exchange.close();
+			return;
+		}
+		exchange.sendResponseHeaders(httpCode, bytes.length == 0 ? -1 : bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(bytes);
+		os.close();
+	}
+	
+	private static boolean isHead(HttpExchange exchange) {
+		return exchange.getRequestMethod().equalsIgnoreCase("HEAD");
+	}
+	
+	private static boolean isNotModified(Headers requestHeaders, String etag, long lastModified) {
+		String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.startsWith("W/")) {
+					tag = tag.substring(2);
+				}
+				if (tag.equals(etag) || tag.equals("*")) {
+					return true;
+				}
+			}
+			return false;
+		}
+		String ifModifiedSince = requestHeaders.getFirst("If-Modified-Since");
+		if (ifModifiedSince != null) {
+			try {
+				long since = createHttpDateFormat().parse(ifModifiedSince).getTime();
+				return lastModified / 1000 <= since / 1000;
+			} catch (ParseException pe) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean acceptsGzip(Headers requestHeaders) {
+		List<String> values = requestHeaders.get("Accept-Encoding");
+		if (values != null) {
+			for (String value : values) {
+				if (value.toLowerCase().contains("gzip")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		contentType = contentType.toLowerCase();
+		return contentType.startsWith("text/") || contentType.contains("json")
+				|| contentType.contains("javascript") || contentType.contains("xml")
+				|| contentType.contains("svg");
+	}
+	
+	private static String guessContentType(File file) {
+		String name = file.getName().toLowerCase();
+		if (name.endsWith(".html") || name.endsWith(".htm")) {
+			return "text/html; charset=utf-8";
+		} else if (name.endsWith(".css")) {
+			return "text/css; charset=utf-8";
+		} else if (name.endsWith(".js")) {
+			return "application/javascript; charset=utf-8";
+		} else if (name.endsWith(".json")) {
+			return "application/json; charset=utf-8";
+		} else if (name.endsWith(".svg")) {
+			return "image/svg+xml";
+		}
+		String type = URLConnection.guessContentTypeFromName(name);
+		return type != null ? type : "application/octet-stream";
+	}
+	
+	private static byte[] gzip(byte[] bytes) {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 3 + 64);
+			GZIPOutputStream gzip = new GZIPOutputStream(out);
+			gzip.write(bytes);
+			gzip.close();
+			return out.toByteArray();
+		} catch (IOException ioe) {
+			throw new IllegalStateException(ioe);   // cannot happen with in-memory streams
+		}
+	}
+	
+	private static String formatHttpDate(long time) {
+		return createHttpDateFormat().format(new Date(time));
+	}
+	
+	private static SimpleDateFormat createHttpDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+	
+	/**
+	 * Class: CachedFile
+	 * -----------------
+	 * The contents of a file as of the given size and modification time.
+	 */
+	private static class CachedFile {
+		private final long length;
+		private final long lastModified;
+		private final byte[] data;
+		private byte[] gzipped;
+		
+		public CachedFile(long length, long lastModified, byte[] data) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.data = data;
+		}
+		
+		public synchronized byte[] getGzipped() {
+			if (gzipped == null) {
+				gzipped = gzip(data);
+			}
+			return gzipped;
+		}
+	}
+	
+	/**
+	 * Class: FileCache
+	 * ----------------
+	 * An LRU cache of file contents, limited by total size.
+	 */
+	private static class FileCache {
+		private final LinkedHashMap<Path, CachedFile> files = new LinkedHashMap<Path, CachedFile>(16, 0.75f, true);
+		private long totalBytes = 0;
+		
+		/*
+		 * Returns the contents of the file, reading it if it is not cached or has
+		 * changed since it was cached.
+		 */
+		public CachedFile get(Path path, long length, long lastModified) throws IOException {
+			synchronized (this) {
+				CachedFile cached = files.get(path);
+				if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+					return cached;
+				}
+			}
+			CachedFile cached = new CachedFile(length, lastModified, Files.readAllBytes(path));
+			if (cached.data.length != length) {
+				// changed while being read; serve what was read, but don't keep it
+				return cached;
+			}
+			synchronized (this) {
+				CachedFile old = files.put(path, cached);
+				if (old != null) {
+					totalBytes -= old.data.length;
+				}
+				totalBytes += cached.data.length;
+				Iterator<CachedFile> it = files.values().iterator();
+				while (totalBytes > MAX_CACHE_BYTES && it.hasNext()) {
+					CachedFile eldest = it.next();
+					if (eldest != cached) {
+						totalBytes -= eldest.data.length;
+						it.remove();
+					}
+				}
+			}
+			return cached;
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * @version 2016/12/12
+ * - initial version
+ */
+
+package stanford.cs106.server;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Class: TemplateCache
+ * --------------------
+ * Implements SimpleServer.renderTemplate.  Each template file is read and
+ * split into literal text, {{key}} placeholders and %include[path] directives
+ * only once; the compiled form is kept in an LRU cache keyed on the file's path
+ * and is re-read only when the file's modification time or size changes.
+ * Files are checked for changes at most once per CHECK_INTERVAL_MS.
+ */
+public class TemplateCache {
+	/** Largest number of compiled templates kept in memory. */
+	public static final int MAX_TEMPLATES = 256;
+	
+	/** Minimum number of milliseconds between checks of a template file for changes. */
+	public static final long CHECK_INTERVAL_MS = 1000;
+	
+	private static final Pattern INCLUDE_PATTERN = Pattern.compile("\\%include\\[(.*)]");
+	private static final Pattern KEY_PATTERN = Pattern.compile("\\{\\{(.*?)\\}\\}");
+	
+	private static final Map<String, Template> CACHE = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+			return size() > MAX_TEMPLATES;
+		}
+	};
+	
+	private TemplateCache() {
+		// not instantiable
+	}
+	
+	/**
+	 * Renders the template at the given path, replacing each {{key}} with its
+	 * value in args (placeholders whose key is not in args are left alone) and
+	 * each %include[path] with the rendered contents of that template.
+	 *
+	 * @throws RuntimeException wrapping a FileNotFoundException if a template does not exist
+	 */
+	public static String render(String templatePath, Map<String, String> args) {
+		StringBuilder out = new StringBuilder();
+		getTemplate(templatePath).render(args, out);
+		return out.toString();
+	}
+	
+	/**
+	 * Discards all compiled templates.
+	 */
+	public static void clear() {
+		synchronized (CACHE) {
+			CACHE.clear();
+		}
+	}
+	
+	//=--------------- Private -------------=//
+	
+	/*
+	 * Returns the compiled template for the given path, compiling it if it is
+	 * not cached or the file has changed.
+	 */
+	private static Template getTemplate(String templatePath) {
+		long now = System.currentTimeMillis();
+		Template template;
+		synchronized (CACHE) {
+			template = CACHE.get(templatePath);
+		}
+		if (template != null && now - template.checkedTime < CHECK_INTERVAL_MS) {
+			return template;
+		}
+		File file = new File(templatePath);
+		long lastModified = file.lastModified();
+		long length = file.length();
+		if (template != null && template.lastModified == lastModified && template.length == length) {
+			template.checkedTime = now;
+			return template;
+		}
+		template = compile(file, readFile(file));
+		template.lastModified = lastModified;
+		template.length = length;
+		template.checkedTime = now;
+		synchronized (CACHE) {
+			CACHE.put(templatePath, template);
+		}
+		return template;
+	}
+	
+	private static String readFile(File file) {
+		try {
+			Scanner htmlScanner = new Scanner(file);
+			String html = htmlScanner.hasNext() ? htmlScanner.useDelimiter("\\Z").next() : "";
+			htmlScanner.close();
+			return html;
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/*
+	 * Splits template text into parts.  Include paths may themselves contain
+	 * {{key}} placeholders, which are filled in before the include is loaded.
+	 */
+	private static Template compile(File file, String text) {
+		Template template = new Template();
+		Matcher include = INCLUDE_PATTERN.matcher(text);
+		int start = 0;
+		while (include.find()) {
+			addTextParts(template, text.substring(start, include.start()));
+			template.parts.add(new Part(Part.INCLUDE, include.group(1)));
+			start = include.end();
+		}
+		addTextParts(template, text.substring(start));
+		return template;
+	}
+	
+	private static void addTextParts(Template template, String text) {
+		Matcher key = KEY_PATTERN.matcher(text);
+		int start = 0;
+		while (key.find()) {
+			if (key.start() > start) {
+				template.parts.add(new Part(Part.TEXT, text.substring(start, key.start())));
+			}
+			template.parts.add(new Part(Part.KEY, key.group(1)));
+			start = key.end();
+		}
+		if (start < text.length()) {
+			template.parts.add(new Part(Part.TEXT, text.substring(start)));
+		}
+	}
+	
+	/*
+	 * Fills in the {{key}} placeholders in s.
+	 */
+	private static String substitute(String s, Map<String, String> args) {
+		if (args == null || s.indexOf("{{") < 0) {
+			return s;
+		}
+		StringBuilder out = new StringBuilder();
+		Matcher key = KEY_PATTERN.matcher(s);
+		int start = 0;
+		while (key.find()) {
+			out.append(s, start, key.start());
+			String value = args.get(key.group(1));
+			out.append(value != null ? value : key.group());
+			start = key.end();
+		}
+		out.append(s, start, s.length());
+		return out.toString();
+	}
+	
+	/**
+	 * Class: Template
+	 * ---------------
+	 * A compiled template and the file state it was compiled from.
+	 */
+	private static class Template {
+		private final List<Part> parts = new ArrayList<Part>();
+		private long lastModified;
+		private long length;
+		private volatile long checkedTime;
+		
+		public void render(Map<String, String> args, StringBuilder out) {
+			for (Part part : parts) {
+				if (part.type == Part.TEXT) {
+					out.append(part.text);
+				} else if (part.type == Part.KEY) {
+					String value = (args == null) ? null : args.get(part.text);
+					if (value != null) {
+						out.append(value);
+					} else {
+						out.append("{{").append(part.text).append("}}");
+					}
+				} else {
+					getTemplate(substitute(part.text, args)).render(args, out);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Class: Part
+	 * -----------
+	 * One piece of a compiled template: literal text, a placeholder key, or an include path.
+	 */
+	private static class Part {
+		private static final int TEXT = 0;
+		private static final int KEY = 1;
+		private static final int INCLUDE = 2;
+		
+		private final int type;
+		private final String text;
+		
+		public Part(int type, String text) {
+			this.type = type;
+			this.text = text;
+		}
+	}
+}
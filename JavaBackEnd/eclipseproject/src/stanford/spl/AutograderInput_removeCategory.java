@@ -3,6 +3,11 @@ package stanford.spl;
 import acm.util.TokenScanner;
 
 public class AutograderInput_removeCategory extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String name = SplPipeDecoder.readAndDecode(paramTokenScanner);
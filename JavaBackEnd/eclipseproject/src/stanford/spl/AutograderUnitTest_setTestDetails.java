@@ -13,6 +13,11 @@ import acm.util.TokenScanner;
 //        valueType=string,
 //        passed=false}")
 public class AutograderUnitTest_setTestDetails extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String testName = SplPipeDecoder.readAndDecode(paramTokenScanner);
@@ -10,6 +10,11 @@ import acm.util.TokenScanner;
 import stanford.cs106.gui.ClipboardUtils;
 
 public class Clipboard_set extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String text = SplPipeDecoder.readAndDecode(paramTokenScanner);
@@ -1,6 +1,8 @@
 /*
  * Given three image file names, diffs the first two and writes the diff pixel output
- * into the third. 
+ * into the third.
+ * @version 2016/12/22
+ * - compare with PixelDiff instead of creating a DiffImage panel, so no Swing is needed
  * @version 2016/07/30
  * - initial version
  */
@@ -8,9 +10,11 @@
 package stanford.spl;
 
 import acm.util.*;
-import java.io.IOException;
-import stanford.cs106.diff.DiffImage;
-import stanford.cs106.io.IORuntimeException;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import javax.imageio.ImageIO;
+import stanford.cs106.diff.PixelDiff;
 
 public class DiffImage_compareImages extends JBESwingCommand {
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
@@ -21,14 +25,26 @@ public class DiffImage_compareImages extends JBESwingCommand {
 		paramTokenScanner.verifyToken(",");
 		String outfile = nextString(paramTokenScanner);
 		paramTokenScanner.verifyToken(")");
-		
+
 		try {
-			DiffImage diff = new DiffImage(filename1, filename2, /* display */ false);
-			diff.save(outfile);
+			BufferedImage image1 = toBufferedImage(MediaTools.loadImage(filename1));
+			BufferedImage image2 = toBufferedImage(MediaTools.loadImage(filename2));
+			BufferedImage overlay = PixelDiff.overlay(image1, image2, /* opacity */ 50);
+			String extension = outfile.substring(outfile.lastIndexOf(".") + 1);
+			ImageIO.write(overlay, extension, new File(outfile));
 		} catch (IOException ioe) {
 			SplPipeDecoder.writeResult("error:" + ioe.getMessage());
-		} catch (IORuntimeException ioe) {
-			SplPipeDecoder.writeResult("error:" + ioe.getMessage());
+		} catch (ErrorException ee) {
+			SplPipeDecoder.writeResult("error:" + ee.getMessage());
 		}
 	}
+
+	// converts to an opaque image, as DiffImage does
+	private static BufferedImage toBufferedImage(Image image) {
+		BufferedImage bimage = new BufferedImage(image.getWidth(null), image.getHeight(null), BufferedImage.TYPE_INT_RGB);
+		Graphics g = bimage.getGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return bimage;
+	}
 }
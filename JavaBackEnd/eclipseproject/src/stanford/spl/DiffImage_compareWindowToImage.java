@@ -1,6 +1,8 @@
 /*
  * Given a graphical window and an image file name, pops up a DiffImage window to compare the
  * window (actual output) to the image (expected output) for differences.
+ * @version 2016/12/22
+ * - copy padding pixels a rectangle at a time rather than one getRGB/setRGB per pixel
  * @version 2016/10/16
  * - added ignoreWindowSize option
  * @version 2016/07/30
@@ -63,31 +65,11 @@ public class DiffImage_compareWindowToImage extends JBESwingCommand {
 					if (w1 < wmax || h1 < hmax) {
 						windowImage = window.getCanvas().toImage(wmax, hmax);
 						
-						for (int x = 0; x < wmax; x++) {
-							for (int y = 0; y < hmax; y++) {
-								if ((x >= w1 || y >= h1) && (x < w2 && y < h2)) {
-									int rgb = bfileImage.getRGB(x, y);
-									if (opaque && (rgb & 0xff000000) == 0) {
-										rgb = backgroundColor;
-									}
-									windowImage.setRGB(x, y, rgb);
-								}
-							}
-						}
+						copyOutside(bfileImage, w2, h2, windowImage, w1, h1, opaque, backgroundColor);
 					}
 
 					if (w2 < wmax || h2 < hmax) {
-						for (int x = 0; x < wmax; x++) {
-							for (int y = 0; y < hmax; y++) {
-								if ((x >= w2 || y >= h2) && (x < w1 && y < h1)) {
-									int rgb = windowImage.getRGB(x, y);
-									if (opaque && (rgb & 0xff000000) == 0) {
-										rgb = backgroundColor;
-									}
-									bfileImage.setRGB(x, y, rgb);
-								}
-							}
-						}
+						copyOutside(windowImage, w1, h1, bfileImage, w2, h2, opaque, backgroundColor);
 						fileImage = bfileImage;
 					}
 				}
@@ -105,4 +87,35 @@ public class DiffImage_compareWindowToImage extends JBESwingCommand {
 		}
 		
 	}
+
+	/*
+	 * Copies the pixels of 'from' that lie within its fromW x fromH area but
+	 * outside the toW x toH area into 'to', replacing transparent pixels with
+	 * the background color if the canvas is opaque.
+	 */
+	private static void copyOutside(BufferedImage from, int fromW, int fromH,
+			BufferedImage to, int toW, int toH, boolean opaque, int backgroundColor) {
+		if (fromW > toW) {
+			copyRect(from, to, toW, 0, fromW - toW, fromH, opaque, backgroundColor);
+		}
+		if (fromH > toH) {
+			copyRect(from, to, 0, toH, Math.min(fromW, toW), fromH - toH, opaque, backgroundColor);
+		}
+	}
+
+	private static void copyRect(BufferedImage from, BufferedImage to, int x, int y, int w, int h,
+			boolean opaque, int backgroundColor) {
+		if (w <= 0 || h <= 0) {
+			return;
+		}
+		int[] pixels = from.getRGB(x, y, w, h, null, 0, w);
+		if (opaque) {
+			for (int i = 0; i < pixels.length; i++) {
+				if ((pixels[i] & 0xff000000) == 0) {
+					pixels[i] = backgroundColor;
+				}
+			}
+		}
+		to.setRGB(x, y, w, h, pixels, 0, w);
+	}
 }
@@ -0,0 +1,29 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.G3DRect;
+import acm.util.TokenScanner;
+
+public class G3DRect_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double width = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double height = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		boolean raised = paramTokenScanner.nextToken().equals("true");
+		paramTokenScanner.verifyToken(")");
+		paramJavaBackEnd.defineGObject(id, new G3DRect(0, 0, width, height, raised));
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.G3DRect;
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class G3DRect_setRaised extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		boolean raised = nextBoolean(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null) {
+			((G3DRect) gobj).setRaised(raised);
+		}
+	}
+}
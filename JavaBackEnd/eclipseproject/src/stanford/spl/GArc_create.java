@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.GArc;
+import acm.util.TokenScanner;
+
+public class GArc_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double width = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double height = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double start = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double sweep = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		paramJavaBackEnd.defineGObject(id, new GArc(width, height, start, sweep));
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.GArc;
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GArc_setStartAngle extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double angle = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null) {
+			((GArc) gobj).setStartAngle(angle);
+		}
+	}
+}
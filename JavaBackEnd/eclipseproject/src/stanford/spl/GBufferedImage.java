@@ -3,16 +3,27 @@ package stanford.spl;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
 import javax.imageio.*;
 import javax.swing.*;
 
 import acm.graphics.GObject;
+import stanford.cs106.collections.IntGrid;
 import stanford.cs106.io.IORuntimeException;
 
 /**
  * 
  * @author Marty Stepp
+ * @version 2016/12/18
+ * - added IntGrid conversion: toIntGrid/fromIntGrid and a constructor that
+ *   share the grid's int array with the image's pixels rather than copying
+ * @version 2016/12/06
+ * - added setPixels from an IntBuffer (used for shared-memory framebuffers)
+ * @version 2016/12/05
+ * - added raw ARGB pixel transfer (setPixels/getPixels, setPixelsRaw/getPixelsRaw)
  * @version 2015/10/08
  * - bug fixes in to/fromGrid support
  * @version 2015/08/12
@@ -49,6 +60,21 @@ public class GBufferedImage extends GInteractor {
 		repaintImage();
 	}
 	
+	/**
+	 * Constructs an image whose pixels are the given grid's int array itself,
+	 * one RGB value per cell, so changes to the grid show up in the image
+	 * (after a call to pixelsChanged) with no copying.
+	 */
+	public GBufferedImage(IntGrid grid) {
+		super(new JLabel("HOORAY"));
+		this.imageWidth = grid.numCols();
+		this.imageHeight = grid.numRows();
+		this.backgroundColor = 0;
+		bufferedImage = createImage(grid.getData(), imageWidth, imageHeight);
+		label = (JLabel) this.getInteractor();
+		repaintImage();
+	}
+	
 	public void clear() {
 		fill(backgroundColor);
 	}
@@ -71,6 +97,22 @@ public class GBufferedImage extends GInteractor {
 		repaintImage();
 	}
 	
+	/**
+	 * Sets this image's pixels to the values of the given grid, resizing the
+	 * image to match it if needed.  If the grid came from this image's
+	 * toIntGrid, its values are already the pixels and nothing is copied.
+	 */
+	public void fromIntGrid(IntGrid grid) {
+		if (grid.getData() != getIntData(bufferedImage)) {
+			if (grid.numCols() != imageWidth || grid.numRows() != imageHeight) {
+				resize(grid.numCols(), grid.numRows(), /* retain */ false);
+			}
+			setPixels(bufferedImage, 0, 0, imageWidth, imageHeight, grid.getData(), 0);
+			bufferedImage.flush();
+		}
+		repaintImage();
+	}
+	
 	public BufferedImage getBufferedImage() {
 		return bufferedImage;
 	}
@@ -94,6 +136,19 @@ public class GBufferedImage extends GInteractor {
 		repaintImage();
 	}
 	
+	/**
+	 * Tells the image that its pixels were changed directly, such as through
+	 * a grid from toIntGrid, so that it is redrawn.
+	 */
+	public void pixelsChanged() {
+		bufferedImage.flush();
+		repaintImage();
+	}
+	
+	/**
+	 * Changes the image's size.  Any grid previously returned by toIntGrid
+	 * no longer shares the image's pixels.
+	 */
 	public void resize(int w, int h, boolean retain) {
 		if (retain && w == imageWidth && h == imageHeight) {
 			// no-op
@@ -126,6 +181,21 @@ public class GBufferedImage extends GInteractor {
 		repaintImage();
 	}
 	
+	/**
+	 * Returns a grid of this image's RGB pixel values.  When the image stores
+	 * one int per pixel, as images made by this class do, the grid shares the
+	 * image's pixel array: nothing is copied, and changes made through the
+	 * grid appear in the image after a call to pixelsChanged.  Otherwise
+	 * (such as for some images loaded from files) the grid is a copy.
+	 */
+	public IntGrid toIntGrid() {
+		int[] data = getIntData(bufferedImage);
+		if (data == null) {
+			data = bufferedImage.getRGB(0, 0, imageWidth, imageHeight, null, 0, imageWidth);
+		}
+		return new IntGrid(imageHeight, imageWidth, data);
+	}
+	
 	public String toStringBase64() {
 		return toStringBase64(bufferedImage, imageWidth, imageHeight);
 	}
@@ -230,6 +300,175 @@ public class GBufferedImage extends GInteractor {
 		bufferedImage.flush();
 	}
 	
+	/**
+	 * Copies the given w x h rectangle of 4-byte big-endian ARGB pixels into
+	 * this image at (x, y).  See setPixelsRaw(BufferedImage, ...).
+	 */
+	public void setPixelsRaw(int x, int y, int w, int h, ByteBuffer argbBytes) {
+		setPixelsRaw(bufferedImage, x, y, w, h, argbBytes);
+		bufferedImage.flush();
+		repaintImage();
+	}
+	
+	/**
+	 * Returns the given rectangle of this image as 4-byte big-endian ARGB pixels.
+	 */
+	public byte[] getPixelsRaw(int x, int y, int w, int h) {
+		return getPixelsRaw(bufferedImage, x, y, w, h);
+	}
+	
+	/**
+	 * Copies a w x h rectangle of ARGB pixels, stored row-major in the given array
+	 * starting at the given offset, into the image at (x, y).  If the image is
+	 * backed by an int array, the pixels are written directly into that array.
+	 * Any part of the rectangle that lies outside the image is ignored.
+	 */
+	public static void setPixels(BufferedImage image, int x, int y, int w, int h, int[] argb, int offset) {
+		int x1 = Math.max(x, 0);
+		int y1 = Math.max(y, 0);
+		int x2 = Math.min(x + w, image.getWidth());
+		int y2 = Math.min(y + h, image.getHeight());
+		if (x1 >= x2 || y1 >= y2) {
+			return;
+		}
+		int[] data = getIntData(image);
+		int rowLength = x2 - x1;
+		for (int row = y1; row < y2; row++) {
+			int src = offset + (row - y) * w + (x1 - x);
+			if (data != null) {
+				System.arraycopy(argb, src, data, row * image.getWidth() + x1, rowLength);
+			} else {
+				image.setRGB(x1, row, rowLength, 1, argb, src, w);
+			}
+		}
+	}
+	
+	/**
+	 * Copies a w x h rectangle of 4-byte big-endian ARGB pixels from the given
+	 * buffer (starting at its current position) into the image at (x, y).
+	 * Any part of the rectangle that lies outside the image is ignored.
+	 */
+	public static void setPixelsRaw(BufferedImage image, int x, int y, int w, int h, ByteBuffer argbBytes) {
+		int size = getRawSize(w, h);
+		if (argbBytes.remaining() < size) {
+			throw new IllegalArgumentException("expected " + size + " bytes of pixel data but got " + argbBytes.remaining());
+		}
+		setPixels(image, x, y, w, h, argbBytes.order(ByteOrder.BIG_ENDIAN).asIntBuffer());
+	}
+	
+	/**
+	 * Copies a w x h rectangle of ARGB pixels, stored row-major in the given buffer
+	 * starting at its current position, into the image at (x, y).  The buffer's
+	 * position is not changed.  If the image is backed by an int array, each row
+	 * is bulk-copied straight into that array without any intermediate copies.
+	 * Any part of the rectangle that lies outside the image is ignored.
+	 */
+	public static void setPixels(BufferedImage image, int x, int y, int w, int h, IntBuffer argb) {
+		int x1 = Math.max(x, 0);
+		int y1 = Math.max(y, 0);
+		int x2 = Math.min(x + w, image.getWidth());
+		int y2 = Math.min(y + h, image.getHeight());
+		if (x1 >= x2 || y1 >= y2) {
+			return;
+		}
+		IntBuffer src = argb.duplicate();
+		int start = src.position();
+		int[] data = getIntData(image);
+		int rowLength = x2 - x1;
+		int[] rowPixels = data == null ? new int[rowLength] : null;
+		for (int row = y1; row < y2; row++) {
+			src.position(start + (row - y) * w + (x1 - x));
+			if (data != null) {
+				src.get(data, row * image.getWidth() + x1, rowLength);
+			} else {
+				src.get(rowPixels, 0, rowLength);
+				image.setRGB(x1, row, rowLength, 1, rowPixels, 0, rowLength);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a w x h rectangle of the image as 4-byte big-endian ARGB pixels.
+	 * Pixels outside the image are returned as 0.
+	 */
+	public static byte[] getPixelsRaw(BufferedImage image, int x, int y, int w, int h) {
+		ByteBuffer out = ByteBuffer.allocate(getRawSize(w, h));
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		int[] data = getIntData(image);
+		int[] rowPixels = data == null ? new int[w] : null;
+		boolean hasAlpha = image.getColorModel().hasAlpha();
+		for (int row = y; row < y + h; row++) {
+			if (row < 0 || row >= imageHeight) {
+				out.position(out.position() + w * 4);
+				continue;
+			}
+			if (data == null) {
+				int x1 = Math.max(x, 0);
+				int x2 = Math.min(x + w, imageWidth);
+				if (x1 < x2) {
+					image.getRGB(x1, row, x2 - x1, 1, rowPixels, x1 - x, w);
+				}
+			}
+			for (int col = x; col < x + w; col++) {
+				int px = 0;
+				if (col >= 0 && col < imageWidth) {
+					px = data != null ? data[row * imageWidth + col] : rowPixels[col - x];
+					if (data != null && !hasAlpha) {
+						px |= 0xff000000;
+					}
+				}
+				out.putInt(px);
+			}
+		}
+		return out.array();
+	}
+	
+	/**
+	 * Returns the number of bytes in a w x h rectangle of 4-byte ARGB pixels.
+	 * Throws an IllegalArgumentException if either dimension is negative or
+	 * the rectangle is too big to hold in one array.
+	 */
+	public static int getRawSize(int w, int h) {
+		long size = (long) w * h * 4;
+		if (w < 0 || h < 0 || size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("invalid pixel rectangle size: " + w + "x" + h);
+		}
+		return (int) size;
+	}
+	
+	/*
+	 * Returns a TYPE_INT_RGB image that stores its pixels in the given array.
+	 */
+	private static BufferedImage createImage(int[] data, int width, int height) {
+		int[] masks = {0x00ff0000, 0x0000ff00, 0x000000ff};
+		DataBufferInt buffer = new DataBufferInt(data, width * height);
+		WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, masks, null);
+		ColorModel colorModel = new DirectColorModel(24, masks[0], masks[1], masks[2]);
+		return new BufferedImage(colorModel, raster, false, null);
+	}
+	
+	/*
+	 * Returns the int array backing the given image's pixels, or null if the image
+	 * does not store one int per pixel (e.g. an image loaded from a JPEG file).
+	 */
+	private static int[] getIntData(BufferedImage image) {
+		int type = image.getType();
+		if (type != BufferedImage.TYPE_INT_ARGB && type != BufferedImage.TYPE_INT_RGB) {
+			return null;
+		}
+		WritableRaster raster = image.getRaster();
+		DataBuffer buffer = raster.getDataBuffer();
+		if (!(buffer instanceof DataBufferInt) || buffer.getNumBanks() != 1 || buffer.getOffset() != 0
+				|| raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+				|| !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+				|| ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth()) {
+			// sub-images and other unusual layouts don't store pixels contiguously
+			return null;
+		}
+		return ((DataBufferInt) buffer).getData();
+	}
+	
 	// JL: SwingUtilities.invokeLater
 	private void repaintImage() {
 		Dimension oldSize = label.getPreferredSize();
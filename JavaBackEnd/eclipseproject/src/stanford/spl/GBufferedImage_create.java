@@ -8,6 +8,11 @@ import acm.util.*;
  * @version 2014/08/05
  */
 public class GBufferedImage_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	// gbufferedimage = new GBufferedImage(x, y, width, height);
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
@@ -9,6 +9,11 @@ import acm.util.*;
  * @version 2014/08/05
  */
 public class GBufferedImage_fillRegion extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	// gbufferedimage.setRGB(x, y, rgb);
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
@@ -1,38 +1,27 @@
 package stanford.spl;
 
-import java.io.*;
-import java.lang.reflect.*;
 import acm.graphics.*;
 import acm.util.*;
 
 /**
  * 
  * @author Marty Stepp
+ * @version 2016/12/05
+ * - reads pixels with JBECommand.nextBase64 rather than a private copy of it
  * @version 2015/08/11
  */
 public class GBufferedImage_updateAllPixels extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	// gbufferedimage.load("foobar.png");
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String id = nextString(paramTokenScanner);
 		paramTokenScanner.verifyToken(",");
-		// String base64 = nextString(paramTokenScanner);
-		String base64 = "";
-		try {
-			BufferedReader reader = new BufferedReader(getTokenScannerReader(paramTokenScanner));
-			// throw away ", \"" char
-			while (reader.read() != '"') {
-				// empty
-			}
-			base64 = reader.readLine();
-			
-			// trim off "" from start/end and ) from end
-			if (base64.endsWith("\")")) {
-				base64 = base64.substring(0, base64.length() - 2);
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		String base64 = nextBase64(paramTokenScanner);
 		
 		GObject gobj = paramJavaBackEnd.getGObject(id);
 		if (gobj != null && gobj instanceof GBufferedImage) {
@@ -44,15 +33,4 @@ public class GBufferedImage_updateAllPixels extends JBESwingCommand {
 			}
 		}
 	}
-	
-	private Reader getTokenScannerReader(TokenScanner scanner) {
-		try {
-			Field inputField = TokenScanner.class.getDeclaredField("input");
-			inputField.setAccessible(true);
-			return (Reader) inputField.get(scanner);
-		} catch (Exception e) {
-			System.err.println(e);
-			return null;
-		}
-	}
 }
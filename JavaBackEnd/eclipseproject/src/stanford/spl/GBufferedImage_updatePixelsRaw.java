@@ -0,0 +1,45 @@
+/*
+ * @version 2016/12/05
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.nio.ByteBuffer;
+
+import acm.graphics.*;
+import acm.util.*;
+
+/**
+ * Sets a rectangle of a GBufferedImage's pixels from raw 4-byte ARGB values;
+ * a faster alternative to GBufferedImage.updateAllPixels that can also send
+ * only a changed ("dirty") region.
+ */
+public class GBufferedImage_updatePixelsRaw extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	// GBufferedImage.updatePixelsRaw("id", x, y, width, height, "base64")
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int x = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int y = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int width = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int height = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		ByteBuffer pixels = nextBytes(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null && gobj instanceof GBufferedImage) {
+			((GBufferedImage) gobj).setPixelsRaw(x, y, width, height, pixels);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+public class GCheckBox_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String label = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GCheckBox checkBox = new GCheckBox(label, paramJavaBackEnd);
+		paramJavaBackEnd.defineGObject(id, checkBox);
+		paramJavaBackEnd.defineSource(checkBox.getInteractor(), id);
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import javax.swing.JCheckBox;
+
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GCheckBox_setSelected extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		boolean selected = nextBoolean(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null) {
+			JCheckBox checkBox = (JCheckBox) ((GCheckBox) gobj).getInteractor();
+			checkBox.setSelected(selected);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+public class GChooser_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GChooser chooser = new GChooser(paramJavaBackEnd);
+		paramJavaBackEnd.defineGObject(id, chooser);
+		paramJavaBackEnd.defineSource(chooser.getInteractor(), id);
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import javax.swing.JComboBox;
+
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GChooser_setSelectedItem extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String item = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null) {
+			JComboBox<?> comboBox = (JComboBox<?>) ((GChooser) gobj).getInteractor();
+			comboBox.setSelectedItem(item);
+		}
+	}
+}
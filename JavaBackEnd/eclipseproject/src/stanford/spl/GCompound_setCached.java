@@ -0,0 +1,29 @@
+/*
+ * @version 2016/12/10
+ * - initial version
+ */
+
+package stanford.spl;
+
+import acm.graphics.GCompound;
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GCompound_setCached extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		boolean cached = nextBoolean(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj instanceof GCompound) {
+			((GCompound) gobj).setCached(cached);
+		}
+	}
+}
@@ -4,6 +4,11 @@ import acm.graphics.GObject;
 import acm.util.TokenScanner;
 
 public class GInteractor_requestFocus extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
@@ -7,6 +7,11 @@ import acm.util.JTFTools;
 import acm.util.TokenScanner;
 
 public class GInteractor_setBackground extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
@@ -9,6 +9,11 @@ import acm.graphics.*;
 import acm.util.TokenScanner;
 
 public class GInteractor_setFont extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
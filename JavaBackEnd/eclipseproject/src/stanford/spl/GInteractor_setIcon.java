@@ -10,6 +10,11 @@ import acm.graphics.*;
 import acm.util.TokenScanner;
 
 public class GInteractor_setIcon extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
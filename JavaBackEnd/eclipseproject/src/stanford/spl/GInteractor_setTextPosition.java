@@ -8,6 +8,11 @@ import acm.graphics.*;
 import acm.util.TokenScanner;
 
 public class GInteractor_setTextPosition extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
@@ -0,0 +1,24 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+public class GLabel_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String label = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		paramJavaBackEnd.defineGObject(id, new JBELabel(label));
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.GLabel;
+import acm.util.TokenScanner;
+
+public class GLabel_setLabel extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String str = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GLabel label = (GLabel) paramJavaBackEnd.getGObject(id);
+		if (label != null) {
+			label.setLabel(str);
+		}
+	}
+}
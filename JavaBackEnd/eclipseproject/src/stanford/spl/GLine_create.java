@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.GLine;
+import acm.util.TokenScanner;
+
+public class GLine_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double x1 = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double y1 = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double x2 = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double y2 = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		paramJavaBackEnd.defineGObject(id, new GLine(x1, y1, x2, y2));
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.graphics.GLine;
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GLine_setEndPoint extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double x = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		double y = nextDouble(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GObject gobj = paramJavaBackEnd.getGObject(id);
+		if (gobj != null) {
+			((GLine) gobj).setEndPoint(x, y);
+		}
+	}
+}
@@ -10,6 +10,11 @@ import acm.graphics.GObject;
 import acm.util.TokenScanner;
 
 public class GObject_remove extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner,
 			JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
@@ -16,8 +16,27 @@ public class GOptionPane_showOptionDialog extends JBESwingCommand {
 			title = null;
 		}
 		paramTokenScanner.verifyToken(",");
-		paramTokenScanner.verifyToken("{");
+		List<String> options = readOptions(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String initiallySelected = SplPipeDecoder.readAndDecode(paramTokenScanner);
+		if (initiallySelected.isEmpty()) {
+			initiallySelected = null;   // tells JOptionPane not to select anything
+		}
+		paramTokenScanner.verifyToken(")");
 		
+		int result = showOptionDialog(paramJavaBackEnd, message, title, options, initiallySelected);
+		SplPipeDecoder.writeResult(result);
+	}
+	
+	/*
+	 * Reads the list of option strings: {"a", "b", ...} in the text protocol,
+	 * or a count followed by that many strings in the binary protocol.
+	 */
+	private List<String> readOptions(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readStringList();
+		}
+		paramTokenScanner.verifyToken("{");
 		List<String> options = new ArrayList<String>();
 		while (paramTokenScanner.hasMoreTokens()) {
 			String token = nextString(paramTokenScanner);
@@ -29,14 +48,16 @@ public class GOptionPane_showOptionDialog extends JBESwingCommand {
 				options.add(SplPipeDecoder.decode(token));
 			}
 		}
-		paramTokenScanner.verifyToken(",");
-		String initiallySelected = SplPipeDecoder.readAndDecode(paramTokenScanner);
-		if (initiallySelected.isEmpty()) {
-			initiallySelected = null;   // tells JOptionPane not to select anything
-		}
-		paramTokenScanner.verifyToken(")");
-		
-		int result = JOptionPane.showOptionDialog(
+		return options;
+	}
+	
+	/*
+	 * Shows the dialog and returns the index of the option chosen, or -1 if
+	 * it was closed without choosing one.
+	 */
+	protected int showOptionDialog(JavaBackEnd paramJavaBackEnd, String message, String title,
+			List<String> options, String initiallySelected) {
+		return JOptionPane.showOptionDialog(
 				/* parent */ paramJavaBackEnd.getJBEConsoleFrame(),
 				message,
 				title,
@@ -45,7 +66,5 @@ public class GOptionPane_showOptionDialog extends JBESwingCommand {
 				/* icon */ null,
 				/* Object[] options */ options.toArray(),
 				initiallySelected);
-		
-		SplPipeDecoder.writeResult(result);
 	}
 }
@@ -9,6 +9,11 @@ package stanford.spl;
 import acm.util.*;
 
 public class GRadioButton_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	// grb = new GRadioButton(label, group);
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
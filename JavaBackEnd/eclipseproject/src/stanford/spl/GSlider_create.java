@@ -0,0 +1,30 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+public class GSlider_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int min = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int max = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int value = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		GSlider slider = new GSlider(min, max, value, paramJavaBackEnd);
+		paramJavaBackEnd.defineGObject(id, slider);
+		paramJavaBackEnd.defineSource(slider.getInteractor(), id);
+	}
+}
@@ -1,5 +1,8 @@
 /*
  * @author Marty Stepp
+ * @version 2016/12/28
+ * - sparse, chunked cell model and sparse formatting maps, for very large tables
+ * - resize, clear, and autofitColumnWidths no longer visit every cell
  * @version 2016/11/29
  * - changed arrow key behavior when editing a cell (won't exit)
  * @version 2016/11/26
@@ -94,9 +97,12 @@ public class GTable extends GInteractor {
 	private int previouslySelectedColumn = -1;
 	private Font tableFont;
 	private int horizontalAlignment = SwingConstants.LEFT;
-	private CellFormattingInfo[][] cellFormats;
-	private CellFormattingInfo[] rowFormats;
-	private CellFormattingInfo[] colFormats;
+	
+	// formatting set on particular cells (keyed by cellKey), rows, and columns;
+	// only those that have been formatted are stored
+	private Map<Long, CellFormattingInfo> cellFormats = new HashMap<Long, CellFormattingInfo>();
+	private Map<Integer, CellFormattingInfo> rowFormats = new HashMap<Integer, CellFormattingInfo>();
+	private Map<Integer, CellFormattingInfo> colFormats = new HashMap<Integer, CellFormattingInfo>();
 	
 	// default formatting properties on a table cell
 	private CellFormattingInfo DEFAULT_CELL_FORMAT;
@@ -110,7 +116,7 @@ public class GTable extends GInteractor {
 	}
 	
 	public GTable(int numRows, int numCols) {
-		super(new JScrollPane(new JTable(numRows, numCols)));
+		super(new JScrollPane(new JTable()));
 		JScrollPane scrollPane = (JScrollPane) super.getInteractor();
 		table = GuiUtils.getDescendent(scrollPane, JTable.class);
 		
@@ -138,10 +144,6 @@ public class GTable extends GInteractor {
 		table.setDefaultRenderer(String.class, tableCellRenderer);
 		tableFont = table.getFont();
 		
-		cellFormats = new CellFormattingInfo[numRows][numCols];
-		rowFormats = new CellFormattingInfo[numRows];
-		colFormats = new CellFormattingInfo[numCols];
-		
 		TableModelListener tmListener = new GTableModelListener();
 		model = (GTableModel) table.getModel();
 		model.addTableModelListener(tmListener);
@@ -189,36 +191,40 @@ public class GTable extends GInteractor {
 	
 	public synchronized void autofitColumnWidths() {
 		table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
-		int numRows = table.getRowCount();
 		int numCols = table.getColumnCount();
+		int[] preferredWidths = new int[numCols];
+		int[] maxWidths = new int[numCols];
 		for (int col = 0; col < numCols; col++) {
 			TableColumn tableColumn = table.getColumnModel().getColumn(col);
-			int preferredWidth = Math.max(COLUMN_WIDTH_MIN, tableColumn.getMinWidth());
-			int maxWidth = Math.min(COLUMN_WIDTH_MAX, tableColumn.getMaxWidth());
-			for (int row = 0; row < numRows; row++) {
+			preferredWidths[col] = Math.max(COLUMN_WIDTH_MIN, tableColumn.getMinWidth());
+			maxWidths[col] = Math.min(COLUMN_WIDTH_MAX, tableColumn.getMaxWidth());
+		}
+		
+		// an empty cell is never wider than the minimum, so only cells with text are measured
+		for (CellChunk chunk : model.chunks.values()) {
+			for (int i = 0; i < chunk.values.length; i++) {
+				int row = chunk.firstRow + i / CellChunk.COLS;
+				int col = chunk.firstCol + i % CellChunk.COLS;
+				if (chunk.values[i] == null || preferredWidths[col] >= maxWidths[col]) {
+					// empty, or we've already reached the maximum width for this column
+					continue;
+				}
 				TableCellRenderer cellRenderer = table.getCellRenderer(row, col);
 				Component comp = table.prepareRenderer(cellRenderer, row, col);
 				int width = comp.getPreferredSize().width + COLUMN_WIDTH_PADDING + table.getIntercellSpacing().width;
-				preferredWidth = Math.max(preferredWidth, width);
-				if (preferredWidth >= maxWidth) {
-					// we've exceeded the maximum width, no need to check other rows
-					preferredWidth = maxWidth;
-					break;
-				}
+				preferredWidths[col] = Math.min(maxWidths[col], Math.max(preferredWidths[col], width));
 			}
-
-			tableColumn.setPreferredWidth(preferredWidth);
+		}
+		
+		for (int col = 0; col < numCols; col++) {
+			table.getColumnModel().getColumn(col).setPreferredWidth(preferredWidths[col]);
 		}
 		table.repaint();
 	}
 	
 	public synchronized void clear() {
 		eventsEnabled = false;
-		for (int row = 0; row < table.getRowCount(); row++) {
-			for (int col = 0; col < table.getColumnCount(); col++) {
-				table.setValueAt("", row, col);
-			}
-		}
+		model.clear();
 		previouslySelectedRow = -1;
 		previouslySelectedColumn = -1;
 		clearFormatting();
@@ -226,17 +232,9 @@ public class GTable extends GInteractor {
 	}
 	
 	public synchronized void clearFormatting() {
-		for (int row = 0; row < table.getRowCount(); row++) {
-			for (int col = 0; col < table.getColumnCount(); col++) {
-				cellFormats[row][col] = null;
-			}
-		}
-		for (int row = 0; row < table.getRowCount(); row++) {
-			rowFormats[row] = null;
-		}
-		for (int col = 0; col < table.getColumnCount(); col++) {
-			colFormats[col] = null;
-		}
+		cellFormats.clear();
+		rowFormats.clear();
+		colFormats.clear();
 		table.repaint();
 	}
 	
@@ -371,28 +369,20 @@ public class GTable extends GInteractor {
 		checkDimensions("resize", numRows, numCols);
 		eventsEnabled = false;
 		
-		// copy over cell formatting information
-		CellFormattingInfo[][] cellFormats2 = new CellFormattingInfo[numRows][numCols];
-		for (int row = 0, maxRow = Math.min(numRows, model.getRowCount()); row < maxRow; row++) {
-			for (int col = 0, maxCol = Math.min(numCols, model.getColumnCount()); col < maxCol; col++) {
-				cellFormats2[row][col] = cellFormats[row][col];
+		// drop formatting of cells, rows, and columns that are no longer in the table
+		if (numRows < model.getRowCount() || numCols < model.getColumnCount()) {
+			for (Iterator<Long> itr = cellFormats.keySet().iterator(); itr.hasNext(); ) {
+				long key = itr.next();
+				if (cellKeyRow(key) >= numRows || cellKeyColumn(key) >= numCols) {
+					itr.remove();
+				}
 			}
+			removeIndexesAtLeast(rowFormats, numRows);
+			removeIndexesAtLeast(colFormats, numCols);
 		}
-		CellFormattingInfo[] rowFormats2 = new CellFormattingInfo[numRows];
-		for (int row = 0, maxRow = Math.min(numRows, model.getRowCount()); row < maxRow; row++) {
-			rowFormats2[row] = rowFormats[row];
-		}
-		CellFormattingInfo[] colFormats2 = new CellFormattingInfo[numCols];
-		for (int col = 0, maxCol = Math.min(numCols, model.getColumnCount()); col < maxCol; col++) {
-			colFormats2[col] = colFormats[col];
-		}
-		cellFormats = cellFormats2;
-		rowFormats = rowFormats2;
-		colFormats = colFormats2;
 		
 		// resize actual table model
-		model.setRowCount(numRows);
-		model.setColumnCount(numCols);
+		model.resize(numRows, numCols);
 		eventsEnabled = true;
 		
 		previouslySelectedRow = -1;
@@ -445,10 +435,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, column)) {
 			return;
 		}
-		if (cellFormats[row][column] == null) {
-			cellFormats[row][column] = new CellFormattingInfo();
-		}
-		cellFormats[row][column].alignment = alignment;
+		getCellFormat(row, column).alignment = alignment;
 		table.repaint();
 	}
 	
@@ -456,10 +443,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, column)) {
 			return;
 		}
-		if (cellFormats[row][column] == null) {
-			cellFormats[row][column] = new CellFormattingInfo();
-		}
-		cellFormats[row][column].backgroundColor = color;
+		getCellFormat(row, column).backgroundColor = color;
 		table.repaint();
 	}
 	
@@ -467,10 +451,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, column)) {
 			return;
 		}
-		if (cellFormats[row][column] == null) {
-			cellFormats[row][column] = new CellFormattingInfo();
-		}
-		cellFormats[row][column].foregroundColor = color;
+		getCellFormat(row, column).foregroundColor = color;
 		table.repaint();
 	}
 	
@@ -478,10 +459,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, column)) {
 			return;
 		}
-		if (cellFormats[row][column] == null) {
-			cellFormats[row][column] = new CellFormattingInfo();
-		}
-		cellFormats[row][column].font = font;
+		getCellFormat(row, column).font = font;
 		table.repaint();
 	}
 	
@@ -498,10 +476,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(/* row */ 0, column)) {
 			return;
 		}
-		if (colFormats[column] == null) {
-			colFormats[column] = new CellFormattingInfo();
-		}
-		colFormats[column].alignment = alignment;
+		getColumnFormat(column).alignment = alignment;
 		table.repaint();
 	}
 	
@@ -509,10 +484,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(/* row */ 0, column)) {
 			return;
 		}
-		if (colFormats[column] == null) {
-			colFormats[column] = new CellFormattingInfo();
-		}
-		colFormats[column].backgroundColor = color;
+		getColumnFormat(column).backgroundColor = color;
 		table.repaint();
 	}
 	
@@ -524,10 +496,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(/* row */ 0, column)) {
 			return;
 		}
-		if (colFormats[column] == null) {
-			colFormats[column] = new CellFormattingInfo();
-		}
-		colFormats[column].font = font;
+		getColumnFormat(column).font = font;
 		table.repaint();
 	}
 	
@@ -535,10 +504,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(/* row */ 0, column)) {
 			return;
 		}
-		if (colFormats[column] == null) {
-			colFormats[column] = new CellFormattingInfo();
-		}
-		colFormats[column].foregroundColor = color;
+		getColumnFormat(column).foregroundColor = color;
 		table.repaint();
 	}
 	
@@ -552,27 +518,16 @@ public class GTable extends GInteractor {
 	}
 	
 	public synchronized void setColumnHeadersVisible(boolean visible) {
-		int numCols = numCols();
 		if (visible) {
 			if (columnHeaderStyle == COLUMN_HEADER_NONE) {
 				columnHeaderStyle = COLUMN_HEADER_NUMERIC;
 			}
-			
-			Object[] columnHeaders = new Object[numCols];
-			for (int i = 0; i < numCols; i++) {
-				columnHeaders[i] = columnHeaderStyle == COLUMN_HEADER_NUMERIC
-						? String.valueOf(i + 1) : toExcelStyleColumnName(i);
-			}
-			model.setColumnIdentifiers(columnHeaders);
+			model.setHeaderStyle(columnHeaderStyle);
 			
 			Font font = table.getTableHeader().getFont();
 			table.getTableHeader().setFont(font.deriveFont(Font.BOLD));
 		} else {
-			Object[] columnHeaders = new Object[numCols];
-			for (int i = 0; i < numCols; i++) {
-				columnHeaders[i] = "";
-			}
-			model.setColumnIdentifiers(columnHeaders);
+			model.setHeaderStyle(COLUMN_HEADER_NONE);
 		}
 	}
 	
@@ -661,9 +616,10 @@ public class GTable extends GInteractor {
 	
 	public synchronized void setHorizontalAlignment(int alignment) {
 		this.horizontalAlignment = alignment;
-		for (int row = 0; row < numRows(); row++) {
+		if (numRows() > 0) {
+			// renderers are per column, not per cell, so one row covers them all
 			for (int col = 0; col < numCols(); col++) {
-				DefaultTableCellRenderer renderer = (DefaultTableCellRenderer) table.getCellRenderer(row, col);
+				DefaultTableCellRenderer renderer = (DefaultTableCellRenderer) table.getCellRenderer(/* row */ 0, col);
 				renderer.setHorizontalAlignment(alignment);
 			}
 		}
@@ -684,10 +640,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, /* column */ 0)) {
 			return;
 		}
-		if (rowFormats[row] == null) {
-			rowFormats[row] = new CellFormattingInfo();
-		}
-		rowFormats[row].alignment = alignment;
+		getRowFormat(row).alignment = alignment;
 		table.repaint();
 	}
 	
@@ -695,10 +648,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, /* column */ 0)) {
 			return;
 		}
-		if (rowFormats[row] == null) {
-			rowFormats[row] = new CellFormattingInfo();
-		}
-		rowFormats[row].backgroundColor = color;
+		getRowFormat(row).backgroundColor = color;
 		table.repaint();
 	}
 	
@@ -716,10 +666,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, /* column */ 0)) {
 			return;
 		}
-		if (rowFormats[row] == null) {
-			rowFormats[row] = new CellFormattingInfo();
-		}
-		rowFormats[row].font = font;
+		getRowFormat(row).font = font;
 		table.repaint();
 	}
 	
@@ -727,10 +674,7 @@ public class GTable extends GInteractor {
 		if (!inBounds(row, /* column */ 0)) {
 			return;
 		}
-		if (rowFormats[row] == null) {
-			rowFormats[row] = new CellFormattingInfo();
-		}
-		rowFormats[row].foregroundColor = color;
+		getRowFormat(row).foregroundColor = color;
 		table.repaint();
 	}
 	
@@ -757,6 +701,19 @@ public class GTable extends GInteractor {
 		return result;
 	}
 	
+	// packs a row and column into one key for cellFormats
+	private static long cellKey(int row, int column) {
+		return ((long) row << 32) | column;
+	}
+	
+	private static int cellKeyColumn(long key) {
+		return (int) key;
+	}
+	
+	private static int cellKeyRow(long key) {
+		return (int) (key >>> 32);
+	}
+	
 	private void checkDimensions(String member, int numRows, int numCols) {
 		if (numRows < 0 || numCols < 0) {
 			throw new IllegalArgumentException("GTable." + member + ": dimensions " + numRows + "x" + numCols
@@ -771,6 +728,46 @@ public class GTable extends GInteractor {
 		}
 	}
 	
+	// returns the formatting set on the given cell, creating it if there is none
+	private CellFormattingInfo getCellFormat(int row, int column) {
+		long key = cellKey(row, column);
+		CellFormattingInfo format = cellFormats.get(key);
+		if (format == null) {
+			format = new CellFormattingInfo();
+			cellFormats.put(key, format);
+		}
+		return format;
+	}
+	
+	// returns the formatting set on the given column, creating it if there is none
+	private CellFormattingInfo getColumnFormat(int column) {
+		CellFormattingInfo format = colFormats.get(column);
+		if (format == null) {
+			format = new CellFormattingInfo();
+			colFormats.put(column, format);
+		}
+		return format;
+	}
+	
+	// returns the formatting set on the given row, creating it if there is none
+	private CellFormattingInfo getRowFormat(int row) {
+		CellFormattingInfo format = rowFormats.get(row);
+		if (format == null) {
+			format = new CellFormattingInfo();
+			rowFormats.put(row, format);
+		}
+		return format;
+	}
+	
+	// removes the formats for rows or columns at or past the given index
+	private static void removeIndexesAtLeast(Map<Integer, CellFormattingInfo> formats, int limit) {
+		for (Iterator<Integer> itr = formats.keySet().iterator(); itr.hasNext(); ) {
+			if (itr.next() >= limit) {
+				itr.remove();
+			}
+		}
+	}
+	
 	private void clipboardCopy() {
 		int row = table.getSelectedRow();
 		int col = table.getSelectedColumn();
@@ -1115,14 +1112,17 @@ public class GTable extends GInteractor {
 				DEFAULT_CELL_FORMAT.apply(this, comp);
 			}
 			
-			if (rowFormats[row] != null) {
-				rowFormats[row].apply(this, comp);
+			CellFormattingInfo rowFormat = rowFormats.get(row);
+			if (rowFormat != null) {
+				rowFormat.apply(this, comp);
 			}
-			if (colFormats[column] != null) {
-				colFormats[column].apply(this, comp);
+			CellFormattingInfo colFormat = colFormats.get(column);
+			if (colFormat != null) {
+				colFormat.apply(this, comp);
 			}
-			if (cellFormats[row][column] != null) {
-				cellFormats[row][column].apply(this, comp);
+			CellFormattingInfo cellFormat = cellFormats.get(cellKey(row, column));
+			if (cellFormat != null) {
+				cellFormat.apply(this, comp);
 			}
 			
 			// BUGFIX: make selected cell use selection background color (even if not in focus)
@@ -1180,17 +1180,166 @@ public class GTable extends GInteractor {
 	}
 	
 	/**
-	 * Small class to represent the data model of a JTable.
-	 * Basically only needed for setEditable / isEditable.
+	 * Holds the values of a block of CellChunk.ROWS x CellChunk.COLS cells,
+	 * stored row by row; a null value is an empty cell.
 	 */
-	private class GTableModel extends DefaultTableModel {
+	private static class CellChunk {
+		private static final int ROWS = 64;
+		private static final int COLS = 16;
+		
+		private final int firstRow;
+		private final int firstCol;
+		private final Object[] values = new Object[ROWS * COLS];
+		private int count;   // number of non-empty cells
+		
+		public CellChunk(int firstRow, int firstCol) {
+			this.firstRow = firstRow;
+			this.firstCol = firstCol;
+		}
+		
+		// empties any cells at or past the given row/column count
+		public void clearOutside(int numRows, int numCols) {
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null && (firstRow + i / COLS >= numRows || firstCol + i % COLS >= numCols)) {
+					values[i] = null;
+					count--;
+				}
+			}
+		}
+		
+		public Object get(int row, int col) {
+			return values[(row - firstRow) * COLS + col - firstCol];
+		}
+		
+		public void set(int row, int col, Object value) {
+			int index = (row - firstRow) * COLS + col - firstCol;
+			if (values[index] != null) {
+				count--;
+			}
+			if (value != null) {
+				count++;
+			}
+			values[index] = value;
+		}
+	}
+	
+	/**
+	 * The data model of the JTable.
+	 * Only the cells that have values are stored, in chunks of nearby cells,
+	 * so a large table that is mostly empty takes little memory; JTable asks
+	 * only for the cells it is painting.  Resizing the table takes time
+	 * proportional to the number of chunks stored, not the number of cells.
+	 */
+	private class GTableModel extends AbstractTableModel {
+		private final Map<Long, CellChunk> chunks = new HashMap<Long, CellChunk>();
+		private int numRows;
+		private int numCols;
+		private int headerStyle = -1;   // -1 for Swing's default "A", "B", "C", ...
+		
 		public GTableModel(int rows, int cols) {
-			super(rows, cols);
+			numRows = rows;
+			numCols = cols;
 		}
 		
+		// empties every cell
+		public void clear() {
+			chunks.clear();
+			fireTableDataChanged();
+		}
+		
+		public int getColumnCount() {
+			return numCols;
+		}
+		
+		@Override
+		public String getColumnName(int col) {
+			if (headerStyle == COLUMN_HEADER_NONE) {
+				return "";
+			} else if (headerStyle == COLUMN_HEADER_NUMERIC) {
+				return String.valueOf(col + 1);
+			} else if (headerStyle == COLUMN_HEADER_EXCEL) {
+				return toExcelStyleColumnName(col);
+			} else {
+				return super.getColumnName(col);
+			}
+		}
+		
+		public int getRowCount() {
+			return numRows;
+		}
+		
+		public Object getValueAt(int row, int col) {
+			CellChunk chunk = chunks.get(chunkKey(row, col));
+			return chunk == null ? null : chunk.get(row, col);
+		}
+		
+		@Override
 		public boolean isCellEditable(int row, int col) {
 			return editable;
 		}
+		
+		public void resize(int rows, int cols) {
+			if (rows < numRows || cols < numCols) {
+				for (Iterator<CellChunk> itr = chunks.values().iterator(); itr.hasNext(); ) {
+					CellChunk chunk = itr.next();
+					if (chunk.firstRow >= rows || chunk.firstCol >= cols) {
+						itr.remove();
+					} else if (chunk.firstRow + CellChunk.ROWS > rows || chunk.firstCol + CellChunk.COLS > cols) {
+						chunk.clearOutside(rows, cols);
+						if (chunk.count == 0) {
+							itr.remove();
+						}
+					}
+				}
+			}
+			
+			int oldRows = numRows;
+			int oldCols = numCols;
+			numRows = rows;
+			numCols = cols;
+			if (cols != oldCols) {
+				fireTableStructureChanged();
+			} else if (rows > oldRows) {
+				fireTableRowsInserted(oldRows, rows - 1);
+			} else if (rows < oldRows) {
+				fireTableRowsDeleted(rows, oldRows - 1);
+			}
+		}
+		
+		// sets the style of the column names, one of the COLUMN_HEADER_* constants
+		public void setHeaderStyle(int style) {
+			headerStyle = style;
+			TableColumnModel columnModel = table.getColumnModel();
+			for (int i = 0; i < columnModel.getColumnCount(); i++) {
+				TableColumn column = columnModel.getColumn(i);
+				column.setHeaderValue(getColumnName(column.getModelIndex()));
+			}
+			table.getTableHeader().repaint();
+		}
+		
+		@Override
+		public void setValueAt(Object value, int row, int col) {
+			if ("".equals(value)) {
+				value = null;   // empty cells are not stored
+			}
+			long key = chunkKey(row, col);
+			CellChunk chunk = chunks.get(key);
+			if (chunk == null && value != null) {
+				chunk = new CellChunk(row - row % CellChunk.ROWS, col - col % CellChunk.COLS);
+				chunks.put(key, chunk);
+			}
+			if (chunk != null) {
+				chunk.set(row, col, value);
+				if (chunk.count == 0) {
+					chunks.remove(key);
+				}
+			}
+			fireTableCellUpdated(row, col);
+		}
+		
+		private long chunkKey(int row, int col) {
+			return cellKey(row / CellChunk.ROWS, col / CellChunk.COLS);
+		}
 	}
 	
 	private class GTableModelListener implements TableModelListener {
@@ -1257,21 +1406,7 @@ public class GTable extends GInteractor {
 					RowHeadersTableModel m = (RowHeadersTableModel) rowHeadersTable.getModel();
 
 					if (userTable.getRowCount() != m.getRowCount()) {
-						if (userTable.getRowCount() > m.getRowCount()) {
-
-							int rowDiff = userTable.getRowCount() - m.getRowCount();
-
-							for (int i = 0; i < rowDiff; i++) {
-								m.addNumber();
-							}
-						} else if (userTable.getRowCount() < m.getRowCount()) {
-
-							int rowDiff = m.getRowCount() - userTable.getRowCount();
-
-							for (int i = 0; i < rowDiff; i++) {
-								m.removeNumber();
-							}
-						}
+						m.setRowCount(userTable.getRowCount());
 						m.fireTableDataChanged();
 					}
 				}
@@ -1362,7 +1497,7 @@ public class GTable extends GInteractor {
 		 * @author Oliver Watkins 
 		 */
 		private class RowHeadersTableModel extends AbstractTableModel {
-			private ArrayList<Integer> numbersList = new ArrayList<Integer>();
+			private int rowCount;
 			private int startNumber;
 			
 			/**
@@ -1373,28 +1508,17 @@ public class GTable extends GInteractor {
 			 */
 			public RowHeadersTableModel(int maxNumber, int startingNumber) {
 				// start at starting number and then go to row count (plus starting
-				// number amount)
+				// number amount); the numbers are computed, not stored
 				this.startNumber = startingNumber;
-				int j = 0;
-				for (int i = startingNumber; i < maxNumber + startNumber; i++) {
-					numbersList.add(new Integer(j + startNumber));
-					j++;
-				}
+				this.rowCount = maxNumber;
 			}
 
 			public int getRowCount() {
-				if (numbersList != null)
-					return numbersList.size();
-				else
-					return 0;
+				return rowCount;
 			}
 
 			public int getMaxIntValue() {
-				if (numbersList != null && numbersList.size() != 0) {
-					Integer integer = (Integer) getValueAt(numbersList.size() - 1, 0);
-					return integer.intValue();
-				} else
-					return 0;
+				return rowCount == 0 ? 0 : startNumber + rowCount - 1;
 			}
 
 			public int getColumnCount() {
@@ -1414,22 +1538,11 @@ public class GTable extends GInteractor {
 			}
 
 			public Object getValueAt(int rowIndex, int columnIndex) {
-				return numbersList.get(rowIndex);
-			}
-
-			public void addNumber() {
-				if (numbersList.size() != 0) {
-					Integer maxNum = (Integer) numbersList.get(numbersList.size() - 1);
-
-					numbersList.add(numbersList.size(), new Integer(maxNum.intValue() + 1));
-				} else {
-					numbersList.add(numbersList.size(), new Integer(startNumber));
-				}
-				this.fireTableDataChanged();
+				return startNumber + rowIndex;
 			}
 
-			public void removeNumber() {
-				numbersList.remove(numbersList.size() - 1);
+			public void setRowCount(int rowCount) {
+				this.rowCount = rowCount;
 			}
 
 			public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
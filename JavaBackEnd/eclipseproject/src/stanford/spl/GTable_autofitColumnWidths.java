@@ -10,6 +10,11 @@ import acm.graphics.GObject;
 import acm.util.TokenScanner;
 
 public class GTable_autofitColumnWidths extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
@@ -4,6 +4,11 @@ import java.awt.*;
 import acm.util.TokenScanner;
 
 public class GTable_create extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner scanner, JavaBackEnd jbe) {
 		scanner.verifyToken("(");
 		String id = nextString(scanner);
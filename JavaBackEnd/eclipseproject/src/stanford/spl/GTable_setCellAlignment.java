@@ -10,6 +10,11 @@ import acm.graphics.GObject;
 import acm.util.*;
 
 public class GTable_setCellAlignment extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner scanner, JavaBackEnd jbe) {
 		scanner.verifyToken("(");
 		String interactorID = nextString(scanner);
@@ -12,6 +12,11 @@ import acm.util.TokenScanner;
 import java.awt.Font;
 
 public class GTable_setCellFont extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner scanner, JavaBackEnd jbe) {
 		scanner.verifyToken("(");
 		String interactorID = nextString(scanner);
@@ -6,6 +6,11 @@ import acm.graphics.GObject;
 import acm.util.TokenScanner;
 
 public class GTable_setHorizontalAlignment extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
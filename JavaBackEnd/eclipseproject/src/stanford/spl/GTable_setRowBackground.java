@@ -11,6 +11,11 @@ import acm.util.*;
 import java.awt.*;
 
 public class GTable_setRowBackground extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner scanner, JavaBackEnd jbe) {
 		scanner.verifyToken("(");
 		String interactorID = nextString(scanner);
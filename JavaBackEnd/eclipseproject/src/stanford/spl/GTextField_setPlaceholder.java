@@ -6,6 +6,11 @@ import acm.gui.*;
 import acm.util.TokenScanner;
 
 public class GTextField_setPlaceholder extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String interactorID = nextString(paramTokenScanner);
@@ -0,0 +1,26 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import javax.swing.Timer;
+
+/**
+ * A Swing timer that remembers the id by which the C++ process refers to it.
+ */
+class GTimer extends Timer {
+	private static final long serialVersionUID = 1L;
+
+	private String id;
+
+	public GTimer(String id, double delay) {
+		super((int) Math.round(delay), null);
+		this.id = id;
+	}
+
+	public String getId() {
+		return id;
+	}
+}
@@ -7,6 +7,11 @@ package stanford.spl;
 import acm.util.TokenScanner;
 
 public class GWindow_clearCanvas extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str1 = nextString(paramTokenScanner);
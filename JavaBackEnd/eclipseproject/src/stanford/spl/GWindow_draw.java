@@ -0,0 +1,35 @@
+/*
+ * @version 2016/12/28
+ * - initial version, in place of the class compiled into acm.jar
+ */
+
+package stanford.spl;
+
+import java.awt.Graphics2D;
+
+import acm.graphics.GObject;
+import acm.util.TokenScanner;
+
+public class GWindow_draw extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String gobjId = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		JBEWindow window = paramJavaBackEnd.getWindow(id);
+		GObject gobj = paramJavaBackEnd.getGObject(gobjId);
+		if (window != null && gobj != null && gobj.isVisible()) {
+			JBECanvas canvas = window.getCanvas();
+			Graphics2D osg = canvas.getOSG();
+			osg.setColor(gobj.getColor());
+			gobj.paint(osg);
+			canvas.repaint();
+		}
+	}
+}
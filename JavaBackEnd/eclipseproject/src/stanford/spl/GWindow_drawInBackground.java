@@ -9,6 +9,11 @@ import java.awt.Graphics2D;
  * same as GWindow_draw but doesn't repaint for speed
  */
 public class GWindow_drawInBackground extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str = nextString(paramTokenScanner);
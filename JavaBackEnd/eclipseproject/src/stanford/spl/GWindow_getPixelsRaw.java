@@ -0,0 +1,46 @@
+/*
+ * @version 2016/12/05
+ * - initial version
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+/**
+ * Returns a rectangle of a window's pixels as raw 4-byte ARGB values.
+ * In the binary protocol the result is sent as raw bytes (see
+ * SplPipeDecoder.writeBinaryResult); in the text protocol it is Base64-encoded.
+ * An unknown window, or a rectangle too big to send, gives an empty result.
+ */
+public class GWindow_getPixelsRaw extends JBESwingCommand {
+	// GWindow.getPixelsRaw("id", x, y, width, height)
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int x = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int y = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int width = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int height = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		
+		JBEWindow window = paramJavaBackEnd.getWindow(id);
+		byte[] pixels = new byte[0];
+		if (window != null) {
+			try {
+				pixels = window.getCanvas().getPixelsRaw(x, y, width, height);
+			} catch (IllegalArgumentException iae) {
+				// the C++ process waits for a reply, so send it no pixels
+			}
+		}
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			SplPipeDecoder.writeBinaryResult(pixels);
+		} else {
+			SplPipeDecoder.writeResult(Base64.encodeBytes(pixels));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * @version 2016/12/06
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.IOException;
+
+import acm.util.TokenScanner;
+
+/**
+ * Backs a window's canvas with a memory-mapped file that the C++ process writes
+ * pixels into directly; see JBECanvas.mapFramebuffer.
+ * Passing an empty file name unmaps the framebuffer.
+ * Replies "ok" on success or "error:..." if the file cannot be mapped or the
+ * size is negative or too big to map.
+ */
+public class GWindow_mapFramebuffer extends JBESwingCommand {
+	// GWindow.mapFramebuffer("id", "/tmp/spl-framebuffer-123", width, height)
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		String filename = SplPipeDecoder.readAndDecode(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int width = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int height = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		
+		JBEWindow window = paramJavaBackEnd.getWindow(id);
+		if (window == null) {
+			SplPipeDecoder.writeError("no window with id " + id);
+			return;
+		}
+		
+		if (filename.isEmpty()) {
+			window.getCanvas().unmapFramebuffer();
+			SplPipeDecoder.writeOK();
+			return;
+		}
+		
+		try {
+			window.getCanvas().mapFramebuffer(filename, width, height);
+			SplPipeDecoder.writeOK();
+		} catch (IOException ioe) {
+			SplPipeDecoder.writeError(ioe.getMessage());
+		} catch (IllegalArgumentException iae) {
+			// the C++ process waits for a reply, so it must get one
+			SplPipeDecoder.writeError(iae.getMessage());
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * @version 2016/12/06
+ * - initial version
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+/**
+ * Copies a window's shared framebuffer onto its canvas and repaints it.
+ * No pixel data travels over the pipe; see GWindow_mapFramebuffer.
+ */
+public class GWindow_presentFrame extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	// GWindow.presentFrame("id")
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		
+		JBEWindow window = paramJavaBackEnd.getWindow(id);
+		if (window != null) {
+			window.getCanvas().presentFrame();
+		}
+	}
+}
@@ -8,6 +8,11 @@ package stanford.spl;
 import acm.util.TokenScanner;
 
 public class GWindow_setCloseOperation extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str1 = nextString(paramTokenScanner);
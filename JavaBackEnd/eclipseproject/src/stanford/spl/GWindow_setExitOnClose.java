@@ -14,6 +14,11 @@ import acm.util.TokenScanner;
 public class GWindow_setExitOnClose extends JBESwingCommand implements ActionListener, WindowListener {
 	private Set<String> windowsToMonitor = new HashSet<String>();
 	
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str1 = nextString(paramTokenScanner);
@@ -10,6 +10,11 @@ import java.awt.Window;
 import acm.util.TokenScanner;
 
 public class GWindow_setLocation extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str1 = nextString(paramTokenScanner);
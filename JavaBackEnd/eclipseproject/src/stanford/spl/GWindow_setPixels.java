@@ -4,6 +4,11 @@ import acm.util.*;
 import stanford.cs106.io.IORuntimeException;
 
 public class GWindow_setPixels extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	// gbufferedimage.load("foobar.png");
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
@@ -0,0 +1,45 @@
+/*
+ * @version 2016/12/05
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.nio.ByteBuffer;
+
+import acm.util.TokenScanner;
+
+/**
+ * Sets a rectangle of a window's pixels from raw 4-byte ARGB values.
+ * Passing the whole canvas size updates every pixel; passing a smaller rectangle
+ * sends only a changed ("dirty") region.  In the binary protocol the pixel bytes
+ * are a raw byte field; in the text protocol they are Base64-encoded.
+ */
+public class GWindow_setPixelsRaw extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
+	// GWindow.setPixelsRaw("id", x, y, width, height, "base64")
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String id = nextString(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int x = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int y = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int width = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		int height = nextInt(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		ByteBuffer pixels = nextBytes(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+		
+		JBEWindow window = paramJavaBackEnd.getWindow(id);
+		if (window != null) {
+			window.getCanvas().setPixelsRaw(x, y, width, height, pixels);
+		}
+	}
+}
@@ -5,6 +5,11 @@ import java.awt.Frame;
 import acm.util.TokenScanner;
 
 public class GWindow_toFront extends JBESwingCommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str1 = nextString(paramTokenScanner);
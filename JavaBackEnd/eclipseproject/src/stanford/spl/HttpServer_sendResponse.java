@@ -4,6 +4,11 @@ import acm.util.TokenScanner;
 import stanford.cs106.server.SimpleServer;
 
 public class HttpServer_sendResponse extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		int requestID = nextInt(paramTokenScanner);
@@ -1,4 +1,6 @@
 /*
+ * @version 2016/12/06
+ * - added shared-memory framebuffer (mapFramebuffer / presentFrame)
  * @version 2016/10/25
  * - bug fix for paint() -> paintComponent() (prevents overdraw on shapes)
  * @version 2016/08/01
@@ -13,6 +15,9 @@ package stanford.spl;
 
 import acm.graphics.*;
 import java.awt.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 
 public class JBECanvas extends GCanvas {
 	private static final long serialVersionUID = 1L;
@@ -20,6 +25,9 @@ public class JBECanvas extends GCanvas {
 	private TopCompound topCompound;
 	private int preferredWidth;
 	private int preferredHeight;
+	private IntBuffer framebuffer;
+	private int framebufferWidth;
+	private int framebufferHeight;
 
 	public JBECanvas(String windowId, int width, int height) {
 		this.windowId = windowId;
@@ -50,6 +58,52 @@ public class JBECanvas extends GCanvas {
 		this.preferredHeight = d.height;
 	}
 
+	/**
+	 * Maps the given file into memory as a shared framebuffer of the given size.
+	 * The file holds width * height pixels as row-major 4-byte ARGB values in the
+	 * platform's native byte order, so the C++ process can map the same file and
+	 * write uint32 pixels into it directly.  The file is created or resized as needed.
+	 * Each call to presentFrame then copies the framebuffer onto this canvas.
+	 */
+	public void mapFramebuffer(String filename, int width, int height) throws IOException {
+		int size = GBufferedImage.getRawSize(width, height);
+		RandomAccessFile file = new RandomAccessFile(filename, "rw");
+		try {
+			if (file.length() != size) {
+				file.setLength(size);
+			}
+			// the mapping stays valid after the file is closed
+			MappedByteBuffer mapped = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			mapped.order(ByteOrder.nativeOrder());
+			this.framebuffer = mapped.asIntBuffer();
+			this.framebufferWidth = width;
+			this.framebufferHeight = height;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Stops using the shared framebuffer, if any.
+	 */
+	public void unmapFramebuffer() {
+		this.framebuffer = null;
+	}
+
+	public boolean hasFramebuffer() {
+		return framebuffer != null;
+	}
+
+	/**
+	 * Copies the current contents of the shared framebuffer onto this canvas
+	 * and repaints it.  Does nothing if no framebuffer has been mapped.
+	 */
+	public void presentFrame() {
+		if (framebuffer != null) {
+			setPixels(0, 0, framebufferWidth, framebufferHeight, framebuffer);
+		}
+	}
+
 	@Override
 	public void clear() {
 		if (topCompound != null) {
@@ -1,4 +1,17 @@
 /*
+ * @version 2016/12/28
+ * - each fire-and-forget command now says so itself by overriding isFireAndForget
+ * @version 2016/12/23
+ * - added Regex_matchCountWithLinesBatch
+ * @version 2016/12/07
+ * - added isFireAndForget; shouldInvokeAndWait is now false for fire-and-forget commands
+ * @version 2016/12/06
+ * - added GWindow_mapFramebuffer, GWindow_presentFrame
+ * @version 2016/12/05
+ * - added raw pixel commands GWindow_setPixelsRaw/getPixelsRaw, GBufferedImage_updatePixelsRaw
+ * - added nextBytes
+ * @version 2016/12/04
+ * - added binary protocol support (opcode table, SplBinaryTokenScanner fast paths)
  * @version 2016/12/01
  * - added AutograderUnitTest_catchExceptions
  * @version 2016/11/26
@@ -26,11 +39,14 @@
 package stanford.spl;
 
 import acm.util.TokenScanner;
+import stanford.cs106.io.IORuntimeException;
 import stanford.cs106.reflect.ReflectionRuntimeException;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public abstract class JBECommand {
@@ -76,6 +92,7 @@ public abstract class JBECommand {
 			GBufferedImage_save.class,
 			GBufferedImage_setRGB.class,
 			GBufferedImage_updateAllPixels.class,
+			GBufferedImage_updatePixelsRaw.class,
 			GButton_create.class,
 			GCheckBox_create.class,
 			GCheckBox_isSelected.class,
@@ -86,6 +103,7 @@ public abstract class JBECommand {
 			GChooser_setSelectedItem.class,
 			GCompound_add.class,
 			GCompound_create.class,
+			GCompound_setCached.class,
 			GEvent_getNextEvent.class,
 			GEvent_waitForEvent.class,
 			GFileChooser_showOpenDialog.class,
@@ -222,13 +240,16 @@ public abstract class JBECommand {
 			GWindow_getLocation.class,
 			GWindow_getPixel.class,
 			GWindow_getPixels.class,
+			GWindow_getPixelsRaw.class,
 			GWindow_getRegionSize.class,
 			GWindow_getScreenHeight.class,
 			GWindow_getScreenSize.class,
 			GWindow_getScreenWidth.class,
 			GWindow_getSize.class,
+			GWindow_mapFramebuffer.class,
 			GWindow_minimize.class,
 			GWindow_pack.class,
+			GWindow_presentFrame.class,
 			GWindow_removeFromRegion.class,
 			GWindow_repaint.class,
 			GWindow_requestFocus.class,
@@ -240,6 +261,7 @@ public abstract class JBECommand {
 			GWindow_setLocationSaved.class,
 			GWindow_setPixel.class,
 			GWindow_setPixels.class,
+			GWindow_setPixelsRaw.class,
 			GWindow_setRegionAlignment.class,
 			GWindow_setRegionSize.class,
 			GWindow_setResizable.class,
@@ -271,6 +293,7 @@ public abstract class JBECommand {
 			Note_play.class,
 			Regex_matchCount.class,
 			Regex_matchCountWithLines.class,
+			Regex_matchCountWithLinesBatch.class,
 			Regex_match.class,
 			Regex_replace.class,
 			Sound_create.class,
@@ -279,7 +302,8 @@ public abstract class JBECommand {
 			StanfordCppLib_getJbeVersion.class,
 			StanfordCppLib_setCppVersion.class,
 			TopCompound_create.class,
-			URL_download.class
+			URL_download.class,
+			URL_downloadAsync.class
 	));
 	
 	public abstract void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd);
@@ -293,11 +317,33 @@ public abstract class JBECommand {
 	}
 	
 	private static void addCommand(HashMap<String, JBECommand> commandMap, Class<? extends JBECommand> commandClass) {
-		String className = commandClass.getSimpleName();
-		className = className.replace("_", ".");
+		commandMap.put(getCommandName(commandClass), newCommand(commandClass));
+	}
+	
+	/**
+	 * Returns an array of all known commands, indexed by their binary protocol opcode.
+	 * Opcodes are assigned in the order the commands appear in KNOWN_COMMANDS.
+	 */
+	public static JBECommand[] createOpcodeTable() {
+		JBECommand[] table = new JBECommand[KNOWN_COMMANDS.size()];
+		int opcode = 0;
+		for (Class<? extends JBECommand> commandClass : KNOWN_COMMANDS) {
+			table[opcode++] = newCommand(commandClass);
+		}
+		return table;
+	}
+	
+	/**
+	 * Returns the name by which the C++ library refers to the given command,
+	 * such as "GObject.setLocation" for GObject_setLocation.
+	 */
+	public static String getCommandName(Class<? extends JBECommand> commandClass) {
+		return commandClass.getSimpleName().replace("_", ".");
+	}
+	
+	private static JBECommand newCommand(Class<? extends JBECommand> commandClass) {
 		try {
-			JBECommand command = commandClass.newInstance();
-			commandMap.put(className, command);
+			return commandClass.newInstance();
 		} catch (IllegalAccessException iae) {
 			throw new ReflectionRuntimeException(iae);
 		} catch (InstantiationException ie) {
@@ -306,6 +352,9 @@ public abstract class JBECommand {
 	}
 
 	public int nextInt(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readInt();
+		}
 		String token = paramTokenScanner.nextToken();
 		if (token.equals("-")) {
 			// BUGBUG: argh geez, doesn't handle negative numbers? really? cmon
@@ -315,6 +364,9 @@ public abstract class JBECommand {
 	}
 
 	public double nextDouble(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readDouble();
+		}
 		String str = paramTokenScanner.nextToken();
 		if (str.equals("-")) {
 			// BUGBUG: argh geez, doesn't handle negative numbers? really? cmon
@@ -324,10 +376,16 @@ public abstract class JBECommand {
 	}
 
 	public String nextString(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readString();
+		}
 		return paramTokenScanner.getStringValue(paramTokenScanner.nextToken());
 	}
 	
 	public String nextBase64(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readString();
+		}
 		String base64 = "";
 		try {
 			BufferedReader reader = new BufferedReader(getTokenScannerReader(paramTokenScanner));
@@ -350,9 +408,51 @@ public abstract class JBECommand {
 		return base64;
 	}
 
+	/**
+	 * Reads a raw byte argument.  In the binary protocol this is a byte field,
+	 * returned as a view of the frame without copying it; in the text protocol
+	 * it is a Base64 string that is decoded.
+	 */
+	public ByteBuffer nextBytes(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readByteBuffer();
+		}
+		try {
+			return ByteBuffer.wrap(Base64.decode(nextBase64(paramTokenScanner)));
+		} catch (IOException ioe) {
+			throw new IORuntimeException(ioe);
+		}
+	}
+
 	public boolean nextBoolean(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return ((SplBinaryTokenScanner) paramTokenScanner).readBoolean();
+		}
 		return paramTokenScanner.nextToken().startsWith("t");
 	}
+	
+	/**
+	 * Returns true if another optional argument follows, consuming the ","
+	 * separator in the text protocol.  Should be called in place of checking
+	 * for a "," token so that the command also works in the binary protocol.
+	 */
+	public boolean hasNextArgument(TokenScanner paramTokenScanner) {
+		if (paramTokenScanner instanceof SplBinaryTokenScanner) {
+			return paramTokenScanner.hasMoreTokens();
+		}
+		return paramTokenScanner.nextToken().equals(",");
+	}
+
+	/**
+	 * Returns whether this command never writes a result back to the C++ process,
+	 * so that the back end need not wait for it to finish before reading the next command.
+	 * Commands that call SplPipeDecoder.writeResult (or writeOK, writeError, etc.)
+	 * must return false, which is the default; each command that writes nothing
+	 * overrides this to return true.
+	 */
+	public boolean isFireAndForget() {
+		return false;
+	}
 
 	/**
 	 * Returns whether this command should wait for itself to finish running on the Swing GUI event thread.
@@ -360,8 +460,7 @@ public abstract class JBECommand {
 	 * processed in an exact order.
 	 */
 	public boolean shouldInvokeAndWait() {
-		// TODO: implement
-		return true;
+		return !isFireAndForget();
 	}
 
 	/**
@@ -0,0 +1,205 @@
+/*
+ * @version 2016/12/07
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+
+import javax.swing.SwingUtilities;
+
+import acm.util.TokenScanner;
+import stanford.cs106.util.ExceptionUtils;
+
+/**
+ * Runs JBE commands read by JavaBackEnd's command loop.
+ *
+ * Commands that must run on the Swing event thread are batched: while more
+ * commands are already waiting on the pipe, fire-and-forget commands
+ * (see JBECommand.isFireAndForget) are collected and then run together in a
+ * single Swing event-thread task, instead of one invokeAndWait per command.
+ * The command loop keeps reading while a batch runs.  A command that returns a
+ * result to the C++ process acts as a barrier: it is added to the batch and the
+ * loop waits until the whole batch, including it, has finished.  Commands that
+ * do not run on the Swing thread also wait for any pending batch first, so
+ * commands always take effect in the order they were sent.
+ */
+public class JBECommandDispatcher {
+	/** Largest number of commands run in one Swing event-thread task. */
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	/** Largest number of batches that may be queued on the Swing thread at once. */
+	public static final int MAX_PENDING_BATCHES = 4;
+
+	private final JavaBackEnd backEnd;
+	private final boolean batching;
+	private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+	private ArrayList<PendingCommand> batch = new ArrayList<PendingCommand>();
+
+	// used only by the command loop's thread
+	private final TokenScanner loopTextScanner = createCommandScanner();
+	private final SplBinaryTokenScanner loopBinaryScanner = new SplBinaryTokenScanner();
+
+	// used only on the Swing event thread
+	private final TokenScanner swingTextScanner = createCommandScanner();
+	private final SplBinaryTokenScanner swingBinaryScanner = new SplBinaryTokenScanner();
+
+	/**
+	 * Constructs a dispatcher for the given back end.  If batching is false,
+	 * each Swing command is run in its own event-thread task as it arrives.
+	 */
+	public JBECommandDispatcher(JavaBackEnd backEnd, boolean batching) {
+		this.backEnd = backEnd;
+		this.batching = batching;
+	}
+
+	/**
+	 * Returns a TokenScanner configured to read text protocol commands.
+	 */
+	public static TokenScanner createCommandScanner() {
+		TokenScanner scanner = new TokenScanner();
+		scanner.ignoreWhitespace();
+		scanner.scanNumbers();
+		scanner.scanStrings();
+		scanner.addWordCharacters(".");
+		return scanner;
+	}
+
+	/**
+	 * Runs or queues the given text protocol command.
+	 * moreInputWaiting indicates whether more commands can be read from
+	 * the pipe without blocking.
+	 */
+	public void dispatch(JBECommand command, String line, boolean moreInputWaiting) {
+		dispatch(new PendingCommand(command, line, null, 0), moreInputWaiting);
+	}
+
+	/**
+	 * Runs or queues the given binary protocol command, whose frame payload
+	 * is held in the first length bytes of the given buffer.  The buffer may be
+	 * reused by the caller as soon as this method returns.
+	 */
+	public void dispatch(JBECommand command, byte[] frame, int length, boolean moreInputWaiting) {
+		dispatch(new PendingCommand(command, null, frame, length), moreInputWaiting);
+	}
+
+	/**
+	 * Runs any queued commands on the Swing event thread.  If wait is true,
+	 * does not return until they have finished.
+	 */
+	public void flush(boolean wait) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final List<PendingCommand> commands = batch;
+		batch = new ArrayList<PendingCommand>();
+		Runnable run = new Runnable() {
+			public void run() {
+				try {
+					for (PendingCommand command : commands) {
+						execute(command, swingTextScanner, swingBinaryScanner, /* catchErrors */ true);
+					}
+				} finally {
+					pendingBatches.release();
+				}
+			}
+		};
+		pendingBatches.acquireUninterruptibly();
+		runOnSwingThread(run, wait);
+	}
+
+	private void dispatch(PendingCommand pending, boolean moreInputWaiting) {
+		JBECommand command = pending.command;
+		if (!command.shouldRunOnSwingEventThread()) {
+			// don't run on Swing event thread; just run on this current thread
+			flush(/* wait */ true);
+			execute(pending, loopTextScanner, loopBinaryScanner, /* catchErrors */ false);
+		} else if (!batching) {
+			final PendingCommand single = pending.detach();
+			runOnSwingThread(new Runnable() {
+				public void run() {
+					execute(single, swingTextScanner, swingBinaryScanner, /* catchErrors */ false);
+				}
+			}, command.shouldInvokeAndWait());
+		} else {
+			batch.add(pending.detach());
+			if (command.shouldInvokeAndWait()) {
+				flush(/* wait */ true);
+			} else if (!moreInputWaiting || batch.size() >= MAX_BATCH_SIZE) {
+				flush(/* wait */ false);
+			}
+		}
+	}
+
+	private void execute(PendingCommand pending, TokenScanner textScanner,
+			SplBinaryTokenScanner binaryScanner, boolean catchErrors) {
+		TokenScanner scanner;
+		if (pending.line != null) {
+			textScanner.setInput(pending.line);
+			textScanner.nextToken();   // command name
+			scanner = textScanner;
+		} else {
+			binaryScanner.setFrame(pending.frame, pending.length);
+			scanner = binaryScanner;
+		}
+		if (!catchErrors) {
+			pending.command.execute(scanner, backEnd);
+			return;
+		}
+		try {
+			pending.command.execute(scanner, backEnd);
+		} catch (RuntimeException re) {
+			// one bad command shouldn't stop the rest of its batch from running
+			printUnexpectedError(re);
+		}
+	}
+
+	private void runOnSwingThread(Runnable run, boolean wait) {
+		if (!wait) {
+			SwingUtilities.invokeLater(run);
+			return;
+		}
+		try {
+			SwingUtilities.invokeAndWait(run);
+		} catch (InvocationTargetException ite) {
+			printUnexpectedError(ExceptionUtils.getUnderlyingCause(ite));
+		} catch (InterruptedException ie) {
+			// okay; do nothing
+		}
+	}
+
+	private static void printUnexpectedError(Throwable cause) {
+		System.err.println("Unexpected error: " + cause.getMessage());
+		cause.printStackTrace(System.err);
+	}
+
+	/*
+	 * A command along with the text line or binary frame holding its arguments.
+	 */
+	private static class PendingCommand {
+		private final JBECommand command;
+		private final String line;
+		private final byte[] frame;
+		private final int length;
+
+		public PendingCommand(JBECommand command, String line, byte[] frame, int length) {
+			this.command = command;
+			this.line = line;
+			this.frame = frame;
+			this.length = length;
+		}
+
+		/*
+		 * Returns a copy that no longer refers to the command loop's reusable frame buffer.
+		 */
+		public PendingCommand detach() {
+			if (frame == null) {
+				return this;
+			}
+			return new PendingCommand(command, null, Arrays.copyOf(frame, length), length);
+		}
+	}
+}
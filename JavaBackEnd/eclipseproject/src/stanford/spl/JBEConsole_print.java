@@ -3,12 +3,16 @@ package stanford.spl;
 import acm.util.TokenScanner;
 
 public class JBEConsole_print extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
 		String str = nextString(paramTokenScanner);
-		String token = paramTokenScanner.nextToken();
 		boolean isStderr = false;
-		if (token.equals(",")) {
+		if (hasNextArgument(paramTokenScanner)) {
 			isStderr = nextBoolean(paramTokenScanner);
 		}
 		paramJavaBackEnd.putConsole(str, isStderr);
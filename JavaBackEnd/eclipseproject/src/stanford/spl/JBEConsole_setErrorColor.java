@@ -9,6 +9,11 @@ import acm.util.JTFTools;
 import acm.util.TokenScanner;
 
 public class JBEConsole_setErrorColor extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd jbe) {
 		paramTokenScanner.verifyToken("(");
 		String colorHex = nextString(paramTokenScanner);
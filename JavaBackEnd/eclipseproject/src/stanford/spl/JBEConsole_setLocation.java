@@ -5,6 +5,11 @@ import java.awt.Point;
 import acm.util.TokenScanner;
 
 public class JBEConsole_setLocation extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd jbe) {
 		paramTokenScanner.scanNumbers();
 		paramTokenScanner.verifyToken("(");
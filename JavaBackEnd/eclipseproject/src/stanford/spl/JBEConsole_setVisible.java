@@ -5,6 +5,11 @@ import java.awt.Frame;
 import acm.util.TokenScanner;
 
 public class JBEConsole_setVisible extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+	
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd jbe) {
 		paramTokenScanner.verifyToken("(");
 		boolean value = nextBoolean(paramTokenScanner);
@@ -1,4 +1,10 @@
 /*
+ * @version 2016/12/08
+ * - output to C++ is written on a separate thread; optional mouse-motion event coalescing
+ * @version 2016/12/07
+ * - batch Swing commands waiting on the pipe into one event-thread task (see JBECommandDispatcher)
+ * @version 2016/12/04
+ * - added negotiated binary framed command protocol (see SplBinaryProtocol)
  * @version 2016/11/24
  * - separated windowClosing / windowClosed operations to enable C++ to stop windows from closing
  * @version 2016/10/22
@@ -12,7 +18,6 @@ import acm.io.*;
 import acm.program.*;
 import acm.util.*;
 import stanford.cs106.gui.GuiUtils;
-import stanford.cs106.util.ExceptionUtils;
 
 import java.awt.*;
 import java.awt.event.*;
@@ -64,8 +69,14 @@ public class JavaBackEnd implements WindowListener, MouseListener, MouseMotionLi
 	
 	private static final String DEFAULT_APP_NAME = "JBE";
 	private static final String DEBUG_PROPERTY = "stanfordspl.debug";
+	private static final String BATCH_PROPERTY = "stanfordspl.batch";
+	private static final String ASYNC_OUTPUT_PROPERTY = "stanfordspl.asyncoutput";
+	private static final String COALESCE_MOUSE_PROPERTY = "stanfordspl.coalescemouse";
 	private static final String DEBUG_LOG_FILE = "stanfordspldebug.txt";
 	private static boolean DEBUG = false;
+	private static boolean BATCH = true;
+	private static boolean ASYNC_OUTPUT = true;
+	private static boolean COALESCE_MOUSE = false;
 	private static final Color ERROR_COLOR = new Color(192, 0, 0);   // slightly dark red
 	private static final int ERROR_STYLE = Font.BOLD;
 
@@ -73,6 +84,12 @@ public class JavaBackEnd implements WindowListener, MouseListener, MouseMotionLi
 		try {
 			String prop = System.getProperty(DEBUG_PROPERTY);
 			DEBUG = prop != null && (prop.startsWith("t") || prop.startsWith("1"));
+			prop = System.getProperty(BATCH_PROPERTY);
+			BATCH = prop == null || !(prop.startsWith("f") || prop.startsWith("0"));
+			prop = System.getProperty(ASYNC_OUTPUT_PROPERTY);
+			ASYNC_OUTPUT = prop == null || !(prop.startsWith("f") || prop.startsWith("0"));
+			prop = System.getProperty(COALESCE_MOUSE_PROPERTY);
+			COALESCE_MOUSE = prop != null && (prop.startsWith("t") || prop.startsWith("1"));
 		} catch (Exception e) {}
 		
 		new JavaBackEnd().run(paramArrayOfString);
@@ -195,6 +212,9 @@ public class JavaBackEnd implements WindowListener, MouseListener, MouseMotionLi
 				System.err.println("Can't exec process: " + localIOException.getMessage());
 			}
 		}
+		if (ASYNC_OUTPUT) {
+			SplPipeDecoder.startAsyncOutput(COALESCE_MOUSE);
+		}
 		commandLoop();
 	}
 
@@ -815,60 +835,64 @@ public class JavaBackEnd implements WindowListener, MouseListener, MouseMotionLi
 	}
 
 	private void commandLoop() {
-		BufferedReader localBufferedReader = new BufferedReader(new InputStreamReader(System.in));
-		final TokenScanner localTokenScanner = new TokenScanner();
-		localTokenScanner.ignoreWhitespace();
-		localTokenScanner.scanNumbers();
-		localTokenScanner.scanStrings();
-		localTokenScanner.addWordCharacters(".");
+		SplPipeReader pipeReader = new SplPipeReader(System.in);
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(this, BATCH);
+		JBECommand[] opcodeTable = null;
+		boolean binaryMode = false;
 		try {
 			for (;;) {
-				String str1 = localBufferedReader.readLine();
-				if (str1 == null) {
-					break;
-				}
-				if (DEBUG) {
-					printLog(str1);
-				}
-				
-				if (str1.equals("LongCommand.begin()")) {
-					str1 = readLongCommand(localBufferedReader);
-				}
-				
-				localTokenScanner.setInput(str1);
-				String str2 = localTokenScanner.nextToken();
-				final JBECommand localJBECommand = (JBECommand) this.cmdTable.get(str2);
-				if (localJBECommand == null) {
-					System.err.println("Unexpected error: unknown command \"" + str2 + "\"");
+				if (binaryMode) {
+					int length = pipeReader.readFrame();
+					if (length < 0) {
+						break;
+					}
+					byte[] frame = pipeReader.getFrameBuffer();
+					int opcode = length < 2 ? -1 : ((frame[0] & 0xff) << 8) | (frame[1] & 0xff);
+					if (opcode == SplBinaryProtocol.OPCODE_TEXT_PROTOCOL) {
+						binaryMode = false;
+						continue;
+					}
+					if (opcode < 0 || opcode >= opcodeTable.length) {
+						System.err.println("Unexpected error: unknown command opcode " + opcode);
+						continue;
+					}
+					JBECommand command = opcodeTable[opcode];
+					if (DEBUG) {
+						printLog("[binary] " + JBECommand.getCommandName(command.getClass()));
+					}
+					dispatcher.dispatch(command, frame, length, pipeReader.hasBufferedInput());
 				} else {
-					// execute JBE command; some commands must be run on Swing event thread
-					if (localJBECommand.shouldRunOnSwingEventThread()) {
-						Runnable run = new Runnable() {
-							public void run() {
-								localJBECommand.execute(localTokenScanner, JavaBackEnd.this);
-							}
-						};
-						if (localJBECommand.shouldInvokeAndWait()) {
-							try {
-								SwingUtilities.invokeAndWait(run);
-							} catch (InvocationTargetException ite) {
-								// TODO: is this the right way to handle such an error?  :-/ not sure
-								// println("error:" + ite.getMessage());
-								Throwable cause = ExceptionUtils.getUnderlyingCause(ite);
-								System.err.println("Unexpected error: " + cause.getMessage());
-								cause.printStackTrace(System.err);
-							} catch (InterruptedException ie) {
-								// okay; do nothing
-							}
-						} else {
-							SwingUtilities.invokeLater(run);
+					String line = pipeReader.readLine();
+					if (line == null) {
+						break;
+					}
+					if (DEBUG) {
+						printLog(line);
+					}
+					
+					if (line.equals(SplBinaryProtocol.HANDSHAKE_COMMAND)) {
+						// switch to binary framed protocol; reply with the opcode table
+						dispatcher.flush(/* wait */ true);
+						if (opcodeTable == null) {
+							opcodeTable = SplBinaryProtocol.createOpcodeTable();
 						}
-					} else {
-						// don't run on Swing event thread; just run on this current thread
-						localJBECommand.execute(localTokenScanner, this);
+						SplPipeDecoder.writeResult(SplBinaryProtocol.getHandshakeReply(opcodeTable));
+						binaryMode = true;
+						continue;
+					} else if (line.equals("LongCommand.begin()")) {
+						line = readLongCommand(pipeReader);
 					}
+					
+					String commandName = getCommandName(line);
+					JBECommand command = this.cmdTable.get(commandName);
+					if (command == null) {
+						System.err.println("Unexpected error: unknown command \"" + commandName + "\"");
+						continue;
+					}
+					dispatcher.dispatch(command, line, pipeReader.hasBufferedInput());
 				}
 			}
+			dispatcher.flush(/* wait */ true);
 		} catch (Exception localException) {
 			System.err.println("Unexpected error: " + localException.getMessage());
 			localException.printStackTrace(System.err);
@@ -878,10 +902,19 @@ public class JavaBackEnd implements WindowListener, MouseListener, MouseMotionLi
 		}
 	}
 	
+	/*
+	 * Returns the command name at the start of the given text command line,
+	 * such as "GWindow.create" for GWindow.create("0x1234", 500, 300).
+	 */
+	private static String getCommandName(String line) {
+		int paren = line.indexOf('(');
+		return (paren >= 0 ? line.substring(0, paren) : line).trim();
+	}
+	
 	/*
 	 * Handle very long command strings in special way.
 	 */
-	private String readLongCommand(BufferedReader systemInReader) throws IOException {
+	private String readLongCommand(SplPipeReader systemInReader) throws IOException {
 		// repeatedly read lines from System.in until long command is done
 		StringBuilder sb = new StringBuilder(256000);
 		while (true) {
@@ -0,0 +1,94 @@
+/*
+ * @version 2016/12/23
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Helpers shared by the Regex_* commands: a bounded cache of compiled
+ * patterns, since the C++ library sends the same few patterns over and over,
+ * and an index of line starts for turning match offsets into line numbers.
+ */
+class RegexUtils {
+	// most compiled patterns kept at once; least recently used are dropped first
+	private static final int MAX_CACHED_PATTERNS = 256;
+
+	private static final Map<String, Pattern> PATTERN_CACHE = new LinkedHashMap<String, Pattern>(16, 0.75f, /* accessOrder */ true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+			return size() > MAX_CACHED_PATTERNS;
+		}
+	};
+
+	private RegexUtils() {
+		// empty
+	}
+
+	/**
+	 * Returns the compiled form of the given regular expression, compiling it
+	 * only if it is not already cached.
+	 * @throws PatternSyntaxException if the expression is invalid
+	 */
+	public static Pattern getPattern(String regexp) {
+		synchronized (PATTERN_CACHE) {
+			Pattern pattern = PATTERN_CACHE.get(regexp);
+			if (pattern == null) {
+				pattern = Pattern.compile(regexp);
+				PATTERN_CACHE.put(regexp, pattern);
+			}
+			return pattern;
+		}
+	}
+
+	/**
+	 * Returns the index in s of the start of each line; the first is always 0.
+	 */
+	public static int[] getLineStarts(String s) {
+		int[] starts = new int[16];
+		int count = 1;
+		for (int i = s.indexOf('\n'); i >= 0; i = s.indexOf('\n', i + 1)) {
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, 2 * count);
+			}
+			starts[count++] = i + 1;
+		}
+		return Arrays.copyOf(starts, count);
+	}
+
+	/**
+	 * Returns the 1-based number of the line containing the given index,
+	 * given the line starts from getLineStarts.
+	 */
+	public static int getLineNumber(int[] lineStarts, int index) {
+		int i = Arrays.binarySearch(lineStarts, index);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	/**
+	 * Returns the result of Regex.matchCountWithLines for the given pattern:
+	 * the number of matches, a colon, and the comma-separated line number of
+	 * each match that starts at a character of s.
+	 */
+	public static String matchCountWithLines(String s, int[] lineStarts, Pattern pattern) {
+		Matcher matcher = pattern.matcher(s);
+		StringBuilder linesStr = new StringBuilder();
+		int count = 0;
+		while (matcher.find()) {
+			count++;
+			int startIndex = matcher.start();
+			if (startIndex < s.length()) {
+				if (linesStr.length() > 0) {
+					linesStr.append(",");
+				}
+				linesStr.append(getLineNumber(lineStarts, startIndex));
+			}
+		}
+		return count + ":" + linesStr;
+	}
+}
@@ -10,7 +10,7 @@ public class Regex_match extends JBECommand {
 		paramTokenScanner.verifyToken(",");
 		String regexp = SplPipeDecoder.readAndDecode(paramTokenScanner);
 		paramTokenScanner.verifyToken(")");
-		boolean result = s.matches(regexp);
+		boolean result = RegexUtils.getPattern(regexp).matcher(s).matches();
 		SplPipeDecoder.writeResult(result);
 	}
 }
@@ -13,7 +13,7 @@ public class Regex_matchCount extends JBECommand {
 		paramTokenScanner.verifyToken(",");
 		String regexp = SplPipeDecoder.readAndDecode(paramTokenScanner);
 		paramTokenScanner.verifyToken(")");
-		Pattern pattern = Pattern.compile(regexp);
+		Pattern pattern = RegexUtils.getPattern(regexp);
 		Matcher matcher = pattern.matcher(s);
 		int count = 0;
 		while (matcher.find()) {
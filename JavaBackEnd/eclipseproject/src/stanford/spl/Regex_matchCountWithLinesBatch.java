@@ -0,0 +1,34 @@
+/*
+ * Runs Regex.matchCountWithLines for any number of patterns over one string,
+ * so that the string is sent and indexed only once.
+ * @version 2016/12/23
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.util.regex.*;
+
+import acm.util.TokenScanner;
+
+public class Regex_matchCountWithLinesBatch extends JBECommand {
+	// "Regex.matchCountWithLinesBatch(\"hello abcd hi abcccd\", \"ab[c]+d\", \"h[a-z]+\")"
+	// writes each pattern's "count:line,line,..." result, separated by ";"
+	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String s = SplPipeDecoder.readAndDecode(paramTokenScanner);
+		int[] lineStarts = RegexUtils.getLineStarts(s);
+		StringBuilder result = new StringBuilder();
+		boolean first = true;
+		while (hasNextArgument(paramTokenScanner)) {
+			String regexp = SplPipeDecoder.readAndDecode(paramTokenScanner);
+			Pattern pattern = RegexUtils.getPattern(regexp);
+			if (!first) {
+				result.append(';');
+			}
+			first = false;
+			result.append(RegexUtils.matchCountWithLines(s, lineStarts, pattern));
+		}
+		SplPipeDecoder.writeResult(result.toString());
+	}
+}
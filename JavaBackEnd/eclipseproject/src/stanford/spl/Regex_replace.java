@@ -11,7 +11,7 @@ public class Regex_replace extends JBECommand {
 		paramTokenScanner.verifyToken(",");
 		String replacement = SplPipeDecoder.readAndDecode(paramTokenScanner);
 		paramTokenScanner.verifyToken(")");
-		String result = s.replaceAll(regexp, replacement);
+		String result = RegexUtils.getPattern(regexp).matcher(s).replaceAll(replacement);
 		SplPipeDecoder.encodeAndWrite(result);
 	}
 }
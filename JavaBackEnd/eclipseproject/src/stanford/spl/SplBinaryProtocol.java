@@ -0,0 +1,169 @@
+/*
+ * @version 2016/12/28
+ * - added string lists
+ * @version 2016/12/04
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Constants and helpers for the binary framed command protocol.
+ *
+ * The C++ process switches the pipe into binary mode by sending the text line
+ * <code>Protocol.binary()</code>.  The back end answers with a result line of the form
+ * <code>result:VERSION:name0,name1,name2,...</code> listing every command name;
+ * a command's opcode is its index in that list.
+ *
+ * From then on every command is a frame: a 4-byte big-endian payload length,
+ * followed by a 2-byte opcode, followed by zero or more tagged fields
+ * (see the TAG_* constants).  A list of strings is sent as a TAG_INT count
+ * followed by that many TAG_STRING fields.  Sending the opcode OPCODE_TEXT_PROTOCOL switches
+ * the pipe back to the text protocol.  Results and events are still written as text lines.
+ */
+public class SplBinaryProtocol {
+	public static final int VERSION = 1;
+
+	/** Text line that switches the pipe into binary mode. */
+	public static final String HANDSHAKE_COMMAND = "Protocol.binary()";
+
+	/** Opcode that switches the pipe back into text mode. */
+	public static final int OPCODE_TEXT_PROTOCOL = 0xFFFF;
+
+	// field tags; each field in a frame begins with one of these bytes
+	public static final byte TAG_INT = 'I';        // 4-byte big-endian int
+	public static final byte TAG_DOUBLE = 'D';     // 8-byte big-endian IEEE double
+	public static final byte TAG_BOOLEAN = 'B';    // 1 byte, 0 or 1
+	public static final byte TAG_STRING = 'S';     // 4-byte length, then that many bytes of UTF-8
+	public static final byte TAG_BYTES = 'X';      // 4-byte length, then that many raw bytes
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Returns the opcode table listing every known command in opcode order.
+	 */
+	public static JBECommand[] createOpcodeTable() {
+		return JBECommand.createOpcodeTable();
+	}
+
+	/**
+	 * Returns the handshake reply sent to the C++ process, listing the
+	 * names of all commands in opcode order.
+	 */
+	public static String getHandshakeReply(JBECommand[] opcodeTable) {
+		StringBuilder sb = new StringBuilder(opcodeTable.length * 24);
+		sb.append(VERSION).append(':');
+		for (int i = 0; i < opcodeTable.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(JBECommand.getCommandName(opcodeTable[i].getClass()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Builds binary frames.  Used by the tests, the benchmark and any Java
+	 * code that needs to talk to the back end in binary mode.
+	 */
+	public static class FrameBuilder {
+		private ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		private DataOutputStream out = new DataOutputStream(bytes);
+
+		public FrameBuilder(int opcode) {
+			try {
+				out.writeShort(opcode);
+			} catch (IOException ioe) {
+				// cannot happen with a ByteArrayOutputStream
+			}
+		}
+
+		public FrameBuilder addInt(int value) {
+			try {
+				out.writeByte(TAG_INT);
+				out.writeInt(value);
+			} catch (IOException ioe) {
+				// cannot happen
+			}
+			return this;
+		}
+
+		public FrameBuilder addDouble(double value) {
+			try {
+				out.writeByte(TAG_DOUBLE);
+				out.writeDouble(value);
+			} catch (IOException ioe) {
+				// cannot happen
+			}
+			return this;
+		}
+
+		public FrameBuilder addBoolean(boolean value) {
+			try {
+				out.writeByte(TAG_BOOLEAN);
+				out.writeByte(value ? 1 : 0);
+			} catch (IOException ioe) {
+				// cannot happen
+			}
+			return this;
+		}
+
+		public FrameBuilder addString(String value) {
+			return addTagged(TAG_STRING, value.getBytes(UTF_8));
+		}
+
+		public FrameBuilder addStringList(List<String> values) {
+			addInt(values.size());
+			for (String value : values) {
+				addString(value);
+			}
+			return this;
+		}
+
+		public FrameBuilder addBytes(byte[] value) {
+			return addTagged(TAG_BYTES, value);
+		}
+
+		private FrameBuilder addTagged(byte tag, byte[] value) {
+			try {
+				out.writeByte(tag);
+				out.writeInt(value.length);
+				out.write(value);
+			} catch (IOException ioe) {
+				// cannot happen
+			}
+			return this;
+		}
+
+		/**
+		 * Returns the complete frame, including its 4-byte length prefix.
+		 */
+		public byte[] toByteArray() {
+			byte[] payload = bytes.toByteArray();
+			byte[] frame = new byte[payload.length + 4];
+			frame[0] = (byte) (payload.length >>> 24);
+			frame[1] = (byte) (payload.length >>> 16);
+			frame[2] = (byte) (payload.length >>> 8);
+			frame[3] = (byte) payload.length;
+			System.arraycopy(payload, 0, frame, 4, payload.length);
+			return frame;
+		}
+	}
+
+	/**
+	 * Returns the opcode of the command with the given name (e.g. "GObject.setLocation"),
+	 * or -1 if there is no such command.
+	 */
+	public static int getOpcode(JBECommand[] opcodeTable, String commandName) {
+		for (int i = 0; i < opcodeTable.length; i++) {
+			if (JBECommand.getCommandName(opcodeTable[i].getClass()).equals(commandName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
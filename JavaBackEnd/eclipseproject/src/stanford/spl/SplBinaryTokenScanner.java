@@ -0,0 +1,201 @@
+/*
+ * @version 2016/12/28
+ * - added readStringList
+ * @version 2016/12/04
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import acm.util.ErrorException;
+import acm.util.TokenScanner;
+
+/**
+ * A TokenScanner that reads the tagged fields of a binary protocol frame
+ * (see SplBinaryProtocol) instead of scanning a text command line.
+ *
+ * JBECommand's nextInt/nextDouble/nextString/nextBoolean/nextBase64 methods
+ * recognize this scanner and read fields directly without any text parsing.
+ * Commands that call nextToken directly still work: each field is returned
+ * as the token the text protocol would have produced.  Punctuation is not sent
+ * in binary frames, so verifyToken does nothing.
+ */
+public class SplBinaryTokenScanner extends TokenScanner {
+	private byte[] frame;
+	private int pos;
+	private int end;
+	private String savedToken;
+
+	/**
+	 * Points this scanner at a new frame payload and returns the frame's opcode.
+	 */
+	public int setFrame(byte[] frame, int length) {
+		if (length < 2) {
+			throw new ErrorException("binary frame too short to hold an opcode");
+		}
+		this.frame = frame;
+		this.end = length;
+		this.pos = 2;
+		this.savedToken = null;
+		return ((frame[0] & 0xff) << 8) | (frame[1] & 0xff);
+	}
+
+	@Override
+	public boolean hasMoreTokens() {
+		return savedToken != null || pos < end;
+	}
+
+	@Override
+	public String nextToken() {
+		if (savedToken != null) {
+			String token = savedToken;
+			savedToken = null;
+			return token;
+		}
+		if (pos >= end) {
+			return "";
+		}
+		byte tag = frame[pos];
+		switch (tag) {
+		case SplBinaryProtocol.TAG_INT:
+			return String.valueOf(readInt());
+		case SplBinaryProtocol.TAG_DOUBLE:
+			return String.valueOf(readDouble());
+		case SplBinaryProtocol.TAG_BOOLEAN:
+			return String.valueOf(readBoolean());
+		case SplBinaryProtocol.TAG_STRING:
+			return "\"" + readString() + "\"";
+		case SplBinaryProtocol.TAG_BYTES:
+			return "\"" + new String(readBytes(), SplBinaryProtocol.UTF_8) + "\"";
+		default:
+			throw new ErrorException("unknown binary field tag " + tag);
+		}
+	}
+
+	@Override
+	public void saveToken(String token) {
+		savedToken = token;
+	}
+
+	@Override
+	public void verifyToken(String expected) {
+		// punctuation is not transmitted in binary frames
+	}
+
+	@Override
+	public String getStringValue(String token) {
+		// string fields are not escaped, so just strip the surrounding quotes
+		if (token.length() >= 2 && token.startsWith("\"") && token.endsWith("\"")) {
+			return token.substring(1, token.length() - 1);
+		}
+		return token;
+	}
+
+	@Override
+	public int getChar() {
+		return pos < end ? (frame[pos++] & 0xff) : -1;
+	}
+
+	@Override
+	public void ungetChar(int ch) {
+		if (ch >= 0 && pos > 2) {
+			pos--;
+		}
+	}
+
+	public int readInt() {
+		expectTag(SplBinaryProtocol.TAG_INT, 4);
+		return readRawInt();
+	}
+
+	public double readDouble() {
+		expectTag(SplBinaryProtocol.TAG_DOUBLE, 8);
+		long high = readRawInt() & 0xffffffffL;
+		long low = readRawInt() & 0xffffffffL;
+		return Double.longBitsToDouble((high << 32) | low);
+	}
+
+	public boolean readBoolean() {
+		expectTag(SplBinaryProtocol.TAG_BOOLEAN, 1);
+		return frame[pos++] != 0;
+	}
+
+	public String readString() {
+		expectTag(SplBinaryProtocol.TAG_STRING, 4);
+		int length = readLength();
+		String s = new String(frame, pos, length, SplBinaryProtocol.UTF_8);
+		pos += length;
+		return s;
+	}
+
+	/**
+	 * Reads a list of strings, sent as an int count followed by that many
+	 * string fields.
+	 */
+	public List<String> readStringList() {
+		int count = readInt();
+		// every string field takes at least 5 bytes
+		if (count < 0 || count > (end - pos) / 5) {
+			throw new ErrorException("invalid binary list length: " + count);
+		}
+		List<String> list = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(readString());
+		}
+		return list;
+	}
+
+	public byte[] readBytes() {
+		expectTag(SplBinaryProtocol.TAG_BYTES, 4);
+		int length = readLength();
+		byte[] bytes = new byte[length];
+		System.arraycopy(frame, pos, bytes, 0, length);
+		pos += length;
+		return bytes;
+	}
+
+	/**
+	 * Reads a raw byte field without copying it; the returned buffer is a view
+	 * of the current frame and is only valid until the next frame is read.
+	 */
+	public ByteBuffer readByteBuffer() {
+		expectTag(SplBinaryProtocol.TAG_BYTES, 4);
+		int length = readLength();
+		ByteBuffer buffer = ByteBuffer.wrap(frame, pos, length).slice();
+		pos += length;
+		return buffer;
+	}
+
+	private void expectTag(byte tag, int minBytes) {
+		if (pos >= end) {
+			throw new ErrorException("binary frame ended early; expected field '" + (char) tag + "'");
+		}
+		if (frame[pos] != tag) {
+			throw new ErrorException("expected binary field '" + (char) tag + "' but saw '" + (char) frame[pos] + "'");
+		}
+		pos++;
+		if (pos + minBytes > end) {
+			throw new ErrorException("binary frame ended in the middle of field '" + (char) tag + "'");
+		}
+	}
+
+	private int readLength() {
+		int length = readRawInt();
+		if (length < 0 || pos + length > end) {
+			throw new ErrorException("invalid binary field length: " + length);
+		}
+		return length;
+	}
+
+	private int readRawInt() {
+		int value = ((frame[pos] & 0xff) << 24)
+				| ((frame[pos + 1] & 0xff) << 16)
+				| ((frame[pos + 2] & 0xff) << 8)
+				| (frame[pos + 3] & 0xff);
+		pos += 4;
+		return value;
+	}
+}
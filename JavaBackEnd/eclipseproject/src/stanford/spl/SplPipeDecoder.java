@@ -1,4 +1,12 @@
 /*
+ * @version 2016/12/23
+ * - readEncodedString builds the string in a StringBuilder rather than by repeated concatenation
+ * @version 2016/12/08
+ * - output can be written asynchronously through a SplPipeWriter (see startAsyncOutput)
+ * @version 2016/12/05
+ * - added writeBinaryResult for raw pixel transfers
+ * @version 2016/12/04
+ * - strings in binary protocol frames are read raw, without URL-decoding
  * @version 2015/10/08
  */
 
@@ -15,6 +23,21 @@ public class SplPipeDecoder {
 	// related: similar constant in C++ lib platform.cpp
 	public static final int PIPE_MAX_COMMAND_LENGTH = 2048;
 	
+	private static SplPipeWriter asyncWriter = null;
+	
+	/**
+	 * Starts writing all output to the C++ process on a dedicated writer thread.
+	 * System.out is replaced so that anything printed to it goes through the writer too.
+	 * If coalesceMouseEvents is true, consecutive mouse-move/drag events that
+	 * have not yet been sent are collapsed into the latest one.
+	 */
+	public static synchronized void startAsyncOutput(boolean coalesceMouseEvents) {
+		if (asyncWriter == null) {
+			asyncWriter = new SplPipeWriter(System.out, SplPipeWriter.DEFAULT_CAPACITY, coalesceMouseEvents);
+			System.setOut(asyncWriter.getPrintStream());
+		}
+	}
+	
 	public static String decode(String s) {
 		try {
 			s = URLDecoder.decode(s, "UTF-8");
@@ -38,6 +61,10 @@ public class SplPipeDecoder {
 	}
 
 	public static String readAndDecode(TokenScanner scanner) {
+		if (scanner instanceof SplBinaryTokenScanner) {
+			// binary protocol strings are raw UTF-8, not URL-encoded
+			return ((SplBinaryTokenScanner) scanner).readString();
+		}
 		return decode(readEncodedString(scanner));
 	}
 	
@@ -65,12 +92,20 @@ public class SplPipeDecoder {
 	}
 	
 	public static synchronized void println(String s) {
-		System.out.println(s);
-		System.out.flush();
+		if (asyncWriter != null) {
+			asyncWriter.writeLine(s);
+		} else {
+			System.out.println(s);
+			System.out.flush();
+		}
 	}
 	
 	public static String readEncodedString(TokenScanner scanner) {
-		String s = "";
+		if (scanner instanceof SplBinaryTokenScanner) {
+			// callers will URL-decode the result, so hand them an encoded string
+			return encode(((SplBinaryTokenScanner) scanner).readString());
+		}
+		StringBuilder sb = new StringBuilder();
 		eatSpaces(scanner);
 		int ch = scanner.getChar();
 		if (ch != '"') {
@@ -81,13 +116,13 @@ public class SplPipeDecoder {
 			if (ch == '"' || ch < 0) {
 				break;
 			} else {
-				s += (char) ch;
+				sb.append((char) ch);
 			}
 		}
 		if (ch != '"') {
 			throw new ErrorException("quoted string must end with \" character, but saw '" + (char)ch + "' (" + (int)ch + ")");
 		}
-		return s;
+		return sb.toString();
 	}
 	
 	public static synchronized void writeAck() {
@@ -118,6 +153,21 @@ public class SplPipeDecoder {
 		}
 	}
 	
+	/**
+	 * Writes a raw binary result: the line "result_binary:LENGTH" followed
+	 * immediately by LENGTH raw bytes.  Only used by commands sent in the
+	 * binary protocol, whose C++ caller knows to expect raw bytes.
+	 */
+	public static synchronized void writeBinaryResult(byte[] bytes) {
+		if (asyncWriter != null) {
+			asyncWriter.writeLineAndBytes("result_binary:" + bytes.length, bytes);
+			return;
+		}
+		System.out.print("result_binary:" + bytes.length + "\n");
+		System.out.write(bytes, 0, bytes.length);
+		System.out.flush();
+	}
+	
 	public static synchronized void writeLongResult(String s) {
 		println("result_long:begin");
 		for (int i = 0, len = s.length();
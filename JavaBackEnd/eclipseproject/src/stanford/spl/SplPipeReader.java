@@ -0,0 +1,111 @@
+/*
+ * @version 2016/12/07
+ * - added hasBufferedInput
+ * @version 2016/12/04
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+/**
+ * Reads commands sent by the C++ process over the pipe.
+ * Commands arrive either as text lines (the default protocol) or, once the
+ * binary protocol has been negotiated, as length-prefixed binary frames.
+ * Both are read from the same underlying byte stream so that the back end can
+ * switch between protocols without losing any buffered input.
+ */
+public class SplPipeReader {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int BUFFER_SIZE = 65536;
+	private static final int INITIAL_LINE_SIZE = 256;
+	private static final int INITIAL_FRAME_SIZE = 1024;
+
+	private InputStream input;
+	private byte[] lineBuffer = new byte[INITIAL_LINE_SIZE];
+	private byte[] frameBuffer = new byte[INITIAL_FRAME_SIZE];
+
+	public SplPipeReader(InputStream input) {
+		if (!(input instanceof BufferedInputStream)) {
+			input = new BufferedInputStream(input, BUFFER_SIZE);
+		}
+		this.input = input;
+	}
+
+	/**
+	 * Returns true if more input can be read without blocking.
+	 */
+	public boolean hasBufferedInput() {
+		try {
+			return input.available() > 0;
+		} catch (IOException ioe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads one line of UTF-8 text, not including its line terminator.
+	 * Returns null if the end of the stream has been reached.
+	 */
+	public String readLine() throws IOException {
+		int length = 0;
+		int ch = input.read();
+		if (ch < 0) {
+			return null;
+		}
+		while (ch >= 0 && ch != '\n') {
+			if (length == lineBuffer.length) {
+				byte[] bigger = new byte[lineBuffer.length * 2];
+				System.arraycopy(lineBuffer, 0, bigger, 0, length);
+				lineBuffer = bigger;
+			}
+			lineBuffer[length++] = (byte) ch;
+			ch = input.read();
+		}
+		if (length > 0 && lineBuffer[length - 1] == '\r') {
+			length--;
+		}
+		return new String(lineBuffer, 0, length, UTF_8);
+	}
+
+	/**
+	 * Reads one binary frame: a 4-byte big-endian payload length followed by the payload.
+	 * The payload is stored in the buffer returned by getFrameBuffer.
+	 * Returns the payload length, or -1 if the end of the stream has been reached.
+	 */
+	public int readFrame() throws IOException {
+		int b1 = input.read();
+		int b2 = input.read();
+		int b3 = input.read();
+		int b4 = input.read();
+		if ((b1 | b2 | b3 | b4) < 0) {
+			return -1;
+		}
+		int length = (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+		if (length < 0) {
+			throw new IOException("invalid binary frame length: " + length);
+		}
+		if (length > frameBuffer.length) {
+			frameBuffer = new byte[Math.max(length, frameBuffer.length * 2)];
+		}
+		int offset = 0;
+		while (offset < length) {
+			int count = input.read(frameBuffer, offset, length - offset);
+			if (count < 0) {
+				throw new EOFException("pipe closed in the middle of a binary frame");
+			}
+			offset += count;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the buffer holding the payload of the most recent frame read.
+	 * The buffer is reused between frames.
+	 */
+	public byte[] getFrameBuffer() {
+		return frameBuffer;
+	}
+}
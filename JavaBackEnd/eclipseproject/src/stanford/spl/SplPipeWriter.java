@@ -0,0 +1,305 @@
+/*
+ * @version 2016/12/08
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+/**
+ * Writes output to the C++ process on a dedicated thread so that the threads
+ * producing output (in particular the Swing event thread, which sends every
+ * mouse and key event) never wait on the pipe.
+ *
+ * Lines are placed in a bounded ring buffer and written by the writer thread.
+ * The pipe is flushed only when the writer has caught up with the buffer or
+ * right after a result or acknowledgement line, so bursts of output are
+ * coalesced into a few large writes.  If the buffer fills up, producers wait
+ * for space, except for mouse-move and mouse-drag events: when coalescing is
+ * enabled, a new one of these replaces a not-yet-written one of the same kind
+ * at the end of the buffer, and is dropped if the buffer is full, so that a
+ * slow C++ consumer cannot stall the user interface.
+ *
+ * The writer also serves as System.out's underlying stream (see getPrintStream),
+ * so code that prints directly to System.out stays in order with everything else.
+ */
+public class SplPipeWriter extends OutputStream {
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String MOUSE_MOVED_EVENT = "event:mouseMoved(";
+	private static final String MOUSE_DRAGGED_EVENT = "event:mouseDragged(";
+	private static final long SHUTDOWN_DRAIN_TIMEOUT_MS = 2000;
+
+	private final OutputStream out;
+	private final boolean coalesceMouseEvents;
+	private final Object lock = new Object();
+
+	// ring buffer of pending items; each is a String line or a byte[] of raw output
+	private final Object[] items;
+	private int head;    // index of oldest item
+	private int count;   // number of items in buffer
+	private boolean writing;   // true while the writer thread is writing items it has removed
+	private boolean closed;
+
+	// bytes written through the OutputStream interface that don't yet end in a newline
+	private ByteArrayOutputStream partialLine = new ByteArrayOutputStream(256);
+
+	/**
+	 * Constructs a writer that sends output to the given stream, which is
+	 * written to only by this writer's thread.
+	 */
+	public SplPipeWriter(OutputStream out, int capacity, boolean coalesceMouseEvents) {
+		this.out = new BufferedOutputStream(out, 65536);
+		this.items = new Object[capacity];
+		this.coalesceMouseEvents = coalesceMouseEvents;
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				writeLoop();
+			}
+		}, "SplPipeWriter");
+		thread.setDaemon(true);
+		thread.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			public void run() {
+				drain(SHUTDOWN_DRAIN_TIMEOUT_MS);
+			}
+		}));
+	}
+
+	/**
+	 * Returns a PrintStream that writes through this writer.
+	 */
+	public PrintStream getPrintStream() {
+		try {
+			return new PrintStream(this, /* autoflush */ false, "UTF-8");
+		} catch (UnsupportedEncodingException uee) {
+			return new PrintStream(this, false);
+		}
+	}
+
+	/**
+	 * Queues the given line of text to be written, followed by a line break.
+	 */
+	public void writeLine(String line) {
+		synchronized (lock) {
+			if (partialLine.size() > 0) {
+				// keep any half-written System.out output ahead of this line
+				enqueue(partialLine.toByteArray());
+				partialLine.reset();
+			}
+			enqueue(line);
+		}
+	}
+
+	/**
+	 * Queues the given line of text followed immediately by the given raw bytes,
+	 * with no other output in between.
+	 */
+	public void writeLineAndBytes(String line, byte[] bytes) {
+		synchronized (lock) {
+			flush();
+			if (!waitForSpace(2)) {
+				return;
+			}
+			put(line);
+			put(bytes);
+		}
+	}
+
+	/**
+	 * Waits until everything queued so far has been written and flushed,
+	 * or until the given number of milliseconds has passed (0 means no limit).
+	 */
+	public void drain(long timeoutMs) {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		synchronized (lock) {
+			while (count > 0 || writing) {
+				long wait = timeoutMs <= 0 ? 0 : deadline - System.currentTimeMillis();
+				if (timeoutMs > 0 && wait <= 0) {
+					return;
+				}
+				try {
+					lock.wait(wait);
+				} catch (InterruptedException ie) {
+					return;
+				}
+			}
+		}
+	}
+
+	// OutputStream methods, used by the PrintStream installed as System.out
+
+	@Override
+	public void write(int b) {
+		synchronized (lock) {
+			if (b == '\n') {
+				enqueue(stripCarriageReturn(new String(partialLine.toByteArray(), UTF_8)));
+				partialLine.reset();
+			} else {
+				partialLine.write(b);
+			}
+		}
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		synchronized (lock) {
+			int start = offset;
+			for (int i = offset; i < offset + length; i++) {
+				if (bytes[i] == '\n') {
+					partialLine.write(bytes, start, i - start);
+					enqueue(stripCarriageReturn(new String(partialLine.toByteArray(), UTF_8)));
+					partialLine.reset();
+					start = i + 1;
+				}
+			}
+			partialLine.write(bytes, start, offset + length - start);
+		}
+	}
+
+	@Override
+	public void flush() {
+		synchronized (lock) {
+			if (partialLine.size() > 0) {
+				enqueue(partialLine.toByteArray());
+				partialLine.reset();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		drain(SHUTDOWN_DRAIN_TIMEOUT_MS);
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+		out.close();
+	}
+
+	/*
+	 * Adds an item to the ring buffer, waiting for space if needed;
+	 * must be called while holding the lock.
+	 */
+	private void enqueue(Object item) {
+		if (coalesceMouseEvents && item instanceof String && isMouseMotionEvent((String) item)) {
+			if (count > 0) {
+				int tail = (head + count - 1) % items.length;
+				if (items[tail] instanceof String && isSameEventType((String) items[tail], (String) item)) {
+					items[tail] = item;
+					return;
+				}
+			}
+			if (count == items.length) {
+				// newer mouse motion will follow; don't make the UI wait for this one
+				return;
+			}
+		}
+		if (waitForSpace(1)) {
+			put(item);
+		}
+	}
+
+	/*
+	 * Waits until the ring buffer has room for the given number of items.
+	 * Returns false if the writer was closed or the thread interrupted.
+	 */
+	private boolean waitForSpace(int needed) {
+		while (count + needed > items.length && !closed) {
+			try {
+				lock.wait();
+			} catch (InterruptedException ie) {
+				return false;
+			}
+		}
+		return !closed;
+	}
+
+	private void put(Object item) {
+		items[(head + count) % items.length] = item;
+		count++;
+		lock.notifyAll();
+	}
+
+	private void writeLoop() {
+		Object[] batch = new Object[items.length];
+		while (true) {
+			int batchSize;
+			synchronized (lock) {
+				while (count == 0 && !closed) {
+					try {
+						lock.wait();
+					} catch (InterruptedException ie) {
+						// keep waiting
+					}
+				}
+				if (count == 0) {
+					return;
+				}
+				batchSize = count;
+				for (int i = 0; i < batchSize; i++) {
+					batch[i] = items[head];
+					items[head] = null;
+					head = (head + 1) % items.length;
+				}
+				count = 0;
+				writing = true;
+				lock.notifyAll();
+			}
+
+			try {
+				for (int i = 0; i < batchSize; i++) {
+					Object item = batch[i];
+					batch[i] = null;
+					if (item instanceof String) {
+						String line = (String) item;
+						out.write(line.getBytes(UTF_8));
+						out.write('\n');
+						if (isReply(line)) {
+							// C++ is blocked waiting for this; send it now
+							out.flush();
+						}
+					} else {
+						out.write((byte[]) item);
+					}
+				}
+				out.flush();
+			} catch (IOException ioe) {
+				// pipe is gone; nothing more can be written
+			}
+
+			synchronized (lock) {
+				writing = false;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private static boolean isReply(String line) {
+		return line.startsWith("result:")
+				|| line.startsWith("result_long:end")
+				|| line.startsWith("___jbe___ack___");
+	}
+
+	private static boolean isMouseMotionEvent(String line) {
+		return line.startsWith(MOUSE_MOVED_EVENT) || line.startsWith(MOUSE_DRAGGED_EVENT);
+	}
+
+	/*
+	 * Returns true if both lines are the same kind of mouse motion event in the
+	 * same window, i.e. they match up to the first comma: event:mouseMoved("windowId",
+	 */
+	private static boolean isSameEventType(String line1, String line2) {
+		int comma = line1.indexOf(',');
+		return comma > 0 && isMouseMotionEvent(line1)
+				&& comma == line2.indexOf(',') && line1.regionMatches(0, line2, 0, comma);
+	}
+
+	private static String stripCarriageReturn(String line) {
+		return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+	}
+}
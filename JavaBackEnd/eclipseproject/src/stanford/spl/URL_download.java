@@ -9,11 +9,9 @@ public class URL_download extends JBECommand {
 	// URL.download("http%3A%2F%2Fmartystepp.com%2F", "temp.foo")
 	public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
 		paramTokenScanner.verifyToken("(");
-		String urlString = SplPipeDecoder.readEncodedString(paramTokenScanner);
-		urlString = SplPipeDecoder.decode(urlString);
+		String urlString = SplPipeDecoder.readAndDecode(paramTokenScanner);
 		paramTokenScanner.verifyToken(",");
-		String tempfilename = SplPipeDecoder.readEncodedString(paramTokenScanner);
-		tempfilename = SplPipeDecoder.decode(tempfilename);
+		String tempfilename = SplPipeDecoder.readAndDecode(paramTokenScanner);
 		paramTokenScanner.verifyToken(")");
 		
 		// download from the given URL to a temp file
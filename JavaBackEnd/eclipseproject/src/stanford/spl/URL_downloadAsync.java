@@ -0,0 +1,51 @@
+/*
+ * @version 2016/12/13
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.*;
+import java.net.*;
+
+import acm.util.*;
+
+/**
+ * Starts a download like URL_download but returns immediately.  When the
+ * download finishes, an event is sent carrying the temp file name given by
+ * the C++ program and the same result code URL_download would have returned:
+ * event:urlDownloaded("tempfilename", result, time)
+ */
+public class URL_downloadAsync extends JBECommand {
+	@Override
+	public boolean isFireAndForget() {
+		return true;
+	}
+
+	// URL.downloadAsync("http%3A%2F%2Fmartystepp.com%2F", "temp.foo")
+	public void execute(TokenScanner paramTokenScanner, final JavaBackEnd paramJavaBackEnd) {
+		paramTokenScanner.verifyToken("(");
+		String urlString = SplPipeDecoder.readAndDecode(paramTokenScanner);
+		paramTokenScanner.verifyToken(",");
+		final String tempfilename = SplPipeDecoder.readAndDecode(paramTokenScanner);
+		paramTokenScanner.verifyToken(")");
+
+		// download from the given URL to a temp file
+		File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+		File tmpFile = new File(tmpDir, tempfilename);
+
+		UrlDownloader.getInstance().downloadAsync(urlString, tmpFile, /* resume */ false,
+				new UrlDownloader.DownloadListener() {
+			public void downloadFinished(String urlString, File file, IOException error) {
+				int result = 0;
+				if (error instanceof MalformedURLException) {
+					result = -42;
+				} else if (error != null) {
+					result = -43;
+				}
+				paramJavaBackEnd.acknowledgeEvent("event:urlDownloaded(\"%s\", %d, %d)",
+						SplPipeDecoder.encode(tempfilename), result, (long) paramJavaBackEnd.getEventTime());
+			}
+		});
+	}
+}
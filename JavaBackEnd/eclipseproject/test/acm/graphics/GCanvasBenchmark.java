@@ -0,0 +1,137 @@
+/*
+ * @version 2016/12/09
+ * - initial version
+ */
+
+package acm.graphics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Measures hit testing, repainting and z-order changes on a GCanvas holding
+ * increasing numbers of randomly placed rectangles and ovals, as in a
+ * particle simulation.  Each result is compared with the linear approach the
+ * canvas used before it kept a spatial index: testing every object from
+ * front to back, and repainting every object on every change.
+ * No window is shown; painting is done into an offscreen image.
+ *
+ * Usage: java acm.graphics.GCanvasBenchmark [objectCount ...]
+ */
+public class GCanvasBenchmark {
+	private static final int[] DEFAULT_COUNTS = {1000, 10000, 50000};
+	private static final int SIZE = 1000;
+	private static final int HIT_TESTS = 20000;
+	private static final int FRAMES = 20;
+	private static final int MOVED_PER_FRAME = 1;
+	private static final int REORDERS = 20000;
+
+	public static void main(String[] args) {
+		int[] counts = DEFAULT_COUNTS;
+		if (args.length > 0) {
+			counts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				counts[i] = Integer.parseInt(args[i]);
+			}
+		}
+		for (int count : counts) {
+			run(count);
+		}
+	}
+
+	private static void run(int count) {
+		Random random = new Random(42);
+		GCanvas canvas = new GCanvas();
+		canvas.setSize(SIZE, SIZE);
+		canvas.setAutoRepaintFlag(false);
+		GObject[] objects = new GObject[count];
+		for (int i = 0; i < count; i++) {
+			double x = random.nextDouble() * SIZE;
+			double y = random.nextDouble() * SIZE;
+			double size = 2 + random.nextDouble() * 8;
+			objects[i] = (i % 2 == 0) ? new GRect(x, y, size, size) : new GOval(x, y, size, size);
+			canvas.add(objects[i]);
+		}
+
+		// hit tests
+		double[] points = new double[2 * HIT_TESTS];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = random.nextDouble() * SIZE;
+		}
+		int hits = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < HIT_TESTS; i++) {
+			if (canvas.getElementAt(points[2 * i], points[2 * i + 1]) != null) hits++;
+		}
+		double indexedHit = (System.nanoTime() - start) / 1e3 / HIT_TESTS;
+		int linearTests = Math.min(HIT_TESTS, Math.max(100, HIT_TESTS * 1000 / count));
+		start = System.nanoTime();
+		for (int i = 0; i < linearTests; i++) {
+			if (linearElementAt(canvas, points[2 * i], points[2 * i + 1]) != null) hits--;
+		}
+		double linearHit = (System.nanoTime() - start) / 1e3 / linearTests;
+
+		// repaint after an object moves, clipped to what changed vs. everything
+		BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		double fullPaint = 0;
+		double dirtyPaint = 0;
+		for (int frame = 0; frame < FRAMES; frame++) {
+			Rectangle dirty = null;
+			for (int i = 0; i < MOVED_PER_FRAME; i++) {
+				GObject gobj = objects[random.nextInt(count)];
+				dirty = union(dirty, gobj.getBounds());
+				gobj.move(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3);
+				dirty = union(dirty, gobj.getBounds());
+			}
+			dirty.grow(GObjectList.PAINT_MARGIN + 1, GObjectList.PAINT_MARGIN + 1);
+
+			Graphics g = image.createGraphics();
+			g.setClip(dirty);
+			start = System.nanoTime();
+			canvas.paintComponent(g);
+			dirtyPaint += (System.nanoTime() - start) / 1e6;
+			g.dispose();
+
+			g = image.createGraphics();
+			start = System.nanoTime();
+			canvas.paintComponent(g);
+			fullPaint += (System.nanoTime() - start) / 1e6;
+			g.dispose();
+		}
+
+		// z-order changes
+		start = System.nanoTime();
+		for (int i = 0; i < REORDERS; i++) {
+			GObject gobj = objects[random.nextInt(count)];
+			if (i % 2 == 0) {
+				gobj.sendToFront();
+			} else {
+				gobj.sendToBack();
+			}
+		}
+		double reorder = (System.nanoTime() - start) / 1e3 / REORDERS;
+
+		System.out.printf("%d objects:%n", count);
+		System.out.printf("  hit test:   indexed %.2f us, linear %.2f us (%.1fx)%n",
+				indexedHit, linearHit, linearHit / indexedHit);
+		System.out.printf("  repaint:    dirty region %.2f ms, full %.2f ms (%.1fx)%n",
+				dirtyPaint / FRAMES, fullPaint / FRAMES, fullPaint / dirtyPaint);
+		System.out.printf("  z-order:    %.2f us per sendToFront/sendToBack%n", reorder);
+		if (hits == Integer.MIN_VALUE) System.out.println();   // keep the loops from being optimized away
+	}
+
+	private static GObject linearElementAt(GCanvas canvas, double x, double y) {
+		for (int i = canvas.getElementCount() - 1; i >= 0; i--) {
+			GObject gobj = canvas.getElement(i);
+			if (gobj.contains(x, y)) return gobj;
+		}
+		return null;
+	}
+
+	private static Rectangle union(Rectangle r, GRectangle bounds) {
+		Rectangle next = new Rectangle((int) Math.floor(bounds.getX()), (int) Math.floor(bounds.getY()),
+				(int) Math.ceil(bounds.getWidth()) + 1, (int) Math.ceil(bounds.getHeight()) + 1);
+		return (r == null) ? next : r.union(next);
+	}
+}
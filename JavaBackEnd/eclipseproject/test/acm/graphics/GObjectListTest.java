@@ -0,0 +1,178 @@
+/*
+ * @version 2016/12/09
+ * - initial version
+ */
+
+package acm.graphics;
+
+import static org.junit.Assert.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that GObjectList's spatial index gives the same hit tests and the
+ * same painted pixels as testing and painting every object in z order.
+ */
+public class GObjectListTest {
+	private static final int SIZE = 400;
+	private static final int COUNT = 600;
+
+	@Test
+	public void hitTestsMatchLinearSearch() {
+		Random random = new Random(42);
+		GCompound compound = new GCompound();
+		GObject[] objects = addRandomObjects(compound, random);
+		checkHitTests(compound, random);
+
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < 30; i++) {
+				GObject gobj = objects[random.nextInt(COUNT)];
+				switch (random.nextInt(6)) {
+				case 0:
+					gobj.move(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20);
+					break;
+				case 1:
+					gobj.sendToFront();
+					break;
+				case 2:
+					gobj.sendToBack();
+					break;
+				case 3:
+					gobj.sendForward();
+					break;
+				case 4:
+					gobj.sendBackward();
+					break;
+				default:
+					// grows some objects past the cell limit into the oversized list
+					((GResizable) gobj).setSize(random.nextDouble() * SIZE, random.nextDouble() * SIZE);
+					break;
+				}
+			}
+			// changed objects must be found both before and after the index is updated
+			checkHitTests(compound, random);
+			compound.updateIndex(null);
+			checkHitTests(compound, random);
+		}
+
+		for (int i = 0; i < COUNT; i += 3) {
+			compound.remove(objects[i]);
+		}
+		checkHitTests(compound, random);
+	}
+
+	@Test
+	public void dirtyRegionRepaintMatchesFullRepaint() {
+		Random random = new Random(17);
+		GCompound compound = new GCompound();
+		GObject[] objects = addRandomObjects(compound, random);
+		compound.updateIndex(null);
+
+		BufferedImage incremental = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		paint(compound, incremental, null);
+		BufferedImage full = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		for (int frame = 0; frame < 30; frame++) {
+			for (int i = 0; i < 3; i++) {
+				GObject gobj = objects[random.nextInt(COUNT)];
+				gobj.move(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5);
+				if (i == 0) {
+					gobj.setColor(new Color(random.nextInt(0xffffff)));
+				}
+			}
+			GObjectList.Damage damage = new GObjectList.Damage();
+			compound.updateIndex(damage);
+			assertFalse(damage.isFull());
+			assertNotNull(damage.getArea());
+			paint(compound, incremental, damage.getArea());
+			paint(compound, full, null);
+			assertSameImage("frame " + frame, full, incremental);
+		}
+	}
+
+	@Test
+	public void unchangedListHasNoDamage() {
+		GCompound compound = new GCompound();
+		addRandomObjects(compound, new Random(1));
+		compound.updateIndex(null);
+		GObjectList.Damage damage = new GObjectList.Damage();
+		compound.updateIndex(damage);
+		assertFalse(damage.isFull());
+		assertNull(damage.getArea());
+	}
+
+	@Test
+	public void serializedListKeepsOrderAndIndex() throws Exception {
+		Random random = new Random(5);
+		GCompound compound = new GCompound();
+		addRandomObjects(compound, random);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(compound);
+		out.close();
+		GCompound copy = (GCompound) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+		assertEquals(compound.getElementCount(), copy.getElementCount());
+		for (int i = 0; i < compound.getElementCount(); i++) {
+			assertEquals(compound.getElement(i).getBounds(), copy.getElement(i).getBounds());
+		}
+		checkHitTests(copy, random);
+	}
+
+	private static GObject[] addRandomObjects(GCompound compound, Random random) {
+		GObject[] objects = new GObject[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			double x = random.nextDouble() * SIZE;
+			double y = random.nextDouble() * SIZE;
+			double size = 2 + random.nextDouble() * 20;
+			objects[i] = (i % 2 == 0) ? new GRect(x, y, size, size) : new GOval(x, y, size, size);
+			((GFillable) objects[i]).setFilled(true);
+			compound.add(objects[i]);
+		}
+		return objects;
+	}
+
+	private static void checkHitTests(GCompound compound, Random random) {
+		for (int i = 0; i < 2000; i++) {
+			double x = random.nextDouble() * SIZE;
+			double y = random.nextDouble() * SIZE;
+			assertSame("hit test at (" + x + ", " + y + ")", linearElementAt(compound, x, y), compound.getElementAt(x, y));
+		}
+	}
+
+	private static GObject linearElementAt(GCompound compound, double x, double y) {
+		for (int i = compound.getElementCount() - 1; i >= 0; i--) {
+			GObject gobj = compound.getElement(i);
+			if (gobj.contains(x, y)) {
+				return gobj;
+			}
+		}
+		return null;
+	}
+
+	private static void paint(GCompound compound, BufferedImage image, Rectangle clip) {
+		Graphics2D g = image.createGraphics();
+		if (clip != null) {
+			g.setClip(clip);
+		}
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, SIZE, SIZE);
+		compound.paint(g);
+		g.dispose();
+	}
+
+	private static void assertSameImage(String message, BufferedImage expected, BufferedImage actual) {
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+					fail(message + ": pixel (" + x + ", " + y + ") differs");
+				}
+			}
+		}
+	}
+}
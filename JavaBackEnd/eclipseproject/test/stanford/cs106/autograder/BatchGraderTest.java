@@ -0,0 +1,161 @@
+/*
+ * @version 2016/12/28
+ * - added Runtime.exit and Runtime.halt from a class other than the main class
+ * @version 2016/12/26
+ * - initial version
+ */
+
+package stanford.cs106.autograder;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import javax.tools.*;
+
+import org.junit.*;
+
+/**
+ * Checks the results BatchGrader gives for programs that finish, call
+ * System.exit, start threads of their own, or leave threads running that
+ * can't be stopped.
+ */
+public class BatchGraderTest {
+	private static Path classDir;
+
+	@BeforeClass
+	public static void compileSubmissions() throws IOException {
+		classDir = Files.createTempDirectory("batchgrader");
+		compile("Hello",
+				"public class Hello {\n"
+				+ "  public static void main(String[] args) throws Exception {\n"
+				+ "    java.io.BufferedReader in = new java.io.BufferedReader(new java.io.InputStreamReader(System.in));\n"
+				+ "    System.out.println(\"hello, \" + in.readLine());\n"
+				+ "  }\n"
+				+ "}\n");
+		compile("Exits",
+				"public class Exits {\n"
+				+ "  public static void main(String[] args) {\n"
+				+ "    System.out.println(\"bye\");\n"
+				+ "    System.exit(3);\n"
+				+ "  }\n"
+				+ "}\n");
+		compile("Halts",
+				"public class Halts {\n"
+				+ "  public static void main(String[] args) {\n"
+				+ "    switch (args.length) {\n"
+				+ "      case 0: System.out.println(\"none\"); break;\n"
+				+ "      case 1: case 2: case 3: break;\n"
+				+ "    }\n"
+				+ "    switch (args.length * 1000) {\n"
+				+ "      case 1: case 1000: case 1000000: break;\n"
+				+ "      default: HaltsHelper.stop(args.length == 0 ? 4 : 5);\n"
+				+ "    }\n"
+				+ "  }\n"
+				+ "}\n"
+				+ "class HaltsHelper {\n"
+				+ "  static void stop(int status) {\n"
+				+ "    Runtime.getRuntime().exit(status + 1);\n"
+				+ "  }\n"
+				+ "  static {\n"
+				+ "    try {\n"
+				+ "      Runtime.getRuntime().halt(-1);\n"
+				+ "    } catch (RuntimeException e) {\n"
+				+ "      System.out.println(\"halt \" + e.getMessage());\n"
+				+ "    }\n"
+				+ "  }\n"
+				+ "}\n");
+		compile("Threads",
+				"public class Threads {\n"
+				+ "  public static void main(String[] args) throws Exception {\n"
+				+ "    Thread t = new Thread(new Runnable() {\n"
+				+ "      public void run() {\n"
+				+ "        java.util.Scanner in = new java.util.Scanner(System.in);\n"
+				+ "        System.out.println(\"thread read \" + in.nextLine());\n"
+				+ "      }\n"
+				+ "    });\n"
+				+ "    t.start();\n"
+				+ "    t.join();\n"
+				+ "  }\n"
+				+ "}\n");
+		compile("Stubborn",
+				"public class Stubborn {\n"
+				+ "  public static void main(String[] args) {\n"
+				+ "    Thread t = new Thread(new Runnable() {\n"
+				+ "      public void run() {\n"
+				+ "        while (true) {\n"
+				+ "          try {\n"
+				+ "            Thread.sleep(10);\n"
+				+ "          } catch (Throwable t) {\n"
+				+ "            System.out.println(\"ignored \" + t);\n"
+				+ "          }\n"
+				+ "        }\n"
+				+ "      }\n"
+				+ "    }, \"stubborn\");\n"
+				+ "    t.start();\n"
+				+ "  }\n"
+				+ "}\n");
+	}
+
+	@Test
+	public void completedProgramReadsItsInput() {
+		BatchGrader.Result result = grade("Hello", "Ann\n");
+		assertEquals(BatchGrader.STATUS_COMPLETED, result.getStatus());
+		assertEquals("hello, Ann\n", result.getOutput().replace("\r", ""));
+	}
+
+	@Test
+	public void exitEndsOnlyTheSubmission() {
+		BatchGrader.Result result = grade("Exits", "");
+		assertEquals(BatchGrader.STATUS_EXITED, result.getStatus());
+		assertEquals(3, result.getExitCode());
+		assertEquals("bye\n", result.getOutput().replace("\r", ""));
+	}
+
+	@Test
+	public void runtimeExitAndHaltEndOnlyTheSubmission() {
+		BatchGrader.Result result = grade("Halts", "");
+		assertEquals(BatchGrader.STATUS_EXITED, result.getStatus());
+		assertEquals(5, result.getExitCode());
+		assertEquals("none\nhalt Runtime.halt(-1)\n", result.getOutput().replace("\r", ""));
+	}
+
+	@Test
+	public void threadsStartedBySubmissionShareItsInputAndOutput() {
+		List<BatchGrader.Submission> submissions = new ArrayList<BatchGrader.Submission>();
+		for (int i = 0; i < 8; i++) {
+			submissions.add(new BatchGrader.Submission("s" + i, classDir.toFile(), "Threads", "line " + i + "\n"));
+		}
+		List<BatchGrader.Result> results = new BatchGrader().grade(submissions);
+		for (int i = 0; i < 8; i++) {
+			assertEquals(BatchGrader.STATUS_COMPLETED, results.get(i).getStatus());
+			assertEquals("thread read line " + i + "\n", results.get(i).getOutput().replace("\r", ""));
+		}
+	}
+
+	@Test
+	public void threadThatCannotBeStoppedIsReported() {
+		BatchGrader.Result result = grade("Stubborn", "");
+		assertEquals(BatchGrader.STATUS_UNKILLABLE, result.getStatus());
+		assertTrue(result.getException(), result.getException().contains("stubborn"));
+		assertTrue(result.getException(), result.getException().contains(BatchGrader.STATUS_COMPLETED));
+		assertTrue(result.getOutput().contains("ignored java.lang.InterruptedException"));
+
+		// the thread keeps running, but later submissions are graded as usual
+		assertEquals("hello, Bob\n", grade("Hello", "Bob\n").getOutput().replace("\r", ""));
+	}
+
+	private static BatchGrader.Result grade(String className, String input) {
+		return new BatchGrader().grade(new BatchGrader.Submission(className, classDir.toFile(), className, input));
+	}
+
+	private static void compile(String className, String source) throws IOException {
+		Path file = classDir.resolve(className + ".java");
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, "-d", classDir.toString(), file.toString()));
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * @version 2016/12/15
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Measures how long it takes to find every word on random 4x4 and 5x5 Boggle
+ * boards, solving each board two ways: the usual recursive backtracking that
+ * builds a prefix string and calls containsPrefix at every step, and the same
+ * search walking a Lexicon.Cursor.  Both must find the same words.
+ *
+ * If no dictionary file is given, a lexicon of pseudo-words with English
+ * letter frequencies is generated, which gives similar pruning behavior.
+ *
+ * Usage: java stanford.cs106.collections.BoggleBenchmark [dictionaryFile]
+ */
+public class BoggleBenchmark {
+	private static final int[] BOARD_SIZES = {4, 5};
+	private static final int BOARDS = 200;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MIN_WORD_LENGTH = 4;
+	private static final int GENERATED_WORDS = 120000;
+
+	// English letter frequencies in percent, A to Z
+	private static final double[] LETTER_FREQUENCIES = {
+		8.2, 1.5, 2.8, 4.3, 12.7, 2.2, 2.0, 6.1, 7.0, 0.2, 0.8, 4.0, 2.4,
+		6.7, 7.5, 1.9, 0.1, 6.0, 6.3, 9.1, 2.8, 1.0, 2.4, 0.2, 2.0, 0.1
+	};
+
+	public static void main(String[] args) {
+		Random rand = new Random(42);
+		Lexicon lex;
+		long start = System.nanoTime();
+		if (args.length > 0) {
+			lex = new Lexicon(args[0]);
+		} else {
+			lex = generateLexicon(rand);
+		}
+		System.out.printf("lexicon: %d words, %d prefixes, loaded in %.1f ms%n",
+				lex.size(), lex.prefixCount(), (System.nanoTime() - start) / 1e6);
+
+		if (args.length > 0) {
+			File compiled = new File(System.getProperty("java.io.tmpdir"), "BoggleBenchmark.lex");
+			lex.saveCompiled(compiled);
+			start = System.nanoTime();
+			Lexicon mapped = Lexicon.loadCompiled(compiled);
+			System.out.printf("compiled image: %d bytes, mapped in %.1f ms%n",
+					compiled.length(), (System.nanoTime() - start) / 1e6);
+			lex = mapped;
+		}
+
+		for (int size : BOARD_SIZES) {
+			char[][][] boards = new char[BOARDS][][];
+			for (int i = 0; i < BOARDS; i++) {
+				boards[i] = randomBoard(rand, size);
+			}
+			for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+				long stringTime = 0;
+				long cursorTime = 0;
+				int wordCount = 0;
+				for (char[][] board : boards) {
+					long t0 = System.nanoTime();
+					Set<String> expected = solveWithStrings(board, lex);
+					long t1 = System.nanoTime();
+					Set<String> actual = solveWithCursor(board, lex);
+					long t2 = System.nanoTime();
+					if (!expected.equals(actual)) {
+						throw new IllegalStateException("solvers disagree: " + expected + " vs " + actual);
+					}
+					stringTime += t1 - t0;
+					cursorTime += t2 - t1;
+					wordCount += actual.size();
+				}
+				if (round == WARMUP_ROUNDS) {
+					System.out.printf("%dx%d: %.1f words/board; containsPrefix %.1f us/board, cursor %.1f us/board (%.1fx)%n",
+							size, size, (double) wordCount / BOARDS,
+							stringTime / 1e3 / BOARDS, cursorTime / 1e3 / BOARDS,
+							(double) stringTime / cursorTime);
+				}
+			}
+		}
+
+		String letters = "ETAOINSR";
+		start = System.nanoTime();
+		List<String> subwords = lex.subwordsOf(letters);
+		System.out.printf("subwordsOf(%s): %d words in %.2f ms%n",
+				letters, subwords.size(), (System.nanoTime() - start) / 1e6);
+		String pattern = "?A*E?";
+		start = System.nanoTime();
+		List<String> matches = lex.wordsMatching(pattern);
+		System.out.printf("wordsMatching(%s): %d words in %.2f ms%n",
+				pattern, matches.size(), (System.nanoTime() - start) / 1e6);
+	}
+
+	private static Lexicon generateLexicon(Random rand) {
+		Lexicon lex = new Lexicon();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < GENERATED_WORDS; i++) {
+			sb.setLength(0);
+			int length = 3 + rand.nextInt(6) + rand.nextInt(4);
+			for (int j = 0; j < length; j++) {
+				sb.append(randomLetter(rand));
+			}
+			lex.add(sb.toString());
+		}
+		lex.size();
+		return lex;
+	}
+
+	private static char randomLetter(Random rand) {
+		double r = rand.nextDouble() * 100.0;
+		for (int i = 0; i < LETTER_FREQUENCIES.length; i++) {
+			r -= LETTER_FREQUENCIES[i];
+			if (r < 0) {
+				return (char) ('A' + i);
+			}
+		}
+		return 'E';
+	}
+
+	private static char[][] randomBoard(Random rand, int size) {
+		char[][] board = new char[size][size];
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				board[r][c] = randomLetter(rand);
+			}
+		}
+		return board;
+	}
+
+	private static Set<String> solveWithStrings(char[][] board, Lexicon lex) {
+		Set<String> words = new HashSet<String>();
+		boolean[][] used = new boolean[board.length][board.length];
+		for (int r = 0; r < board.length; r++) {
+			for (int c = 0; c < board.length; c++) {
+				solveWithStrings(board, lex, r, c, "", used, words);
+			}
+		}
+		return words;
+	}
+
+	private static void solveWithStrings(char[][] board, Lexicon lex, int r, int c,
+			String prefix, boolean[][] used, Set<String> words) {
+		if (r < 0 || c < 0 || r >= board.length || c >= board.length || used[r][c]) {
+			return;
+		}
+		String word = prefix + board[r][c];
+		if (!lex.containsPrefix(word)) {
+			return;
+		}
+		if (word.length() >= MIN_WORD_LENGTH && lex.contains(word)) {
+			words.add(word);
+		}
+		used[r][c] = true;
+		for (int dr = -1; dr <= 1; dr++) {
+			for (int dc = -1; dc <= 1; dc++) {
+				solveWithStrings(board, lex, r + dr, c + dc, word, used, words);
+			}
+		}
+		used[r][c] = false;
+	}
+
+	private static Set<String> solveWithCursor(char[][] board, Lexicon lex) {
+		Set<String> words = new HashSet<String>();
+		boolean[][] used = new boolean[board.length][board.length];
+		Lexicon.Cursor cursor = lex.cursor();
+		for (int r = 0; r < board.length; r++) {
+			for (int c = 0; c < board.length; c++) {
+				solveWithCursor(board, cursor, r, c, used, words);
+			}
+		}
+		return words;
+	}
+
+	private static void solveWithCursor(char[][] board, Lexicon.Cursor cursor, int r, int c,
+			boolean[][] used, Set<String> words) {
+		if (r < 0 || c < 0 || r >= board.length || c >= board.length || used[r][c]
+				|| !cursor.advance(board[r][c])) {
+			return;
+		}
+		if (cursor.length() >= MIN_WORD_LENGTH && cursor.isWord()) {
+			words.add(cursor.toString());
+		}
+		if (cursor.hasChildren()) {
+			used[r][c] = true;
+			for (int dr = -1; dr <= 1; dr++) {
+				for (int dc = -1; dc <= 1; dc++) {
+					solveWithCursor(board, cursor, r + dr, c + dc, used, words);
+				}
+			}
+			used[r][c] = false;
+		}
+		cursor.retreat();
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * @version 2016/12/19
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks Grid's neighborhood operations against plain nested loops that
+ * read every neighbor with inBounds and get, on grids small enough to be
+ * one tile and big enough to be split into many tiles run in parallel.
+ */
+public class GridTest {
+	// the last two sizes span several tiles, with partial tiles at the edges
+	private static final int[][] SIZES = {{1, 1}, {7, 5}, {150, 1100}, {530, 90}};
+
+	private static final Grid.NeighborFunction<Boolean, Boolean> LIFE =
+			new Grid.NeighborFunction<Boolean, Boolean>() {
+		public Boolean apply(Grid.Neighborhood<Boolean> cells) {
+			int live = cells.count(Boolean.TRUE);
+			return live == 3 || (live == 2 && cells.get());
+		}
+	};
+
+	@Test
+	public void stepMatchesLoops() {
+		for (int[] size : SIZES) {
+			Grid<Boolean> expected = randomGrid(new Random(42), size[0], size[1]);
+			Grid<Boolean> actual = randomGrid(new Random(42), size[0], size[1]);
+			for (int generation = 0; generation < 4; generation++) {
+				expected = loopGeneration(expected);
+				actual.step(1, false, LIFE);
+				assertEquals(size[0] + "x" + size[1] + " generation " + generation, expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void mapNeighborsMatchesLoops() {
+		final int radius = 2;
+		final int outside = -1;
+		Grid.NeighborFunction<Integer, Integer> weightedSum = new Grid.NeighborFunction<Integer, Integer>() {
+			public Integer apply(Grid.Neighborhood<Integer> cells) {
+				int sum = 0;
+				for (int dr = -radius; dr <= radius; dr++) {
+					for (int dc = -radius; dc <= radius; dc++) {
+						sum += cells.get(dr, dc) * (3 * dr + dc + 13);
+					}
+				}
+				return sum + cells.row() * 1000003 + cells.col();
+			}
+		};
+		for (int[] size : SIZES) {
+			Grid<Integer> grid = randomIntGrid(new Random(7), size[0], size[1]);
+			Grid<Integer> actual = grid.mapNeighbors(radius, outside, weightedSum);
+			for (int row = 0; row < grid.numRows(); row++) {
+				for (int col = 0; col < grid.numCols(); col++) {
+					int sum = 0;
+					for (int dr = -radius; dr <= radius; dr++) {
+						for (int dc = -radius; dc <= radius; dc++) {
+							int value = grid.inBounds(row + dr, col + dc) ? grid.get(row + dr, col + dc) : outside;
+							sum += value * (3 * dr + dc + 13);
+						}
+					}
+					assertEquals("(" + row + ", " + col + ")", sum + row * 1000003 + col, (int) actual.get(row, col));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void convolveClampsToEdges() {
+		double[][] kernel = {
+			{1, 2, 0},
+			{-1, 4, 0.5},
+			{0, 3, -2},
+		};
+		for (int[] size : SIZES) {
+			Grid<Integer> grid = randomIntGrid(new Random(3), size[0], size[1]);
+			Grid<Double> actual = grid.convolve(kernel);
+			for (int row = 0; row < grid.numRows(); row++) {
+				for (int col = 0; col < grid.numCols(); col++) {
+					double sum = 0;
+					for (int kr = 0; kr < 3; kr++) {
+						for (int kc = 0; kc < 3; kc++) {
+							int r = Math.max(0, Math.min(grid.numRows() - 1, row + kr - 1));
+							int c = Math.max(0, Math.min(grid.numCols() - 1, col + kc - 1));
+							sum += kernel[kr][kc] * grid.get(r, c);
+						}
+					}
+					assertEquals("(" + row + ", " + col + ")", sum, actual.get(row, col), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void mapNeighborsLeavesGridUnchanged() {
+		Grid<Boolean> grid = randomGrid(new Random(5), 200, 200);
+		Grid<Boolean> copy = randomGrid(new Random(5), 200, 200);
+		Grid<Boolean> next = grid.mapNeighbors(new Grid.NeighborFunction<Boolean, Boolean>() {
+			public Boolean apply(Grid.Neighborhood<Boolean> cells) {
+				// null outside the edges
+				int live = 0;
+				for (int dr = -1; dr <= 1; dr++) {
+					for (int dc = -1; dc <= 1; dc++) {
+						if ((dr != 0 || dc != 0) && Boolean.TRUE.equals(cells.get(dr, dc))) {
+							live++;
+						}
+					}
+				}
+				return live == 3 || (live == 2 && cells.get());
+			}
+		});
+		assertEquals(copy, grid);
+		assertEquals(loopGeneration(copy), next);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void evenKernelIsRejected() {
+		randomIntGrid(new Random(1), 4, 4).convolve(new double[][] {{1, 1}, {1, 1}});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void raggedKernelIsRejected() {
+		randomIntGrid(new Random(1), 4, 4).convolve(new double[][] {{1, 1, 1}, {1}, {1, 1, 1}});
+	}
+
+	/*
+	 * Computes the next generation with get/set and bounds-checked neighbor counting.
+	 */
+	private static Grid<Boolean> loopGeneration(Grid<Boolean> grid) {
+		Grid<Boolean> next = new Grid<Boolean>(grid.numRows(), grid.numCols());
+		for (int row = 0; row < grid.numRows(); row++) {
+			for (int col = 0; col < grid.numCols(); col++) {
+				int live = 0;
+				for (int dr = -1; dr <= 1; dr++) {
+					for (int dc = -1; dc <= 1; dc++) {
+						if ((dr != 0 || dc != 0) && grid.inBounds(row + dr, col + dc)
+								&& grid.get(row + dr, col + dc)) {
+							live++;
+						}
+					}
+				}
+				next.set(row, col, live == 3 || (live == 2 && grid.get(row, col)));
+			}
+		}
+		return next;
+	}
+
+	private static Grid<Boolean> randomGrid(Random rand, int rows, int cols) {
+		Grid<Boolean> grid = new Grid<Boolean>(rows, cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				grid.set(row, col, rand.nextInt(4) == 0);
+			}
+		}
+		return grid;
+	}
+
+	private static Grid<Integer> randomIntGrid(Random rand, int rows, int cols) {
+		Grid<Integer> grid = new Grid<Integer>(rows, cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				grid.set(row, col, rand.nextInt(100) - 50);
+			}
+		}
+		return grid;
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * @version 2016/12/28
+ * - added lookupsBetweenAddsSeeEveryWord
+ * @version 2016/12/15
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.junit.*;
+
+/**
+ * Checks Lexicon's cursors, pattern matching and anagram searches against
+ * straightforward searches over every word, on a lexicon of pseudo-words
+ * with English letter frequencies.
+ */
+public class LexiconTest {
+	private static final int GENERATED_WORDS = 40000;
+	private static final int MIN_WORD_LENGTH = 4;
+
+	// English letter frequencies in percent, A to Z
+	private static final double[] LETTER_FREQUENCIES = {
+		8.2, 1.5, 2.8, 4.3, 12.7, 2.2, 2.0, 6.1, 7.0, 0.2, 0.8, 4.0, 2.4,
+		6.7, 7.5, 1.9, 0.1, 6.0, 6.3, 9.1, 2.8, 1.0, 2.4, 0.2, 2.0, 0.1
+	};
+
+	private static Lexicon lex;
+	private static List<String> words;
+
+	@BeforeClass
+	public static void createLexicon() {
+		Random rand = new Random(42);
+		TreeSet<String> sorted = new TreeSet<String>();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < GENERATED_WORDS; i++) {
+			sb.setLength(0);
+			int length = 1 + rand.nextInt(6) + rand.nextInt(5);
+			for (int j = 0; j < length; j++) {
+				sb.append(randomLetter(rand));
+			}
+			sorted.add(sb.toString());
+		}
+		words = new ArrayList<String>(sorted);
+		lex = new Lexicon();
+		for (String word : words) {
+			lex.add(word.toLowerCase());
+		}
+	}
+
+	@Test
+	public void iteratesWordsInOrder() {
+		assertEquals(words.size(), lex.size());
+		List<String> actual = new ArrayList<String>();
+		for (String word : lex) {
+			actual.add(word);
+		}
+		assertEquals(words, actual);
+	}
+
+	@Test
+	public void cursorSolvesBoggleLikeContainsPrefix() {
+		Random rand = new Random(7);
+		for (int size = 3; size <= 5; size++) {
+			for (int i = 0; i < 40; i++) {
+				char[][] board = randomBoard(rand, size);
+				assertEquals(solveWithStrings(board), solveWithCursor(board));
+			}
+		}
+	}
+
+	@Test
+	public void cursorWalksPrefixes() {
+		Lexicon small = new Lexicon();
+		small.add("car");
+		small.add("cart");
+		small.add("cat");
+		Lexicon.Cursor cursor = small.cursor();
+		small.add("dog");
+		assertEquals(0, cursor.length());
+		assertFalse(cursor.isWord());
+		assertTrue(cursor.advance('c'));
+		assertTrue(cursor.advance('A'));
+		assertTrue(cursor.advance('r'));
+		assertEquals("CAR", cursor.toString());
+		assertTrue(cursor.isWord());
+		assertTrue(cursor.hasChildren());
+		assertFalse(cursor.advance('s'));
+		assertEquals(3, cursor.length());
+		assertTrue(cursor.advance('t'));
+		assertTrue(cursor.isWord());
+		assertFalse(cursor.hasChildren());
+		cursor.retreat();
+		cursor.retreat();
+		assertTrue(cursor.advance('t'));
+		assertEquals("CAT", cursor.toString());
+		cursor.reset();
+		// words added after the cursor was created are not seen by it
+		assertFalse(cursor.advance('d'));
+		assertTrue(small.cursor().advance('d'));
+	}
+
+	@Test
+	public void wordsMatchingFindsSameWordsAsRegex() {
+		String[] patterns = {"?A*E?", "*", "S*", "*ING", "??", "T?E*R", "*Q*", "A*A*A", "E", "?", "XYZZY", "*E*E*E*"};
+		for (String pattern : patterns) {
+			Pattern regex = Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+			List<String> expected = new ArrayList<String>();
+			for (String word : words) {
+				if (regex.matcher(word).matches()) {
+					expected.add(word);
+				}
+			}
+			assertEquals(pattern, expected, lex.wordsMatching(pattern));
+			assertEquals(pattern, expected, lex.wordsMatching(pattern.toLowerCase()));
+		}
+	}
+
+	@Test
+	public void subwordsAndAnagramsMatchLetterCounts() {
+		String[] letterSets = {"ETAOINSR", "AABBE", "", "QQQ", "STARE"};
+		for (String letters : letterSets) {
+			List<String> subwords = new ArrayList<String>();
+			List<String> anagrams = new ArrayList<String>();
+			for (String word : words) {
+				int[] counts = letterCounts(letters);
+				boolean fits = true;
+				for (int i = 0; i < word.length() && fits; i++) {
+					fits = --counts[word.charAt(i) - 'A'] >= 0;
+				}
+				if (fits) {
+					subwords.add(word);
+					if (word.length() == letters.length()) {
+						anagrams.add(word);
+					}
+				}
+			}
+			assertEquals(letters, subwords, lex.subwordsOf(letters));
+			assertEquals(letters, anagrams, lex.anagramsOf(letters.toLowerCase()));
+		}
+	}
+
+	@Test
+	public void lookupsBetweenAddsSeeEveryWord() {
+		Lexicon small = new Lexicon();
+		List<String> added = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			String word = words.get(i * 97);
+			small.add(word);
+			added.add(word);
+			for (String w : added) {
+				assertTrue(w, small.contains(w));
+				assertTrue(w, small.containsPrefix(w.substring(0, 1)));
+			}
+			if (i % 50 == 0) {
+				// wordsMatching merges the pending words without changing the lexicon
+				assertEquals(small.size(), small.wordsMatching("*").size());
+			}
+			assertEquals(added.size(), small.size());
+		}
+		Collections.sort(added);
+		List<String> actual = new ArrayList<String>();
+		for (String word : small) {
+			actual.add(word);
+		}
+		assertEquals(added, actual);
+	}
+
+	@Test
+	public void compiledImageRoundTrips() throws Exception {
+		File file = File.createTempFile("lexicon", ".lex");
+		try {
+			lex.saveCompiled(file);
+			Lexicon loaded = Lexicon.loadCompiled(file);
+			assertEquals(lex, loaded);
+			assertEquals(lex.prefixCount(), loaded.prefixCount());
+			assertEquals(lex.wordsMatching("T?E*"), loaded.wordsMatching("T?E*"));
+			loaded.add("zzzzzz");
+			assertTrue(loaded.contains("ZZZZZZ"));
+			assertTrue(loaded.containsPrefix("zzz"));
+			assertEquals(lex.size() + 1, loaded.size());
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static int[] letterCounts(String letters) {
+		int[] counts = new int[26];
+		for (int i = 0; i < letters.length(); i++) {
+			counts[letters.charAt(i) - 'A']++;
+		}
+		return counts;
+	}
+
+	private static char randomLetter(Random rand) {
+		double r = rand.nextDouble() * 100.0;
+		for (int i = 0; i < LETTER_FREQUENCIES.length; i++) {
+			r -= LETTER_FREQUENCIES[i];
+			if (r < 0) {
+				return (char) ('A' + i);
+			}
+		}
+		return 'E';
+	}
+
+	private static char[][] randomBoard(Random rand, int size) {
+		char[][] board = new char[size][size];
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				board[r][c] = randomLetter(rand);
+			}
+		}
+		return board;
+	}
+
+	private static Set<String> solveWithStrings(char[][] board) {
+		Set<String> found = new TreeSet<String>();
+		boolean[][] used = new boolean[board.length][board.length];
+		for (int r = 0; r < board.length; r++) {
+			for (int c = 0; c < board.length; c++) {
+				solveWithStrings(board, r, c, "", used, found);
+			}
+		}
+		return found;
+	}
+
+	private static void solveWithStrings(char[][] board, int r, int c,
+			String prefix, boolean[][] used, Set<String> found) {
+		if (r < 0 || c < 0 || r >= board.length || c >= board.length || used[r][c]) {
+			return;
+		}
+		String word = prefix + board[r][c];
+		if (!lex.containsPrefix(word)) {
+			return;
+		}
+		if (word.length() >= MIN_WORD_LENGTH && lex.contains(word)) {
+			found.add(word);
+		}
+		used[r][c] = true;
+		for (int dr = -1; dr <= 1; dr++) {
+			for (int dc = -1; dc <= 1; dc++) {
+				solveWithStrings(board, r + dr, c + dc, word, used, found);
+			}
+		}
+		used[r][c] = false;
+	}
+
+	private static Set<String> solveWithCursor(char[][] board) {
+		Set<String> found = new TreeSet<String>();
+		boolean[][] used = new boolean[board.length][board.length];
+		Lexicon.Cursor cursor = lex.cursor();
+		for (int r = 0; r < board.length; r++) {
+			for (int c = 0; c < board.length; c++) {
+				solveWithCursor(board, cursor, r, c, used, found);
+				assertEquals(0, cursor.length());
+			}
+		}
+		return found;
+	}
+
+	private static void solveWithCursor(char[][] board, Lexicon.Cursor cursor, int r, int c,
+			boolean[][] used, Set<String> found) {
+		if (r < 0 || c < 0 || r >= board.length || c >= board.length || used[r][c]
+				|| !cursor.advance(board[r][c])) {
+			return;
+		}
+		if (cursor.length() >= MIN_WORD_LENGTH && cursor.isWord()) {
+			found.add(cursor.toString());
+		}
+		if (cursor.hasChildren()) {
+			used[r][c] = true;
+			for (int dr = -1; dr <= 1; dr++) {
+				for (int dc = -1; dc <= 1; dc++) {
+					solveWithCursor(board, cursor, r + dr, c + dc, used, found);
+				}
+			}
+			used[r][c] = false;
+		}
+		cursor.retreat();
+	}
+}
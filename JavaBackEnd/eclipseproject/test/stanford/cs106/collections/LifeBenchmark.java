@@ -0,0 +1,123 @@
+/*
+ * @version 2016/12/19
+ * - initial version
+ */
+
+package stanford.cs106.collections;
+
+import java.util.Random;
+
+/**
+ * Measures Game of Life generations per second on square Grid<Boolean>s,
+ * computing each generation two ways: the usual nested loops that count
+ * neighbors with inBounds/get and store into a second grid with set, and
+ * Grid.step with a NeighborFunction.  Both must produce the same grid.
+ *
+ * The 8000x8000 grids need a large heap, such as -Xmx3g.
+ *
+ * Usage: java stanford.cs106.collections.LifeBenchmark [size ...]
+ */
+public class LifeBenchmark {
+	private static final int[] DEFAULT_SIZES = {1000, 8000};
+	private static final int WARMUP_GENERATIONS = 3;
+	private static final long MIN_TIME_NANOS = 3000000000L;   // per measurement
+
+	private static final Grid.NeighborFunction<Boolean, Boolean> LIFE =
+			new Grid.NeighborFunction<Boolean, Boolean>() {
+		public Boolean apply(Grid.Neighborhood<Boolean> cells) {
+			int live = cells.count(Boolean.TRUE);
+			return live == 3 || (live == 2 && cells.get());
+		}
+	};
+
+	public static void main(String[] args) {
+		int[] sizes = DEFAULT_SIZES;
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		System.out.println("threads: " + Runtime.getRuntime().availableProcessors());
+
+		for (int size : sizes) {
+			Grid<Boolean> grid = randomGrid(new Random(42), size);
+
+			// check that both ways agree before timing them
+			Grid<Boolean> expected = loopGeneration(grid);
+			Grid<Boolean> actual = randomGrid(new Random(42), size);
+			actual.step(1, false, LIFE);
+			if (!expected.equals(actual)) {
+				throw new IllegalStateException("step and loops disagree at size " + size);
+			}
+			expected = null;
+
+			double loopRate = measureLoops(grid);
+			double stepRate = measureStep(actual);
+			System.out.printf("%dx%d: loops %.2f generations/sec, step %.2f generations/sec (%.1fx)%n",
+					size, size, loopRate, stepRate, stepRate / loopRate);
+		}
+	}
+
+	/*
+	 * Computes the next generation with get/set and bounds-checked neighbor counting.
+	 */
+	private static Grid<Boolean> loopGeneration(Grid<Boolean> grid) {
+		Grid<Boolean> next = new Grid<Boolean>(grid.numRows(), grid.numCols());
+		for (int row = 0; row < grid.numRows(); row++) {
+			for (int col = 0; col < grid.numCols(); col++) {
+				int live = 0;
+				for (int dr = -1; dr <= 1; dr++) {
+					for (int dc = -1; dc <= 1; dc++) {
+						if ((dr != 0 || dc != 0) && grid.inBounds(row + dr, col + dc)
+								&& grid.get(row + dr, col + dc)) {
+							live++;
+						}
+					}
+				}
+				next.set(row, col, live == 3 || (live == 2 && grid.get(row, col)));
+			}
+		}
+		return next;
+	}
+
+	private static double measureLoops(Grid<Boolean> grid) {
+		for (int i = 0; i < WARMUP_GENERATIONS; i++) {
+			grid = loopGeneration(grid);
+		}
+		int generations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			grid = loopGeneration(grid);
+			generations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME_NANOS);
+		return generations * 1e9 / elapsed;
+	}
+
+	private static double measureStep(Grid<Boolean> grid) {
+		for (int i = 0; i < WARMUP_GENERATIONS; i++) {
+			grid.step(1, false, LIFE);
+		}
+		int generations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			grid.step(1, false, LIFE);
+			generations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_TIME_NANOS);
+		return generations * 1e9 / elapsed;
+	}
+
+	private static Grid<Boolean> randomGrid(Random rand, int size) {
+		Grid<Boolean> grid = new Grid<Boolean>(size, size);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				grid.set(row, col, rand.nextInt(4) == 0);
+			}
+		}
+		return grid;
+	}
+}
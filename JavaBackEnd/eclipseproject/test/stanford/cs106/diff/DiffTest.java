@@ -0,0 +1,75 @@
+/*
+ * @version 2016/12/20
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks Diff's output, particularly that blank lines in a student's output
+ * are never used to line it up with the expected output.
+ */
+public class DiffTest {
+	@Test
+	public void sameTextHasNoDifferences() {
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("a\nb\n\nc\n", "a\nb\n\nc"));
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("a\r\nb\r\n", "a\nb\n"));
+		assertTrue(Diff.diffAsList("a\n\nb", "a\n\nb").isEmpty());
+	}
+
+	@Test
+	public void changedLineIsReported() {
+		assertEquals("Line 2 does not match\nEXPECTED < b\nSTUDENT  > x",
+				Diff.diff("a\nb\nc", "a\nx\nc"));
+		List<Diff.Difference> diffs = Diff.diffAsList("a\nb\nc", "a\nx\nc");
+		assertEquals(Diff.Difference.Type.MODIFY, diffs.get(0).type);
+		assertEquals(1, diffs.get(0).expectedStart);
+		assertEquals(1, diffs.get(0).actualStart);
+	}
+
+	@Test
+	public void blankExpectedLineDoesNotAnchorJunk() {
+		String expected = "Line 1 changed to student line 1-3\nEXPECTED < \nSTUDENT  > junk\nSTUDENT  > \nSTUDENT  > junk";
+		assertEquals(expected, Diff.diff("", "junk\n\njunk", Diff.IGNORE_LEADING));
+		assertEquals(expected, Diff.diff("", "junk\n\njunk", 0));
+	}
+
+	@Test
+	public void leadingBlankLineDoesNotHideGarbage() {
+		assertEquals("Line 1 changed to student line 1-2\nEXPECTED < \nSTUDENT  > garbage\nSTUDENT  >",
+				Diff.diff("\nDone", "garbage\n\nDone", Diff.IGNORE_LEADING));
+	}
+
+	@Test
+	public void blankLinesWithNonNumbersIgnored() {
+		// with no numbers, every line is blank and matches at its own place
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("", "junk\n\njunk", Diff.IGNORE_NONNUMBERS));
+		assertFalse(Diff.NO_DIFFS_MESSAGE.equals(Diff.diff("\n1", "2\n\n1", Diff.IGNORE_NONNUMBERS | Diff.IGNORE_LEADING)));
+	}
+
+	@Test
+	public void blankLinesAtSamePlaceMatch() {
+		assertEquals("Line 3 does not match\nEXPECTED < b\nSTUDENT  > x",
+				Diff.diff("a\n\nb\nc", "a\n\nx\nc"));
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("Foo\nbar\n\n", "Foo\nbar\nFoo\n"));
+	}
+
+	@Test
+	public void leadingOutputIsIgnored() {
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("a\nb", "junk\na\nb", Diff.IGNORE_LEADING));
+		assertFalse(Diff.NO_DIFFS_MESSAGE.equals(Diff.diff("a\nb", "junk\na\nb", 0)));
+	}
+
+	@Test
+	public void blankLinesIgnored() {
+		assertEquals(Diff.NO_DIFFS_MESSAGE, Diff.diff("a\n\nb", "a\nb\n\n\n", Diff.IGNORE_BLANK_LINES));
+		assertEquals("Line 2 deleted near student line 5\nEXPECTED <",
+				Diff.diff("foo\n  \n", "baz\n\n\nqux 1\nfoo\n", Diff.IGNORE_LEADING));
+	}
+}
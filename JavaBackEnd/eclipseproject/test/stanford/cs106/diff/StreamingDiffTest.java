@@ -0,0 +1,199 @@
+/*
+ * @version 2016/12/21
+ * - initial version
+ */
+
+package stanford.cs106.diff;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Checks that StreamingDiff finds the same regions as Diff.diffAsList, and
+ * nothing exactly when Diff.diff finds no differences.
+ */
+public class StreamingDiffTest {
+	private static final String[] LINES = {"", "", " ", "  ", "foo", "Foo", "bar", "baz.", "qux 1", "qux 2", "1.25", "  x"};
+
+	// every flag but IGNORE_LINEORDER, which StreamingDiff doesn't support,
+	// and IGNORE_BLANK_LINES, with which whether a region is shown at all can
+	// depend on which of several equally short ways the lines are matched up
+	private static final int[] FLAGS = {
+		Diff.IGNORE_LEADING, Diff.IGNORE_TRAILING, Diff.IGNORE_WHITESPACE, Diff.IGNORE_CASE,
+		Diff.IGNORE_NUMBERS, Diff.IGNORE_NONNUMBERS, Diff.IGNORE_PUNCTUATION,
+		Diff.IGNORE_AFTERDECIMAL, Diff.IGNORE_CHARORDER
+	};
+
+	@Test
+	public void trailingEmptyLinesAreNotLines() throws IOException {
+		assertSameAsDiff("Foo\nbar\n\n", "Foo\nbar\nFoo\n", 0);
+		assertSameAsDiff("a\n\n\n", "a\n\n\nb", Diff.IGNORE_TRAILING);
+		assertSameAsDiff("a\n...\n", "a\n", Diff.IGNORE_PUNCTUATION);
+		assertSameAsDiff("", "\n", 0);
+		assertSameAsDiff("...", "x", Diff.IGNORE_PUNCTUATION);
+	}
+
+	@Test
+	public void trailingWhitespaceOnlyIgnoredWhenTextsAreOtherwiseSame() throws IOException {
+		assertSameAsDiff("foo\n  \n", "baz\n\n\nqux 1\nfoo\n", Diff.IGNORE_LEADING);
+		assertSameAsDiff("foo\n  \n", "foo\n", 0);
+		assertSameAsDiff("foo  \n \n\t\n", "foo\n\n", 0);
+		assertEquals(0, new StreamingDiff().diff(new StringReader("a\nb  \n "), new StringReader("a\nb")).size());
+	}
+
+	@Test
+	public void blankLinesDoNotAnchorMatches() throws IOException {
+		assertSameAsDiff("", "junk\n\njunk", Diff.IGNORE_LEADING);
+		assertSameAsDiff("", "junk\n\njunk", 0);
+		assertSameAsDiff("\nDone", "garbage\n\nDone", Diff.IGNORE_LEADING);
+	}
+
+	@Test
+	public void randomTextsDifferWhenDiffSaysSo() throws IOException {
+		Random rand = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			int flags = 0;
+			for (int flag : FLAGS) {
+				if (rand.nextInt(4) == 0) {
+					flags |= flag;
+				}
+			}
+			String expected = randomText(rand);
+			String actual = rand.nextBoolean() ? mutate(rand, expected) : randomText(rand);
+			List<Diff.Difference> diffs = new StreamingDiff(flags, Integer.MAX_VALUE, 1000).diff(
+					new StringReader(expected), new StringReader(actual));
+			assertEquals("flags " + flags + ": " + escape(expected) + " vs " + escape(actual),
+					Diff.NO_DIFFS_MESSAGE.equals(Diff.diff(expected, actual, flags)), diffs.isEmpty());
+		}
+	}
+
+	@Test
+	public void regionsMatchDiff() throws IOException {
+		assertSameAsDiff("a\nb\nc\nd", "a\nx\nc\nd\ne", Diff.IGNORE_TRAILING);
+		assertSameAsDiff("a\nb\nc", "c\na\nb", 0);
+		assertSameAsDiff("junk\na\nb", "a\nB\n\n", Diff.IGNORE_CASE);
+		assertSameAsDiff("a\n\nb\n\nc\n", "x\na\n\n\nc", Diff.IGNORE_LEADING);
+		assertSameAsDiff("a\n\n  \nb", "a\nb", Diff.IGNORE_BLANK_LINES);
+	}
+
+	@Test
+	public void smallWindowsStillFindDifferences() throws IOException {
+		StringBuilder expected = new StringBuilder();
+		StringBuilder actual = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			expected.append("line ").append(i).append('\n');
+			actual.append("line ").append(i % 100 == 50 ? -i : i).append('\n');
+		}
+		List<Diff.Difference> diffs = new StreamingDiff(0, 100, 8).diff(
+				new StringReader(expected.toString()), new StringReader(actual.toString()));
+		assertEquals(10, diffs.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Diff.Difference.Type.MODIFY, diffs.get(i).type);
+			assertEquals(100 * i + 50, diffs.get(i).expectedStart);
+			assertEquals(100 * i + 50, diffs.get(i).actualEnd);
+		}
+		assertEquals(3, new StreamingDiff(0, 3, 8).diff(
+				new StringReader(expected.toString()), new StringReader(actual.toString())).size());
+	}
+
+	@Test
+	public void filesAreCompared() throws IOException {
+		Path expected = Files.createTempFile("streamingdiff", ".txt");
+		Path actual = Files.createTempFile("streamingdiff", ".txt");
+		try {
+			Files.write(expected, "héllo\r\nworld\r\n".getBytes(StandardCharsets.UTF_8));
+			Files.write(actual, "héllo\nWorld\n".getBytes(StandardCharsets.UTF_8));
+			List<Diff.Difference> diffs = new StreamingDiff().diff(expected, actual);
+			assertEquals(1, diffs.size());
+			assertEquals("type=MODIFY exp=1 act=1", diffs.get(0).toString());
+			assertTrue(new StreamingDiff(Diff.IGNORE_CASE).diff(expected, actual).isEmpty());
+		} finally {
+			Files.delete(expected);
+			Files.delete(actual);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lineOrderIsRejected() {
+		new StreamingDiff(Diff.IGNORE_LINEORDER);
+	}
+
+	/*
+	 * Checks that StreamingDiff reports the first Difference of each region
+	 * in Diff.diffAsList, leaving out those that Diff.diff does not show,
+	 * for texts whose lines can be matched up in only one shortest way.
+	 */
+	private static void assertSameAsDiff(String expected, String actual, int flags) throws IOException {
+		List<String> want = new ArrayList<String>();
+		List<Diff.Difference> all = Diff.diffAsList(expected, actual, flags);
+		String[] expectedLines = expected.split("\r?\n");
+		String[] actualLines = actual.split("\r?\n");
+		for (int i = 0; i < all.size(); ) {
+			Diff.Difference region = all.get(i);
+			i += 1 + Math.max(0, region.expectedEnd - region.expectedStart + 1)
+					+ Math.max(0, region.actualEnd - region.actualStart + 1);
+			if ((flags & Diff.IGNORE_BLANK_LINES) == 0
+					|| !allBlank(expectedLines, region.expectedStart, region.expectedEnd)
+					|| !allBlank(actualLines, region.actualStart, region.actualEnd)) {
+				want.add(region.toString());
+			}
+		}
+		List<String> got = new ArrayList<String>();
+		for (Diff.Difference diff : new StreamingDiff(flags, Integer.MAX_VALUE, 1000).diff(
+				new StringReader(expected), new StringReader(actual))) {
+			got.add(diff.toString());
+		}
+		String message = "flags " + flags + ": " + escape(expected) + " vs " + escape(actual);
+		assertEquals(message, want, got);
+		assertEquals(message, Diff.NO_DIFFS_MESSAGE.equals(Diff.diff(expected, actual, flags)), got.isEmpty());
+	}
+
+	private static boolean allBlank(String[] lines, int start, int end) {
+		for (int i = start; i <= end && i < lines.length; i++) {
+			if (!lines[i].trim().isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String escape(String text) {
+		return "\"" + text.replace("\n", "\\n").replace("\r", "\\r") + "\"";
+	}
+
+	private static String randomText(Random rand) {
+		StringBuilder sb = new StringBuilder();
+		int count = rand.nextInt(7);
+		for (int i = 0; i < count; i++) {
+			sb.append(LINES[rand.nextInt(LINES.length)]);
+			if (i < count - 1 || rand.nextBoolean()) {
+				sb.append(rand.nextInt(5) == 0 ? "\r\n" : "\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String mutate(Random rand, String text) {
+		List<String> lines = new ArrayList<String>(Arrays.asList(text.split("\n", -1)));
+		int changes = 1 + rand.nextInt(3);
+		for (int i = 0; i < changes; i++) {
+			int index = rand.nextInt(lines.size() + 1);
+			if (index < lines.size() && rand.nextBoolean()) {
+				lines.remove(index);
+			} else {
+				lines.add(index, LINES[rand.nextInt(LINES.length)]);
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines.size(); i++) {
+			sb.append(i == 0 ? "" : "\n").append(lines.get(i));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * @version 2016/12/24
+ * - initial version
+ */
+
+package stanford.cs106.io;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+/**
+ * Checks which buffer OutputRouter sends each thread's output to.
+ */
+public class OutputRouterTest {
+	private PrintStream savedOut;
+	private ByteArrayOutputStream uncaptured;
+
+	@Before
+	public void setUp() {
+		savedOut = System.out;
+		uncaptured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(uncaptured, true));
+	}
+
+	@After
+	public void tearDown() {
+		OutputRouter.stopCapture();
+		System.setOut(savedOut);
+	}
+
+	@Test
+	public void captureIsPerThread() throws Exception {
+		CaptureBuffer buffer = OutputRouter.startCapture(1000, false);
+		System.out.print("captured");
+		Thread other = startPrinting("other");
+		other.join();
+		assertSame(buffer, OutputRouter.stopCapture());
+		System.out.print(" after");
+		assertEquals("captured", buffer.toString());
+		assertEquals("other after", uncaptured.toString());
+		assertFalse(OutputRouter.isCapturing());
+	}
+
+	@Test
+	public void threadsStartedWhileCapturingAreNotCaptured() throws Exception {
+		CaptureBuffer buffer = OutputRouter.startCapture(1000, false);
+		Thread child = startPrinting("child");
+		child.join();
+		OutputRouter.stopCapture();
+		assertEquals("", buffer.toString());
+		assertEquals("child", uncaptured.toString());
+	}
+
+	@Test
+	public void groupCaptureIncludesThreadsStartedLater() throws Exception {
+		final ThreadGroup group = new ThreadGroup("program");
+		CaptureBuffer buffer = new CaptureBuffer(1000);
+		OutputRouter.startGroupCapture(group, buffer);
+		try {
+			Thread program = new Thread(group, new Runnable() {
+				public void run() {
+					System.out.print("main ");
+					Thread child = startPrinting("child");
+					try {
+						child.join();
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			program.start();
+			program.join();
+			System.out.print("grader");
+		} finally {
+			assertSame(buffer, OutputRouter.stopGroupCapture(group));
+		}
+		assertEquals("main child", buffer.toString());
+		assertEquals("grader", uncaptured.toString());
+	}
+
+	@Test
+	public void releasedBufferIsCleared() {
+		CaptureBuffer buffer = OutputRouter.startCapture(1000, false);
+		System.out.print("before");
+		assertEquals("before", buffer.toString());
+		buffer.release();
+		assertFalse(OutputRouter.isCapturing());
+		System.out.print("after");
+		assertEquals("after", uncaptured.toString());
+		assertNull(OutputRouter.stopCapture());
+	}
+
+	private static Thread startPrinting(final String text) {
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				System.out.print(text);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+}
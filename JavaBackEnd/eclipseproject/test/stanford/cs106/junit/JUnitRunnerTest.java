@@ -0,0 +1,109 @@
+/*
+ * @version 2016/12/24
+ * - initial version
+ */
+
+package stanford.cs106.junit;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Checks the results that JUnitRunner reports for tests that pass, fail,
+ * throw what they expect, time out, or whose class can't be constructed.
+ */
+public class JUnitRunnerTest {
+	@Test
+	public void resultsAreReported() throws Exception {
+		Map<String, String> results = run(Sample.class);
+		assertEquals("pass", results.get("passes"));
+		assertEquals("fail", results.get("fails"));
+		assertEquals("pass", results.get("throwsExpected"));
+		assertEquals("fail", results.get("missesExpected"));
+		assertEquals("fail", results.get("timesOut"));
+	}
+
+	@Test
+	public void constructorExceptionFailsEveryTest() throws Exception {
+		Map<String, String> results = run(ThrowingConstructor.class);
+		assertEquals("fail", results.get("passes"));
+		// the constructor's exception is not the one the test expected to throw
+		assertEquals("fail", results.get("throwsExpected"));
+		assertTrue(results.get("throwsExpected.details").contains("IllegalStateException"));
+	}
+
+	private static Map<String, String> run(Class<?> junitClass) {
+		List<Method> methods = new ArrayList<Method>();
+		for (Method method : junitClass.getMethods()) {
+			if (method.isAnnotationPresent(Test.class)) {
+				methods.add(method);
+			}
+		}
+		final Map<String, String> results = new HashMap<String, String>();
+		new JUnitRunner(2).run(junitClass, methods, new JUnitListener() {
+			public void setTestCounts(int passCount, int testCount) {}
+			public void setTestDetails(String testName, Map<String, String> details) {
+				results.put(testName + ".details", details.toString());
+			}
+			public void setTestDetailsMessage(String testName, String detailsMessage) {
+				results.put(testName + ".details", detailsMessage);
+			}
+			public void setTestingCompleted(boolean completed) {}
+			public boolean setTestResult(String testName, String result) {
+				results.put(testName, result);
+				return true;
+			}
+			public boolean setTestRuntime(String testName, int runtimeMS) {
+				return true;
+			}
+		});
+		return results;
+	}
+
+	public static class Sample {
+		@Test
+		public void passes() {
+			// nothing to check
+		}
+
+		@Test
+		public void fails() {
+			fail("failed");
+		}
+
+		@Test(expected = IllegalStateException.class)
+		public void throwsExpected() {
+			throw new IllegalStateException();
+		}
+
+		@Test(expected = IllegalStateException.class)
+		public void missesExpected() {
+			// throws nothing
+		}
+
+		@Test(timeout = 100)
+		public void timesOut() throws InterruptedException {
+			Thread.sleep(10000);
+		}
+	}
+
+	public static class ThrowingConstructor {
+		public ThrowingConstructor() {
+			throw new IllegalStateException("constructor failed");
+		}
+
+		@Test
+		public void passes() {
+			// nothing to check
+		}
+
+		@Test(expected = IllegalStateException.class)
+		public void throwsExpected() {
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * @version 2016/12/27
+ * - initial version
+ */
+
+package stanford.cs106.reflect;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Checks that InMemoryCompiler reuses cached code only when it was compiled
+ * against the same versions of the classes it uses.
+ */
+public class InMemoryCompilerTest {
+	private static final String USER = "public class User { public static String run() { return \"\" + Helper.h(); } }";
+	private static final String INT_HELPER = "public class Helper { public static int h() { return 1; } }";
+	private static final String LONG_HELPER = "public class Helper { public static long h() { return 2L; } }";
+
+	@Before
+	public void clearCache() {
+		InMemoryCompiler.clearCache();
+	}
+
+	@Test
+	public void sameSourcesAreCached() {
+		Map<String, byte[]> first = InMemoryCompiler.compile(sources(INT_HELPER));
+		Map<String, byte[]> second = InMemoryCompiler.compile(sources(INT_HELPER));
+		assertEquals(first.keySet(), second.keySet());
+		for (String className : first.keySet()) {
+			assertSame(className, first.get(className), second.get(className));
+		}
+	}
+
+	@Test
+	public void unitIsRecompiledWhenClassItUsesChanges() throws Exception {
+		assertEquals("1", run(sources(INT_HELPER)));
+		// User's text is unchanged, but its call to h() must now expect a long
+		assertEquals("2", run(sources(LONG_HELPER)));
+		assertEquals("1", run(sources(INT_HELPER)));
+	}
+
+	@Test
+	public void unitAloneIsNotReusedInCall() throws Exception {
+		InMemoryCompiler.compile("Helper", INT_HELPER);
+		Map<String, byte[]> alone = InMemoryCompiler.compile("Helper", LONG_HELPER);
+		Map<String, byte[]> together = InMemoryCompiler.compile(sources(LONG_HELPER));
+		assertNotSame(alone.get("Helper"), together.get("Helper"));
+		assertEquals("2", run(sources(LONG_HELPER)));
+	}
+
+	private static Map<String, String> sources(String helper) {
+		Map<String, String> sources = new LinkedHashMap<String, String>();
+		sources.put("User", USER);
+		sources.put("Helper", helper);
+		return sources;
+	}
+
+	private static Object run(Map<String, String> sources) throws Exception {
+		Class<?> user = InMemoryCompiler.compileAndLoad(sources).get("User");
+		return user.getMethod("run").invoke(null);
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * @version 2016/12/28
+ * - renamed from SimpleServerLoadTest and moved to the test source folder
+ * @version 2016/12/11
+ * - initial version
+ */
+
+package stanford.cs106.server;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class: SimpleServerBenchmark
+ * ----------------------------
+ * A local load benchmark for SimpleServer.  Starts the server on a free port
+ * with a stand-in for the C++ program that answers each request from a
+ * single thread after a fixed delay, as the C++ event loop would.  Several
+ * client threads then send requests as fast as they can for a fixed time,
+ * and the benchmark reports requests per second, median and 99th percentile
+ * latency, and how many requests were refused with 503 because the stand-in
+ * fell behind.
+ *
+ * Usage: java stanford.cs106.server.SimpleServerBenchmark
+ *            [clients] [seconds] [responseDelayMicros] [maxPendingRequests]
+ */
+public class SimpleServerBenchmark {
+	private static final int DEFAULT_CLIENTS = 32;
+	private static final int DEFAULT_SECONDS = 10;
+	private static final int DEFAULT_RESPONSE_DELAY_MICROS = 50;
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+		int seconds = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+		final long delayMicros = args.length >= 3 ? Long.parseLong(args[2]) : DEFAULT_RESPONSE_DELAY_MICROS;
+		int maxPending = args.length >= 4 ? Integer.parseInt(args[3]) : SimpleServer.DEFAULT_MAX_PENDING_REQUESTS;
+
+		final SimpleServer server = new SimpleServer(findFreePort());
+		server.setMaxPendingRequests(maxPending);
+		final BlockingQueue<Integer> requests = new LinkedBlockingQueue<Integer>();
+		server.setRequestListener(new SimpleServer.RequestListener() {
+			public void requestReceived(int requestID, String requestUrl) {
+				requests.add(requestID);
+			}
+		});
+		Thread responder = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (true) {
+						int requestID = requests.take();
+						if (delayMicros > 0) {
+							busyWait(delayMicros * 1000);
+						}
+						server.sendResponse(requestID, 200, "text/plain", "response " + requestID);
+					}
+				} catch (InterruptedException ie) {
+					// done
+				}
+			}
+		}, "responder");
+		responder.setDaemon(true);
+		responder.start();
+		server.start();
+
+		final URL url = new URL("http://localhost:" + server.getPort() + "/load");
+		final long endTime = System.nanoTime() + seconds * 1000000000L;
+		final AtomicInteger refused = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		final List<long[]> allLatencies = Collections.synchronizedList(new ArrayList<long[]>());
+		Thread[] threads = new Thread[clients];
+		for (int i = 0; i < clients; i++) {
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					long[] latencies = new long[1024];
+					int count = 0;
+					while (System.nanoTime() < endTime) {
+						long start = System.nanoTime();
+						int status = fetch(url);
+						long latency = System.nanoTime() - start;
+						if (status == 200) {
+							if (count == latencies.length) {
+								latencies = Arrays.copyOf(latencies, count * 2);
+							}
+							latencies[count++] = latency;
+						} else if (status == 503) {
+							refused.incrementAndGet();
+						} else {
+							failed.incrementAndGet();
+						}
+					}
+					allLatencies.add(Arrays.copyOf(latencies, count));
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		server.stop();
+
+		int total = 0;
+		for (long[] latencies : allLatencies) {
+			total += latencies.length;
+		}
+		long[] merged = new long[total];
+		int pos = 0;
+		for (long[] latencies : allLatencies) {
+			System.arraycopy(latencies, 0, merged, pos, latencies.length);
+			pos += latencies.length;
+		}
+		Arrays.sort(merged);
+		System.out.printf("%d clients, %d s, %d us per response, max %d pending%n",
+				clients, seconds, delayMicros, maxPending);
+		System.out.printf("  %.0f requests/s answered, %d refused (503), %d failed%n",
+				total / (double) seconds, refused.get(), failed.get());
+		if (total > 0) {
+			System.out.printf("  latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+					percentile(merged, 0.50) / 1e6, percentile(merged, 0.99) / 1e6,
+					merged[total - 1] / 1e6);
+		}
+	}
+
+	/*
+	 * Sends one GET request and reads the whole response; returns the HTTP status, or -1.
+	 */
+	private static int fetch(URL url) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			int status = connection.getResponseCode();
+			InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+			if (input != null) {
+				byte[] buffer = new byte[4096];
+				while (input.read(buffer) >= 0) {
+					// drain so the connection can be reused
+				}
+				input.close();
+			}
+			return status;
+		} catch (IOException ioe) {
+			return -1;
+		}
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		int index = (int) Math.ceil(fraction * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	private static void busyWait(long nanos) {
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end) {
+			// simulates the C++ program's work on one request
+		}
+	}
+
+	private static int findFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * @version 2016/12/11
+ * - initial version
+ */
+
+package stanford.cs106.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+/**
+ * Checks that SimpleServer passes each request to its listener and returns
+ * that request's own response, refuses requests beyond the pending limit,
+ * times out abandoned requests, and ignores responses that come too late.
+ */
+public class SimpleServerTest {
+	private SimpleServer server;
+	private BlockingQueue<Object[]> requests;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new SimpleServer(findFreePort());
+		requests = new LinkedBlockingQueue<Object[]>();
+		server.setRequestListener(new SimpleServer.RequestListener() {
+			public void requestReceived(int requestID, String requestUrl) {
+				requests.add(new Object[] {requestID, requestUrl});
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Test
+	public void concurrentRequestsGetTheirOwnResponses() throws Exception {
+		server.start();
+		Thread responder = startEchoResponder();
+		final int clients = 8;
+		final int requestsPerClient = 25;
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int c = 0; c < clients; c++) {
+				final int client = c;
+				results.add(pool.submit(new Callable<String>() {
+					public String call() throws IOException {
+						for (int i = 0; i < requestsPerClient; i++) {
+							String path = "/client" + client + "/request" + i + "?q=é";
+							String[] response = fetch(path);
+							if (!response[0].equals("200") || !response[1].equals("echo " + path)) {
+								return path + " got " + Arrays.toString(response);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<String> result : results) {
+				assertNull(result.get(30, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdownNow();
+			responder.interrupt();
+		}
+		assertEquals(0, server.getPendingRequestCount());
+	}
+
+	@Test
+	public void requestsBeyondLimitAreRefused() throws Exception {
+		server.setMaxPendingRequests(1);
+		server.start();
+		Future<String[]> first = fetchLater("/first");
+		Object[] request = requests.poll(10, TimeUnit.SECONDS);
+		assertNotNull(request);
+		assertEquals(1, server.getPendingRequestCount());
+
+		assertEquals("503", fetch("/second")[0]);
+
+		assertTrue(server.sendResponse((Integer) request[0], 200, "text/plain", "done"));
+		assertEquals("done", first.get(10, TimeUnit.SECONDS)[1]);
+		assertEquals(0, server.getPendingRequestCount());
+	}
+
+	@Test
+	public void lateResponseIsIgnored() throws Exception {
+		server.setRequestTimeout(100);
+		server.start();
+		Future<String[]> response = fetchLater("/slow");
+		Object[] request = requests.poll(10, TimeUnit.SECONDS);
+		assertNotNull(request);
+
+		// the timeout sweep answers 504 while the C++ program is still busy
+		assertEquals("504", response.get(10, TimeUnit.SECONDS)[0]);
+		assertEquals(0, server.getPendingRequestCount());
+
+		int requestID = (Integer) request[0];
+		assertFalse(server.sendResponse(requestID, 200, "text/plain", "too late"));
+		File file = File.createTempFile("simpleserver", ".txt");
+		try {
+			assertFalse(server.sendResponseFile(requestID, 200, "text/plain", file.getPath()));
+		} finally {
+			file.delete();
+		}
+		assertEquals(0, server.getPendingRequestCount());
+	}
+
+	@Test
+	public void secondResponseIsIgnored() throws Exception {
+		server.start();
+		Future<String[]> response = fetchLater("/once");
+		Object[] request = requests.poll(10, TimeUnit.SECONDS);
+		assertNotNull(request);
+		int requestID = (Integer) request[0];
+		assertTrue(server.sendResponse(requestID, 200, "text/plain", "first"));
+		assertFalse(server.sendResponse(requestID, 200, "text/plain", "second"));
+		assertEquals("first", response.get(10, TimeUnit.SECONDS)[1]);
+		assertFalse(server.sendResponse(requestID + 1000, 200, "text/plain", "unknown"));
+	}
+
+	@Test
+	public void fileResponseIsSent() throws Exception {
+		File file = File.createTempFile("simpleserver", ".html");
+		try {
+			Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+			out.write("<p>héllo</p>");
+			out.close();
+			server.start();
+			Future<String[]> response = fetchLater("/page");
+			Object[] request = requests.poll(10, TimeUnit.SECONDS);
+			assertNotNull(request);
+			assertTrue(server.sendResponseFile((Integer) request[0], 200, "text/html", file.getPath()));
+			String[] result = response.get(10, TimeUnit.SECONDS);
+			assertEquals("200", result[0]);
+			assertEquals("<p>héllo</p>", result[1]);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/*
+	 * Answers each request from a single thread, as the C++ event loop would.
+	 */
+	private Thread startEchoResponder() {
+		Thread responder = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (true) {
+						Object[] request = requests.take();
+						server.sendResponse((Integer) request[0], 200, "text/plain; charset=utf-8",
+								"echo " + URLDecoder.decode((String) request[1], "UTF-8"));
+					}
+				} catch (InterruptedException ie) {
+					// done
+				} catch (UnsupportedEncodingException uee) {
+					throw new AssertionError(uee);
+				}
+			}
+		}, "responder");
+		responder.setDaemon(true);
+		responder.start();
+		return responder;
+	}
+
+	private Future<String[]> fetchLater(final String path) {
+		FutureTask<String[]> task = new FutureTask<String[]>(new Callable<String[]>() {
+			public String[] call() throws IOException {
+				return fetch(path);
+			}
+		});
+		Thread thread = new Thread(task, "client");
+		thread.setDaemon(true);
+		thread.start();
+		return task;
+	}
+
+	/*
+	 * Sends one GET request; returns the HTTP status and the body as UTF-8 text.
+	 */
+	private String[] fetch(String path) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + path.replace("é", "%C3%A9"));
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		int status = connection.getResponseCode();
+		InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		if (input != null) {
+			byte[] buffer = new byte[4096];
+			for (int count = input.read(buffer); count >= 0; count = input.read(buffer)) {
+				body.write(buffer, 0, count);
+			}
+			input.close();
+		}
+		return new String[] {String.valueOf(status), body.toString("UTF-8")};
+	}
+
+	private static int findFreePort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		try {
+			return socket.getLocalPort();
+		} finally {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * @version 2016/12/07
+ * - initial version
+ */
+
+package stanford.spl;
+
+import acm.util.TokenScanner;
+
+/**
+ * Compares how many Swing-thread commands per second JBECommandDispatcher can run
+ * when every command gets its own invokeAndWait (the old behavior) versus
+ * when commands waiting on the pipe are batched into one event-thread task.
+ * The commands parse a GObject.setLocation-style argument list and do nothing else.
+ *
+ * Usage: java stanford.spl.CommandBatchBenchmark [commandCount] [rounds]
+ */
+public class CommandBatchBenchmark {
+	private static final int DEFAULT_COMMAND_COUNT = 200000;
+	private static final int DEFAULT_ROUNDS = 5;
+	private static final String LINE = "GObject.setLocation(\"0x7f001234\", 120.5, 80.25)";
+
+	public static void main(String[] args) {
+		int commandCount = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_COMMAND_COUNT;
+		int rounds = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+		for (int round = 1; round <= rounds; round++) {
+			double unbatched = run(new JBECommandDispatcher(null, /* batching */ false),
+					new LocationCommand(/* fireAndForget */ false), commandCount);
+			double batched = run(new JBECommandDispatcher(null, /* batching */ true),
+					new LocationCommand(/* fireAndForget */ true), commandCount);
+			System.out.printf("round %d: invokeAndWait per command %,.0f commands/sec, batched %,.0f commands/sec (%.1fx)%n",
+					round, unbatched, batched, batched / unbatched);
+		}
+		System.exit(0);
+	}
+
+	private static double run(JBECommandDispatcher dispatcher, JBECommand command, int commandCount) {
+		long start = System.nanoTime();
+		for (int i = 0; i < commandCount; i++) {
+			// pretend the rest of the commands are already waiting on the pipe
+			dispatcher.dispatch(command, LINE, /* moreInputWaiting */ i < commandCount - 1);
+		}
+		dispatcher.flush(/* wait */ true);
+		return commandCount / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private static class LocationCommand extends JBESwingCommand {
+		private final boolean fireAndForget;
+		private double checksum;
+
+		public LocationCommand(boolean fireAndForget) {
+			this.fireAndForget = fireAndForget;
+		}
+
+		@Override
+		public boolean isFireAndForget() {
+			return fireAndForget;
+		}
+
+		public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+			paramTokenScanner.verifyToken("(");
+			String id = nextString(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double x = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double y = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(")");
+			checksum += id.length() + x + y;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * @version 2016/12/06
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Measures frames per second when presenting a full window of pixels at several
+ * common window sizes: through the Base64 text encoding used by GWindow.setPixels,
+ * and through a memory-mapped shared framebuffer as used by GWindow.presentFrame.
+ * Only the back end's side of each transfer is timed; no window is shown.
+ *
+ * Usage: java stanford.spl.FramebufferBenchmark [frames]
+ */
+public class FramebufferBenchmark {
+	private static final int DEFAULT_FRAMES = 60;
+	private static final int[][] SIZES = {
+		{640, 480},
+		{1280, 720},
+		{1920, 1080},
+	};
+
+	public static void main(String[] args) throws IOException {
+		int frames = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+		for (int[] size : SIZES) {
+			int width = size[0];
+			int height = size[1];
+			double base64Fps = runBase64(width, height, frames);
+			double sharedFps = runShared(width, height, frames);
+			System.out.printf("%dx%d: base64 %.1f fps, shared framebuffer %.1f fps (%.1fx)%n",
+					width, height, base64Fps, sharedFps, sharedFps / base64Fps);
+		}
+	}
+
+	private static double runBase64(int width, int height, int frames) {
+		BufferedImage source = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		long start = System.nanoTime();
+		for (int frame = 0; frame < frames; frame++) {
+			source.setRGB(frame % width, frame % height, 0xff000000 | frame);
+			String base64 = GBufferedImage.toStringBase64(source);
+			GBufferedImage.fromStringBase64(base64, canvas);
+		}
+		return frames / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private static double runShared(int width, int height, int frames) throws IOException {
+		File file = File.createTempFile("spl-framebuffer", ".bin");
+		file.deleteOnExit();
+		long bytes = (long) width * height * 4;
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		IntBuffer framebuffer;
+		try {
+			raf.setLength(bytes);
+			MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+			framebuffer = mapped.order(ByteOrder.nativeOrder()).asIntBuffer();
+		} finally {
+			raf.close();
+		}
+
+		BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		long start = System.nanoTime();
+		for (int frame = 0; frame < frames; frame++) {
+			// stands in for the C++ process drawing into its mapping of the file
+			framebuffer.put((frame % height) * width + frame % width, 0xff000000 | frame);
+			GBufferedImage.setPixels(canvas, 0, 0, width, height, framebuffer);
+		}
+		return frames / ((System.nanoTime() - start) / 1e9);
+	}
+}
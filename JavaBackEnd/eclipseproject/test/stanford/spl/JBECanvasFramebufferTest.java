@@ -0,0 +1,108 @@
+/*
+ * @version 2016/12/06
+ * - initial version
+ */
+
+package stanford.spl;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import javax.swing.SwingUtilities;
+
+import org.junit.*;
+
+/**
+ * Checks that pixels written into a shared framebuffer file, as the C++
+ * process does through its own mapping, appear on the canvas after presentFrame.
+ */
+public class JBECanvasFramebufferTest {
+	private static final int WIDTH = 64;
+	private static final int HEIGHT = 48;
+
+	private File file;
+	private JBECanvas canvas;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("spl-framebuffer", ".bin");
+		canvas = new JBECanvas("0x1", WIDTH, HEIGHT);
+		canvas.setSize(WIDTH, HEIGHT);
+		// the canvas resizes its image when the resize event is dispatched
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+				// empty
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		canvas.unmapFramebuffer();
+		file.delete();
+	}
+
+	@Test
+	public void presentFrameCopiesFramebufferOntoCanvas() throws IOException {
+		canvas.mapFramebuffer(file.getPath(), WIDTH, HEIGHT);
+		assertTrue(canvas.hasFramebuffer());
+		assertEquals((long) WIDTH * HEIGHT * 4, file.length());
+
+		IntBuffer pixels = mapAsCppWould(file);
+		for (int i = 0; i < WIDTH * HEIGHT; i++) {
+			pixels.put(i, 0xff000000 | (i * 0x010203));
+		}
+		canvas.presentFrame();
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals("pixel (" + x + ", " + y + ")", pixels.get(y * WIDTH + x), canvas.getRGB(x, y));
+			}
+		}
+
+		// later frames overwrite only what changed
+		pixels.put(5 * WIDTH + 7, 0xff123456);
+		canvas.presentFrame();
+		assertEquals(0xff123456, canvas.getRGB(7, 5));
+		assertEquals(pixels.get(5 * WIDTH + 8), canvas.getRGB(8, 5));
+	}
+
+	@Test
+	public void mapFramebufferResizesExistingFile() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(10);
+		} finally {
+			raf.close();
+		}
+		canvas.mapFramebuffer(file.getPath(), 16, 8);
+		assertEquals(16 * 8 * 4, file.length());
+	}
+
+	@Test
+	public void presentFrameWithoutFramebufferDoesNothing() {
+		int before = canvas.getRGB(0, 0);
+		assertFalse(canvas.hasFramebuffer());
+		canvas.presentFrame();
+		assertEquals(before, canvas.getRGB(0, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void oversizedFramebufferIsRejected() throws IOException {
+		canvas.mapFramebuffer(file.getPath(), 40000, 40000);
+	}
+
+	/*
+	 * Maps the file the way the C++ process does: native-order uint32 pixels.
+	 */
+	private static IntBuffer mapAsCppWould(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+			return mapped.order(ByteOrder.nativeOrder()).asIntBuffer();
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * @version 2016/12/07
+ * - initial version
+ */
+
+package stanford.spl;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import acm.util.TokenScanner;
+
+/**
+ * Checks that JBECommandDispatcher runs every command exactly once, in the
+ * order sent, on the right thread, whether or not batching is enabled.
+ */
+public class JBECommandDispatcherTest {
+	private static final String LINE = "GObject.setLocation(\"0x7f001234\", 120.5, 80.25)";
+
+	private final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+
+	@Test
+	public void fireAndForgetCommandsWaitForBarrier() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		for (int i = 0; i < 3; i++) {
+			dispatcher.dispatch(new SwingCommand("set" + i, /* fireAndForget */ true), LINE, /* moreInputWaiting */ true);
+		}
+		// still waiting for the rest of the pipe's input
+		assertEquals(Collections.emptyList(), log);
+
+		dispatcher.dispatch(new SwingCommand("get", /* fireAndForget */ false), LINE, /* moreInputWaiting */ true);
+		assertEquals(Arrays.asList("set0 swing", "set1 swing", "set2 swing", "get swing"), log);
+	}
+
+	@Test
+	public void batchRunsWhenInputRunsOut() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		dispatcher.dispatch(new SwingCommand("a", true), LINE, /* moreInputWaiting */ true);
+		dispatcher.dispatch(new SwingCommand("b", true), LINE, /* moreInputWaiting */ false);
+		waitForSwingThread();
+		assertEquals(Arrays.asList("a swing", "b swing"), log);
+	}
+
+	@Test
+	public void otherCommandsRunAfterPendingBatchOnCallingThread() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		dispatcher.dispatch(new SwingCommand("a", true), LINE, true);
+		dispatcher.dispatch(new SwingCommand("b", true), LINE, true);
+		dispatcher.dispatch(new LoopCommand("c"), LINE, true);
+		assertEquals(Arrays.asList("a swing", "b swing", "c loop"), log);
+	}
+
+	@Test
+	public void fullBatchIsFlushed() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		for (int i = 0; i < JBECommandDispatcher.MAX_BATCH_SIZE; i++) {
+			dispatcher.dispatch(new SwingCommand("x", true), LINE, /* moreInputWaiting */ true);
+		}
+		waitForSwingThread();
+		assertEquals(JBECommandDispatcher.MAX_BATCH_SIZE, log.size());
+	}
+
+	@Test
+	public void unbatchedCommandsRunInOrder() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ false);
+		dispatcher.dispatch(new SwingCommand("a", true), LINE, true);
+		dispatcher.dispatch(new SwingCommand("b", false), LINE, true);
+		dispatcher.dispatch(new LoopCommand("c"), LINE, true);
+		dispatcher.dispatch(new SwingCommand("d", true), LINE, false);
+		waitForSwingThread();
+		assertEquals(Arrays.asList("a swing", "b swing", "c loop", "d swing"), log);
+	}
+
+	@Test
+	public void failingCommandDoesNotStopItsBatch() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		dispatcher.dispatch(new SwingCommand("a", true), LINE, true);
+		dispatcher.dispatch(new SwingCommand("fail", true), LINE, true);
+		dispatcher.dispatch(new SwingCommand("b", false), LINE, true);
+		assertEquals(Arrays.asList("a swing", "fail swing", "b swing"), log);
+	}
+
+	@Test
+	public void queuedFramesAreCopied() {
+		JBECommandDispatcher dispatcher = new JBECommandDispatcher(null, /* batching */ true);
+		byte[] buffer = new byte[256];
+		byte[] first = new SplBinaryProtocol.FrameBuilder(0).addString("0x1").addDouble(1.5).addDouble(2.5).toByteArray();
+		System.arraycopy(first, 4, buffer, 0, first.length - 4);
+		dispatcher.dispatch(new SwingCommand("first", true), buffer, first.length - 4, /* moreInputWaiting */ true);
+
+		// the command loop reuses its frame buffer for the next frame
+		byte[] second = new SplBinaryProtocol.FrameBuilder(0).addString("0x2").addDouble(3.5).addDouble(4.5).toByteArray();
+		System.arraycopy(second, 4, buffer, 0, second.length - 4);
+		dispatcher.dispatch(new SwingCommand("second", false), buffer, second.length - 4, true);
+
+		assertEquals(Arrays.asList("first swing", "second swing"), log);
+	}
+
+	private static void waitForSwingThread() {
+		try {
+			SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {
+					// empty
+				}
+			});
+		} catch (Exception e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/*
+	 * Parses GObject.setLocation-style arguments and logs its name and thread.
+	 */
+	private abstract class RecordingCommand extends JBECommand {
+		private final String name;
+
+		public RecordingCommand(String name) {
+			this.name = name;
+		}
+
+		public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+			paramTokenScanner.verifyToken("(");
+			String id = nextString(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double x = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double y = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(")");
+			if (name.equals("first")) {
+				assertEquals("0x1 1.5 2.5", id + " " + x + " " + y);
+			} else if (name.equals("second")) {
+				assertEquals("0x2 3.5 4.5", id + " " + x + " " + y);
+			} else {
+				assertEquals("0x7f001234 120.5 80.25", id + " " + x + " " + y);
+			}
+			log.add(name + (SwingUtilities.isEventDispatchThread() ? " swing" : " loop"));
+			if (name.equals("fail")) {
+				throw new IllegalStateException("expected failure");
+			}
+		}
+	}
+
+	private class SwingCommand extends RecordingCommand {
+		private final boolean fireAndForget;
+
+		public SwingCommand(String name, boolean fireAndForget) {
+			super(name);
+			this.fireAndForget = fireAndForget;
+		}
+
+		@Override
+		public boolean isFireAndForget() {
+			return fireAndForget;
+		}
+
+		@Override
+		public boolean shouldRunOnSwingEventThread() {
+			return true;
+		}
+	}
+
+	private class LoopCommand extends RecordingCommand {
+		public LoopCommand(String name) {
+			super(name);
+		}
+
+		@Override
+		public boolean shouldRunOnSwingEventThread() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * @version 2016/12/28
+ * - initial version
+ */
+
+package stanford.spl;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import acm.util.TokenScanner;
+
+/**
+ * Checks that Regex.matchCountWithLinesBatch writes one ';'-separated result
+ * per pattern, each the same as Regex.matchCountWithLines gives for it alone.
+ */
+public class RegexBatchTest {
+	private static final String TEXT = "hello abcd\nhi abcccd how\n\nabccd are abd you? abccccccd ^_^";
+
+	private PrintStream savedOut;
+	private ByteArrayOutputStream output;
+
+	@Before
+	public void setUp() {
+		savedOut = System.out;
+		output = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(output, true));
+	}
+
+	@After
+	public void tearDown() {
+		System.setOut(savedOut);
+	}
+
+	@Test
+	public void batchJoinsResultsWithSemicolons() {
+		assertEquals("result:4:1,2,4,4;3:1,2,2;0:",
+				runText("Regex.matchCountWithLinesBatch", TEXT, "ab[c]+d", "h[a-z]+", "xyz"));
+	}
+
+	@Test
+	public void batchMatchesSinglePatternCommand() {
+		String[] patterns = {"ab[c]+d", "h[a-z]+", "^", "$", "(?m)^", "o", "xyz", "\\?"};
+		StringBuilder expected = new StringBuilder("result:");
+		for (int i = 0; i < patterns.length; i++) {
+			String single = runText("Regex.matchCountWithLines", TEXT, patterns[i]);
+			expected.append(i > 0 ? ";" : "").append(single.substring("result:".length()));
+		}
+		String[] args = new String[patterns.length + 1];
+		args[0] = TEXT;
+		System.arraycopy(patterns, 0, args, 1, patterns.length);
+		assertEquals(expected.toString(), runText("Regex.matchCountWithLinesBatch", args));
+	}
+
+	@Test
+	public void batchWithNoPatternsWritesEmptyResult() {
+		assertEquals("result:", runText("Regex.matchCountWithLinesBatch", TEXT));
+	}
+
+	@Test
+	public void binaryBatchMatchesText() {
+		String[] args = {TEXT, "ab[c]+d", "h[a-z]+", "xyz"};
+		String expected = runText("Regex.matchCountWithLinesBatch", args);
+		JBECommand[] opcodeTable = SplBinaryProtocol.createOpcodeTable();
+		int opcode = SplBinaryProtocol.getOpcode(opcodeTable, "Regex.matchCountWithLinesBatch");
+		SplBinaryProtocol.FrameBuilder builder = new SplBinaryProtocol.FrameBuilder(opcode);
+		for (String arg : args) {
+			builder.addString(arg);
+		}
+		byte[] frame = builder.toByteArray();
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		scanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length), frame.length - 4);
+		opcodeTable[opcode].execute(scanner, null);
+		assertEquals(expected, takeOutput());
+	}
+
+	/*
+	 * Runs the named command on the given string arguments sent as a text
+	 * command, and returns the line it writes.
+	 */
+	private String runText(String commandName, String... args) {
+		StringBuilder line = new StringBuilder(commandName).append('(');
+		for (int i = 0; i < args.length; i++) {
+			line.append(i > 0 ? ", " : "").append('"').append(SplPipeDecoder.encode(args[i])).append('"');
+		}
+		line.append(')');
+		TokenScanner scanner = new TokenScanner();
+		scanner.ignoreWhitespace();
+		scanner.scanNumbers();
+		scanner.scanStrings();
+		scanner.addWordCharacters(".");
+		scanner.setInput(line.toString());
+		JBECommand.createCommandTable().get(scanner.nextToken()).execute(scanner, null);
+		return takeOutput();
+	}
+
+	private String takeOutput() {
+		String s = output.toString().trim();
+		output.reset();
+		return s;
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * @version 2016/12/04
+ * - initial version
+ */
+
+package stanford.spl;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.Test;
+
+import acm.util.ErrorException;
+import acm.util.TokenScanner;
+
+/**
+ * Checks that commands sent in the binary framed protocol are parsed into the
+ * same argument values as the equivalent text commands.
+ */
+public class SplBinaryProtocolTest {
+	private static final int COMMAND_COUNT = 1000;
+
+	@Test
+	public void textAndBinaryCommandsParseToSameValues() throws IOException {
+		List<String> textValues = parseText(createTextInput(COMMAND_COUNT));
+		List<String> binaryValues = parseBinary(createBinaryInput(COMMAND_COUNT));
+		assertEquals(COMMAND_COUNT, textValues.size());
+		assertEquals(textValues, binaryValues);
+	}
+
+	@Test
+	public void fieldsRoundTrip() {
+		byte[] bytes = {0, 1, (byte) 0xff, 42};
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(7)
+				.addInt(-123456)
+				.addDouble(-0.125)
+				.addBoolean(true)
+				.addBoolean(false)
+				.addString("héllo, \"world\"")
+				.addBytes(bytes)
+				.toByteArray();
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(frame));
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		int length = readFrame(reader);
+		assertEquals(frame.length - 4, length);
+		assertEquals(7, scanner.setFrame(reader.getFrameBuffer(), length));
+		assertEquals(-123456, scanner.readInt());
+		assertEquals(-0.125, scanner.readDouble(), 0.0);
+		assertTrue(scanner.readBoolean());
+		assertFalse(scanner.readBoolean());
+		assertEquals("héllo, \"world\"", scanner.readString());
+		assertArrayEquals(bytes, scanner.readBytes());
+		assertFalse(scanner.hasMoreTokens());
+	}
+
+	@Test
+	public void nextTokenMatchesTextTokens() {
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(3)
+				.addInt(12)
+				.addBoolean(true)
+				.addString("abc")
+				.toByteArray();
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		scanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length), frame.length - 4);
+		assertEquals("12", scanner.nextToken());
+		assertEquals("true", scanner.nextToken());
+		String token = scanner.nextToken();
+		assertEquals("\"abc\"", token);
+		assertEquals("abc", scanner.getStringValue(token));
+		assertEquals("", scanner.nextToken());
+	}
+
+	@Test
+	public void textLinesAndFramesShareOneStream() throws IOException {
+		int opcode = SplBinaryProtocol.getOpcode(SplBinaryProtocol.createOpcodeTable(), "GObject.setLocation");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write((SplBinaryProtocol.HANDSHAKE_COMMAND + "\r\n").getBytes("UTF-8"));
+		bytes.write(new SplBinaryProtocol.FrameBuilder(opcode).addString("0x1").toByteArray());
+		bytes.write(new SplBinaryProtocol.FrameBuilder(SplBinaryProtocol.OPCODE_TEXT_PROTOCOL).toByteArray());
+		bytes.write("GWindow.close(\"0x2\")\n".getBytes("UTF-8"));
+
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(bytes.toByteArray()));
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		assertEquals(SplBinaryProtocol.HANDSHAKE_COMMAND, reader.readLine());
+		assertEquals(opcode, scanner.setFrame(reader.getFrameBuffer(), readFrame(reader)));
+		assertEquals("0x1", scanner.readString());
+		assertEquals(SplBinaryProtocol.OPCODE_TEXT_PROTOCOL, scanner.setFrame(reader.getFrameBuffer(), readFrame(reader)));
+		assertEquals("GWindow.close(\"0x2\")", reader.readLine());
+		assertNull(reader.readLine());
+		assertEquals(-1, reader.readFrame());
+	}
+
+	@Test
+	public void handshakeReplyListsCommandsInOpcodeOrder() {
+		JBECommand[] opcodeTable = SplBinaryProtocol.createOpcodeTable();
+		String reply = SplBinaryProtocol.getHandshakeReply(opcodeTable);
+		assertTrue(reply.startsWith(SplBinaryProtocol.VERSION + ":"));
+		String[] names = reply.substring(reply.indexOf(':') + 1).split(",");
+		assertEquals(opcodeTable.length, names.length);
+		for (int i = 0; i < names.length; i++) {
+			assertEquals(i, SplBinaryProtocol.getOpcode(opcodeTable, names[i]));
+		}
+		assertEquals(-1, SplBinaryProtocol.getOpcode(opcodeTable, "No.suchCommand"));
+	}
+
+	@Test
+	public void optionListsParseToSameValues() {
+		String[][] cases = {
+			{"Pick one", "Title", "c", "a, b", "c"},
+			{"Nothing", "", "", "only"},
+			{"Empty", "T", ""},
+		};
+		int opcode = SplBinaryProtocol.getOpcode(SplBinaryProtocol.createOpcodeTable(), "GOptionPane.showOptionDialog");
+		for (String[] dialog : cases) {
+			List<String> options = Arrays.asList(dialog).subList(3, dialog.length);
+			StringBuilder line = new StringBuilder("GOptionPane.showOptionDialog(");
+			line.append('"').append(SplPipeDecoder.encode(dialog[0])).append("\", ");
+			line.append('"').append(SplPipeDecoder.encode(dialog[1])).append("\", {");
+			for (int i = 0; i < options.size(); i++) {
+				line.append(i > 0 ? ", " : "").append('"').append(SplPipeDecoder.encode(options.get(i))).append('"');
+			}
+			line.append("}, \"").append(SplPipeDecoder.encode(dialog[2])).append("\")");
+			TokenScanner textScanner = createTextScanner();
+			textScanner.setInput(line.toString());
+			assertEquals("GOptionPane.showOptionDialog", textScanner.nextToken());
+			OptionDialogCommand textCommand = new OptionDialogCommand();
+			textCommand.execute(textScanner, null);
+
+			byte[] frame = new SplBinaryProtocol.FrameBuilder(opcode)
+					.addString(dialog[0])
+					.addString(dialog[1])
+					.addStringList(options)
+					.addString(dialog[2])
+					.toByteArray();
+			SplBinaryTokenScanner binaryScanner = new SplBinaryTokenScanner();
+			binaryScanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length), frame.length - 4);
+			OptionDialogCommand binaryCommand = new OptionDialogCommand();
+			binaryCommand.execute(binaryScanner, null);
+			assertFalse(binaryScanner.hasMoreTokens());
+
+			assertEquals(options, textCommand.options);
+			assertEquals(textCommand.values, binaryCommand.values);
+			assertEquals(textCommand.options, binaryCommand.options);
+			assertEquals(dialog[2].isEmpty() ? null : dialog[2], binaryCommand.initiallySelected);
+		}
+	}
+
+	@Test(expected = ErrorException.class)
+	public void overlongListIsRejected() {
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(0).addInt(2).addString("x").toByteArray();
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		scanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length), frame.length - 4);
+		scanner.readStringList();
+	}
+
+	@Test(expected = ErrorException.class)
+	public void wrongFieldTypeIsRejected() {
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(0).addString("x").toByteArray();
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		scanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length), frame.length - 4);
+		scanner.readDouble();
+	}
+
+	@Test(expected = ErrorException.class)
+	public void truncatedFieldIsRejected() {
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(0).addString("hello").toByteArray();
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		scanner.setFrame(Arrays.copyOfRange(frame, 4, frame.length - 2), frame.length - 6);
+		scanner.readString();
+	}
+
+	@Test(expected = EOFException.class)
+	public void truncatedFrameIsRejected() throws IOException {
+		byte[] frame = new SplBinaryProtocol.FrameBuilder(0).addInt(1).toByteArray();
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 1)));
+		reader.readFrame();
+	}
+
+	private static byte[] createTextInput(int commandCount) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(commandCount * 48);
+		Writer out = new OutputStreamWriter(bytes, "UTF-8");
+		for (int i = 0; i < commandCount; i++) {
+			out.write("GObject.setLocation(\"0x" + Integer.toHexString(0x7f000000 + i)
+					+ "\", " + (i % 640 - 320) + ".5, " + (i % 480) + ".25)\n");
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] createBinaryInput(int commandCount) {
+		int opcode = SplBinaryProtocol.getOpcode(SplBinaryProtocol.createOpcodeTable(), "GObject.setLocation");
+		assertTrue(opcode >= 0);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(commandCount * 40);
+		for (int i = 0; i < commandCount; i++) {
+			// text "-0.5" parses as -0.5, not as -1 + 0.5
+			double x = i % 640 - 320;
+			x += x < 0 ? -0.5 : 0.5;
+			byte[] frame = new SplBinaryProtocol.FrameBuilder(opcode)
+					.addString("0x" + Integer.toHexString(0x7f000000 + i))
+					.addDouble(x)
+					.addDouble(i % 480 + 0.25)
+					.toByteArray();
+			bytes.write(frame, 0, frame.length);
+		}
+		return bytes.toByteArray();
+	}
+
+	/*
+	 * Parses text commands exactly as JavaBackEnd.commandLoop does.
+	 */
+	private static List<String> parseText(byte[] input) throws IOException {
+		Map<String, JBECommand> cmdTable = new HashMap<String, JBECommand>();
+		LocationCommand command = new LocationCommand();
+		cmdTable.put("GObject.setLocation", command);
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(input));
+		TokenScanner scanner = createTextScanner();
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			scanner.setInput(line);
+			cmdTable.get(scanner.nextToken()).execute(scanner, null);
+		}
+		return command.values;
+	}
+
+	/*
+	 * Parses binary frames exactly as JavaBackEnd.commandLoop does.
+	 */
+	private static List<String> parseBinary(byte[] input) throws IOException {
+		JBECommand[] opcodeTable = SplBinaryProtocol.createOpcodeTable();
+		LocationCommand command = new LocationCommand();
+		opcodeTable[SplBinaryProtocol.getOpcode(opcodeTable, "GObject.setLocation")] = command;
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(input));
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+		for (int length = reader.readFrame(); length >= 0; length = reader.readFrame()) {
+			int opcode = scanner.setFrame(reader.getFrameBuffer(), length);
+			opcodeTable[opcode].execute(scanner, null);
+		}
+		return command.values;
+	}
+
+	/*
+	 * Returns a scanner set up for text commands as JavaBackEnd's is.
+	 */
+	private static TokenScanner createTextScanner() {
+		TokenScanner scanner = new TokenScanner();
+		scanner.ignoreWhitespace();
+		scanner.scanNumbers();
+		scanner.scanStrings();
+		scanner.addWordCharacters(".");
+		return scanner;
+	}
+
+	private static int readFrame(SplPipeReader reader) {
+		try {
+			return reader.readFrame();
+		} catch (IOException ioe) {
+			throw new AssertionError(ioe);
+		}
+	}
+
+	/*
+	 * Parses its arguments the same way GObject.setLocation does, and records
+	 * them instead of moving any GObject.
+	 */
+	private static class LocationCommand extends JBECommand {
+		private List<String> values = new ArrayList<String>();
+
+		public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+			paramTokenScanner.verifyToken("(");
+			String id = nextString(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double x = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double y = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(")");
+			values.add(id + " " + x + " " + y);
+		}
+	}
+
+	/*
+	 * Parses its arguments as GOptionPane.showOptionDialog does, and records
+	 * them instead of showing a dialog.
+	 */
+	private static class OptionDialogCommand extends GOptionPane_showOptionDialog {
+		private List<String> values = new ArrayList<String>();
+		private List<String> options;
+		private String initiallySelected;
+
+		@Override
+		protected int showOptionDialog(JavaBackEnd paramJavaBackEnd, String message, String title,
+				List<String> options, String initiallySelected) {
+			values.add(message + " " + title);
+			this.options = options;
+			this.initiallySelected = initiallySelected;
+			return -1;
+		}
+	}
+}
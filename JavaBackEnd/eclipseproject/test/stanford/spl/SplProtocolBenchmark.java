@@ -0,0 +1,131 @@
+/*
+ * @version 2016/12/04
+ * - initial version
+ */
+
+package stanford.spl;
+
+import java.io.*;
+import java.util.*;
+
+import acm.util.TokenScanner;
+
+/**
+ * Compares how many commands per second the back end can read and parse
+ * in the text protocol versus the binary framed protocol.
+ * Commands are parsed exactly as JavaBackEnd.commandLoop parses them, but are
+ * executed by a do-nothing command so that no GUI is needed.
+ *
+ * Usage: java stanford.spl.SplProtocolBenchmark [commandCount] [rounds]
+ */
+public class SplProtocolBenchmark {
+	private static final int DEFAULT_COMMAND_COUNT = 500000;
+	private static final int DEFAULT_ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int commandCount = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_COMMAND_COUNT;
+		int rounds = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+		byte[] textInput = createTextInput(commandCount);
+		byte[] binaryInput = createBinaryInput(commandCount);
+		System.out.printf("%d commands per round; text input %d bytes, binary input %d bytes%n",
+				commandCount, textInput.length, binaryInput.length);
+
+		for (int round = 1; round <= rounds; round++) {
+			double textRate = runText(textInput);
+			double binaryRate = runBinary(binaryInput);
+			System.out.printf("round %d: text %,.0f commands/sec, binary %,.0f commands/sec (%.1fx)%n",
+					round, textRate, binaryRate, binaryRate / textRate);
+		}
+	}
+
+	private static byte[] createTextInput(int commandCount) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(commandCount * 48);
+		Writer out = new OutputStreamWriter(bytes, "UTF-8");
+		for (int i = 0; i < commandCount; i++) {
+			out.write("GObject.setLocation(\"0x" + Integer.toHexString(0x7f000000 + i % 1000)
+					+ "\", " + (i % 640) + ".5, " + (i % 480) + ".25)\n");
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] createBinaryInput(int commandCount) {
+		int opcode = SplBinaryProtocol.getOpcode(SplBinaryProtocol.createOpcodeTable(), "GObject.setLocation");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(commandCount * 40);
+		for (int i = 0; i < commandCount; i++) {
+			byte[] frame = new SplBinaryProtocol.FrameBuilder(opcode)
+					.addString("0x" + Integer.toHexString(0x7f000000 + i % 1000))
+					.addDouble(i % 640 + 0.5)
+					.addDouble(i % 480 + 0.25)
+					.toByteArray();
+			bytes.write(frame, 0, frame.length);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static double runText(byte[] input) throws IOException {
+		HashMap<String, JBECommand> cmdTable = new HashMap<String, JBECommand>();
+		LocationCommand command = new LocationCommand();
+		cmdTable.put("GObject.setLocation", command);
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(input));
+		TokenScanner scanner = new TokenScanner();
+		scanner.ignoreWhitespace();
+		scanner.scanNumbers();
+		scanner.scanStrings();
+		scanner.addWordCharacters(".");
+
+		long start = System.nanoTime();
+		int count = 0;
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			scanner.setInput(line);
+			cmdTable.get(scanner.nextToken()).execute(scanner, null);
+			count++;
+		}
+		return rate(count, start, command);
+	}
+
+	private static double runBinary(byte[] input) throws IOException {
+		JBECommand[] opcodeTable = SplBinaryProtocol.createOpcodeTable();
+		LocationCommand command = new LocationCommand();
+		Arrays.fill(opcodeTable, command);
+		SplPipeReader reader = new SplPipeReader(new ByteArrayInputStream(input));
+		SplBinaryTokenScanner scanner = new SplBinaryTokenScanner();
+
+		long start = System.nanoTime();
+		int count = 0;
+		for (int length = reader.readFrame(); length >= 0; length = reader.readFrame()) {
+			int opcode = scanner.setFrame(reader.getFrameBuffer(), length);
+			opcodeTable[opcode].execute(scanner, null);
+			count++;
+		}
+		return rate(count, start, command);
+	}
+
+	private static double rate(int count, long startNanos, LocationCommand command) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		if (command.checksum == 42.0) {
+			// keeps the JIT from discarding the parsed values
+			System.out.print("");
+		}
+		return count / seconds;
+	}
+
+	/*
+	 * Parses its arguments the same way GObject.setLocation does, but does not touch any GObject.
+	 */
+	private static class LocationCommand extends JBECommand {
+		private double checksum;
+
+		public void execute(TokenScanner paramTokenScanner, JavaBackEnd paramJavaBackEnd) {
+			paramTokenScanner.verifyToken("(");
+			String id = nextString(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double x = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(",");
+			double y = nextDouble(paramTokenScanner);
+			paramTokenScanner.verifyToken(")");
+			checksum += id.length() + x + y;
+		}
+	}
+}